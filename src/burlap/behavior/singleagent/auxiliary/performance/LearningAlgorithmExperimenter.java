@@ -1,10 +1,23 @@
 package burlap.behavior.singleagent.auxiliary.performance;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
 import burlap.behavior.singleagent.EpisodeAnalysis;
 import burlap.behavior.singleagent.learning.LearningAgent;
 import burlap.behavior.singleagent.learning.LearningAgentFactory;
 import burlap.debugtools.DPrint;
+import burlap.debugtools.RandomFactory;
 import burlap.oomdp.auxiliary.StateGenerator;
+import burlap.oomdp.core.State;
+import burlap.oomdp.singleagent.ActionObserver;
+import burlap.oomdp.singleagent.GroundedAction;
 import burlap.oomdp.singleagent.RewardFunction;
 import burlap.oomdp.singleagent.SADomain;
 
@@ -16,18 +29,30 @@ import burlap.oomdp.singleagent.SADomain;
  * by default is assumed to be in episodes, but it may also be changed to indicate length in total number of steps using
  * the {@link #toggleTrialLengthInterpretation(boolean)} method.
  * <p/>
- * Performance results are displayed in plots using the {@link PerformancePlotter} class, but visualization may also be
- * disabled with the {@link #toggleVisualPlots(boolean)} method. Results may be saved to csv files after the experiment
- * is complete.
+ * Performance results are recorded with a headless {@link MetricsRecorder} and displayed in plots using the {@link PerformancePlotter} class,
+ * but visualization may also be disabled with the {@link #toggleVisualPlots(boolean)} method, in which case no plotter is used at all. Only the recorder
+ * observes the agents' actions; the plotter is given each trial once it is complete. Results may be saved to csv or binary files after the experiment is complete.
  * <p/>
  * The folow the experimenter is to test an agent for a specified number of trials. At the beginning of each trial, a new agent is generated using the designated
  * LearningAgentFactory and is used for the specified trial length. After all trials are complete for an agent, the next agent is tested. Note that immediately before
- * an agent is generated from an agent factory, the performance plotter is temporarily frozen from collecting data until the new agent is returned. This allows
+ * an agent is generated from an agent factory, the metrics recorder is temporarily frozen from collecting data until the new agent is returned. This allows
  * agent factories to perform offline learning before returning a new agent in the same domain without affecting the experimenter results.
  * <p/>
  * By default the cumulative reward per step will be plotted and if more than one trial is specified, the both the most recent trail and the trial average plot will be shown.
  * If only one trial is specified, then only the most recent trial plot will be shown. To control the kinds of plots displayed use the 
  * {@link #setUpPlottingConfiguration(int, int, int, int, TrialMode, PerformanceMetric...)} method. 
+ * <p/>
+ * The trials of each agent can be run concurrently on a thread pool by using the {@link #setParallelTrials(int)} method. In this mode each trial
+ * records its results in its own {@link TrialRecorder}, without synchronizing with the other trials, and the results of the trials are added to the
+ * recorder and plotter in trial order as they complete, so the plotted results do not depend on the order in which the trials finish. The trials of one agent
+ * are all finished before the trials of the next agent begin. Agent factories and the agents they generate must be safe to use from multiple threads
+ * in this mode; in particular, agents must not share mutable state such as value function tables.
+ * <p/>
+ * Each trial can also be given its own random number stream with the {@link #setTrialSeed(long)} method (the parallel mode always does this).
+ * Trial j of every agent runs with a {@link RandomFactory} set for its thread whose base seed is derived from the trial seed and j, so
+ * the agents of a trial get the same random generators from the {@link RandomFactory} on every run and every agent is compared on the same
+ * streams. Only generators obtained from the {@link RandomFactory} while the trial runs, such as those of the generated agent, are per trial;
+ * generators created before the experiment started, such as those of the domain's actions or the state generator, are shared by all trials.
  * 
  * @author James MacGlashan
  *
@@ -77,7 +102,13 @@ public class LearningAlgorithmExperimenter {
 	
 	
 	/**
-	 * The PerformancePlotter used to collect and plot results
+	 * The MetricsRecorder used to collect results
+	 */
+	protected MetricsRecorder			recorder = null;
+	
+	
+	/**
+	 * The PerformancePlotter used to plot results, or null if results are not plotted
 	 */
 	protected PerformancePlotter		plotter = null;
 	
@@ -112,6 +143,23 @@ public class LearningAlgorithmExperimenter {
 	public int							debugCode = 63634013;
 	
 	
+	/**
+	 * The executor used to run trials concurrently, or null if trials are run one after another
+	 */
+	protected ExecutorService			trialExecutor = null;
+	
+	/**
+	 * Whether the {@link #trialExecutor} was created by this object, in which case it is shut down when it is replaced
+	 */
+	protected boolean					ownsTrialExecutor = false;
+	
+	
+	/**
+	 * The seed from which the seed of each trial is derived, or null if trials are not seeded individually
+	 */
+	protected Long						trialSeed = null;
+	
+	
 	
 	/**
 	 * Initializes.
@@ -188,7 +236,8 @@ public class LearningAlgorithmExperimenter {
 	
 	
 	/**
-	 * Toggles whether plots should be displayed or not.
+	 * Toggles whether plots should be displayed or not. If plots are not displayed, no {@link PerformancePlotter} is used and results are only
+	 * recorded by the headless {@link MetricsRecorder}.
 	 * @param shouldPlotResults if true, then plots will be displayed; if false plots will not be displayed.
 	 */
 	public void toggleVisualPlots(boolean shouldPlotResults){
@@ -205,6 +254,92 @@ public class LearningAlgorithmExperimenter {
 	}
 	
 	
+	/**
+	 * Writes the trial average and confidence interval of every metric at every step or episode for each agent to a csv file. The confidence
+	 * intervals use the significance set with {@link #setPlotCISignificance(double)}. See {@link MetricsRecorder#writeAveragesToCSV(String, double)}
+	 * for the format. If the experimenter as not been run, then nothing will be saved and a warrning message will be printed to indicate as such.
+	 * @param filePath the path to the csv file to write to.
+	 */
+	public void writeAveragesToCSV(String filePath){
+		if(!this.completedExperiment){
+			System.out.println("Cannot write data until the experiment has been started with the startExperiment() method.");
+			return;
+		}
+		this.recorder.writeAveragesToCSV(filePath, this.plotCISignificance);
+	}
+	
+	
+	/**
+	 * Writes the data of every trial to a binary file. See {@link MetricsRecorder#writeBinary(String)} for the format.
+	 * If the experimenter as not been run, then nothing will be saved and a warrning message will be printed to indicate as such.
+	 * @param filePath the path to the file to write to.
+	 */
+	public void writeBinary(String filePath){
+		if(!this.completedExperiment){
+			System.out.println("Cannot write data until the experiment has been started with the startExperiment() method.");
+			return;
+		}
+		this.recorder.writeBinary(filePath);
+	}
+	
+	
+	/**
+	 * Returns the recorder that holds the results of the experiment, which is null until the experiment is started.
+	 * @return the recorder that holds the results of the experiment
+	 */
+	public MetricsRecorder getMetricsRecorder(){
+		return this.recorder;
+	}
+	
+	
+	/**
+	 * Sets the number of threads used to run the trials of each agent concurrently. A value of 1 or less runs the trials one after another, which
+	 * is the default. The threads are daemon threads, so they do not keep the JVM alive.
+	 * @param numThreads the number of threads used to run trials
+	 */
+	public void setParallelTrials(int numThreads){
+		if(numThreads <= 1){
+			this.setParallelTrials(null);
+			return;
+		}
+		this.setParallelTrials(Executors.newFixedThreadPool(numThreads, new ThreadFactory() {
+			
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "Experiment trial worker");
+				t.setDaemon(true);
+				return t;
+			}
+		}));
+		this.ownsTrialExecutor = true;
+	}
+	
+	
+	/**
+	 * Sets the executor used to run the trials of each agent concurrently. The executor is not shut down by this object. If the previous
+	 * executor was created by {@link #setParallelTrials(int)}, it is shut down.
+	 * @param executor the executor used to run trials, or null to run trials one after another
+	 */
+	public void setParallelTrials(ExecutorService executor){
+		if(this.ownsTrialExecutor && this.trialExecutor != null && this.trialExecutor != executor){
+			this.trialExecutor.shutdown();
+		}
+		this.trialExecutor = executor;
+		this.ownsTrialExecutor = false;
+	}
+	
+	
+	/**
+	 * Sets the seed from which the seed of each trial is derived, which makes the random generators that the trials obtain from the
+	 * {@link RandomFactory} reproducible. If trials are run concurrently and no seed is set, the trials' factories are split from the
+	 * {@link RandomFactory} of the thread that starts the experiment, which is reproducible if its default generator is seeded.
+	 * @param seed the seed from which the seed of each trial is derived
+	 */
+	public void setTrialSeed(long seed){
+		this.trialSeed = seed;
+	}
+	
+	
 	/**
 	 * Starts the experiment and runs all trails for all agents.
 	 */
@@ -215,45 +350,37 @@ public class LearningAlgorithmExperimenter {
 			return;
 		}
 		
-		if(this.plotter == null){
-			
-			TrialMode trialMode = TrialMode.MOSTRECENTANDAVERAGE;
-			if(this.nTrials == 1){
-				trialMode = TrialMode.MOSTRECENTTTRIALONLY;
-			}
-			
-			this.plotter = new PerformancePlotter(this.agentFactories[0].getAgentName(), rf, 500, 250, 2, 500, trialMode);
-				
-		}
-		
-		
-		this.domain.addActionObserverForAllAction(plotter);
+		this.recorder = new MetricsRecorder(this.agentFactories[0].getAgentName(), this.rf);
 		
-		if(this.displayPlots){
-			this.plotter.startGUI();
+		if(!this.displayPlots){
+			this.plotter = null;
 		}
-		
-		for(int i = 0; i < this.agentFactories.length; i++){
-			
-			if(i > 0){
-				this.plotter.startNewAgent(this.agentFactories[i].getAgentName());
-			}
+		else{
 			
-			for(int j = 0; j < this.nTrials; j++){
+			if(this.plotter == null){
 				
-				DPrint.cl(this.debugCode, "Beginning " + this.agentFactories[i].getAgentName() + " trial " + (j+1) + "/" + this.nTrials);
-				
-				if(this.trialLengthIsInEpisodes){
-					this.runEpisodeBoundTrial(this.agentFactories[i]);
-				}
-				else{
-					this.runStepBoundTrial(this.agentFactories[i]);
+				TrialMode trialMode = TrialMode.MOSTRECENTANDAVERAGE;
+				if(this.nTrials == 1){
+					trialMode = TrialMode.MOSTRECENTTTRIALONLY;
 				}
+				
+				this.plotter = new PerformancePlotter(this.agentFactories[0].getAgentName(), rf, 500, 250, 2, 500, trialMode);
+					
 			}
 			
+			this.plotter.startGUI();
 		}
 		
-		this.plotter.endAllAgents();
+		if(this.trialExecutor != null){
+			this.runParallelTrials();
+		}
+		else{
+			this.runSequentialTrials();
+		}
+		
+		if(this.plotter != null){
+			this.plotter.endAllAgents();
+		}
 		
 		this.completedExperiment = true;
 		
@@ -272,7 +399,7 @@ public class LearningAlgorithmExperimenter {
 			System.out.println("Cannot write data until the experiment has been started with the startExperiment() method.");
 			return;
 		}
-		this.plotter.writeStepAndEpisodeDataToCSV(pathAndBaseNameToUse);
+		this.recorder.writeStepAndEpisodeDataToCSV(pathAndBaseNameToUse);
 	}
 	
 	
@@ -287,7 +414,7 @@ public class LearningAlgorithmExperimenter {
 			System.out.println("Cannot write data until the experiment has been started with the startExperiment() method.");
 			return;
 		}
-		this.plotter.writeStepDataToCSV(filePath);
+		this.recorder.writeStepDataToCSV(filePath);
 	}
 	
 	
@@ -302,33 +429,210 @@ public class LearningAlgorithmExperimenter {
 			System.out.println("Cannot write data until the experiment has been started with the startExperiment() method.");
 			return;
 		}
-		this.plotter.writeEpisodeDataToCSV(filePath);
+		this.recorder.writeEpisodeDataToCSV(filePath);
 	}
 	
 	
 	
+	/**
+	 * Runs all trials of all agents one after another, recording results directly with the recorder. Each completed trial is then added
+	 * to the plotter, if there is one.
+	 */
+	protected void runSequentialTrials(){
+		
+		this.domain.addActionObserverForAllAction(this.recorder);
+		
+		for(int i = 0; i < this.agentFactories.length; i++){
+			
+			if(i > 0){
+				this.startNewAgent(this.agentFactories[i].getAgentName());
+			}
+			
+			for(int j = 0; j < this.nTrials; j++){
+				
+				DPrint.cl(this.debugCode, "Beginning " + this.agentFactories[i].getAgentName() + " trial " + (j+1) + "/" + this.nTrials);
+				
+				if(this.trialSeed != null){
+					RandomFactory.setThreadFactory(new RandomFactory(this.trialSeed).insplit(j));
+				}
+				
+				try{
+					if(this.trialLengthIsInEpisodes){
+						this.runEpisodeBoundTrial(this.agentFactories[i]);
+					}
+					else{
+						this.runStepBoundTrial(this.agentFactories[i]);
+					}
+				}
+				finally{
+					if(this.trialSeed != null){
+						RandomFactory.setThreadFactory(null);
+					}
+				}
+			}
+			
+		}
+		
+	}
+	
+	
+	/**
+	 * Runs the trials of each agent concurrently with the {@link #trialExecutor}. Each trial records its results in its own {@link TrialRecorder}
+	 * and the trials are added to the plotter in trial order. All trials of an agent are complete before the trials of the next agent are started.
+	 */
+	protected void runParallelTrials(){
+		
+		RandomFactory trialFactories = this.trialSeed != null ? new RandomFactory(this.trialSeed) : RandomFactory.current().insplit(0);
+		
+		final TrialRouter router = new TrialRouter();
+		this.domain.addActionObserverForAllAction(router);
+		
+		for(int i = 0; i < this.agentFactories.length; i++){
+			
+			final LearningAgentFactory agentFactory = this.agentFactories[i];
+			
+			if(i > 0){
+				this.startNewAgent(agentFactory.getAgentName());
+			}
+			
+			DPrint.cl(this.debugCode, "Beginning " + this.nTrials + " " + agentFactory.getAgentName() + " trials");
+			
+			List<Future<TrialRecorder>> futures = new ArrayList<Future<TrialRecorder>>(this.nTrials);
+			for(int j = 0; j < this.nTrials; j++){
+				final RandomFactory trialFactory = trialFactories.insplit(j);
+				futures.add(this.trialExecutor.submit(new Callable<TrialRecorder>() {
+					
+					@Override
+					public TrialRecorder call() throws Exception {
+						RandomFactory.setThreadFactory(trialFactory);
+						try{
+							return LearningAlgorithmExperimenter.this.runRecordedTrial(agentFactory, router);
+						}
+						finally{
+							RandomFactory.setThreadFactory(null);
+						}
+					}
+				}));
+			}
+			
+			try{
+				for(int j = 0; j < this.nTrials; j++){
+					TrialRecorder trialRecorder = futures.get(j).get();
+					DPrint.cl(this.debugCode, "Completed " + agentFactory.getAgentName() + " trial " + (j+1) + "/" + this.nTrials);
+					this.recorder.endTrial(trialRecorder.getTrial());
+					if(this.plotter != null){
+						this.plotter.endTrial(trialRecorder.getTrial());
+					}
+				}
+			} catch(InterruptedException e){
+				cancelAll(futures);
+				throw new RuntimeException("Parallel experiment trials were interrupted", e);
+			} catch(ExecutionException e){
+				cancelAll(futures);
+				throw new RuntimeException("Parallel experiment trial failed", e.getCause());
+			}
+			
+		}
+		
+	}
+	
+	
+	/**
+	 * Runs a trial for an agent generated by the given factory in the calling thread, recording its results in a new {@link TrialRecorder}
+	 * that the router sends the calling thread's action events to once the agent has been generated.
+	 * @param agentFactory the agent factory used to generate the agent to test.
+	 * @param router the router registered with the domain's actions
+	 * @return the recorder holding the results of the trial
+	 */
+	protected TrialRecorder runRecordedTrial(LearningAgentFactory agentFactory, TrialRouter router){
+		
+		//the recorder is not bound to this thread until the agent is generated to avoid contamination from any actions taken by the agent generation
+		LearningAgent agent = agentFactory.generateAgent();
+		
+		TrialRecorder recorder = new TrialRecorder(this.rf);
+		router.setRecorder(recorder);
+		
+		try{
+			if(this.trialLengthIsInEpisodes){
+				for(int i = 0; i < this.trialLength; i++){
+					agent.runLearningEpisodeFrom(sg.generateState());
+					recorder.endEpisode();
+				}
+			}
+			else{
+				int stepsRemaining = this.trialLength;
+				while(stepsRemaining > 0){
+					EpisodeAnalysis ea = agent.runLearningEpisodeFrom(sg.generateState(), stepsRemaining);
+					stepsRemaining -= ea.numTimeSteps()-1; //-1  because we want to subtract the number of actions, not the number of states seen
+					recorder.endEpisode();
+				}
+			}
+		}
+		finally{
+			router.setRecorder(null);
+		}
+		
+		return recorder;
+		
+	}
+	
+	
+	/**
+	 * Informs the recorder and plotter that the trials of a new agent are beginning.
+	 * @param agentName the name of the agent
+	 */
+	protected void startNewAgent(String agentName){
+		this.recorder.startNewAgent(agentName);
+		if(this.plotter != null){
+			this.plotter.startNewAgent(agentName);
+		}
+	}
+	
+	
+	/**
+	 * Cancels all the given futures.
+	 * @param futures the futures to cancel
+	 */
+	protected static void cancelAll(List<? extends Future<?>> futures){
+		for(Future<?> f : futures){
+			f.cancel(true);
+		}
+	}
+	
+	
+	/**
+	 * Completes the recorder's current trial and adds it to the plotter, if there is one.
+	 */
+	protected void endTrial(){
+		this.recorder.endTrial();
+		if(this.plotter != null){
+			this.plotter.endTrial(this.recorder.getCurrentTrial());
+		}
+	}
+	
+	
 	/**
 	 * Runs a trial for an agent generated by the given factory when interpreting trial length as a number of episodes.
 	 * @param agentFactory the agent factory used to generate the agent to test.
 	 */
 	protected void runEpisodeBoundTrial(LearningAgentFactory agentFactory){
 		
-		//temporarily disable plotter data collection to avoid possible contamination for any actions taken by the agent generation
+		//temporarily disable data collection to avoid possible contamination for any actions taken by the agent generation
 		//(e.g., if there is pre-test training)
-		this.plotter.toggleDataCollection(false);
+		this.recorder.toggleDataCollection(false);
 
 		LearningAgent agent = agentFactory.generateAgent();
 		
-		this.plotter.toggleDataCollection(true); //turn it back on to begin
+		this.recorder.toggleDataCollection(true); //turn it back on to begin
 		
-		this.plotter.startNewTrial();
+		this.recorder.startNewTrial();
 		
 		for(int i = 0; i < this.trialLength; i++){
 			agent.runLearningEpisodeFrom(sg.generateState());
-			this.plotter.endEpisode();
+			this.recorder.endEpisode();
 		}
 		
-		this.plotter.endTrial();
+		this.endTrial();
 		
 	}
 	
@@ -339,27 +643,65 @@ public class LearningAlgorithmExperimenter {
 	 */
 	protected void runStepBoundTrial(LearningAgentFactory agentFactory){
 		
-		//temporarily disable plotter data collection to avoid possible contamination for any actions taken by the agent generation
+		//temporarily disable data collection to avoid possible contamination for any actions taken by the agent generation
 		//(e.g., if there is pre-test training)
-		this.plotter.toggleDataCollection(false);
+		this.recorder.toggleDataCollection(false);
 		
 		LearningAgent agent = agentFactory.generateAgent();
 		
-		this.plotter.toggleDataCollection(true); //turn it back on to begin
+		this.recorder.toggleDataCollection(true); //turn it back on to begin
 		
-		this.plotter.startNewTrial();
+		this.recorder.startNewTrial();
 		
 		int stepsRemaining = this.trialLength;
 		while(stepsRemaining > 0){
 			EpisodeAnalysis ea = agent.runLearningEpisodeFrom(sg.generateState(), stepsRemaining);
 			stepsRemaining -= ea.numTimeSteps()-1; //-1  because we want to subtract the number of actions, not the number of states seen
-			this.plotter.endEpisode();
+			this.recorder.endEpisode();
 		}
 		
-		this.plotter.endTrial();
+		this.endTrial();
 		
 	}
 	
 	
 	
+	/**
+	 * An {@link ActionObserver} that forwards each action event to the {@link TrialRecorder} bound to the thread in which the action was performed,
+	 * and ignores action events of threads that have no bound recorder. A single router is registered with the domain's actions so that concurrent
+	 * trials each record only their own actions.
+	 *
+	 */
+	public static class TrialRouter implements ActionObserver{
+		
+		/**
+		 * The recorder bound to each thread
+		 */
+		protected ThreadLocal<TrialRecorder> recorders = new ThreadLocal<TrialRecorder>();
+		
+		
+		/**
+		 * Binds a recorder to the calling thread.
+		 * @param recorder the recorder to which the calling thread's action events are forwarded, or null to ignore them
+		 */
+		public void setRecorder(TrialRecorder recorder){
+			if(recorder == null){
+				this.recorders.remove();
+			}
+			else{
+				this.recorders.set(recorder);
+			}
+		}
+		
+		@Override
+		public void actionEvent(State s, GroundedAction ga, State sp) {
+			TrialRecorder recorder = this.recorders.get();
+			if(recorder != null){
+				recorder.actionEvent(s, ga, sp);
+			}
+		}
+		
+	}
+	
+	
 }
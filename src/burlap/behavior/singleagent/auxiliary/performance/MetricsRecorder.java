@@ -0,0 +1,493 @@
+package burlap.behavior.singleagent.auxiliary.performance;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import burlap.datastructures.DoubleArrayList;
+import burlap.oomdp.core.State;
+import burlap.oomdp.singleagent.ActionObserver;
+import burlap.oomdp.singleagent.GroundedAction;
+import burlap.oomdp.singleagent.RewardFunction;
+
+
+/**
+ * A headless action observer that records the same performance data as {@link PerformancePlotter}, for batch experiments with many trials or
+ * very long trials. Each trial's metrics are stored in a {@link TrialMetrics} object of primitive columns, and when a trial ends its columns are
+ * added to running {@link SeriesStatistics} of the current agent, so the mean and confidence interval of every metric at every step or episode are
+ * maintained incrementally rather than computed from all trials at the end. No GUI is created and nothing is synchronized; the recorder should
+ * be used from one thread, and trials recorded concurrently elsewhere (for instance by {@link TrialRecorder}s) can be added with
+ * {@link #endTrial(TrialMetrics)}.
+ * <p/>
+ * The recorder is used like the plotter: call {@link #startNewTrial()} at the start of each trial, {@link #endEpisode()} at the end of each
+ * episode, {@link #endTrial()} at the end of each trial, and {@link #startNewAgent(String)} before the trials of each agent after the first.
+ * <p/>
+ * By default the data of every trial is kept so that it can be written to CSV files with the same format as the plotter's or to a binary
+ * file with {@link #writeBinary(String)}. If only the trial averages are needed, {@link #setRetainTrialData(boolean)} can disable this, in which
+ * case the memory used no longer grows with the number of trials. The averages can be written with {@link #writeAveragesToCSV(String, double)}.
+ *
+ */
+public class MetricsRecorder implements ActionObserver {
+
+	/**
+	 * The identifier at the start of binary files written by this class
+	 */
+	public static final int					BINARYMAGIC = 0x42524D52;
+
+	/**
+	 * The format version of binary files written by this class
+	 */
+	public static final int					BINARYVERSION = 1;
+
+
+	/**
+	 * The reward function used to measure performance.
+	 */
+	protected RewardFunction				rf;
+
+	/**
+	 * The recorded data of each agent, in the order the agents were started
+	 */
+	protected Map<String, AgentMetrics>		agents = new LinkedHashMap<String, AgentMetrics>();
+
+	/**
+	 * The data of the agent currently being recorded
+	 */
+	protected AgentMetrics					curAgent;
+
+	/**
+	 * The trial currently being recorded
+	 */
+	protected TrialMetrics					curTrial = new TrialMetrics();
+
+	/**
+	 * Whether the data from action observations received should be recorded or not.
+	 */
+	protected boolean						collectData = true;
+
+	/**
+	 * Whether the data of each trial is kept after the trial ends
+	 */
+	protected boolean						retainTrialData = true;
+
+
+	/**
+	 * Initializes.
+	 * @param firstAgentName the name of the first agent whose performance will be recorded.
+	 * @param rf the reward function used to measure performance
+	 */
+	public MetricsRecorder(String firstAgentName, RewardFunction rf){
+		this.rf = rf;
+		this.curAgent = new AgentMetrics(firstAgentName);
+		this.agents.put(firstAgentName, this.curAgent);
+	}
+
+
+	/**
+	 * Sets whether the data of each trial is kept after the trial ends. If it is not, only the running averages of each agent are kept and
+	 * the trial data cannot be written to files. The default is true.
+	 * @param retainTrialData whether the data of each trial is kept
+	 */
+	public void setRetainTrialData(boolean retainTrialData){
+		this.retainTrialData = retainTrialData;
+	}
+
+
+	/**
+	 * Toggles whether action events are recorded.
+	 * @param collectData if true, action events are recorded; if false they are ignored.
+	 */
+	public void toggleDataCollection(boolean collectData){
+		this.collectData = collectData;
+	}
+
+
+	@Override
+	public void actionEvent(State s, GroundedAction ga, State sp) {
+		if(!this.collectData){
+			return;
+		}
+		this.curTrial.stepIncrement(this.rf.reward(s, ga, sp));
+	}
+
+
+	/**
+	 * Informs the recorder that all data for the last episode has been collected.
+	 */
+	public void endEpisode(){
+		this.curTrial.endEpisode();
+	}
+
+
+	/**
+	 * Informs the recorder that a new trial of the current agent is beginning.
+	 */
+	public void startNewTrial(){
+		this.curTrial = new TrialMetrics();
+	}
+
+
+	/**
+	 * Returns the trial that is currently being recorded from action events, or the last one if it has been completed with {@link #endTrial()}.
+	 * @return the trial currently or last recorded from action events
+	 */
+	public TrialMetrics getCurrentTrial(){
+		return this.curTrial;
+	}
+
+
+	/**
+	 * Informs the recorder that all data for the current trial has been collected.
+	 */
+	public void endTrial(){
+		this.endTrial(this.curTrial);
+	}
+
+
+	/**
+	 * Adds a completed trial of the current agent whose data was collected elsewhere, such as by a {@link TrialRecorder} in another thread.
+	 * The trial should not be modified afterwards.
+	 * @param trial the completed trial
+	 */
+	public void endTrial(TrialMetrics trial){
+		this.curAgent.addTrial(trial, this.retainTrialData);
+	}
+
+
+	/**
+	 * Informs the recorder that the trials of a new agent are beginning. If the agent has already been recorded, its new trials are added to
+	 * its existing data.
+	 * @param agentName the name of the agent
+	 */
+	public void startNewAgent(String agentName){
+		AgentMetrics agent = this.agents.get(agentName);
+		if(agent == null){
+			agent = new AgentMetrics(agentName);
+			this.agents.put(agentName, agent);
+		}
+		this.curAgent = agent;
+	}
+
+
+	/**
+	 * Returns the names of the agents recorded, in the order they were started
+	 * @return the names of the agents recorded
+	 */
+	public List<String> getAgentNames(){
+		return new ArrayList<String>(this.agents.keySet());
+	}
+
+
+	/**
+	 * Returns the number of trials recorded for an agent
+	 * @param agentName the name of the agent
+	 * @return the number of trials recorded for the agent
+	 */
+	public int getNumTrials(String agentName){
+		return this.getAgent(agentName).numTrials;
+	}
+
+
+	/**
+	 * Returns the running statistics of a metric over the trials of an agent
+	 * @param agentName the name of the agent
+	 * @param metric the metric
+	 * @return the running statistics of the metric over the trials of the agent
+	 */
+	public SeriesStatistics getStatistics(String agentName, PerformanceMetric metric){
+		return this.getAgent(agentName).statistics.get(metric);
+	}
+
+
+	/**
+	 * Returns the trials kept for an agent, which is empty if trial data is not retained.
+	 * @param agentName the name of the agent
+	 * @return the trials kept for the agent
+	 */
+	public List<TrialMetrics> getTrials(String agentName){
+		return this.getAgent(agentName).trials;
+	}
+
+
+	/**
+	 * Writes the step-wise and episode-wise data to CSV files in the same format as {@link PerformancePlotter#writeStepAndEpisodeDataToCSV(String)}.
+	 * The episode-wise data will be saved to the file <pathAndBaseNameToUse>Episodes.csv. The step-wise data will
+	 * be saved to the file <pathAndBaseNameToUse>Steps.csv
+	 * @param pathAndBaseNameToUse the base path and file name for the epsidoe-wise and step-wise csv files.
+	 */
+	public void writeStepAndEpisodeDataToCSV(String pathAndBaseNameToUse){
+		if(pathAndBaseNameToUse.endsWith(".csv")){
+			pathAndBaseNameToUse = pathAndBaseNameToUse.substring(0, pathAndBaseNameToUse.length()-4);
+		}
+		this.writeStepDataToCSV(pathAndBaseNameToUse + "Steps.csv");
+		this.writeEpisodeDataToCSV(pathAndBaseNameToUse + "Episodes.csv");
+	}
+
+
+	/**
+	 * Writes the step-wise data to a csv file.
+	 * If the file path does not include the .csv extension, it will automatically be added.
+	 * @param filePath the path to the csv file to write to.
+	 */
+	public void writeStepDataToCSV(String filePath){
+
+		if(!filePath.endsWith(".csv")){
+			filePath = filePath + ".csv";
+		}
+
+		this.warnIfTrialDataNotRetained();
+
+		try {
+			BufferedWriter outStep = new BufferedWriter(new FileWriter(filePath));
+
+			outStep.write("agent,trial,step,cumulativeReward\n");
+
+			for(AgentMetrics agent : this.agents.values()){
+				for(int i = 0; i < agent.trials.size(); i++){
+					DoubleArrayList csr = agent.trials.get(i).series(PerformanceMetric.CUMULATIVEREWARDPERSTEP);
+					for(int j = 0; j < csr.size(); j++){
+						outStep.write(agent.name+","+i+","+j+","+csr.get(j)+"\n");
+					}
+				}
+			}
+
+			outStep.close();
+
+		} catch (Exception e) {
+			System.err.println("Could not write csv file to: " + filePath);
+			e.printStackTrace();
+		}
+
+	}
+
+
+	/**
+	 * Writes the episode-wise data to a csv file.
+	 * If the file path does not include the .csv extension, it will automatically be added.
+	 * @param filePath the path to the csv file to write to.
+	 */
+	public void writeEpisodeDataToCSV(String filePath){
+
+		if(!filePath.endsWith(".csv")){
+			filePath = filePath + ".csv";
+		}
+
+		this.warnIfTrialDataNotRetained();
+
+		try {
+			BufferedWriter outEpisode = new BufferedWriter(new FileWriter(filePath));
+
+			outEpisode.write("agent,trial,episode,cumulativeReward,averageReward,cumulativeSteps,numSteps\n");
+
+			for(AgentMetrics agent : this.agents.values()){
+				for(int i = 0; i < agent.trials.size(); i++){
+					TrialMetrics trial = agent.trials.get(i);
+					for(int j = 0; j < trial.numEpisodes(); j++){
+						outEpisode.write(agent.name+","+i+","+j);
+						outEpisode.write(","+trial.cumulativeEpisodeReward.get(j));
+						outEpisode.write(","+trial.averageEpisodeReward.get(j));
+						outEpisode.write(","+trial.cumulativeStepEpisode.get(j));
+						outEpisode.write(","+trial.stepEpisode.get(j));
+						outEpisode.write("\n");
+					}
+				}
+			}
+
+			outEpisode.close();
+
+		} catch (Exception e) {
+			System.err.println("Could not write csv file to: " + filePath);
+			e.printStackTrace();
+		}
+
+	}
+
+
+	/**
+	 * Writes the trial average and confidence interval of every metric at every step or episode for each agent to a csv file, with the columns
+	 * agent, metric, index, n, mean, lowerBound and upperBound, where n is the number of trials that reached the step or episode.
+	 * If the file path does not include the .csv extension, it will automatically be added.
+	 * @param filePath the path to the csv file to write to.
+	 * @param significance the significance level of the confidence intervals; 0.05 gives a 95% confidence interval
+	 */
+	public void writeAveragesToCSV(String filePath, double significance){
+
+		if(!filePath.endsWith(".csv")){
+			filePath = filePath + ".csv";
+		}
+
+		try {
+			BufferedWriter out = new BufferedWriter(new FileWriter(filePath));
+
+			out.write("agent,metric,index,n,mean,lowerBound,upperBound\n");
+
+			for(AgentMetrics agent : this.agents.values()){
+				for(PerformanceMetric metric : PerformanceMetric.values()){
+					SeriesStatistics stats = agent.statistics.get(metric);
+					for(int i = 0; i < stats.length(); i++){
+						double [] ci = stats.ci(i, significance);
+						out.write(agent.name+","+metric+","+i+","+stats.count(i)+","+ci[0]+","+ci[1]+","+ci[2]+"\n");
+					}
+				}
+			}
+
+			out.close();
+
+		} catch (Exception e) {
+			System.err.println("Could not write csv file to: " + filePath);
+			e.printStackTrace();
+		}
+
+	}
+
+
+	/**
+	 * Writes the data of every trial to a binary file in a columnar format, which is much smaller and faster to write and read than CSV. All
+	 * values are big-endian as written by {@link DataOutputStream}. The file starts with the int {@link #BINARYMAGIC}, the int
+	 * {@link #BINARYVERSION} and the int number of agents. Each agent is then written as its name (in modified UTF-8, see
+	 * {@link DataOutputStream#writeUTF(String)}) and its int number of trials, followed by its trials. Each trial is written as its int number
+	 * of steps and the double cumulative reward of each step, followed by its int number of episodes and then the double values of each episode
+	 * for each of the episode metrics, one whole column after another, in the order of {@link PerformanceMetric}.
+	 * @param filePath the path to the file to write to.
+	 */
+	public void writeBinary(String filePath){
+
+		this.warnIfTrialDataNotRetained();
+
+		try {
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filePath), 1 << 16));
+
+			out.writeInt(BINARYMAGIC);
+			out.writeInt(BINARYVERSION);
+			out.writeInt(this.agents.size());
+
+			for(AgentMetrics agent : this.agents.values()){
+				out.writeUTF(agent.name);
+				out.writeInt(agent.trials.size());
+				for(TrialMetrics trial : agent.trials){
+					writeColumn(out, trial.series(PerformanceMetric.CUMULATIVEREWARDPERSTEP));
+					out.writeInt(trial.numEpisodes());
+					for(PerformanceMetric metric : PerformanceMetric.values()){
+						if(metric != PerformanceMetric.CUMULATIVEREWARDPERSTEP){
+							DoubleArrayList col = trial.series(metric);
+							for(int i = 0; i < col.size(); i++){
+								out.writeDouble(col.get(i));
+							}
+						}
+					}
+				}
+			}
+
+			out.close();
+
+		} catch (Exception e) {
+			System.err.println("Could not write binary file to: " + filePath);
+			e.printStackTrace();
+		}
+
+	}
+
+
+	/**
+	 * Writes the int size of a column followed by its double values.
+	 * @param out the stream to write to
+	 * @param col the column to write
+	 * @throws java.io.IOException if the column could not be written
+	 */
+	protected static void writeColumn(DataOutputStream out, DoubleArrayList col) throws java.io.IOException{
+		out.writeInt(col.size());
+		for(int i = 0; i < col.size(); i++){
+			out.writeDouble(col.get(i));
+		}
+	}
+
+
+	/**
+	 * Returns the data of an agent, throwing an exception if the agent has not been recorded.
+	 * @param agentName the name of the agent
+	 * @return the data of the agent
+	 */
+	protected AgentMetrics getAgent(String agentName){
+		AgentMetrics agent = this.agents.get(agentName);
+		if(agent == null){
+			throw new RuntimeException("No performance data has been recorded for agent: " + agentName);
+		}
+		return agent;
+	}
+
+
+	/**
+	 * Prints a warning if trial data is not retained, since there is then no trial data to write.
+	 */
+	protected void warnIfTrialDataNotRetained(){
+		if(!this.retainTrialData){
+			System.out.println("Trial data is not retained by this MetricsRecorder; only trial averages can be written.");
+		}
+	}
+
+
+
+	/**
+	 * The recorded data of a single agent: its trials, if they are retained, and the running statistics of each metric over its trials.
+	 *
+	 */
+	protected static class AgentMetrics{
+
+		/**
+		 * The name of the agent
+		 */
+		protected String										name;
+
+		/**
+		 * The retained trials of the agent
+		 */
+		protected List<TrialMetrics>							trials = new ArrayList<TrialMetrics>();
+
+		/**
+		 * The number of trials of the agent
+		 */
+		protected int											numTrials = 0;
+
+		/**
+		 * The running statistics of each metric over the trials of the agent
+		 */
+		protected Map<PerformanceMetric, SeriesStatistics>		statistics = new EnumMap<PerformanceMetric, SeriesStatistics>(PerformanceMetric.class);
+
+
+		/**
+		 * Initializes.
+		 * @param name the name of the agent
+		 */
+		public AgentMetrics(String name){
+			this.name = name;
+			for(PerformanceMetric metric : PerformanceMetric.values()){
+				this.statistics.put(metric, new SeriesStatistics());
+			}
+		}
+
+
+		/**
+		 * Adds a completed trial to the statistics of each metric.
+		 * @param trial the completed trial
+		 * @param retain whether the trial is kept
+		 */
+		public void addTrial(TrialMetrics trial, boolean retain){
+			for(PerformanceMetric metric : PerformanceMetric.values()){
+				this.statistics.get(metric).addSeries(trial.series(metric));
+			}
+			this.numTrials++;
+			if(retain){
+				this.trials.add(trial);
+			}
+		}
+
+	}
+
+}
@@ -33,6 +33,7 @@ import org.jfree.data.xy.XYSeriesCollection;
 import org.jfree.data.xy.YIntervalSeries;
 import org.jfree.data.xy.YIntervalSeriesCollection;
 
+import burlap.datastructures.DoubleArrayList;
 import burlap.oomdp.core.State;
 import burlap.oomdp.singleagent.ActionObserver;
 import burlap.oomdp.singleagent.GroundedAction;
@@ -430,6 +431,28 @@ public class PerformancePlotter extends JFrame implements ActionObserver {
 	}
 	
 	
+	/**
+	 * Informs the plotter that a trial of the current agent whose data was collected elsewhere, such as by a {@link MetricsRecorder} or by a
+	 * {@link TrialRecorder} in another thread, is complete. The trial replaces the plotter's current trial and is then ended as if its data had
+	 * been collected by the plotter.
+	 * @param metrics the completed trial
+	 */
+	public void endTrial(TrialMetrics metrics){
+		
+		Trial trial = new Trial(metrics);
+		
+		synchronized(this){
+			this.startNewTrial();
+			this.curTrial = trial;
+			this.curTimeStep = trial.cumulativeStepReward.size();
+			this.curEpisode = trial.totalEpisodes;
+		}
+		
+		this.endTrial();
+		
+	}
+	
+	
 	/**
 	 * Informs the plotter that data collecton for a new agent should begin.
 	 * If the current agent is already set to the agent name provided, then a warning message is printed and nothing changes.
@@ -1002,6 +1025,18 @@ public class PerformancePlotter extends JFrame implements ActionObserver {
 	}
 	
 	
+	/**
+	 * Appends all values of a {@link DoubleArrayList} to a list.
+	 * @param src the values to append
+	 * @param dest the list to append to
+	 */
+	protected static void copy(DoubleArrayList src, List<Double> dest){
+		for(int i = 0; i < src.size(); i++){
+			dest.add(src.get(i));
+		}
+	}
+	
+	
 	/**
 	 * Returns the minimum steps and episodes across all trials
 	 * @param trials the trials to perform the min over
@@ -1111,6 +1146,30 @@ public class PerformancePlotter extends JFrame implements ActionObserver {
 		protected List<Double> curEpisodeRewards = new ArrayList<Double>();
 		
 		
+		/**
+		 * Initializes an empty trial.
+		 */
+		public Trial(){
+			
+		}
+		
+		
+		/**
+		 * Initializes with the data of a completed trial that was recorded in a {@link TrialMetrics} object.
+		 * @param metrics the completed trial
+		 */
+		public Trial(TrialMetrics metrics){
+			copy(metrics.series(PerformanceMetric.CUMULATIVEREWARDPERSTEP), this.cumulativeStepReward);
+			copy(metrics.series(PerformanceMetric.CUMULTAIVEREWARDPEREPISODE), this.cumulativeEpisodeReward);
+			copy(metrics.series(PerformanceMetric.AVERAGEEPISODEREWARD), this.averageEpisodeReward);
+			copy(metrics.series(PerformanceMetric.MEDIANEPISODEREWARD), this.medianEpisodeReward);
+			copy(metrics.series(PerformanceMetric.CUMULATIVESTEPSPEREPISODE), this.cumulativeStepEpisode);
+			copy(metrics.series(PerformanceMetric.STEPSPEREPISODE), this.stepEpisode);
+			this.totalEpisodes = metrics.numEpisodes();
+			this.totalSteps = this.totalEpisodes > 0 ? (int)this.cumulativeStepEpisode.get(this.totalEpisodes-1).doubleValue() : 0;
+		}
+		
+		
 		
 		/**
 		 * Updates all datastructures with the reward received from the last step
@@ -0,0 +1,224 @@
+package burlap.behavior.singleagent.auxiliary.performance;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.math3.distribution.TDistribution;
+
+import burlap.datastructures.DoubleArrayList;
+
+
+/**
+ * Running statistics of a series of values over a number of trials, such as the cumulative reward at each step. Each index of the series
+ * has its own sample count, mean and sum of squared deviations from the mean, which are updated with Welford's method [1] as each trial's series is
+ * added. Memory is therefore proportional to the length of the longest series rather than to the total number of values added, and the mean and
+ * confidence interval of any index can be computed at any time in constant time.
+ * <p/>
+ * Series can have different lengths, in which case later indices have fewer samples; {@link #completeLength()} returns the number of leading
+ * indices to which every series added so far contributed.
+ * <p/>
+ * 1. Welford, B. P. "Note on a method for calculating corrected sums of squares and products." Technometrics 4.3 (1962): 419-420.
+ *
+ */
+public class SeriesStatistics {
+
+	/**
+	 * The number of samples of each index
+	 */
+	protected int []				counts;
+
+	/**
+	 * The mean of each index
+	 */
+	protected double []				means;
+
+	/**
+	 * The sum of squared deviations from the mean of each index
+	 */
+	protected double []				m2s;
+
+	/**
+	 * The length of the longest series added
+	 */
+	protected int					length = 0;
+
+	/**
+	 * The number of series added
+	 */
+	protected int					numSeries = 0;
+
+	/**
+	 * The length of the shortest series added
+	 */
+	protected int					minLength = Integer.MAX_VALUE;
+
+	/**
+	 * Cached critical values of the t-distribution, indexed by degrees of freedom, for the last significance level used
+	 */
+	protected Map<Integer, Double>	criticalValues = new HashMap<Integer, Double>();
+
+	/**
+	 * The significance level for which the critical values are cached
+	 */
+	protected double				criticalValueSignificance = Double.NaN;
+
+
+	/**
+	 * Initializes with space for 16 indices.
+	 */
+	public SeriesStatistics(){
+		this.counts = new int[16];
+		this.means = new double[16];
+		this.m2s = new double[16];
+	}
+
+
+	/**
+	 * Adds a sample value to an index of the series.
+	 * @param i the index
+	 * @param v the sample value
+	 */
+	public void add(int i, double v){
+		this.ensureLength(i+1);
+		int n = ++this.counts[i];
+		double delta = v - this.means[i];
+		this.means[i] += delta / n;
+		this.m2s[i] += delta * (v - this.means[i]);
+	}
+
+
+	/**
+	 * Adds every value of a trial's series as a sample of its index.
+	 * @param series the series of a trial
+	 */
+	public void addSeries(DoubleArrayList series){
+		int n = series.size();
+		for(int i = 0; i < n; i++){
+			this.add(i, series.get(i));
+		}
+		this.numSeries++;
+		this.minLength = Math.min(this.minLength, n);
+	}
+
+
+	/**
+	 * Returns the length of the longest series added
+	 * @return the length of the longest series added
+	 */
+	public int length(){
+		return this.length;
+	}
+
+
+	/**
+	 * Returns the number of series added with {@link #addSeries(DoubleArrayList)}
+	 * @return the number of series added
+	 */
+	public int numSeries(){
+		return this.numSeries;
+	}
+
+
+	/**
+	 * Returns the length of the shortest series added with {@link #addSeries(DoubleArrayList)}, which is the number of leading indices that
+	 * have a sample from every series, or 0 if no series have been added.
+	 * @return the length of the shortest series added
+	 */
+	public int completeLength(){
+		if(this.numSeries == 0){
+			return 0;
+		}
+		return this.minLength;
+	}
+
+
+	/**
+	 * Returns the number of samples of an index
+	 * @param i the index
+	 * @return the number of samples of the index
+	 */
+	public int count(int i){
+		return i < this.length ? this.counts[i] : 0;
+	}
+
+
+	/**
+	 * Returns the sample mean of an index
+	 * @param i the index
+	 * @return the sample mean of the index
+	 */
+	public double mean(int i){
+		return this.means[i];
+	}
+
+
+	/**
+	 * Returns the sample variance of an index, which is 0 if it has fewer than two samples
+	 * @param i the index
+	 * @return the sample variance of the index
+	 */
+	public double variance(int i){
+		int n = this.counts[i];
+		if(n < 2){
+			return 0.;
+		}
+		return this.m2s[i] / (n-1);
+	}
+
+
+	/**
+	 * Returns the confidence interval of the mean of an index using the t-distribution. An index with fewer than two samples has an interval
+	 * of zero width.
+	 * @param i the index
+	 * @param significanceLevel the significance level; 0.05 gives a 95% confidence interval
+	 * @return a double array of length three in the form: {mean, lowerBound, upperBound}
+	 */
+	public double [] ci(int i, double significanceLevel){
+		int n = this.counts[i];
+		double m = this.means[i];
+		if(n < 2){
+			return new double[]{m, m, m};
+		}
+		double width = this.criticalValue(n-1, significanceLevel) * Math.sqrt(this.variance(i) / n);
+		return new double[]{m, m-width, m+width};
+	}
+
+
+	/**
+	 * Returns the two-sided critical value of the t-distribution for the given degrees of freedom and significance level.
+	 * @param df the degrees of freedom
+	 * @param significanceLevel the significance level
+	 * @return the critical value
+	 */
+	protected double criticalValue(int df, double significanceLevel){
+		if(significanceLevel != this.criticalValueSignificance){
+			this.criticalValues.clear();
+			this.criticalValueSignificance = significanceLevel;
+		}
+		Double crit = this.criticalValues.get(df);
+		if(crit == null){
+			crit = new TDistribution(df).inverseCumulativeProbability(1. - (significanceLevel/2.));
+			this.criticalValues.put(df, crit);
+		}
+		return crit;
+	}
+
+
+	/**
+	 * Makes sure that the statistics have space for at least the given number of indices.
+	 * @param n the number of indices
+	 */
+	protected void ensureLength(int n){
+		if(n > this.counts.length){
+			int nCapacity = Math.max(n, this.counts.length*2);
+			this.counts = Arrays.copyOf(this.counts, nCapacity);
+			this.means = Arrays.copyOf(this.means, nCapacity);
+			this.m2s = Arrays.copyOf(this.m2s, nCapacity);
+		}
+		if(n > this.length){
+			this.length = n;
+		}
+	}
+
+}
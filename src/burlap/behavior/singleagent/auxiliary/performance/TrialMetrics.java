@@ -0,0 +1,143 @@
+package burlap.behavior.singleagent.auxiliary.performance;
+
+import burlap.datastructures.DoubleArrayList;
+
+
+/**
+ * The performance metrics of a single trial, stored in primitive {@link DoubleArrayList} columns: one step-wise column with the cumulative reward
+ * after each step, and one episode-wise column for each of the episode metrics of {@link PerformanceMetric}. Recording a step appends one value
+ * to the step column and the reward to a reusable buffer of the current episode's rewards, so no objects are allocated per step except when a
+ * column has to grow.
+ * <p/>
+ * This object is not synchronized; a trial should be recorded by one thread at a time.
+ *
+ */
+public class TrialMetrics {
+
+	/**
+	 * The cumulative reward after each step
+	 */
+	protected DoubleArrayList			cumulativeStepReward = new DoubleArrayList(1024);
+
+	/**
+	 * The cumulative reward after each episode
+	 */
+	protected DoubleArrayList			cumulativeEpisodeReward = new DoubleArrayList();
+
+	/**
+	 * The average reward of each episode
+	 */
+	protected DoubleArrayList			averageEpisodeReward = new DoubleArrayList();
+
+	/**
+	 * The median reward of each episode
+	 */
+	protected DoubleArrayList			medianEpisodeReward = new DoubleArrayList();
+
+	/**
+	 * The cumulative number of steps after each episode
+	 */
+	protected DoubleArrayList			cumulativeStepEpisode = new DoubleArrayList();
+
+	/**
+	 * The number of steps of each episode
+	 */
+	protected DoubleArrayList			stepEpisode = new DoubleArrayList();
+
+	/**
+	 * The rewards of the current episode
+	 */
+	protected DoubleArrayList			curEpisodeRewards = new DoubleArrayList();
+
+	/**
+	 * The cumulative reward of the current episode
+	 */
+	protected double					curEpisodeReward = 0.;
+
+
+	/**
+	 * Records the reward received from the last step.
+	 * @param r the last reward received
+	 */
+	public void stepIncrement(double r){
+		this.cumulativeStepReward.add(this.cumulativeStepReward.last(0.) + r);
+		this.curEpisodeReward += r;
+		this.curEpisodeRewards.add(r);
+	}
+
+
+	/**
+	 * Completes the current episode, recording its episode-wise metrics, and sets up for the next episode.
+	 */
+	public void endEpisode(){
+
+		int steps = this.curEpisodeRewards.size();
+
+		this.cumulativeEpisodeReward.add(this.cumulativeEpisodeReward.last(0.) + this.curEpisodeReward);
+		this.cumulativeStepEpisode.add(this.cumulativeStepEpisode.last(0.) + steps);
+		this.averageEpisodeReward.add(this.curEpisodeReward / steps);
+		this.stepEpisode.add(steps);
+
+		double med = 0.;
+		if(steps > 0){
+			this.curEpisodeRewards.sort();
+			int n2 = steps / 2;
+			if(steps % 2 == 0){
+				med = (this.curEpisodeRewards.get(n2) + this.curEpisodeRewards.get(n2-1)) / 2.;
+			}
+			else{
+				med = this.curEpisodeRewards.get(n2);
+			}
+		}
+		this.medianEpisodeReward.add(med);
+
+		this.curEpisodeReward = 0.;
+		this.curEpisodeRewards.clear();
+
+	}
+
+
+	/**
+	 * Returns the number of steps recorded
+	 * @return the number of steps recorded
+	 */
+	public int numSteps(){
+		return this.cumulativeStepReward.size();
+	}
+
+
+	/**
+	 * Returns the number of completed episodes
+	 * @return the number of completed episodes
+	 */
+	public int numEpisodes(){
+		return this.stepEpisode.size();
+	}
+
+
+	/**
+	 * Returns the column of a metric. The column of {@link PerformanceMetric#CUMULATIVEREWARDPERSTEP} is indexed by step and the other columns
+	 * are indexed by episode. The column should not be modified.
+	 * @param metric the metric
+	 * @return the column of the metric
+	 */
+	public DoubleArrayList series(PerformanceMetric metric){
+		switch(metric){
+			case CUMULATIVEREWARDPERSTEP:
+				return this.cumulativeStepReward;
+			case CUMULTAIVEREWARDPEREPISODE:
+				return this.cumulativeEpisodeReward;
+			case AVERAGEEPISODEREWARD:
+				return this.averageEpisodeReward;
+			case MEDIANEPISODEREWARD:
+				return this.medianEpisodeReward;
+			case CUMULATIVESTEPSPEREPISODE:
+				return this.cumulativeStepEpisode;
+			case STEPSPEREPISODE:
+				return this.stepEpisode;
+			default:
+				throw new RuntimeException("Unknown performance metric: " + metric);
+		}
+	}
+
+}
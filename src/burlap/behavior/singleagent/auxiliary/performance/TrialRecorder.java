@@ -0,0 +1,79 @@
+package burlap.behavior.singleagent.auxiliary.performance;
+
+import burlap.oomdp.core.State;
+import burlap.oomdp.singleagent.ActionObserver;
+import burlap.oomdp.singleagent.GroundedAction;
+import burlap.oomdp.singleagent.RewardFunction;
+
+
+/**
+ * Records the performance metrics of a single trial in a {@link TrialMetrics} object without any synchronization, so that trials
+ * that run concurrently can each record their own data without contending for a shared lock. Once the trial is complete, its data can be
+ * added to a {@link MetricsRecorder} with {@link MetricsRecorder#endTrial(TrialMetrics)} and to a {@link PerformancePlotter} with
+ * {@link PerformancePlotter#endTrial(TrialMetrics)}.
+ * <p/>
+ * A recorder must only be used by one thread at a time.
+ *
+ */
+public class TrialRecorder implements ActionObserver {
+
+	/**
+	 * The reward function used to measure performance
+	 */
+	protected RewardFunction			rf;
+
+	/**
+	 * The trial data recorded so far
+	 */
+	protected TrialMetrics				trial = new TrialMetrics();
+
+	/**
+	 * Whether action events are currently recorded
+	 */
+	protected boolean					collectData = true;
+
+
+	/**
+	 * Initializes.
+	 * @param rf the reward function used to measure performance
+	 */
+	public TrialRecorder(RewardFunction rf){
+		this.rf = rf;
+	}
+
+
+	/**
+	 * Toggles whether action events are recorded.
+	 * @param collectData if true, action events are recorded; if false they are ignored.
+	 */
+	public void toggleDataCollection(boolean collectData){
+		this.collectData = collectData;
+	}
+
+
+	@Override
+	public void actionEvent(State s, GroundedAction ga, State sp) {
+		if(!this.collectData){
+			return;
+		}
+		this.trial.stepIncrement(this.rf.reward(s, ga, sp));
+	}
+
+
+	/**
+	 * Informs the recorder that all data for the last episode has been collected.
+	 */
+	public void endEpisode(){
+		this.trial.endEpisode();
+	}
+
+
+	/**
+	 * Returns the trial data recorded so far
+	 * @return the trial data recorded so far
+	 */
+	public TrialMetrics getTrial(){
+		return this.trial;
+	}
+
+}
@@ -0,0 +1,288 @@
+package burlap.behavior.singleagent.learning.experiencereplay;
+
+import java.util.Random;
+
+import burlap.debugtools.RandomFactory;
+
+
+/**
+ * Configuration and statistics for the experience replay of a learning algorithm. Learning algorithms that support experience replay add each
+ * transition they observe to the {@link ReplayBuffer} of this object and, every {@link #getReplayInterval()} environment steps once the buffer holds at least
+ * {@link #getMinimumSizeForReplay()} transitions, perform a mini-batch of {@link #getBatchSize()} backups on transitions sampled from the buffer.
+ * <p/>
+ * This object also keeps statistics on the replay, such as the number of backups performed and the number of backups performed per second of time
+ * spent replaying, which together with the occupancy of the buffer can be used to monitor the throughput of a learning algorithm.
+ *
+ */
+public class ExperienceReplay {
+
+	/**
+	 * The buffer of transitions
+	 */
+	protected ReplayBuffer				buffer;
+
+	/**
+	 * The number of backups in each mini-batch
+	 */
+	protected int						batchSize;
+
+	/**
+	 * The number of environment steps between mini-batches
+	 */
+	protected int						replayInterval = 1;
+
+	/**
+	 * The number of transitions the buffer must hold before any mini-batch is performed
+	 */
+	protected int						minimumSizeForReplay;
+
+	/**
+	 * The importance sampling exponent used to scale the backups of prioritized buffers
+	 */
+	protected double					importanceSamplingExponent = 0.4;
+
+	/**
+	 * The random number generator used to sample transitions
+	 */
+	protected Random					rand = RandomFactory.getMapped(0);
+
+	/**
+	 * The number of environment steps recorded
+	 */
+	protected long						numEnvironmentSteps = 0;
+
+	/**
+	 * The number of mini-batches performed
+	 */
+	protected long						numBatches = 0;
+
+	/**
+	 * The number of backups performed
+	 */
+	protected long						numUpdates = 0;
+
+	/**
+	 * The time in nanoseconds spent performing mini-batches
+	 */
+	protected long						replayNanos = 0;
+
+
+	/**
+	 * Initializes with a uniformly sampled buffer of the given capacity, one mini-batch after every environment step, and replay starting once the
+	 * buffer holds a full batch.
+	 * @param capacity the capacity of the replay buffer
+	 * @param batchSize the number of backups in each mini-batch
+	 */
+	public ExperienceReplay(int capacity, int batchSize){
+		this(new ReplayBuffer(capacity), batchSize, 1, batchSize);
+	}
+
+
+	/**
+	 * Initializes.
+	 * @param buffer the buffer of transitions
+	 * @param batchSize the number of backups in each mini-batch
+	 * @param replayInterval the number of environment steps between mini-batches
+	 * @param minimumSizeForReplay the number of transitions the buffer must hold before any mini-batch is performed
+	 */
+	public ExperienceReplay(ReplayBuffer buffer, int batchSize, int replayInterval, int minimumSizeForReplay){
+		if(batchSize < 1 || replayInterval < 1){
+			throw new RuntimeException("Experience replay batch size and replay interval must be positive");
+		}
+		this.buffer = buffer;
+		this.batchSize = batchSize;
+		this.replayInterval = replayInterval;
+		this.minimumSizeForReplay = Math.max(minimumSizeForReplay, 1);
+	}
+
+
+	/**
+	 * Returns the buffer of transitions
+	 * @return the buffer of transitions
+	 */
+	public ReplayBuffer getBuffer(){
+		return this.buffer;
+	}
+
+
+	/**
+	 * Returns the number of backups in each mini-batch
+	 * @return the number of backups in each mini-batch
+	 */
+	public int getBatchSize(){
+		return this.batchSize;
+	}
+
+
+	/**
+	 * Returns the number of environment steps between mini-batches
+	 * @return the number of environment steps between mini-batches
+	 */
+	public int getReplayInterval(){
+		return this.replayInterval;
+	}
+
+
+	/**
+	 * Returns the number of transitions the buffer must hold before any mini-batch is performed
+	 * @return the number of transitions the buffer must hold before any mini-batch is performed
+	 */
+	public int getMinimumSizeForReplay(){
+		return this.minimumSizeForReplay;
+	}
+
+
+	/**
+	 * Returns the importance sampling exponent used to scale the backups of prioritized buffers
+	 * @return the importance sampling exponent
+	 */
+	public double getImportanceSamplingExponent(){
+		return this.importanceSamplingExponent;
+	}
+
+
+	/**
+	 * Sets the importance sampling exponent used to scale the backups of prioritized buffers. 0 disables the correction and 1 fully corrects
+	 * the bias of prioritized sampling. The default is 0.4.
+	 * @param beta the importance sampling exponent
+	 */
+	public void setImportanceSamplingExponent(double beta){
+		this.importanceSamplingExponent = beta;
+	}
+
+
+	/**
+	 * Returns the random number generator used to sample transitions
+	 * @return the random number generator used to sample transitions
+	 */
+	public Random getRandom(){
+		return this.rand;
+	}
+
+
+	/**
+	 * Sets the random number generator used to sample transitions
+	 * @param rand the random number generator used to sample transitions
+	 */
+	public void setRandom(Random rand){
+		this.rand = rand;
+	}
+
+
+	/**
+	 * Samples the index of a transition from the buffer.
+	 * @return the index of the sampled transition
+	 */
+	public int sample(){
+		return this.buffer.sample(this.rand);
+	}
+
+
+	/**
+	 * Returns the factor by which the backup of a sampled transition should be scaled, which is its normalized importance sampling weight
+	 * for prioritized buffers and 1 otherwise.
+	 * @param i the index of the transition
+	 * @return the factor by which the backup of the transition should be scaled
+	 */
+	public double updateScale(int i){
+		return this.buffer.importanceWeight(i, this.importanceSamplingExponent);
+	}
+
+
+	/**
+	 * Records that an environment step was taken and returns whether a mini-batch should be performed now.
+	 * @return true if a mini-batch should be performed now; false otherwise
+	 */
+	public boolean recordEnvironmentStep(){
+		this.numEnvironmentSteps++;
+		return this.buffer.size() >= this.minimumSizeForReplay && this.numEnvironmentSteps % this.replayInterval == 0;
+	}
+
+
+	/**
+	 * Records that a mini-batch was performed.
+	 * @param numUpdates the number of backups in the mini-batch
+	 * @param nanos the time in nanoseconds spent on the mini-batch
+	 */
+	public void recordBatch(int numUpdates, long nanos){
+		this.numBatches++;
+		this.numUpdates += numUpdates;
+		this.replayNanos += nanos;
+	}
+
+
+	/**
+	 * Returns the number of environment steps recorded since the statistics were last reset
+	 * @return the number of environment steps recorded
+	 */
+	public long getNumEnvironmentSteps(){
+		return this.numEnvironmentSteps;
+	}
+
+
+	/**
+	 * Returns the number of mini-batches performed since the statistics were last reset
+	 * @return the number of mini-batches performed
+	 */
+	public long getNumBatches(){
+		return this.numBatches;
+	}
+
+
+	/**
+	 * Returns the number of backups performed since the statistics were last reset
+	 * @return the number of backups performed
+	 */
+	public long getNumUpdates(){
+		return this.numUpdates;
+	}
+
+
+	/**
+	 * Returns the time in seconds spent performing mini-batches since the statistics were last reset
+	 * @return the time in seconds spent performing mini-batches
+	 */
+	public double getReplaySeconds(){
+		return this.replayNanos / 1e9;
+	}
+
+
+	/**
+	 * Returns the number of backups performed per second of time spent performing mini-batches, or 0 if none have been performed.
+	 * @return the number of backups performed per second of replay time
+	 */
+	public double getUpdatesPerSecond(){
+		if(this.replayNanos == 0){
+			return 0.;
+		}
+		return this.numUpdates / (this.replayNanos / 1e9);
+	}
+
+
+	/**
+	 * Returns the fraction of the capacity of the buffer that is in use
+	 * @return the fraction of the capacity of the buffer that is in use
+	 */
+	public double getOccupancy(){
+		return this.buffer.occupancy();
+	}
+
+
+	/**
+	 * Resets the step, batch, backup and timing statistics. The buffer is not changed.
+	 */
+	public void resetStatistics(){
+		this.numEnvironmentSteps = 0;
+		this.numBatches = 0;
+		this.numUpdates = 0;
+		this.replayNanos = 0;
+	}
+
+
+	@Override
+	public String toString(){
+		return "occupancy: " + this.buffer.size() + "/" + this.buffer.capacity() + ", updates: " + this.numUpdates + ", batches: " + this.numBatches
+				+ ", updates/sec: " + (long)this.getUpdatesPerSecond();
+	}
+
+}
@@ -0,0 +1,428 @@
+package burlap.behavior.singleagent.learning.experiencereplay;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import burlap.datastructures.SumTree;
+import burlap.oomdp.core.State;
+import burlap.oomdp.singleagent.GroundedAction;
+
+
+/**
+ * A fixed capacity ring buffer of observed transitions for experience replay. Each transition is a source state, the action taken in it,
+ * the reward received, the resulting state, the action that was selected in the resulting state (which may be null for learning algorithms
+ * that do not need it), whether the resulting state is terminal, and the discount factor to apply to the value of the resulting state
+ * (which is gamma^n for an option that lasted n steps). Once the buffer is full, each new transition overwrites the oldest one.
+ * <p/>
+ * Transitions can be sampled uniformly or, if the buffer is prioritized, in proportion to a priority value [1]. In a prioritized buffer the
+ * priority of a transition is (|TD error| + epsilon)^alpha, where alpha controls how strongly the sampling favors high priorities, and new
+ * transitions get the largest priority seen so far so that they are likely to be replayed at least once. The priorities are stored in a
+ * {@link SumTree} so that sampling and changing a priority take time logarithmic in the capacity. Since prioritized sampling biases the updates,
+ * {@link #importanceWeight(int, double)} provides the normalized importance sampling weight of a transition that corrects for it.
+ * <p/>
+ * Transitions are referenced by their index in the buffer, which is on [0, {@link #size()}).
+ * <p/>
+ * 1. Schaul, Tom, John Quan, Ioannis Antonoglou, and David Silver. "Prioritized experience replay." arXiv preprint arXiv:1511.05952 (2015).
+ *
+ */
+public class ReplayBuffer {
+
+	/**
+	 * The source state of each transition
+	 */
+	protected State []						states;
+
+	/**
+	 * The action of each transition
+	 */
+	protected GroundedAction []				actions;
+
+	/**
+	 * The reward of each transition
+	 */
+	protected double []						rewards;
+
+	/**
+	 * The resulting state of each transition
+	 */
+	protected State []						nextStates;
+
+	/**
+	 * The action selected in the resulting state of each transition, or null if it was not recorded
+	 */
+	protected GroundedAction []				nextActions;
+
+	/**
+	 * Whether the resulting state of each transition is terminal
+	 */
+	protected boolean []					terminals;
+
+	/**
+	 * The discount factor of each transition
+	 */
+	protected double []						discounts;
+
+	/**
+	 * The index at which the next transition will be stored
+	 */
+	protected int							next = 0;
+
+	/**
+	 * The number of transitions in the buffer
+	 */
+	protected int							size = 0;
+
+	/**
+	 * The total number of transitions added to the buffer since it was created or cleared
+	 */
+	protected long							numAdded = 0;
+
+	/**
+	 * Whether transitions are sampled in proportion to their priority
+	 */
+	protected boolean						prioritized;
+
+	/**
+	 * The exponent applied to the TD error magnitudes to get priorities
+	 */
+	protected double						priorityExponent = 0.6;
+
+	/**
+	 * The value added to the TD error magnitudes so that no transition has zero priority
+	 */
+	protected double						priorityEpsilon = 1e-6;
+
+	/**
+	 * The largest priority given to a transition so far
+	 */
+	protected double						maxPriority = 1.;
+
+	/**
+	 * The priority of each transition
+	 */
+	protected SumTree						priorities;
+
+	/**
+	 * The min tree of priorities, with the same layout as the nodes of the {@link SumTree}: node 1 is the root, the children of node k are
+	 * nodes 2k and 2k+1, and the priority of transition i is stored at leaf node numLeaves+i. Unused leaves hold positive infinity.
+	 */
+	protected double []						minTree;
+
+	/**
+	 * The number of leaves of the min tree, which is the capacity rounded up to a power of two
+	 */
+	protected int							numLeaves;
+
+
+	/**
+	 * Initializes a buffer with uniform sampling.
+	 * @param capacity the maximum number of transitions stored
+	 */
+	public ReplayBuffer(int capacity){
+		this(capacity, false);
+	}
+
+
+	/**
+	 * Initializes.
+	 * @param capacity the maximum number of transitions stored
+	 * @param prioritized whether transitions are sampled in proportion to their priority (true) or uniformly (false)
+	 */
+	public ReplayBuffer(int capacity, boolean prioritized){
+
+		if(capacity < 1){
+			throw new RuntimeException("Replay buffer capacity must be positive; was " + capacity);
+		}
+
+		this.states = new State[capacity];
+		this.actions = new GroundedAction[capacity];
+		this.rewards = new double[capacity];
+		this.nextStates = new State[capacity];
+		this.nextActions = new GroundedAction[capacity];
+		this.terminals = new boolean[capacity];
+		this.discounts = new double[capacity];
+
+		this.prioritized = prioritized;
+		if(prioritized){
+			this.priorities = new SumTree(capacity);
+			this.numLeaves = this.priorities.capacity();
+			this.minTree = new double[2*this.numLeaves];
+			Arrays.fill(this.minTree, Double.POSITIVE_INFINITY);
+		}
+
+	}
+
+
+	/**
+	 * Sets the exponent applied to the TD error magnitudes to get priorities. An exponent of 0 makes sampling uniform. The default is 0.6.
+	 * @param alpha the priority exponent
+	 */
+	public void setPriorityExponent(double alpha){
+		this.priorityExponent = alpha;
+	}
+
+
+	/**
+	 * Sets the value added to the TD error magnitudes so that no transition has zero priority. The default is 1e-6.
+	 * @param epsilon the value added to the TD error magnitudes
+	 */
+	public void setPriorityEpsilon(double epsilon){
+		this.priorityEpsilon = epsilon;
+	}
+
+
+	/**
+	 * Returns whether transitions are sampled in proportion to their priority
+	 * @return true if transitions are sampled in proportion to their priority; false if they are sampled uniformly
+	 */
+	public boolean isPrioritized(){
+		return this.prioritized;
+	}
+
+
+	/**
+	 * Returns the maximum number of transitions stored
+	 * @return the maximum number of transitions stored
+	 */
+	public int capacity(){
+		return this.states.length;
+	}
+
+
+	/**
+	 * Returns the number of transitions in the buffer
+	 * @return the number of transitions in the buffer
+	 */
+	public int size(){
+		return this.size;
+	}
+
+
+	/**
+	 * Returns the fraction of the capacity that is in use
+	 * @return the fraction of the capacity that is in use
+	 */
+	public double occupancy(){
+		return (double)this.size / this.states.length;
+	}
+
+
+	/**
+	 * Returns the total number of transitions added since the buffer was created or cleared, including those that have been overwritten
+	 * @return the total number of transitions added
+	 */
+	public long numAdded(){
+		return this.numAdded;
+	}
+
+
+	/**
+	 * Adds a transition, overwriting the oldest transition if the buffer is full.
+	 * @param s the source state
+	 * @param a the action taken in the source state
+	 * @param r the reward received
+	 * @param sprime the resulting state
+	 * @param aprime the action selected in the resulting state; may be null
+	 * @param terminal whether the resulting state is terminal
+	 * @param discount the discount factor to apply to the value of the resulting state
+	 * @return the index at which the transition is stored
+	 */
+	public int add(State s, GroundedAction a, double r, State sprime, GroundedAction aprime, boolean terminal, double discount){
+
+		int i = this.next;
+		this.states[i] = s;
+		this.actions[i] = a;
+		this.rewards[i] = r;
+		this.nextStates[i] = sprime;
+		this.nextActions[i] = aprime;
+		this.terminals[i] = terminal;
+		this.discounts[i] = discount;
+
+		if(this.prioritized){
+			this.setPriority(i, this.maxPriority);
+		}
+
+		this.next = (i+1) % this.states.length;
+		if(this.size < this.states.length){
+			this.size++;
+		}
+		this.numAdded++;
+
+		return i;
+	}
+
+
+	/**
+	 * Samples the index of a transition, uniformly or in proportion to the transition priorities. The buffer must not be empty.
+	 * @param rand the random number generator to use
+	 * @return the index of the sampled transition
+	 */
+	public int sample(Random rand){
+
+		if(this.size == 0){
+			throw new RuntimeException("Cannot sample from an empty replay buffer");
+		}
+
+		if(!this.prioritized){
+			return rand.nextInt(this.size);
+		}
+
+		int i = this.priorities.sample(rand);
+		if(i == -1){
+			return rand.nextInt(this.size);
+		}
+		return i;
+	}
+
+
+	/**
+	 * Sets the priority of a transition from the magnitude of its latest TD error. Has no effect if the buffer is not prioritized.
+	 * @param i the index of the transition
+	 * @param tdError the latest TD error of the transition
+	 */
+	public void updatePriority(int i, double tdError){
+		if(!this.prioritized){
+			return;
+		}
+		double p = Math.pow(Math.abs(tdError) + this.priorityEpsilon, this.priorityExponent);
+		this.maxPriority = Math.max(this.maxPriority, p);
+		this.setPriority(i, p);
+	}
+
+
+	/**
+	 * Returns the priority of a transition, which is 1 for all transitions if the buffer is not prioritized.
+	 * @param i the index of the transition
+	 * @return the priority of the transition
+	 */
+	public double priority(int i){
+		if(!this.prioritized){
+			return 1.;
+		}
+		return this.priorities.get(i);
+	}
+
+
+	/**
+	 * Returns the importance sampling weight of a transition, (N*P(i))^-beta, normalized by the largest weight of any transition in the buffer
+	 * so that it is on (0, 1]. Scaling an update by this weight corrects the bias of prioritized sampling when beta is 1. Returns 1 if the
+	 * buffer is not prioritized.
+	 * @param i the index of the transition
+	 * @param beta the importance sampling exponent
+	 * @return the normalized importance sampling weight of the transition
+	 */
+	public double importanceWeight(int i, double beta){
+		if(!this.prioritized || beta == 0.){
+			return 1.;
+		}
+		//(N*P(i))^-beta / (N*P(min))^-beta = (p(min)/p(i))^beta
+		return Math.pow(this.minTree[1] / this.priorities.get(i), beta);
+	}
+
+
+	/**
+	 * Returns the source state of a transition
+	 * @param i the index of the transition
+	 * @return the source state of the transition
+	 */
+	public State state(int i){
+		return this.states[i];
+	}
+
+
+	/**
+	 * Returns the action of a transition
+	 * @param i the index of the transition
+	 * @return the action of the transition
+	 */
+	public GroundedAction action(int i){
+		return this.actions[i];
+	}
+
+
+	/**
+	 * Returns the reward of a transition
+	 * @param i the index of the transition
+	 * @return the reward of the transition
+	 */
+	public double reward(int i){
+		return this.rewards[i];
+	}
+
+
+	/**
+	 * Returns the resulting state of a transition
+	 * @param i the index of the transition
+	 * @return the resulting state of the transition
+	 */
+	public State nextState(int i){
+		return this.nextStates[i];
+	}
+
+
+	/**
+	 * Returns the action selected in the resulting state of a transition
+	 * @param i the index of the transition
+	 * @return the action selected in the resulting state of the transition, or null if it was not recorded
+	 */
+	public GroundedAction nextAction(int i){
+		return this.nextActions[i];
+	}
+
+
+	/**
+	 * Returns whether the resulting state of a transition is terminal
+	 * @param i the index of the transition
+	 * @return true if the resulting state of the transition is terminal; false otherwise
+	 */
+	public boolean isTerminal(int i){
+		return this.terminals[i];
+	}
+
+
+	/**
+	 * Returns the discount factor of a transition
+	 * @param i the index of the transition
+	 * @return the discount factor of the transition
+	 */
+	public double discount(int i){
+		return this.discounts[i];
+	}
+
+
+	/**
+	 * Removes all transitions from the buffer and resets the maximum priority.
+	 */
+	public void clear(){
+		Arrays.fill(this.states, null);
+		Arrays.fill(this.actions, null);
+		Arrays.fill(this.nextStates, null);
+		Arrays.fill(this.nextActions, null);
+		this.next = 0;
+		this.size = 0;
+		this.numAdded = 0;
+		this.maxPriority = 1.;
+		if(this.prioritized){
+			this.priorities.clear();
+			Arrays.fill(this.minTree, Double.POSITIVE_INFINITY);
+		}
+	}
+
+
+	/**
+	 * Sets the priority of a transition in the sum and min trees.
+	 * @param i the index of the transition
+	 * @param p the priority
+	 */
+	protected void setPriority(int i, double p){
+		this.priorities.set(i, p);
+		int node = this.numLeaves + i;
+		this.minTree[node] = p;
+		node >>>= 1;
+		while(node >= 1){
+			this.minTree[node] = Math.min(this.minTree[2*node], this.minTree[2*node+1]);
+			node >>>= 1;
+		}
+	}
+
+}
@@ -1,8 +1,14 @@
 package burlap.behavior.singleagent.learning.lspi;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.ejml.simple.SimpleMatrix;
 
@@ -19,10 +25,13 @@ import burlap.behavior.singleagent.planning.commonpolicies.GreedyQPolicy;
 import burlap.behavior.singleagent.vfa.ActionApproximationResult;
 import burlap.behavior.singleagent.vfa.ActionFeaturesQuery;
 import burlap.behavior.singleagent.vfa.FeatureDatabase;
+import burlap.behavior.singleagent.vfa.FunctionWeight;
 import burlap.behavior.singleagent.vfa.StateFeature;
 import burlap.behavior.singleagent.vfa.ValueFunctionApproximation;
 import burlap.behavior.singleagent.vfa.common.LinearVFA;
 import burlap.debugtools.DPrint;
+import burlap.debugtools.RandomFactory;
+import burlap.debugtools.XoshiroRandom;
 import burlap.oomdp.auxiliary.common.ConstantStateGenerator;
 import burlap.oomdp.core.AbstractGroundedAction;
 import burlap.oomdp.core.Domain;
@@ -54,6 +63,13 @@ import burlap.oomdp.singleagent.RewardFunction;
  * This data gathering and replanning behavior from learning episodes is not expected to be an especailly good choice. Therefore, if you want a better online data acquisition, you should consider subclassing this class
  * and overriding the methods {@link #updateDatasetWithLearningEpisode(EpisodeAnalysis)} and {@link #shouldRereunPolicyIteration(EpisodeAnalysis)}, or the {@link #runLearningEpisodeFrom(State, int)} method
  * itself.
+ * <p/>
+ * By default, LSTDQ is computed with dense feature vectors and dense matrix products, which is the reference implementation. For large feature sets,
+ * the {@link #setLSTDQMode(LSTDQMode)} method can select one of the sparse implementations of {@link SparseLSTDQ}, which work directly on the non-zero
+ * state features; see {@link LSTDQMode}.
+ * <p/>
+ * LSTDQ can also be computed by multiple threads with the {@link #setParallelLSTDQ(int)} method, which partitions the dataset into shards whose
+ * features are extracted concurrently; see that method for the requirements on the feature database.
  * 
  * <p/>
  * 1. Lagoudakis, Michail G., and Ronald Parr. "Least-squares policy iteration." The Journal of Machine Learning Research 4 (2003): 1107-1149.
@@ -63,6 +79,22 @@ import burlap.oomdp.singleagent.RewardFunction;
  */
 public class LSPI extends OOMDPPlanner implements QComputablePlanner, LearningAgent {
 
+	/**
+	 * The implementation used to compute LSTDQ.
+	 * <p/>
+	 * DENSE constructs a dense feature vector for each sample and updates the inverse matrix with dense matrix products. It is the reference implementation.
+	 * <p/>
+	 * SHERMAN_MORRISON updates a preallocated inverse matrix in place with the Sherman-Morrison formula, using the sparse state features of each sample.
+	 * It computes the same weights as DENSE, up to floating point error, at a cost of O(nf^2) per sample.
+	 * <p/>
+	 * ACCUMULATE_AND_SOLVE accumulates the sparse LSTDQ matrix and solves it once with a sparse LU factorization. It computes the same weights
+	 * as the other modes, up to floating point error, and is the fastest mode when samples have few non-zero features.
+	 *
+	 */
+	public static enum LSTDQMode{
+		DENSE, SHERMAN_MORRISON, ACCUMULATE_AND_SOLVE
+	}
+	
 	/**
 	 * The object that performs value function approximation given the weights that are estimated
 	 */
@@ -141,6 +173,26 @@ public class LSPI extends OOMDPPlanner implements QComputablePlanner, LearningAg
 	 */
 	protected int													numEpisodesToStore;
 	
+	/**
+	 * The implementation used to compute LSTDQ; default is {@link LSTDQMode#DENSE}.
+	 */
+	protected LSTDQMode												lstdqMode = LSTDQMode.DENSE;
+	
+	/**
+	 * The executor to which the dataset shards of parallel LSTDQ are submitted; null if LSTDQ is computed sequentially.
+	 */
+	protected ExecutorService										lstdqExecutor;
+	
+	/**
+	 * Whether the {@link #lstdqExecutor} was created by {@link #setParallelLSTDQ(int)}, in which case it is shut down when it is replaced
+	 */
+	protected boolean												ownsLSTDQExecutor = false;
+	
+	/**
+	 * The number of shards into which the dataset is partitioned for parallel LSTDQ
+	 */
+	protected int													numLSTDQShards = 1;
+	
 	
 	
 	
@@ -332,24 +384,248 @@ public class LSPI extends OOMDPPlanner implements QComputablePlanner, LearningAg
 	}
 
 	
+	/**
+	 * Returns the implementation used to compute LSTDQ.
+	 * @return the implementation used to compute LSTDQ.
+	 */
+	public LSTDQMode getLSTDQMode() {
+		return lstdqMode;
+	}
+
+
+	/**
+	 * Sets the implementation used to compute LSTDQ.
+	 * @param lstdqMode the implementation used to compute LSTDQ.
+	 */
+	public void setLSTDQMode(LSTDQMode lstdqMode) {
+		this.lstdqMode = lstdqMode;
+	}
+	
+	
+	/**
+	 * Sets LSTDQ to be computed with the given number of threads, which are created in a new thread pool. The dataset is partitioned into 4 shards
+	 * per thread. If numThreads is 1 or less, LSTDQ is computed sequentially. The threads of the pool are daemon threads.
+	 * See {@link #setParallelLSTDQ(ExecutorService, int)} for the requirements of parallel LSTDQ.
+	 * @param numThreads the number of threads to use
+	 */
+	public void setParallelLSTDQ(int numThreads){
+		if(numThreads <= 1){
+			this.setParallelLSTDQ(null, 1);
+			return;
+		}
+		this.setParallelLSTDQ(newDaemonThreadPool(numThreads, "LSTDQ worker"), 4*numThreads);
+		this.ownsLSTDQExecutor = true;
+	}
+	
+	
+	/**
+	 * Sets LSTDQ to be computed by partitioning the dataset into contiguous shards that are processed by the given executor. Each shard task extracts
+	 * the state-action features of its samples and selects the greedy next action from a snapshot of the current weights. In
+	 * {@link LSTDQMode#ACCUMULATE_AND_SOLVE} mode, each shard also accumulates its own partial LSTDQ matrix and vector, which are summed and solved at the end;
+	 * in the other modes, the extracted features are processed sequentially as usual.
+	 * <p/>
+	 * Because the feature database is queried concurrently, it must be thread safe for queries. Databases that create features
+	 * on demand must be frozen with {@link FeatureDatabase#freezeDatabaseState(boolean)} before parallel LSTDQ is run, because the number of features
+	 * is fixed when it starts (the database is queried once with the first sample before the shards are started, so databases that initialize
+	 * themselves on their first query are supported). Ties between greedy next actions are broken by a random number generator per shard (seeded from the generator
+	 * used by {@link GreedyQPolicy}), so the weights may differ from sequential LSTDQ when the current Q-values of actions are tied.
+	 * The executor is not shut down by this object. If the previous executor was created by {@link #setParallelLSTDQ(int)}, it is shut down.
+	 * If the executor is null, LSTDQ is computed sequentially.
+	 * @param executor the executor to which the dataset shards are submitted
+	 * @param numShards the number of shards into which the dataset is partitioned; using a few more shards than threads helps balance the load
+	 */
+	public void setParallelLSTDQ(ExecutorService executor, int numShards){
+		if(this.ownsLSTDQExecutor && this.lstdqExecutor != null && this.lstdqExecutor != executor){
+			this.lstdqExecutor.shutdown();
+		}
+		this.lstdqExecutor = executor;
+		this.ownsLSTDQExecutor = false;
+		this.numLSTDQShards = Math.max(numShards, 1);
+	}
+	
+	
 	/**
 	 * Runs LSTDQ on this object's current {@link SARSData} dataset.
 	 * @return the new weight matrix as a {@link SimpleMatrix} object.
 	 */
 	public SimpleMatrix LSTDQ(){
 		
-		//set our policy
-		Policy p = new GreedyQPolicy(this);
+		SimpleMatrix w;
+		if(this.lstdqExecutor != null){
+			w = this.parallelLSTDQ();
+		}
+		else{
 		
-		//first we want to get all the features for all of our states in our data set; this is important if our feature database generates new features on the fly
-		//and will also restrict our focus to only the action features that we want
-		List<SSFeatures> features = new ArrayList<LSPI.SSFeatures>(this.dataset.size());
-		for(SARS sars : this.dataset.dataset){
-			features.add(new SSFeatures(this.featureDatabase.getActionFeaturesSets(sars.s, this.gaListWrapper(sars.a)), 
-					this.featureDatabase.getActionFeaturesSets(sars.sp, this.gaListWrapper(p.getAction(sars.sp)))));
+			//set our policy
+			Policy p = new GreedyQPolicy(this);
+			
+			//first we want to get all the features for all of our states in our data set; this is important if our feature database generates new features on the fly
+			//and will also restrict our focus to only the action features that we want
+			List<SSFeatures> features = new ArrayList<LSPI.SSFeatures>(this.dataset.size());
+			for(SARS sars : this.dataset.dataset){
+				features.add(new SSFeatures(this.featureDatabase.getActionFeaturesSets(sars.s, this.gaListWrapper(sars.a)), 
+						this.featureDatabase.getActionFeaturesSets(sars.sp, this.gaListWrapper(p.getAction(sars.sp)))));
+			}
+			
+			int nf = this.featureDatabase.numberOfFeatures();
+			if(this.lstdqMode == LSTDQMode.DENSE){
+				w = this.denseLSTDQ(features, nf);
+			}
+			else{
+				w = this.sparseLSTDQ(features, nf);
+			}
+			
 		}
 		
-		int nf = this.featureDatabase.numberOfFeatures();
+		int nf = w.numRows();
+		this.vfa = new LinearVFA(this.featureDatabase);
+		for(int i = 0; i < nf; i++){
+			this.vfa.setWeight(i, w.get(i, 0));
+		}
+		
+		return w;
+		
+		
+	}
+	
+	
+	/**
+	 * Computes LSTDQ by processing the shards of the dataset with the {@link #lstdqExecutor}.
+	 * @return the weights as an nf x 1 {@link SimpleMatrix}
+	 */
+	protected SimpleMatrix parallelLSTDQ(){
+		
+		final int n = this.dataset.size();
+		
+		//databases that initialize lazily do so on their first query, which must not happen concurrently
+		if(n > 0){
+			State s0 = this.dataset.get(0).s;
+			this.featureDatabase.getActionFeaturesSets(s0, this.getAllGroundedActions(s0));
+		}
+		
+		final int nf = this.featureDatabase.numberOfFeatures();
+		final boolean accumulate = this.lstdqMode == LSTDQMode.ACCUMULATE_AND_SOLVE;
+		
+		//snapshot of the current weights for the greedy policy
+		final double [] weights = new double[nf];
+		for(int i = 0; i < nf; i++){
+			FunctionWeight fw = this.vfa.getFunctionWeight(i);
+			if(fw != null){
+				weights[i] = fw.weightValue();
+			}
+		}
+		
+		final SSFeatures [] features = accumulate ? null : new SSFeatures[n];
+		Random seeds = RandomFactory.getMapped(0);
+		
+		int shardSize = Math.max((n + this.numLSTDQShards - 1) / this.numLSTDQShards, 1);
+		List<Callable<SparseLSTDQ>> shards = new ArrayList<Callable<SparseLSTDQ>>(this.numLSTDQShards);
+		for(int i = 0; i < n; i += shardSize){
+			final int from = i;
+			final int to = Math.min(i+shardSize, n);
+			final Random rand = new XoshiroRandom(seeds.nextLong());
+			shards.add(new Callable<SparseLSTDQ>() {
+				
+				@Override
+				public SparseLSTDQ call() throws Exception {
+					SparseLSTDQ lstdq = accumulate ? new SparseLSTDQ(nf, gamma, identityScalar, false) : null;
+					for(int j = from; j < to; j++){
+						SARS sars = dataset.get(j);
+						List<ActionFeaturesQuery> sFeatures = featureDatabase.getActionFeaturesSets(sars.s, gaListWrapper(sars.a));
+						List<ActionFeaturesQuery> spFeatures = greedyActionFeatures(sars.sp, weights, rand);
+						if(accumulate){
+							lstdq.addSample(sparsePhi(sFeatures), sparsePhi(spFeatures), sars.r);
+						}
+						else{
+							features[j] = new SSFeatures(sFeatures, spFeatures);
+						}
+					}
+					return lstdq;
+				}
+			});
+		}
+		
+		SparseLSTDQ total = null;
+		try {
+			for(Future<SparseLSTDQ> f : this.lstdqExecutor.invokeAll(shards)){
+				SparseLSTDQ partial = f.get();
+				if(partial != null){
+					if(total == null){
+						total = partial;
+					}
+					else{
+						total.merge(partial);
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+			throw new RuntimeException("Parallel LSTDQ was interrupted", e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException("Parallel LSTDQ failed", e.getCause());
+		}
+		
+		if(accumulate){
+			if(total == null){
+				total = new SparseLSTDQ(nf, this.gamma, this.identityScalar, false);
+			}
+			return new SimpleMatrix(nf, 1, true, total.solve());
+		}
+		if(this.lstdqMode == LSTDQMode.DENSE){
+			return this.denseLSTDQ(Arrays.asList(features), nf);
+		}
+		return this.sparseLSTDQ(Arrays.asList(features), nf);
+		
+	}
+	
+	
+	/**
+	 * Returns the state-action features of the greedy action in the given state with respect to the given weights, breaking ties randomly.
+	 * This is the action that a {@link GreedyQPolicy} would select if this object's value function had the given weights.
+	 * @param s the state
+	 * @param weights the weights of the linear value function
+	 * @param rand the random number generator used to break ties
+	 * @return a list consisting of the state-action features of the greedy action, or an empty list if no action is applicable in s.
+	 */
+	protected List<ActionFeaturesQuery> greedyActionFeatures(State s, double [] weights, Random rand){
+		
+		List<ActionFeaturesQuery> featureSets = this.featureDatabase.getActionFeaturesSets(s, this.getAllGroundedActions(s));
+		List<ActionFeaturesQuery> maxActions = new ArrayList<ActionFeaturesQuery>(1);
+		double maxQ = Double.NEGATIVE_INFINITY;
+		for(ActionFeaturesQuery afq : featureSets){
+			double q = 0.;
+			for(StateFeature sf : afq.features){
+				if(sf.id < weights.length){
+					q += sf.value * weights[sf.id];
+				}
+			}
+			if(q == maxQ){
+				maxActions.add(afq);
+			}
+			else if(q > maxQ){
+				maxActions.clear();
+				maxActions.add(afq);
+				maxQ = q;
+			}
+		}
+		
+		if(maxActions.size() > 1){
+			ActionFeaturesQuery selected = maxActions.get(rand.nextInt(maxActions.size()));
+			maxActions.clear();
+			maxActions.add(selected);
+		}
+		
+		return maxActions;
+	}
+	
+	
+	/**
+	 * Computes the LSTDQ weights with dense feature vectors and dense matrix products.
+	 * @param features the state-action features of each sample in the dataset
+	 * @param nf the total number of state-action features
+	 * @return the weights as an nf x 1 {@link SimpleMatrix}
+	 */
+	protected SimpleMatrix denseLSTDQ(List<SSFeatures> features, int nf){
+		
 		SimpleMatrix B = SimpleMatrix.identity(nf).scale(this.identityScalar);
 		SimpleMatrix b = new SimpleMatrix(nf, 1);
 		
@@ -374,15 +650,26 @@ public class LSPI extends OOMDPPlanner implements QComputablePlanner, LearningAg
 		}
 		
 		
-		SimpleMatrix w = B.mult(b);
+		return B.mult(b);
 		
-		this.vfa = new LinearVFA(this.featureDatabase);
-		for(int i = 0; i < nf; i++){
-			this.vfa.setWeight(i, w.get(i, 0));
-		}
+	}
+	
+	
+	/**
+	 * Computes the LSTDQ weights from the sparse state-action features with {@link SparseLSTDQ}, in incremental mode for
+	 * {@link LSTDQMode#SHERMAN_MORRISON} and accumulate mode otherwise.
+	 * @param features the state-action features of each sample in the dataset
+	 * @param nf the total number of state-action features
+	 * @return the weights as an nf x 1 {@link SimpleMatrix}
+	 */
+	protected SimpleMatrix sparseLSTDQ(List<SSFeatures> features, int nf){
 		
-		return w;
+		SparseLSTDQ lstdq = new SparseLSTDQ(nf, this.gamma, this.identityScalar, this.lstdqMode == LSTDQMode.SHERMAN_MORRISON);
+		for(int i = 0; i < features.size(); i++){
+			lstdq.addSample(this.sparsePhi(features.get(i).sActionFeatures), this.sparsePhi(features.get(i).sPrimeActionFeatures), this.dataset.get(i).r);
+		}
 		
+		return new SimpleMatrix(nf, 1, true, lstdq.solve());
 		
 	}
 	
@@ -430,6 +717,18 @@ public class LSPI extends OOMDPPlanner implements QComputablePlanner, LearningAg
 		return phi;
 	}
 	
+	/**
+	 * Returns the non-zero state-action features of a single action's feature query.
+	 * @param features the state-action features that have non-zero values
+	 * @return the list of non-zero state-action features
+	 */
+	protected List<StateFeature> sparsePhi(List<ActionFeaturesQuery> features){
+		if(features.size() != 1){
+			throw new RuntimeException("Expected only one actions's set of features.");
+		}
+		return features.get(0).features;
+	}
+	
 	/**
 	 * Wraps a {@link GroundedAction} in a list of size 1.
 	 * @param ga the {@link GroundedAction} to wrap.
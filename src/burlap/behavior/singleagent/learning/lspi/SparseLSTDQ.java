@@ -0,0 +1,402 @@
+package burlap.behavior.singleagent.learning.lspi;
+
+import java.util.Arrays;
+import java.util.List;
+
+import edu.emory.mathcs.csparsej.tdouble.Dcs_add;
+import edu.emory.mathcs.csparsej.tdouble.Dcs_common.Dcs;
+import edu.emory.mathcs.csparsej.tdouble.Dcs_compress;
+import edu.emory.mathcs.csparsej.tdouble.Dcs_dupl;
+import edu.emory.mathcs.csparsej.tdouble.Dcs_entry;
+import edu.emory.mathcs.csparsej.tdouble.Dcs_lusol;
+import edu.emory.mathcs.csparsej.tdouble.Dcs_qrsol;
+import edu.emory.mathcs.csparsej.tdouble.Dcs_util;
+import burlap.behavior.singleagent.vfa.StateFeature;
+
+
+/**
+ * Computes the LSTDQ weights from samples whose state-action features are given as sparse lists of {@link StateFeature} objects, without
+ * constructing dense feature vectors. Each sample contributes the rank-one term phi (phi - gamma phi')^T to the LSTDQ matrix A and r phi to the
+ * vector b, and the weights are the solution of (A + I/identityScalar) w = b, which is what {@link LSPI} computes with its identity scaled
+ * initial inverse matrix. Two modes are supported.
+ * <p/>
+ * In incremental mode, the inverse matrix B = (A + I/identityScalar)^-1 is stored in a preallocated dense array and updated in place
+ * with the Sherman-Morrison formula for each sample. The products of B with the sparse feature vectors only touch the rows and columns of their non-zero
+ * features, so a sample costs one dense rank-one update, O(nf^2), and no allocation.
+ * <p/>
+ * In accumulate mode, the non-zero entries of A are accumulated in a sparse matrix, with each sample only costing the product of the number of
+ * non-zero entries of phi and phi - gamma phi', and the system is solved once by {@link #solve()} with a sparse LU factorization (falling back to a
+ * sparse QR factorization if A is singular). Accumulators of the same size can be combined with {@link #merge(SparseLSTDQ)}, so
+ * a dataset can be accumulated in independent shards.
+ * <p/>
+ * If a feature list contains the same feature id more than once, the last value is used, as with {@link LSPI}'s dense feature vectors.
+ * This class is not thread safe.
+ *
+ */
+public class SparseLSTDQ {
+
+	/**
+	 * The number of sparse entries accumulated in the triplet matrix before it is compressed and added to the accumulated matrix
+	 */
+	protected static final int		TRIPLET_BATCH_SIZE = 1 << 20;
+
+
+	/**
+	 * The number of features
+	 */
+	protected int					nf;
+
+	/**
+	 * The discount factor
+	 */
+	protected double				gamma;
+
+	/**
+	 * The scalar of the identity matrix that initializes the inverse matrix
+	 */
+	protected double				identityScalar;
+
+	/**
+	 * Whether the inverse matrix is updated incrementally with the Sherman-Morrison formula (true) or A is accumulated and solved (false)
+	 */
+	protected boolean				incremental;
+
+	/**
+	 * The b vector
+	 */
+	protected double []				b;
+
+	/**
+	 * The inverse matrix in incremental mode, stored by rows
+	 */
+	protected double [][]			inverse;
+
+	/**
+	 * The compressed sum of the entries of A that have been flushed from the triplet matrix in accumulate mode; null if nothing has been flushed.
+	 */
+	protected Dcs					accumulated;
+
+	/**
+	 * The entries of A that have not yet been flushed in accumulate mode
+	 */
+	protected Dcs					triplets;
+
+	/**
+	 * The number of samples added
+	 */
+	protected int					numSamples = 0;
+
+
+	//sparse vector work space
+	protected int []				position;
+	protected int []				phiIds;
+	protected double []				phiValues;
+	protected int					phiSize;
+	protected int []				dIds;
+	protected double []				dValues;
+	protected int					dSize;
+
+	//incremental mode work space
+	protected double []				u;
+	protected double []				v;
+
+
+
+	/**
+	 * Initializes.
+	 * @param nf the number of features
+	 * @param gamma the discount factor
+	 * @param identityScalar the scalar of the identity matrix that initializes the inverse matrix
+	 * @param incremental if true, the inverse matrix is updated in place with the Sherman-Morrison formula; if false, A is accumulated sparsely and solved by {@link #solve()}.
+	 */
+	public SparseLSTDQ(int nf, double gamma, double identityScalar, boolean incremental){
+
+		this.nf = nf;
+		this.gamma = gamma;
+		this.identityScalar = identityScalar;
+		this.incremental = incremental;
+
+		this.b = new double[nf];
+
+		this.position = new int[nf];
+		Arrays.fill(this.position, -1);
+		this.phiIds = new int[16];
+		this.phiValues = new double[16];
+		this.dIds = new int[16];
+		this.dValues = new double[16];
+
+		if(incremental){
+			this.inverse = new double[nf][nf];
+			for(int i = 0; i < nf; i++){
+				this.inverse[i][i] = identityScalar;
+			}
+			this.u = new double[nf];
+			this.v = new double[nf];
+		}
+		else{
+			this.triplets = Dcs_util.cs_spalloc(nf, nf, 1024, true, true);
+		}
+
+	}
+
+
+	/**
+	 * Returns the number of samples that have been added
+	 * @return the number of samples that have been added
+	 */
+	public int numSamples(){
+		return this.numSamples;
+	}
+
+
+	/**
+	 * Adds a sample.
+	 * @param phi the non-zero state-action features of the sample's state and action
+	 * @param phiPrime the non-zero state-action features of the sample's next state and the policy's action in it
+	 * @param r the reward of the sample
+	 */
+	public void addSample(List<StateFeature> phi, List<StateFeature> phiPrime, double r){
+
+		this.loadSparseVectors(phi, phiPrime);
+
+		for(int k = 0; k < this.phiSize; k++){
+			this.b[this.phiIds[k]] += r * this.phiValues[k];
+		}
+
+		if(this.incremental){
+			this.shermanMorrisonUpdate();
+		}
+		else{
+			for(int k = 0; k < this.phiSize; k++){
+				int row = this.phiIds[k];
+				double pv = this.phiValues[k];
+				for(int l = 0; l < this.dSize; l++){
+					Dcs_entry.cs_entry(this.triplets, row, this.dIds[l], pv * this.dValues[l]);
+				}
+			}
+			if(this.triplets.nz >= TRIPLET_BATCH_SIZE){
+				this.flush();
+			}
+		}
+
+		this.numSamples++;
+
+	}
+
+
+	/**
+	 * Adds the samples accumulated by another accumulate mode object to this one.
+	 * @param other the accumulate mode object whose samples are added; it must have the same number of features.
+	 */
+	public void merge(SparseLSTDQ other){
+
+		if(this.incremental || other.incremental){
+			throw new RuntimeException("Only accumulate mode LSTDQ objects can be merged.");
+		}
+		if(this.nf != other.nf){
+			throw new RuntimeException("Cannot merge LSTDQ objects with " + this.nf + " and " + other.nf + " features.");
+		}
+
+		this.flush();
+		other.flush();
+		if(other.accumulated != null){
+			this.accumulated = this.accumulated == null ? other.accumulated : Dcs_add.cs_add(this.accumulated, other.accumulated, 1., 1.);
+		}
+		for(int i = 0; i < this.nf; i++){
+			this.b[i] += other.b[i];
+		}
+		this.numSamples += other.numSamples;
+
+	}
+
+
+	/**
+	 * Returns the LSTDQ weights for the samples that have been added.
+	 * @return the LSTDQ weights
+	 */
+	public double [] solve(){
+
+		double [] w = new double[this.nf];
+
+		if(this.incremental){
+			for(int i = 0; i < this.nf; i++){
+				double [] row = this.inverse[i];
+				double sum = 0.;
+				for(int j = 0; j < this.nf; j++){
+					sum += row[j] * this.b[j];
+				}
+				w[i] = sum;
+			}
+			return w;
+		}
+
+		this.flush();
+		Dcs regularizer = Dcs_util.cs_spalloc(this.nf, this.nf, this.nf, true, true);
+		for(int i = 0; i < this.nf; i++){
+			Dcs_entry.cs_entry(regularizer, i, i, 1. / this.identityScalar);
+		}
+		Dcs A = Dcs_compress.cs_compress(regularizer);
+		if(this.accumulated != null){
+			A = Dcs_add.cs_add(this.accumulated, A, 1., 1.);
+		}
+
+		System.arraycopy(this.b, 0, w, 0, this.nf);
+		if(!Dcs_lusol.cs_lusol(1, A, w, 1.)){
+			System.arraycopy(this.b, 0, w, 0, this.nf);
+			if(!Dcs_qrsol.cs_qrsol(3, A, w)){
+				throw new RuntimeException("Could not solve the LSTDQ system of " + this.nf + " features.");
+			}
+		}
+
+		return w;
+	}
+
+
+	/**
+	 * Applies the Sherman-Morrison update of the inverse matrix for the sparse vectors phi and d = phi - gamma phi' that are in the work space.
+	 */
+	protected void shermanMorrisonUpdate(){
+
+		double [][] B = this.inverse;
+
+		//u = B phi
+		for(int i = 0; i < this.nf; i++){
+			double [] row = B[i];
+			double sum = 0.;
+			for(int k = 0; k < this.phiSize; k++){
+				sum += row[this.phiIds[k]] * this.phiValues[k];
+			}
+			this.u[i] = sum;
+		}
+
+		//v = d^T B
+		Arrays.fill(this.v, 0.);
+		for(int l = 0; l < this.dSize; l++){
+			double [] row = B[this.dIds[l]];
+			double dv = this.dValues[l];
+			for(int j = 0; j < this.nf; j++){
+				this.v[j] += dv * row[j];
+			}
+		}
+
+		//denominator = 1 + d^T B phi
+		double denominator = 1.;
+		for(int k = 0; k < this.phiSize; k++){
+			denominator += this.v[this.phiIds[k]] * this.phiValues[k];
+		}
+
+		//B = B - u v^T / denominator
+		for(int i = 0; i < this.nf; i++){
+			double ui = this.u[i];
+			if(ui == 0.){
+				continue;
+			}
+			ui /= denominator;
+			double [] row = B[i];
+			for(int j = 0; j < this.nf; j++){
+				row[j] -= ui * this.v[j];
+			}
+		}
+
+	}
+
+
+	/**
+	 * Loads phi and d = phi - gamma phi' into the sparse vector work space.
+	 * @param phi the features of the state-action pair
+	 * @param phiPrime the features of the next state-action pair
+	 */
+	protected void loadSparseVectors(List<StateFeature> phi, List<StateFeature> phiPrime){
+
+		//phi' is loaded into the phi arrays first so that a repeated id keeps its last value
+		this.loadDeduplicated(phiPrime);
+		this.ensureDCapacity(this.phiSize + phi.size());
+		System.arraycopy(this.phiIds, 0, this.dIds, 0, this.phiSize);
+		System.arraycopy(this.phiValues, 0, this.dValues, 0, this.phiSize);
+		int phiPrimeSize = this.phiSize;
+
+		this.loadDeduplicated(phi);
+
+		//d = phi - gamma phi'; the phi' entries are at the start of the d arrays
+		for(int k = 0; k < phiPrimeSize; k++){
+			this.position[this.dIds[k]] = k;
+			this.dValues[k] *= -this.gamma;
+		}
+		this.dSize = phiPrimeSize;
+		for(int k = 0; k < this.phiSize; k++){
+			int id = this.phiIds[k];
+			int p = this.position[id];
+			if(p == -1){
+				this.dIds[this.dSize] = id;
+				this.dValues[this.dSize] = this.phiValues[k];
+				this.dSize++;
+			}
+			else{
+				this.dValues[p] += this.phiValues[k];
+			}
+		}
+		for(int k = 0; k < phiPrimeSize; k++){
+			this.position[this.dIds[k]] = -1;
+		}
+
+	}
+
+
+	/**
+	 * Loads the given features into the phi arrays, keeping the last value of a repeated id.
+	 * @param features the features to load
+	 */
+	protected void loadDeduplicated(List<StateFeature> features){
+		this.phiSize = 0;
+		this.ensurePhiCapacity(features.size());
+		for(StateFeature f : features){
+			if(f.id >= this.nf){
+				throw new RuntimeException("State feature id " + f.id + " is not less than the " + this.nf + " features of this LSTDQ object.");
+			}
+			int p = this.position[f.id];
+			if(p == -1){
+				this.position[f.id] = this.phiSize;
+				this.phiIds[this.phiSize] = f.id;
+				this.phiValues[this.phiSize] = f.value;
+				this.phiSize++;
+			}
+			else{
+				this.phiValues[p] = f.value;
+			}
+		}
+		for(int k = 0; k < this.phiSize; k++){
+			this.position[this.phiIds[k]] = -1;
+		}
+	}
+
+
+	protected void ensurePhiCapacity(int n){
+		if(this.phiIds.length < n){
+			this.phiIds = new int[Math.max(n, 2*this.phiIds.length)];
+			this.phiValues = new double[this.phiIds.length];
+		}
+	}
+
+
+	protected void ensureDCapacity(int n){
+		if(this.dIds.length < n){
+			this.dIds = new int[Math.max(n, 2*this.dIds.length)];
+			this.dValues = new double[this.dIds.length];
+		}
+	}
+
+
+	/**
+	 * Compresses the pending triplet entries, sums their duplicates, and adds them to the accumulated matrix.
+	 */
+	protected void flush(){
+		if(this.triplets == null || this.triplets.nz == 0){
+			return;
+		}
+		Dcs C = Dcs_compress.cs_compress(this.triplets);
+		Dcs_dupl.cs_dupl(C);
+		this.accumulated = this.accumulated == null ? C : Dcs_add.cs_add(this.accumulated, C, 1., 1.);
+		this.triplets = Dcs_util.cs_spalloc(this.nf, this.nf, 1024, true, true);
+	}
+
+}
@@ -1,6 +1,6 @@
 package burlap.behavior.singleagent.learning.tdmethods;
 
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -14,9 +14,10 @@ import burlap.behavior.singleagent.Policy;
 import burlap.behavior.singleagent.QValue;
 import burlap.behavior.singleagent.ValueFunctionInitialization;
 import burlap.behavior.singleagent.learning.LearningAgent;
+import burlap.behavior.singleagent.learning.experiencereplay.ExperienceReplay;
+import burlap.behavior.singleagent.learning.experiencereplay.ReplayBuffer;
 import burlap.behavior.singleagent.options.Option;
 import burlap.behavior.singleagent.planning.OOMDPPlanner;
-import burlap.behavior.singleagent.planning.QComputablePlanner;
 import burlap.behavior.singleagent.planning.commonpolicies.EpsilonGreedy;
 import burlap.behavior.statehashing.StateHashFactory;
 import burlap.behavior.statehashing.StateHashTuple;
@@ -33,6 +34,14 @@ import burlap.oomdp.singleagent.RewardFunction;
  * Tabular Q-learning algorithm [1]. This implementation will work correctly with Options [2]. The implementation can either be used for learning or planning,
  * the latter of which is performed by running many learning episodes in succession. The number of episodes used for planning can be determined
  * by a threshold maximum number of episodes, or by a maximum change in the Q-function threshold.
+ * <p/>
+ * Q-values are stored in a {@link QTable}, which gives each state a dense id and keeps the Q-values of all states in one array with the maximum Q-value
+ * of each state cached. The {@link burlap.behavior.singleagent.QValue} objects returned by {@link #getQs(State)} and {@link #getQ(State, AbstractGroundedAction)}
+ * are snapshots of the table; changing them does not change the stored Q-values.
+ * <p/>
+ * If an {@link ExperienceReplay} object is set with {@link #setExperienceReplay(ExperienceReplay)}, each observed transition is also added
+ * to its replay buffer, and mini-batches of Q-learning backups on sampled transitions are performed between environment steps. Experience replay
+ * is not used by the {@link SarsaLam} subclass.
  * 
  * <p/>
  * 1. Watkins, Christopher JCH, and Peter Dayan. "Q-learning." Machine learning 8.3-4 (1992): 279-292. <br/>
@@ -41,13 +50,13 @@ import burlap.oomdp.singleagent.RewardFunction;
  * @author James MacGlashan
  *
  */
-public class QLearning extends OOMDPPlanner implements QComputablePlanner, LearningAgent{
+public class QLearning extends OOMDPPlanner implements QTableProvider, LearningAgent{
 
 	
 	/**
 	 * The tabular mapping from states to Q-values
 	 */
-	protected Map<StateHashTuple, QLearningStateNode>				qIndex;
+	protected QTable												qTable;
 	
 	/**
 	 * The object that defines how Q-values are initialized.
@@ -119,6 +128,12 @@ public class QLearning extends OOMDPPlanner implements QComputablePlanner, Learn
 	protected int													totalNumberOfSteps = 0;
 	
 	
+	/**
+	 * The experience replay configuration, or null if experience replay is not used
+	 */
+	protected ExperienceReplay										experienceReplay;
+	
+	
 	/**
 	 * Initializes Q-learning with 0.1 epsilon greedy policy, the same Q-value initialization everywhere, and places no limit on the number of steps the 
 	 * agent can take in an episode. By default the agent will only save the last learning episode and a call to the {@link #planFromState(State)} method
@@ -220,7 +235,7 @@ public class QLearning extends OOMDPPlanner implements QComputablePlanner, Learn
 			ValueFunctionInitialization qInitFunction, double learningRate, Policy learningPolicy, int maxEpisodeSize){
 		
 		this.plannerInit(domain, rf, tf, gamma, hashingFactory);
-		this.qIndex = new HashMap<StateHashTuple, QLearningStateNode>();
+		this.qTable = new QTable();
 		this.learningRate = new ConstantLR(learningRate);
 		this.learningPolicy = learningPolicy;
 		this.maxEpisodeSize = maxEpisodeSize;
@@ -261,6 +276,24 @@ public class QLearning extends OOMDPPlanner implements QComputablePlanner, Learn
 		this.learningPolicy = p;
 	}
 	
+	/**
+	 * Sets the experience replay configuration to use. Each transition observed in a learning episode is added to its replay buffer and mini-batches of
+	 * backups on sampled transitions are performed between environment steps. Set to null to disable experience replay, which is the default.
+	 * @param experienceReplay the experience replay configuration to use, or null to disable experience replay
+	 */
+	public void setExperienceReplay(ExperienceReplay experienceReplay){
+		this.experienceReplay = experienceReplay;
+	}
+	
+	
+	/**
+	 * Returns the experience replay configuration, which also provides replay statistics.
+	 * @return the experience replay configuration, or null if experience replay is not used
+	 */
+	public ExperienceReplay getExperienceReplay(){
+		return this.experienceReplay;
+	}
+	
 	/**
 	 * Sets the maximum number of episodes that will be performed when the {@link #planFromState(State)} method is called.
 	 * @param n the maximum number of episodes that will be performed when the {@link #planFromState(State)} method is called.
@@ -353,66 +386,92 @@ public class QLearning extends OOMDPPlanner implements QComputablePlanner, Learn
 	}
 	
 	
+	@Override
+	public QTable getQTable(){
+		return this.qTable;
+	}
+	
+	
+	@Override
+	public int getQTableStateId(State s){
+		return this.getStateId(this.stateHash(s));
+	}
+	
+	
 	/**
-	 * Returns the possible Q-values for a given hashed stated.
+	 * Returns the possible Q-values for a given hashed stated. The returned Q-values are snapshots of the Q-table.
 	 * @param s the hashed state for which to get the Q-values.
 	 * @return the possible Q-values for a given hashed stated.
 	 */
 	protected List<QValue> getQs(StateHashTuple s) {
-		QLearningStateNode node = this.getStateNode(s);
-		return node.qEntry;
+		int sid = this.getStateId(s);
+		State stored = this.qTable.state(sid).s;
+		int first = this.qTable.firstSlot(sid);
+		int n = this.qTable.numSlots(sid);
+		List<QValue> qs = new ArrayList<QValue>(n);
+		for(int i = first; i < first+n; i++){
+			qs.add(new QValue(stored, this.qTable.action(i), this.qTable.q(i)));
+		}
+		return qs;
 	}
 
 
 	/**
-	 * Returns the Q-value for a given hashed state and action.
+	 * Returns the Q-value for a given hashed state and action. The returned Q-value is a snapshot of the Q-table.
 	 * @param s the hashed state
 	 * @param a the action
 	 * @return the Q-value for a given hashed state and action; null is returned if there is not Q-value currently stored.
 	 */
 	protected QValue getQ(StateHashTuple s, GroundedAction a) {
-		QLearningStateNode node = this.getStateNode(s);
+		int slot = this.getQSlot(s, a);
+		if(slot == -1){
+			return null; //no action for this state indexed
+		}
+		return new QValue(this.qTable.state(this.qTable.slotState(slot)).s, this.qTable.action(slot), this.qTable.q(slot));
+	}
+	
+	
+	/**
+	 * Returns the Q-table slot for a given hashed state and action, adding the state to the Q-table if it is not yet stored.
+	 * @param s the hashed state
+	 * @param a the action
+	 * @return the Q-table slot for the state and action; -1 if the state has no Q-value for the action.
+	 */
+	protected int getQSlot(StateHashTuple s, GroundedAction a) {
+		int sid = this.getStateId(s);
 		
 		if(a.params.length > 0 && !this.domain.isObjectIdentifierDependent() && a.parametersAreObjects()){
-			Map<String, String> matching = s.s.getObjectMatchingTo(node.s.s, false);
+			Map<String, String> matching = s.s.getObjectMatchingTo(this.qTable.state(sid).s, false);
 			a = this.translateAction(a, matching);
 		}
 		
-		for(QValue qv : node.qEntry){
-			if(qv.a.equals(a)){
-				return qv;
-			}
-		}
-		
-		return null; //no action for this state indexed
+		return this.qTable.slot(sid, a);
 	}
 	
 	
 	/**
-	 * Returns the {@link QLearningStateNode} object stored for the given hashed state. If no {@link QLearningStateNode} object.
-	 * is stored, then it is created and has its Q-value initialize using this objects {@link burlap.behavior.singleagent.ValueFunctionInitialization} data member.
-	 * @param s the hashed state for which to get the {@link QLearningStateNode} object
-	 * @return the {@link QLearningStateNode} object stored for the given hashed state. If no {@link QLearningStateNode} object.
+	 * Returns the Q-table id of the given hashed state. If the state is not stored, then it is added with Q-values initialized using
+	 * this object's {@link burlap.behavior.singleagent.ValueFunctionInitialization} data member.
+	 * @param s the hashed state for which to get the Q-table id
+	 * @return the Q-table id of the hashed state
 	 */
-	protected QLearningStateNode getStateNode(StateHashTuple s){
+	protected int getStateId(StateHashTuple s){
 		
-		QLearningStateNode node = qIndex.get(s);
+		int sid = this.qTable.stateId(s);
 		
-		if(node == null){
-			node = new QLearningStateNode(s);
+		if(sid == -1){
 			List<GroundedAction> gas = this.getAllGroundedActions(s.s);
 			if(gas.size() == 0){
-				gas = this.getAllGroundedActions(s.s);
 				throw new RuntimeErrorException(new Error("No possible actions in this state, cannot continue Q-learning"));
 			}
-			for(GroundedAction ga : gas){
-				node.addQValue(ga, qInitFunction.qValue(s.s, ga));
+			double [] qInits = new double[gas.size()];
+			for(int i = 0; i < gas.size(); i++){
+				qInits[i] = qInitFunction.qValue(s.s, gas.get(i));
 			}
-			
-			qIndex.put(s, node);
+			sid = this.qTable.addState(s, gas, qInits);
 		}
 		
-		return node;
+		return sid;
 		
 	}
 	
@@ -422,14 +481,7 @@ public class QLearning extends OOMDPPlanner implements QComputablePlanner, Learn
 	 * @return the maximum Q-value in the hashed stated.
 	 */
 	protected double getMaxQ(StateHashTuple s){
-		List <QValue> qs = this.getQs(s);
-		double max = Double.NEGATIVE_INFINITY;
-		for(QValue q : qs){
-			if(q.q > max){
-				max = q.q;
-			}
-		}
-		return max;
+		return this.qTable.maxQ(this.getStateId(s));
 	}
 
 	@Override
@@ -465,12 +517,13 @@ public class QLearning extends OOMDPPlanner implements QComputablePlanner, Learn
 		while(!tf.isTerminal(curState.s) && eStepCounter < maxSteps){
 			
 			GroundedAction action = (GroundedAction)learningPolicy.getAction(curState.s);
-			QValue curQ = this.getQ(curState, action);
+			int curSlot = this.getQSlot(curState, action);
 			
 			StateHashTuple nextState = this.stateHash(action.executeIn(curState.s));
 			double maxQ = 0.;
+			boolean nextTerminal = tf.isTerminal(nextState.s);
 			
-			if(!tf.isTerminal(nextState.s)){
+			if(!nextTerminal){
 				maxQ = this.getMaxQ(nextState);
 			}
 			
@@ -498,16 +551,24 @@ public class QLearning extends OOMDPPlanner implements QComputablePlanner, Learn
 			
 			
 			
-			double oldQ = curQ.q;
+			double oldQ = this.qTable.q(curSlot);
 			
 			//update Q-value
-			curQ.q = curQ.q + this.learningRate.pollLearningRate(this.totalNumberOfSteps, curState.s, action) * (r + (discount * maxQ) - curQ.q);
+			double newQ = oldQ + this.learningRate.pollLearningRate(this.totalNumberOfSteps, curState.s, action) * (r + (discount * maxQ) - oldQ);
+			this.qTable.setQ(curSlot, newQ);
 			
-			double deltaQ = Math.abs(oldQ - curQ.q);
+			double deltaQ = Math.abs(oldQ - newQ);
 			if(deltaQ > maxQChangeInLastEpisode){
 				maxQChangeInLastEpisode = deltaQ;
 			}
 			
+			if(this.experienceReplay != null){
+				this.experienceReplay.getBuffer().add(curState.s, action, r, nextState.s, null, nextTerminal, discount);
+				if(this.experienceReplay.recordEnvironmentStep()){
+					this.replayBatch();
+				}
+			}
+			
 			//move on
 			curState = nextState;
 			this.totalNumberOfSteps++;
@@ -524,6 +585,48 @@ public class QLearning extends OOMDPPlanner implements QComputablePlanner, Learn
 	}
 
 
+	/**
+	 * Performs a mini-batch of Q-learning backups on transitions sampled from the experience replay buffer. Backups of transitions sampled
+	 * from a prioritized buffer are scaled by their importance sampling weight and update the priority of the transition. Replayed backups use
+	 * {@link LearningRate#peekAtLearningRate(State, AbstractGroundedAction)}, so that
+	 * state-wise learning rate schedules only decay on real visits.
+	 */
+	protected void replayBatch(){
+		
+		long start = System.nanoTime();
+		ReplayBuffer buffer = this.experienceReplay.getBuffer();
+		int batchSize = this.experienceReplay.getBatchSize();
+		
+		for(int b = 0; b < batchSize; b++){
+			
+			int i = this.experienceReplay.sample();
+			StateHashTuple sh = this.stateHash(buffer.state(i));
+			GroundedAction ga = buffer.action(i);
+			int slot = this.getQSlot(sh, ga);
+			
+			double maxQ = 0.;
+			if(!buffer.isTerminal(i)){
+				maxQ = this.getMaxQ(this.stateHash(buffer.nextState(i)));
+			}
+			
+			double oldQ = this.qTable.q(slot);
+			double tdError = buffer.reward(i) + (buffer.discount(i) * maxQ) - oldQ;
+			double newQ = oldQ + this.experienceReplay.updateScale(i) * this.learningRate.peekAtLearningRate(sh.s, ga) * tdError;
+			this.qTable.setQ(slot, newQ);
+			buffer.updatePriority(i, tdError);
+			
+			double deltaQ = Math.abs(oldQ - newQ);
+			if(deltaQ > maxQChangeInLastEpisode){
+				maxQChangeInLastEpisode = deltaQ;
+			}
+			
+		}
+		
+		this.experienceReplay.recordBatch(batchSize, System.nanoTime() - start);
+		
+	}
+
+
 	@Override
 	public EpisodeAnalysis getLastLearningEpisode() {
 		return episodeHistory.getLast();
@@ -550,8 +653,12 @@ public class QLearning extends OOMDPPlanner implements QComputablePlanner, Learn
 	@Override
 	public void resetPlannerResults(){
 		this.mapToStateIndex.clear();
-		this.qIndex.clear();
+		this.qTable.clear();
 		this.episodeHistory.clear();
+		if(this.experienceReplay != null){
+			this.experienceReplay.getBuffer().clear();
+			this.experienceReplay.resetStatistics();
+		}
 		this.eStepCounter = 0;
 		this.maxQChangeInLastEpisode = Double.POSITIVE_INFINITY;
 	}
@@ -0,0 +1,349 @@
+package burlap.behavior.singleagent.learning.tdmethods;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import burlap.behavior.statehashing.StateHashTuple;
+import burlap.oomdp.singleagent.GroundedAction;
+
+
+/**
+ * A compact tabular store of Q-values. Each hashed state added to the table is given a dense integer id and a contiguous block of slots, one for each
+ * of its grounded actions, and the Q-values of all slots are stored in a single double array. The maximum Q-value of each state is cached and kept
+ * up to date as Q-values are set, so that max and greedy queries do not need to scan the state's slots unless the maximum decreases.
+ * <p/>
+ * Finding the slot of an action compares the cached hash codes of the state's actions before calling {@link GroundedAction#equals(Object)}, so lookups
+ * do not allocate any objects. States cannot be removed individually, but the whole table can be cleared.
+ *
+ */
+public class QTable {
+
+	/**
+	 * The dense id of each hashed state in the table
+	 */
+	protected Map<StateHashTuple, Integer>		stateIds;
+
+	/**
+	 * The hashed state of each state id
+	 */
+	protected StateHashTuple []					states;
+
+	/**
+	 * The first slot of each state id
+	 */
+	protected int []							firstSlots;
+
+	/**
+	 * The number of slots (actions) of each state id
+	 */
+	protected int []							numSlots;
+
+	/**
+	 * The maximum Q-value of each state id
+	 */
+	protected double []							maxQs;
+
+	/**
+	 * The number of states in the table
+	 */
+	protected int								numStates = 0;
+
+	/**
+	 * The Q-value of each slot
+	 */
+	protected double []							qs;
+
+	/**
+	 * The grounded action of each slot
+	 */
+	protected GroundedAction []					actions;
+
+	/**
+	 * The hash code of the grounded action of each slot
+	 */
+	protected int []							actionHashes;
+
+	/**
+	 * The state id of each slot
+	 */
+	protected int []							slotStates;
+
+	/**
+	 * The number of slots in the table
+	 */
+	protected int								totalSlots = 0;
+
+
+	/**
+	 * Initializes an empty table.
+	 */
+	public QTable(){
+		this.stateIds = new HashMap<StateHashTuple, Integer>();
+		this.allocate(64, 256);
+	}
+
+
+	/**
+	 * Returns the number of states in the table
+	 * @return the number of states in the table
+	 */
+	public int numStates(){
+		return this.numStates;
+	}
+
+
+	/**
+	 * Returns the total number of state-action slots in the table
+	 * @return the total number of state-action slots in the table
+	 */
+	public int numSlots(){
+		return this.totalSlots;
+	}
+
+
+	/**
+	 * Returns the dense id of the given hashed state, or -1 if it is not in the table
+	 * @param sh the hashed state
+	 * @return the dense id of the state, or -1 if it is not in the table
+	 */
+	public int stateId(StateHashTuple sh){
+		Integer id = this.stateIds.get(sh);
+		if(id == null){
+			return -1;
+		}
+		return id;
+	}
+
+
+	/**
+	 * Adds a state to the table with a slot for each of the given actions, initialized to the given Q-values.
+	 * @param sh the hashed state, which must not already be in the table
+	 * @param gas the grounded actions of the state
+	 * @param initialQs the initial Q-value of each action
+	 * @return the dense id of the new state
+	 */
+	public int addState(StateHashTuple sh, List<GroundedAction> gas, double [] initialQs){
+
+		int id = this.numStates;
+		int first = this.totalSlots;
+		int n = gas.size();
+		if(id == this.states.length || first + n > this.qs.length){
+			int stateCapacity = id == this.states.length ? this.states.length*2 : this.states.length;
+			int slotCapacity = first + n > this.qs.length ? Math.max(this.qs.length*2, first+n) : this.qs.length;
+			this.allocate(stateCapacity, slotCapacity);
+		}
+
+		double max = Double.NEGATIVE_INFINITY;
+		for(int i = 0; i < n; i++){
+			GroundedAction ga = gas.get(i);
+			this.qs[first+i] = initialQs[i];
+			this.actions[first+i] = ga;
+			this.actionHashes[first+i] = ga.hashCode();
+			this.slotStates[first+i] = id;
+			max = Math.max(max, initialQs[i]);
+		}
+
+		this.states[id] = sh;
+		this.firstSlots[id] = first;
+		this.numSlots[id] = n;
+		this.maxQs[id] = max;
+		this.stateIds.put(sh, id);
+		this.numStates++;
+		this.totalSlots += n;
+
+		return id;
+	}
+
+
+	/**
+	 * Returns the hashed state with the given id, as it was when added to the table.
+	 * @param stateId the state id
+	 * @return the hashed state with the given id
+	 */
+	public StateHashTuple state(int stateId){
+		return this.states[stateId];
+	}
+
+
+	/**
+	 * Returns the first slot of the state with the given id. The slots of the state are the consecutive slots starting at this slot.
+	 * @param stateId the state id
+	 * @return the first slot of the state
+	 */
+	public int firstSlot(int stateId){
+		return this.firstSlots[stateId];
+	}
+
+
+	/**
+	 * Returns the number of slots (actions) of the state with the given id
+	 * @param stateId the state id
+	 * @return the number of slots of the state
+	 */
+	public int numSlots(int stateId){
+		return this.numSlots[stateId];
+	}
+
+
+	/**
+	 * Returns the slot of the given action in the state with the given id, or -1 if the state has no slot for the action.
+	 * @param stateId the state id
+	 * @param ga the grounded action, whose parameters must already be translated to the object names of the stored state if necessary
+	 * @return the slot of the action, or -1 if the state has no slot for it.
+	 */
+	public int slot(int stateId, GroundedAction ga){
+		int h = ga.hashCode();
+		int first = this.firstSlots[stateId];
+		int end = first + this.numSlots[stateId];
+		for(int i = first; i < end; i++){
+			if(this.actionHashes[i] == h && this.actions[i].equals(ga)){
+				return i;
+			}
+		}
+		return -1;
+	}
+
+
+	/**
+	 * Returns the state id of a slot
+	 * @param slot the slot
+	 * @return the state id of the slot
+	 */
+	public int slotState(int slot){
+		return this.slotStates[slot];
+	}
+
+
+	/**
+	 * Returns the grounded action of a slot
+	 * @param slot the slot
+	 * @return the grounded action of the slot
+	 */
+	public GroundedAction action(int slot){
+		return this.actions[slot];
+	}
+
+
+	/**
+	 * Returns the Q-value of a slot
+	 * @param slot the slot
+	 * @return the Q-value of the slot
+	 */
+	public double q(int slot){
+		return this.qs[slot];
+	}
+
+
+	/**
+	 * Sets the Q-value of a slot and updates the cached maximum Q-value of its state.
+	 * @param slot the slot
+	 * @param q the new Q-value
+	 */
+	public void setQ(int slot, double q){
+		double old = this.qs[slot];
+		this.qs[slot] = q;
+		int sid = this.slotStates[slot];
+		double max = this.maxQs[sid];
+		if(q >= max){
+			this.maxQs[sid] = q;
+		}
+		else if(old == max){
+			//the previous maximum may have decreased, so rescan the state's slots
+			int first = this.firstSlots[sid];
+			int end = first + this.numSlots[sid];
+			max = Double.NEGATIVE_INFINITY;
+			for(int i = first; i < end; i++){
+				max = Math.max(max, this.qs[i]);
+			}
+			this.maxQs[sid] = max;
+		}
+	}
+
+
+	/**
+	 * Returns the maximum Q-value of the state with the given id
+	 * @param stateId the state id
+	 * @return the maximum Q-value of the state
+	 */
+	public double maxQ(int stateId){
+		return this.maxQs[stateId];
+	}
+
+
+	/**
+	 * Returns a slot of the state with the given id that has the maximum Q-value. Ties are broken uniformly at random by counting the tied slots,
+	 * drawing one random integer below that count, and returning the tied slot at that position in slot order. If no slot equals the cached maximum,
+	 * which happens when a Q-value of the state is NaN, a slot of the state is selected uniformly at random instead.
+	 * @param stateId the state id
+	 * @param rand the random number generator used to break ties
+	 * @return a slot of the state with the maximum Q-value
+	 */
+	public int greedySlot(int stateId, Random rand){
+		double max = this.maxQs[stateId];
+		int first = this.firstSlots[stateId];
+		int end = first + this.numSlots[stateId];
+		int numMax = 0;
+		for(int i = first; i < end; i++){
+			if(this.qs[i] == max){
+				numMax++;
+			}
+		}
+		if(numMax == 0){
+			return first + rand.nextInt(end - first);
+		}
+		int selected = rand.nextInt(numMax);
+		for(int i = first; i < end; i++){
+			if(this.qs[i] == max){
+				if(selected == 0){
+					return i;
+				}
+				selected--;
+			}
+		}
+		throw new RuntimeException("Cached maximum Q-value of state " + stateId + " does not match any of its Q-values");
+	}
+
+
+	/**
+	 * Removes all states from the table.
+	 */
+	public void clear(){
+		this.stateIds.clear();
+		Arrays.fill(this.states, 0, this.numStates, null);
+		Arrays.fill(this.actions, 0, this.totalSlots, null);
+		this.numStates = 0;
+		this.totalSlots = 0;
+	}
+
+
+	/**
+	 * Grows the arrays of the table to the given capacities, keeping their contents.
+	 * @param stateCapacity the number of states for which space is reserved
+	 * @param slotCapacity the number of slots for which space is reserved
+	 */
+	protected void allocate(int stateCapacity, int slotCapacity){
+		if(this.states == null){
+			this.states = new StateHashTuple[stateCapacity];
+			this.firstSlots = new int[stateCapacity];
+			this.numSlots = new int[stateCapacity];
+			this.maxQs = new double[stateCapacity];
+			this.qs = new double[slotCapacity];
+			this.actions = new GroundedAction[slotCapacity];
+			this.actionHashes = new int[slotCapacity];
+			this.slotStates = new int[slotCapacity];
+			return;
+		}
+		this.states = Arrays.copyOf(this.states, stateCapacity);
+		this.firstSlots = Arrays.copyOf(this.firstSlots, stateCapacity);
+		this.numSlots = Arrays.copyOf(this.numSlots, stateCapacity);
+		this.maxQs = Arrays.copyOf(this.maxQs, stateCapacity);
+		this.qs = Arrays.copyOf(this.qs, slotCapacity);
+		this.actions = Arrays.copyOf(this.actions, slotCapacity);
+		this.actionHashes = Arrays.copyOf(this.actionHashes, slotCapacity);
+		this.slotStates = Arrays.copyOf(this.slotStates, slotCapacity);
+	}
+
+}
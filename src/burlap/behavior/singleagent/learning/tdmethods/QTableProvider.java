@@ -0,0 +1,28 @@
+package burlap.behavior.singleagent.learning.tdmethods;
+
+import burlap.behavior.singleagent.planning.QComputablePlanner;
+import burlap.oomdp.core.State;
+
+
+/**
+ * An interface for {@link QComputablePlanner} objects that store their Q-values in a {@link QTable}. Policies can use the table directly
+ * to select actions without creating {@link burlap.behavior.singleagent.QValue} objects.
+ *
+ */
+public interface QTableProvider extends QComputablePlanner {
+
+	/**
+	 * Returns the table in which the Q-values are stored
+	 * @return the table in which the Q-values are stored
+	 */
+	public QTable getQTable();
+
+
+	/**
+	 * Returns the id in the Q-table of the given state, adding the state to the table with initial Q-values if it is not yet stored.
+	 * @param s the state
+	 * @return the id of the state in the Q-table
+	 */
+	public int getQTableStateId(State s);
+
+}
@@ -1,6 +1,6 @@
 package burlap.behavior.singleagent.learning.tdmethods;
 
-import java.util.LinkedList;
+import java.util.Arrays;
 
 import burlap.behavior.singleagent.EpisodeAnalysis;
 import burlap.behavior.singleagent.Policy;
@@ -35,6 +35,26 @@ public class SarsaLam extends QLearning {
 	 */
 	protected double				lambda;
 	
+	/**
+	 * The Q-table slot of each eligibility trace of the current episode, in the order in which the traces were created
+	 */
+	protected int []				traceSlots = new int[16];
+	
+	/**
+	 * The eligibility value of each eligibility trace of the current episode
+	 */
+	protected double []				traceEligibilities = new double[16];
+	
+	/**
+	 * The Q-value of each eligibility trace of the current episode when it was created
+	 */
+	protected double []				traceInitialQs = new double[16];
+	
+	/**
+	 * The number of eligibility traces of the current episode
+	 */
+	protected int					numTraces = 0;
+	
 	
 	/**
 	 * Initializes SARSA(\lambda) with 0.1 epsilon greedy policy, the same Q-value initialization everywhere, and places no limit on the number of steps the 
@@ -148,10 +168,10 @@ public class SarsaLam extends QLearning {
 		
 		StateHashTuple curState = this.stateHash(initialState);
 		eStepCounter = 0;
-		LinkedList<EligibilityTrace> traces = new LinkedList<SarsaLam.EligibilityTrace>();
+		this.numTraces = 0;
 		
 		GroundedAction action = (GroundedAction)learningPolicy.getAction(curState.s);
-		QValue curQ = this.getQ(curState, action);
+		int curSlot = this.getQSlot(curState, action);
 		
 		
 		
@@ -159,8 +179,8 @@ public class SarsaLam extends QLearning {
 			
 			StateHashTuple nextState = this.stateHash(action.executeIn(curState.s));
 			GroundedAction nextAction = (GroundedAction)learningPolicy.getAction(nextState.s);
-			QValue nextQ = this.getQ(nextState, nextAction);
-			double nextQV = nextQ.q;
+			int nextSlot = this.getQSlot(nextState, nextAction);
+			double nextQV = this.qTable.q(nextSlot);
 			
 			if(tf.isTerminal(nextState.s)){
 				nextQV = 0.;
@@ -192,28 +212,31 @@ public class SarsaLam extends QLearning {
 			
 			
 			//delta
-			double delta = r + (discount * nextQV) - curQ.q;
+			double delta = r + (discount * nextQV) - this.qTable.q(curSlot);
 			
 			//update all
+			int curStateId = this.qTable.slotState(curSlot);
 			boolean foundCurrentQTrace = false;
-			for(EligibilityTrace et : traces){
+			for(int i = 0; i < this.numTraces; i++){
 				
-				if(et.sh.equals(curState)){
-					if(et.q.a.equals(action)){
+				int slot = this.traceSlots[i];
+				if(this.qTable.slotState(slot) == curStateId){
+					if(slot == curSlot){
 						foundCurrentQTrace = true;
-						et.eligibility = 1.; //replacing traces
+						this.traceEligibilities[i] = 1.; //replacing traces
 					}
 					else{
-						et.eligibility = 0.; //replacing traces
+						this.traceEligibilities[i] = 0.; //replacing traces
 					}
 				}
 				
-				double learningRate = this.learningRate.pollLearningRate(this.totalNumberOfSteps, et.sh.s, et.q.a);
+				double learningRate = this.learningRate.pollLearningRate(this.totalNumberOfSteps, this.qTable.state(this.qTable.slotState(slot)).s, this.qTable.action(slot));
 				
-				et.q.q = et.q.q + (learningRate * et.eligibility * delta);
-				et.eligibility = et.eligibility * lambda * discount;
+				double q = this.qTable.q(slot) + (learningRate * this.traceEligibilities[i] * delta);
+				this.qTable.setQ(slot, q);
+				this.traceEligibilities[i] = this.traceEligibilities[i] * lambda * discount;
 				
-				double deltaQ = Math.abs(et.initialQ - et.q.q);
+				double deltaQ = Math.abs(this.traceInitialQs[i] - q);
 				if(deltaQ > maxQChangeInLastEpisode){
 					maxQChangeInLastEpisode = deltaQ;
 				}
@@ -222,16 +245,10 @@ public class SarsaLam extends QLearning {
 			
 			if(!foundCurrentQTrace){
 				//then update and add it
-				double learningRate = this.learningRate.pollLearningRate(this.totalNumberOfSteps, curQ.s, curQ.a);
-				curQ.q = curQ.q + (learningRate * delta);
-				EligibilityTrace et = new EligibilityTrace(curState, curQ, lambda*discount);
-				
-				traces.add(et);
-
-				double deltaQ = Math.abs(et.initialQ - et.q.q);
-				if(deltaQ > maxQChangeInLastEpisode){
-					maxQChangeInLastEpisode = deltaQ;
-				}
+				double learningRate = this.learningRate.pollLearningRate(this.totalNumberOfSteps, this.qTable.state(curStateId).s, this.qTable.action(curSlot));
+				double q = this.qTable.q(curSlot) + (learningRate * delta);
+				this.qTable.setQ(curSlot, q);
+				this.addTrace(curSlot, lambda*discount, q);
 				
 			}
 			
@@ -239,7 +256,7 @@ public class SarsaLam extends QLearning {
 			//move on
 			curState = nextState;
 			action = nextAction;
-			curQ = nextQ;
+			curSlot = nextSlot;
 			
 			this.totalNumberOfSteps++;
 			
@@ -259,6 +276,27 @@ public class SarsaLam extends QLearning {
 	
 	
 	
+	/**
+	 * Appends an eligibility trace for a Q-table slot to the traces of the current episode.
+	 * @param slot the Q-table slot of the trace
+	 * @param eligibility the eligibility value of the trace
+	 * @param initialQ the Q-value of the slot when the trace is created
+	 */
+	protected void addTrace(int slot, double eligibility, double initialQ){
+		if(this.numTraces == this.traceSlots.length){
+			int nCapacity = this.traceSlots.length*2;
+			this.traceSlots = Arrays.copyOf(this.traceSlots, nCapacity);
+			this.traceEligibilities = Arrays.copyOf(this.traceEligibilities, nCapacity);
+			this.traceInitialQs = Arrays.copyOf(this.traceInitialQs, nCapacity);
+		}
+		this.traceSlots[this.numTraces] = slot;
+		this.traceEligibilities[this.numTraces] = eligibility;
+		this.traceInitialQs[this.numTraces] = initialQ;
+		this.numTraces++;
+	}
+	
+	
+	
 	/**
 	 * A data structure for maintaining eligibility trace values
 	 * @author James MacGlashan
@@ -1,12 +1,9 @@
 package burlap.behavior.singleagent.learning.tdmethods.vfa;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
 
 import burlap.behavior.learningrate.ConstantLR;
 import burlap.behavior.learningrate.LearningRate;
@@ -14,6 +11,8 @@ import burlap.behavior.singleagent.EpisodeAnalysis;
 import burlap.behavior.singleagent.Policy;
 import burlap.behavior.singleagent.QValue;
 import burlap.behavior.singleagent.learning.LearningAgent;
+import burlap.behavior.singleagent.learning.experiencereplay.ExperienceReplay;
+import burlap.behavior.singleagent.learning.experiencereplay.ReplayBuffer;
 import burlap.behavior.singleagent.options.Option;
 import burlap.behavior.singleagent.planning.OOMDPPlanner;
 import burlap.behavior.singleagent.planning.QComputablePlanner;
@@ -38,6 +37,10 @@ import burlap.oomdp.singleagent.RewardFunction;
  * {@link burlap.behavior.singleagent.vfa.ValueFunctionApproximation} interface provided. <p/>The implementation can either be used for learning or planning,
  * the latter of which is performed by running many learning episodes in succession. The number of episodes used for planning can be determined
  * by a threshold maximum number of episodes, or by a maximum change in the VFA weight threshold.
+ * <p/>
+ * If an {@link ExperienceReplay} object is set with {@link #setExperienceReplay(ExperienceReplay)}, each observed transition is also added
+ * to its replay buffer together with the action selected in the next state, and mini-batches of one-step gradient descent SARSA backups on sampled
+ * transitions are performed between environment steps.
  * @author James MacGlashan
  * 
  * <p/>
@@ -141,6 +144,18 @@ public class GradientDescentSarsaLam extends OOMDPPlanner implements QComputable
 	protected int													totalNumberOfSteps = 0;
 	
 	
+	/**
+	 * The eligibility traces of the current learning episode, which are reused across episodes
+	 */
+	protected EligibilityTraces										traces;
+	
+	
+	/**
+	 * The experience replay configuration, or null if experience replay is not used
+	 */
+	protected ExperienceReplay										experienceReplay;
+	
+	
 	/**
 	 * Initializes SARSA(\lambda) with 0.1 epsilon greedy policy and places no limit on the number of steps the 
 	 * agent can take in an episode. By default the agent will only save the last learning episode and a call to the {@link #planFromState(State)} method
@@ -301,6 +316,25 @@ public class GradientDescentSarsaLam extends OOMDPPlanner implements QComputable
 	}
 	
 	
+	/**
+	 * Sets the experience replay configuration to use. Each transition observed in a learning episode is added to its replay buffer and mini-batches of
+	 * backups on sampled transitions are performed between environment steps. Set to null to disable experience replay, which is the default.
+	 * @param experienceReplay the experience replay configuration to use, or null to disable experience replay
+	 */
+	public void setExperienceReplay(ExperienceReplay experienceReplay){
+		this.experienceReplay = experienceReplay;
+	}
+	
+	
+	/**
+	 * Returns the experience replay configuration, which also provides replay statistics.
+	 * @return the experience replay configuration, or null if experience replay is not used
+	 */
+	public ExperienceReplay getExperienceReplay(){
+		return this.experienceReplay;
+	}
+	
+	
 	/**
 	 * Sets whether to use replacing eligibility traces rather than accumulating traces.
 	 * @param toggle
@@ -359,7 +393,11 @@ public class GradientDescentSarsaLam extends OOMDPPlanner implements QComputable
 		
 		State curState = initialState;
 		eStepCounter = 0;
-		Map <Integer, EligibilityTraceVector> traces = new HashMap<Integer, GradientDescentSarsaLam.EligibilityTraceVector>();
+		if(this.traces == null){
+			this.traces = new EligibilityTraces();
+		}
+		EligibilityTraces traces = this.traces;
+		traces.clear();
 		
 		GroundedAction action = (GroundedAction)this.learningPolicy.getAction(curState);
 		List<ActionApproximationResult> allCurApproxResults = this.getAllActionApproximations(curState);
@@ -376,7 +414,8 @@ public class GradientDescentSarsaLam extends OOMDPPlanner implements QComputable
 			List<ActionApproximationResult> allNextApproxResults = this.getAllActionApproximations(nextState);
 			ActionApproximationResult nextApprox = ActionApproximationResult.extractApproximationForAction(allNextApproxResults, nextAction);
 			double nextQV = nextApprox.approximationResult.predictedValue;
-			if(tf.isTerminal(nextState)){
+			boolean nextTerminal = tf.isTerminal(nextState);
+			if(nextTerminal){
 				nextQV = 0.;
 			}
 			
@@ -417,10 +456,7 @@ public class GradientDescentSarsaLam extends OOMDPPlanner implements QComputable
 					}
 					else{ //reset trace of selected action
 						for(FunctionWeight fw : aar.approximationResult.functionWeights){
-							EligibilityTraceVector storedTrace = traces.get(fw.weightId());
-							if(storedTrace != null){
-								storedTrace.eligibilityValue = 0.;
-							}
+							traces.resetTrace(fw.weightId());
 						}
 					}
 				}
@@ -433,64 +469,50 @@ public class GradientDescentSarsaLam extends OOMDPPlanner implements QComputable
 			}
 			
 			
-			//update all traces
-			Set <Integer> deletedSet = new HashSet<Integer>();
-			for(EligibilityTraceVector et : traces.values()){
+			//add the gradient to the traces, starting new traces for weights that are not yet traced
+			for(FunctionWeight fw : curApprox.approximationResult.functionWeights){
+				traces.addToTrace(fw, gradient.getPartialDerivative(fw.weightId()));
+			}
+			
+			
+			//update the weights of all traces, then decay the traces and prune those that fall below the minimum eligibility
+			double traceDecay = this.lambda*discount;
+			int i = 0;
+			while(i < traces.size()){
 				
-				int weightId = et.weight.weightId();
+				FunctionWeight fw = traces.weight(i);
 				if(this.useFeatureWiseLearningRate){
-					learningRate = this.learningRate.pollLearningRate(this.totalNumberOfSteps, et.weight.weightId());
+					learningRate = this.learningRate.pollLearningRate(this.totalNumberOfSteps, fw.weightId());
 				}
 				
+				double eligibility = traces.eligibility(i);
+				double newWeight = fw.weightValue() + learningRate*delta*eligibility;
+				fw.setWeight(newWeight);
 				
-				et.eligibilityValue += gradient.getPartialDerivative(weightId);
-				double newWeight = et.weight.weightValue() + learningRate*delta*et.eligibilityValue;
-				et.weight.setWeight(newWeight);
-				
-				double deltaW = Math.abs(et.initialWeightValue - newWeight);
+				double deltaW = Math.abs(traces.initialWeightValue(i) - newWeight);
 				if(deltaW > maxWeightChangeInLastEpisode){
 					maxWeightChangeInLastEpisode = deltaW;
 				}
 				
-				et.eligibilityValue *= this.lambda*discount;
-				if(et.eligibilityValue < this.minEligibityForUpdate){
-					deletedSet.add(weightId);
+				eligibility *= traceDecay;
+				if(eligibility < this.minEligibityForUpdate){
+					traces.removeAt(i); //moves the last trace to position i
 				}
-				
-			}
-			
-			//add new traces if need be
-			for(FunctionWeight fw : curApprox.approximationResult.functionWeights){
-				
-				int weightId = fw.weightId();
-				if(!traces.containsKey(fw)){
-					
-					//then it's new and we need to add it
-					if(this.useFeatureWiseLearningRate){
-						learningRate = this.learningRate.pollLearningRate(this.totalNumberOfSteps, weightId);
-					}
-					
-					EligibilityTraceVector et = new EligibilityTraceVector(fw, gradient.getPartialDerivative(weightId));
-					double newWeight = fw.weightValue() + learningRate*delta*et.eligibilityValue;
-					fw.setWeight(newWeight);
-					
-					double deltaW = Math.abs(et.initialWeightValue - newWeight);
-					if(deltaW > maxWeightChangeInLastEpisode){
-						maxWeightChangeInLastEpisode = deltaW;
-					}
-					
-					et.eligibilityValue *= this.lambda*discount;
-					if(et.eligibilityValue >= this.minEligibityForUpdate){
-						traces.put(weightId, et);
-					}
-					
+				else{
+					traces.setEligibility(i, eligibility);
+					i++;
 				}
 				
 			}
 			
-			//delete any traces
-			for(Integer t : deletedSet){
-				traces.remove(t);
+			if(this.experienceReplay != null){
+				this.experienceReplay.getBuffer().add(curState, action, r, nextState, nextAction, nextTerminal, discount);
+				if(this.experienceReplay.recordEnvironmentStep()){
+					this.replayBatch();
+					//the replayed backups changed the weights, so the next state's prediction must be recomputed for the next TD error
+					allNextApproxResults = this.getAllActionApproximations(nextState);
+					nextApprox = ActionApproximationResult.extractApproximationForAction(allNextApproxResults, nextAction);
+				}
 			}
 			
 			
@@ -512,6 +534,60 @@ public class GradientDescentSarsaLam extends OOMDPPlanner implements QComputable
 		return ea;
 	}
 
+	/**
+	 * Performs a mini-batch of one-step gradient descent SARSA backups on transitions sampled from the experience replay buffer. Backups of transitions
+	 * sampled from a prioritized buffer are scaled by their importance sampling weight and update the priority of the transition. Replayed backups peek
+	 * at the learning rate rather than polling it, so that state-wise and feature-wise learning rate schedules only decay on real visits.
+	 */
+	protected void replayBatch(){
+		
+		long start = System.nanoTime();
+		ReplayBuffer buffer = this.experienceReplay.getBuffer();
+		int batchSize = this.experienceReplay.getBatchSize();
+		
+		for(int b = 0; b < batchSize; b++){
+			
+			int i = this.experienceReplay.sample();
+			State s = buffer.state(i);
+			GroundedAction ga = buffer.action(i);
+			ActionApproximationResult approx = this.getActionApproximation(s, ga);
+			
+			double nextQV = 0.;
+			if(!buffer.isTerminal(i)){
+				nextQV = this.getActionApproximation(buffer.nextState(i), buffer.nextAction(i)).approximationResult.predictedValue;
+			}
+			
+			double tdError = buffer.reward(i) + (buffer.discount(i) * nextQV) - approx.approximationResult.predictedValue;
+			double scale = this.experienceReplay.updateScale(i);
+			WeightGradient gradient = this.vfa.getWeightGradient(approx.approximationResult);
+			
+			double learningRate = 0.;
+			if(!this.useFeatureWiseLearningRate){
+				learningRate = this.learningRate.peekAtLearningRate(s, ga);
+			}
+			
+			for(FunctionWeight fw : approx.approximationResult.functionWeights){
+				if(this.useFeatureWiseLearningRate){
+					learningRate = this.learningRate.peekAtLearningRate(fw.weightId());
+				}
+				double oldWeight = fw.weightValue();
+				double newWeight = oldWeight + scale*learningRate*tdError*gradient.getPartialDerivative(fw.weightId());
+				fw.setWeight(newWeight);
+				
+				double deltaW = Math.abs(oldWeight - newWeight);
+				if(deltaW > maxWeightChangeInLastEpisode){
+					maxWeightChangeInLastEpisode = deltaW;
+				}
+			}
+			
+			buffer.updatePriority(i, tdError);
+			
+		}
+		
+		this.experienceReplay.recordBatch(batchSize, System.nanoTime() - start);
+		
+	}
+
 	@Override
 	public EpisodeAnalysis getLastLearningEpisode() {
 		return episodeHistory.getLast();
@@ -617,9 +693,203 @@ public class GradientDescentSarsaLam extends OOMDPPlanner implements QComputable
 		this.eStepCounter = 0;
 		this.maxWeightChangeInLastEpisode = Double.POSITIVE_INFINITY;
 		this.episodeHistory.clear();
+		if(this.experienceReplay != null){
+			this.experienceReplay.getBuffer().clear();
+			this.experienceReplay.resetStatistics();
+		}
 	}
 	
 	
+	/**
+	 * The eligibility traces of an episode stored in primitive parallel arrays. The traced weights are kept in a compact active list
+	 * whose positions index the eligibility values, the weight values at which the traces started, and the traced {@link FunctionWeight} objects,
+	 * and a dense array indexed by weight id maps each weight to its position in the active list. Looking up, adding and removing a trace
+	 * are constant time operations and iterating, decaying or clearing the traces takes time linear in the number of active traces, so no
+	 * objects are allocated per step once the arrays have grown to the largest weight id and number of active traces of the problem.
+	 * <p/>
+	 * Removing a trace moves the last trace of the active list into its position.
+	 *
+	 */
+	public static class EligibilityTraces{
+		
+		/**
+		 * The position of each weight id in the active list plus one, or zero if the weight is not traced
+		 */
+		protected int []				positions = new int[64];
+		
+		/**
+		 * The weight ids of the active traces
+		 */
+		protected int []				ids = new int[16];
+		
+		/**
+		 * The eligibility values of the active traces
+		 */
+		protected double []				eligibilities = new double[16];
+		
+		/**
+		 * The weight values at which the active traces started
+		 */
+		protected double []				initialWeightValues = new double[16];
+		
+		/**
+		 * The weights of the active traces
+		 */
+		protected FunctionWeight []		weights = new FunctionWeight[16];
+		
+		/**
+		 * The number of active traces
+		 */
+		protected int					size = 0;
+		
+		
+		/**
+		 * Returns the number of active traces
+		 * @return the number of active traces
+		 */
+		public int size(){
+			return this.size;
+		}
+		
+		
+		/**
+		 * Returns whether the weight with the given id is traced
+		 * @param weightId the weight id
+		 * @return true if the weight is traced; false otherwise.
+		 */
+		public boolean contains(int weightId){
+			return weightId < this.positions.length && this.positions[weightId] != 0;
+		}
+		
+		
+		/**
+		 * Returns the traced weight at position i of the active list
+		 * @param i the position in the active list
+		 * @return the traced weight
+		 */
+		public FunctionWeight weight(int i){
+			return this.weights[i];
+		}
+		
+		
+		/**
+		 * Returns the eligibility value of the trace at position i of the active list
+		 * @param i the position in the active list
+		 * @return the eligibility value
+		 */
+		public double eligibility(int i){
+			return this.eligibilities[i];
+		}
+		
+		
+		/**
+		 * Sets the eligibility value of the trace at position i of the active list
+		 * @param i the position in the active list
+		 * @param eligibility the eligibility value
+		 */
+		public void setEligibility(int i, double eligibility){
+			this.eligibilities[i] = eligibility;
+		}
+		
+		
+		/**
+		 * Returns the weight value at which the trace at position i of the active list started
+		 * @param i the position in the active list
+		 * @return the weight value at which the trace started
+		 */
+		public double initialWeightValue(int i){
+			return this.initialWeightValues[i];
+		}
+		
+		
+		/**
+		 * Adds a value to the eligibility of the given weight, starting a trace with zero eligibility if the weight is not yet traced.
+		 * Accumulating traces add the gradient to the trace; replacing traces first reset it with {@link #resetTrace(int)}.
+		 * @param weight the weight
+		 * @param value the value to add to the eligibility of the weight
+		 */
+		public void addToTrace(FunctionWeight weight, double value){
+			int weightId = weight.weightId();
+			if(weightId >= this.positions.length){
+				this.positions = Arrays.copyOf(this.positions, Math.max(weightId+1, this.positions.length*2));
+			}
+			int p = this.positions[weightId] - 1;
+			if(p == -1){
+				if(this.size == this.ids.length){
+					int nCapacity = this.ids.length*2;
+					this.ids = Arrays.copyOf(this.ids, nCapacity);
+					this.eligibilities = Arrays.copyOf(this.eligibilities, nCapacity);
+					this.initialWeightValues = Arrays.copyOf(this.initialWeightValues, nCapacity);
+					this.weights = Arrays.copyOf(this.weights, nCapacity);
+				}
+				p = this.size;
+				this.ids[p] = weightId;
+				this.eligibilities[p] = 0.;
+				this.initialWeightValues[p] = weight.weightValue();
+				this.weights[p] = weight;
+				this.positions[weightId] = p+1;
+				this.size++;
+			}
+			this.eligibilities[p] += value;
+		}
+		
+		
+		/**
+		 * Sets the eligibility of the given weight to zero if it is traced
+		 * @param weightId the weight id
+		 */
+		public void resetTrace(int weightId){
+			if(this.contains(weightId)){
+				this.eligibilities[this.positions[weightId]-1] = 0.;
+			}
+		}
+		
+		
+		/**
+		 * Stops tracing the given weight if it is traced
+		 * @param weightId the weight id
+		 */
+		public void remove(int weightId){
+			if(this.contains(weightId)){
+				this.removeAt(this.positions[weightId]-1);
+			}
+		}
+		
+		
+		/**
+		 * Removes the trace at position i of the active list by moving the last trace into its position
+		 * @param i the position in the active list
+		 */
+		public void removeAt(int i){
+			this.positions[this.ids[i]] = 0;
+			int last = this.size-1;
+			if(i != last){
+				this.ids[i] = this.ids[last];
+				this.eligibilities[i] = this.eligibilities[last];
+				this.initialWeightValues[i] = this.initialWeightValues[last];
+				this.weights[i] = this.weights[last];
+				this.positions[this.ids[i]] = i+1;
+			}
+			this.weights[last] = null;
+			this.size = last;
+		}
+		
+		
+		/**
+		 * Removes all traces
+		 */
+		public void clear(){
+			for(int i = 0; i < this.size; i++){
+				this.positions[this.ids[i]] = 0;
+				this.weights[i] = null;
+			}
+			this.size = 0;
+		}
+		
+	}
+	
+	
+	
 	/**
 	 * An object for keeping track of the eligibility traces within an episode for each VFA weight
 	 * @author James MacGlashan
@@ -0,0 +1,495 @@
+package burlap.behavior.singleagent.planning;
+
+import burlap.behavior.statehashing.StateHashTuple;
+import burlap.behavior.statehashing.StateIndexTable;
+import burlap.oomdp.singleagent.GroundedAction;
+
+
+/**
+ * An array based store for the value function and cached transition dynamics of a tabular {@link ValueFunctionPlanner}.
+ * Each state is assigned a dense int id by a {@link StateIndexTable}, its value is stored in a double array and its transition dynamics
+ * are stored in compressed sparse row (CSR) form: each expanded state owns a contiguous range of action rows, and each action row owns a contiguous
+ * range of transitions, which are stored as parallel arrays of target state ids, probabilities and rewards. Compared to the map based
+ * storage of {@link ValueFunctionPlanner}, this avoids boxing the values and allocating map entries, {@link ActionTransitions} and
+ * {@link HashedTransitionProbability} objects for every state, and a Bellman backup only reads primitive arrays.
+ * <p/>
+ * The Q-value of an action row a is computed as actionReward[a] + sum_t p_t * (r_t + actionDiscount[a] * V(target_t)). For primitive
+ * actions, the action reward is 0, the discount is the planner's discount factor and each transition stores the reward of that transition.
+ * For {@link burlap.behavior.singleagent.options.Option}s, the action reward is the option's expected reward, the discount is 1 (the option
+ * probabilities are already discounted) and transition rewards are 0. Because rewards are cached with the transitions,
+ * the reward function must not change while dynamics are cached.
+ * <p/>
+ * Terminal states are never expanded by the planners and always have the value 0.
+ *
+ */
+public class IndexedStateModel {
+
+	/**
+	 * The state id table
+	 */
+	protected StateIndexTable					states;
+
+	/**
+	 * The value of each state, indexed by state id
+	 */
+	protected double []							values;
+
+	/**
+	 * Whether each state is a terminal state, indexed by state id
+	 */
+	protected boolean []						terminal;
+
+	/**
+	 * The first action row of each state, or -1 if the state has not been expanded, indexed by state id
+	 */
+	protected int []							actionStart;
+
+	/**
+	 * The number of action rows of each state, indexed by state id
+	 */
+	protected int []							actionCount;
+
+
+	/**
+	 * The grounded action of each action row
+	 */
+	protected GroundedAction []					actions;
+
+	/**
+	 * The reward added to the Q-value of each action row
+	 */
+	protected double []							actionReward;
+
+	/**
+	 * The discount applied to the value of the transition targets of each action row
+	 */
+	protected double []							actionDiscount;
+
+	/**
+	 * The first transition of each action row; transitionStart[numActions] is the end of the last row.
+	 */
+	protected int []							transitionStart;
+
+	/**
+	 * The number of action rows
+	 */
+	protected int								numActions;
+
+
+	/**
+	 * The target state id of each transition
+	 */
+	protected int []							transitionTarget;
+
+	/**
+	 * The probability of each transition
+	 */
+	protected double []							transitionProbability;
+
+	/**
+	 * The reward of each transition
+	 */
+	protected double []							transitionReward;
+
+	/**
+	 * The number of transitions
+	 */
+	protected int								numTransitions;
+
+
+	/**
+	 * The state whose action rows are currently being added, or -1.
+	 */
+	protected int								expandingState = -1;
+
+
+
+	/**
+	 * Initializes an empty model.
+	 */
+	public IndexedStateModel(){
+		this(1024);
+	}
+
+
+	/**
+	 * Initializes an empty model with capacity for the given number of states before it needs to resize.
+	 * @param expectedStates the expected number of states
+	 */
+	public IndexedStateModel(int expectedStates){
+		int capacity = Math.max(expectedStates, 4);
+		this.states = new StateIndexTable(capacity);
+		this.values = new double[capacity];
+		this.terminal = new boolean[capacity];
+		this.actionStart = new int[capacity];
+		this.actionCount = new int[capacity];
+
+		this.actions = new GroundedAction[capacity];
+		this.actionReward = new double[capacity];
+		this.actionDiscount = new double[capacity];
+		this.transitionStart = new int[capacity+1];
+
+		this.transitionTarget = new int[capacity];
+		this.transitionProbability = new double[capacity];
+		this.transitionReward = new double[capacity];
+	}
+
+
+	/**
+	 * Returns the number of states stored in this model
+	 * @return the number of states stored in this model
+	 */
+	public int numStates(){
+		return this.states.size();
+	}
+
+
+	/**
+	 * Returns the id of the given state, or -1 if it is not stored in this model.
+	 * @param sh the hashed state
+	 * @return the id of the state, or -1 if it is not stored in this model.
+	 */
+	public int stateId(StateHashTuple sh){
+		return this.states.indexOf(sh);
+	}
+
+
+	/**
+	 * Returns the id of the given state, adding it to this model if it is not already stored. If the state is added,
+	 * its value is set to initialValue, or 0 if it is a terminal state.
+	 * @param sh the hashed state
+	 * @param initialValue the initial value of the state if it is added
+	 * @param isTerminal whether the state is a terminal state; only used if the state is added
+	 * @return the id of the state
+	 */
+	public int addState(StateHashTuple sh, double initialValue, boolean isTerminal){
+		int n = this.states.size();
+		int id = this.states.getOrAdd(sh);
+		if(id == n){
+			if(id == this.values.length){
+				this.growStates();
+			}
+			this.values[id] = isTerminal ? 0. : initialValue;
+			this.terminal[id] = isTerminal;
+			this.actionStart[id] = -1;
+			this.actionCount[id] = 0;
+		}
+		return id;
+	}
+
+
+	/**
+	 * Returns the state with the given id
+	 * @param id the state id
+	 * @return the state with the given id
+	 */
+	public StateHashTuple state(int id){
+		return this.states.get(id);
+	}
+
+
+	/**
+	 * Returns the value of the state with the given id
+	 * @param id the state id
+	 * @return the value of the state
+	 */
+	public double value(int id){
+		return this.values[id];
+	}
+
+
+	/**
+	 * Sets the value of the state with the given id
+	 * @param id the state id
+	 * @param v the value of the state
+	 */
+	public void setValue(int id, double v){
+		this.values[id] = v;
+	}
+
+
+	/**
+	 * Sets the values of the states with ids 0 to n-1 to the first n entries of the given array.
+	 * @param src the source values, indexed by state id
+	 * @param n the number of values to copy
+	 */
+	public void setValues(double [] src, int n){
+		System.arraycopy(src, 0, this.values, 0, n);
+	}
+
+
+	/**
+	 * Returns whether the state with the given id is a terminal state
+	 * @param id the state id
+	 * @return true if the state is a terminal state; false otherwise
+	 */
+	public boolean isTerminal(int id){
+		return this.terminal[id];
+	}
+
+
+	/**
+	 * Returns whether the transition dynamics of the state with the given id are stored in this model
+	 * @param id the state id
+	 * @return true if the transition dynamics of the state are stored; false otherwise
+	 */
+	public boolean isExpanded(int id){
+		return this.actionStart[id] != -1;
+	}
+
+
+	/**
+	 * Returns the index of the first action row of the state with the given id
+	 * @param id the state id
+	 * @return the index of the first action row of the state
+	 */
+	public int firstAction(int id){
+		return this.actionStart[id];
+	}
+
+
+	/**
+	 * Returns the number of action rows of the state with the given id
+	 * @param id the state id
+	 * @return the number of action rows of the state
+	 */
+	public int numActions(int id){
+		return this.actionCount[id];
+	}
+
+
+	/**
+	 * Returns the grounded action of the given action row
+	 * @param a the action row
+	 * @return the grounded action of the action row
+	 */
+	public GroundedAction action(int a){
+		return this.actions[a];
+	}
+
+
+	/**
+	 * Starts storing the transition dynamics of the state with the given id. The dynamics are then defined by calling
+	 * {@link #addAction(GroundedAction, double, double)} for each action, each followed by {@link #addTransition(int, double, double)} for each of its
+	 * transitions, and are completed by {@link #endExpansion()}. States may be expanded in any order, but only one at a time.
+	 * @param id the state id
+	 */
+	public void beginExpansion(int id){
+		if(this.expandingState != -1){
+			throw new RuntimeException("Cannot expand state " + id + " while state " + this.expandingState + " is being expanded.");
+		}
+		if(this.actionStart[id] != -1){
+			throw new RuntimeException("The transition dynamics of state " + id + " are already stored.");
+		}
+		this.expandingState = id;
+		this.actionStart[id] = this.numActions;
+		this.actionCount[id] = 0;
+	}
+
+
+	/**
+	 * Adds an action row to the state being expanded.
+	 * @param ga the grounded action
+	 * @param reward the reward added to the Q-value of the action
+	 * @param discount the discount applied to the value of the action's transition targets
+	 */
+	public void addAction(GroundedAction ga, double reward, double discount){
+		if(this.expandingState == -1){
+			throw new RuntimeException("Cannot add an action without first calling beginExpansion.");
+		}
+		int a = this.numActions;
+		if(a+1 >= this.transitionStart.length){
+			this.growActions();
+		}
+		this.actions[a] = ga;
+		this.actionReward[a] = reward;
+		this.actionDiscount[a] = discount;
+		this.transitionStart[a] = this.numTransitions;
+		this.transitionStart[a+1] = this.numTransitions;
+		this.numActions++;
+		this.actionCount[this.expandingState]++;
+	}
+
+
+	/**
+	 * Adds a transition to the last added action row.
+	 * @param target the id of the outcome state
+	 * @param p the probability of the transition
+	 * @param r the reward of the transition
+	 */
+	public void addTransition(int target, double p, double r){
+		if(this.expandingState == -1 || this.actionCount[this.expandingState] == 0){
+			throw new RuntimeException("Cannot add a transition without first adding an action.");
+		}
+		int t = this.numTransitions;
+		if(t == this.transitionTarget.length){
+			this.growTransitions();
+		}
+		this.transitionTarget[t] = target;
+		this.transitionProbability[t] = p;
+		this.transitionReward[t] = r;
+		this.numTransitions++;
+		this.transitionStart[this.numActions] = this.numTransitions;
+	}
+
+
+	/**
+	 * Completes the expansion of the state started with {@link #beginExpansion(int)}.
+	 */
+	public void endExpansion(){
+		this.expandingState = -1;
+	}
+
+
+	/**
+	 * Returns the Q-value of the given action row with respect to the currently stored values.
+	 * @param a the action row
+	 * @return the Q-value of the action row
+	 */
+	public double q(int a){
+		double q = this.actionReward[a];
+		double discount = this.actionDiscount[a];
+		int end = this.transitionStart[a+1];
+		for(int t = this.transitionStart[a]; t < end; t++){
+			q += this.transitionProbability[t] * (this.transitionReward[t] + discount*this.values[this.transitionTarget[t]]);
+		}
+		return q;
+	}
+
+
+	/**
+	 * Returns the maximum Q-value of the state with the given id, which must be expanded. The value of the state is not changed.
+	 * If the state has no actions, then negative infinity is returned.
+	 * @param id the state id
+	 * @return the maximum Q-value of the state
+	 */
+	public double maxQ(int id){
+		double maxQ = Double.NEGATIVE_INFINITY;
+		int start = this.actionStart[id];
+		int end = start + this.actionCount[id];
+		for(int a = start; a < end; a++){
+			double q = this.q(a);
+			if(q > maxQ){
+				maxQ = q;
+			}
+		}
+		return maxQ;
+	}
+
+
+	/**
+	 * Returns the number of transitions of the given action row
+	 * @param a the action row
+	 * @return the number of transitions of the action row
+	 */
+	public int numTransitions(int a){
+		return this.transitionStart[a+1] - this.transitionStart[a];
+	}
+
+
+	/**
+	 * Returns the index of the first transition of the given action row
+	 * @param a the action row
+	 * @return the index of the first transition of the action row
+	 */
+	public int firstTransition(int a){
+		return this.transitionStart[a];
+	}
+
+
+	/**
+	 * Returns the target state id of the given transition
+	 * @param t the transition index
+	 * @return the target state id
+	 */
+	public int transitionTarget(int t){
+		return this.transitionTarget[t];
+	}
+
+
+	/**
+	 * Returns the probability of the given transition
+	 * @param t the transition index
+	 * @return the probability of the transition
+	 */
+	public double transitionProbability(int t){
+		return this.transitionProbability[t];
+	}
+
+
+	/**
+	 * Removes all stored transition dynamics, but keeps the states and their values.
+	 */
+	public void clearTransitionDynamics(){
+		int n = this.states.size();
+		for(int i = 0; i < n; i++){
+			this.actionStart[i] = -1;
+			this.actionCount[i] = 0;
+		}
+		for(int a = 0; a < this.numActions; a++){
+			this.actions[a] = null;
+		}
+		this.numActions = 0;
+		this.numTransitions = 0;
+		this.transitionStart[0] = 0;
+		this.expandingState = -1;
+	}
+
+
+	/**
+	 * Removes all states, values and transition dynamics.
+	 */
+	public void clear(){
+		this.clearTransitionDynamics();
+		this.states.clear();
+	}
+
+
+	protected void growStates(){
+		int capacity = this.values.length*2;
+		double [] nValues = new double[capacity];
+		System.arraycopy(this.values, 0, nValues, 0, this.values.length);
+		this.values = nValues;
+		boolean [] nTerminal = new boolean[capacity];
+		System.arraycopy(this.terminal, 0, nTerminal, 0, this.terminal.length);
+		this.terminal = nTerminal;
+		int [] nActionStart = new int[capacity];
+		System.arraycopy(this.actionStart, 0, nActionStart, 0, this.actionStart.length);
+		this.actionStart = nActionStart;
+		int [] nActionCount = new int[capacity];
+		System.arraycopy(this.actionCount, 0, nActionCount, 0, this.actionCount.length);
+		this.actionCount = nActionCount;
+	}
+
+
+	protected void growActions(){
+		int capacity = this.actions.length*2;
+		GroundedAction [] nActions = new GroundedAction[capacity];
+		System.arraycopy(this.actions, 0, nActions, 0, this.actions.length);
+		this.actions = nActions;
+		double [] nReward = new double[capacity];
+		System.arraycopy(this.actionReward, 0, nReward, 0, this.actionReward.length);
+		this.actionReward = nReward;
+		double [] nDiscount = new double[capacity];
+		System.arraycopy(this.actionDiscount, 0, nDiscount, 0, this.actionDiscount.length);
+		this.actionDiscount = nDiscount;
+		int [] nStart = new int[capacity+1];
+		System.arraycopy(this.transitionStart, 0, nStart, 0, this.transitionStart.length);
+		this.transitionStart = nStart;
+	}
+
+
+	protected void growTransitions(){
+		int capacity = this.transitionTarget.length*2;
+		int [] nTarget = new int[capacity];
+		System.arraycopy(this.transitionTarget, 0, nTarget, 0, this.transitionTarget.length);
+		this.transitionTarget = nTarget;
+		double [] nProbability = new double[capacity];
+		System.arraycopy(this.transitionProbability, 0, nProbability, 0, this.transitionProbability.length);
+		this.transitionProbability = nProbability;
+		double [] nReward = new double[capacity];
+		System.arraycopy(this.transitionReward, 0, nReward, 0, this.transitionReward.length);
+		this.transitionReward = nReward;
+	}
+
+}
@@ -4,6 +4,9 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 import burlap.behavior.singleagent.options.Option;
 import burlap.behavior.singleagent.options.OptionEvaluatingRF;
@@ -328,4 +331,24 @@ public abstract class OOMDPPlanner {
 		
 	}
 	
+	
+	
+	/**
+	 * Creates a fixed size thread pool of daemon threads with the given name, for planners that can be set to use multiple threads.
+	 * @param numThreads the number of threads
+	 * @param name the name of the threads
+	 * @return a new fixed size thread pool
+	 */
+	protected static ExecutorService newDaemonThreadPool(int numThreads, final String name){
+		return Executors.newFixedThreadPool(numThreads, new ThreadFactory() {
+			
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, name);
+				t.setDaemon(true);
+				return t;
+			}
+		});
+	}
+	
 }
@@ -0,0 +1,285 @@
+package burlap.behavior.singleagent.planning;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import burlap.behavior.statehashing.StateHashFactory;
+import burlap.behavior.statehashing.StateHashTuple;
+import burlap.oomdp.core.TerminalFunction;
+import burlap.oomdp.singleagent.Action;
+import burlap.oomdp.singleagent.GroundedAction;
+
+
+/**
+ * A multi-threaded reachability analysis for tabular planners. Starting from a source state, it finds all reachable states with a level-synchronous
+ * breadth-first search: the states of each BFS level (the frontier) are partitioned into blocks that are expanded concurrently by the threads of an
+ * {@link ExecutorService}, and the next frontier consists of the outcome states that were first claimed in a concurrent visited set during that level.
+ * Expanding a state generates the {@link ActionTransitions} of all of its applicable grounded actions, which are stored in a {@link ConcurrentMap} of
+ * transition dynamics as they are generated.
+ * <p/>
+ * States that already have an entry in the transition dynamics map (or for which {@link #isExpanded(StateHashTuple, ConcurrentMap)} returns true) are not expanded again.
+ * Terminal states are only expanded if {@link #setExpandTerminalStates(boolean)} is set to true.
+ * <p/>
+ * Because the actions, terminal function and state hashing factory are called from multiple threads, they must be thread safe, which is the case
+ * for domains whose actions generate transitions without modifying shared data. Options cache their transition computations, so planning with
+ * options should use sequential reachability. The order in which states are discovered within a level depends on thread scheduling.
+ *
+ */
+public class ParallelReachability {
+
+	/**
+	 * The actions with which states are expanded
+	 */
+	protected List<Action>						actions;
+
+	/**
+	 * The state hashing factory
+	 */
+	protected StateHashFactory					hashingFactory;
+
+	/**
+	 * The terminal function
+	 */
+	protected TerminalFunction					tf;
+
+	/**
+	 * The executor that expands the blocks of each frontier
+	 */
+	protected ExecutorService					executor;
+
+	/**
+	 * The number of blocks into which each frontier is partitioned
+	 */
+	protected int								numPartitions;
+
+	/**
+	 * Whether terminal states are expanded
+	 */
+	protected boolean							expandTerminalStates = false;
+
+
+	/**
+	 * The number of states expanded by the last search
+	 */
+	protected int								lastNumExpanded;
+
+	/**
+	 * The wall clock time of the last search, in nanoseconds
+	 */
+	protected long								lastElapsedNanos;
+
+
+
+	/**
+	 * Initializes.
+	 * @param actions the actions with which states are expanded
+	 * @param hashingFactory the state hashing factory
+	 * @param tf the terminal function
+	 * @param executor the executor that expands the blocks of each frontier; it is not shut down by this object.
+	 * @param numPartitions the number of blocks into which each frontier is partitioned; using a few more blocks than threads helps balance the load.
+	 */
+	public ParallelReachability(List<Action> actions, StateHashFactory hashingFactory, TerminalFunction tf, ExecutorService executor, int numPartitions){
+		this.actions = actions;
+		this.hashingFactory = hashingFactory;
+		this.tf = tf;
+		this.executor = executor;
+		this.numPartitions = Math.max(numPartitions, 1);
+	}
+
+
+	/**
+	 * Sets whether terminal states are expanded. If they are not, the search is pruned at terminal states. The default is false.
+	 * @param expandTerminalStates true if terminal states should be expanded; false otherwise.
+	 */
+	public void setExpandTerminalStates(boolean expandTerminalStates){
+		this.expandTerminalStates = expandTerminalStates;
+	}
+
+
+	/**
+	 * Sets the actions with which states are expanded
+	 * @param actions the actions with which states are expanded
+	 */
+	public void setActions(List<Action> actions){
+		this.actions = actions;
+	}
+
+
+	/**
+	 * Sets the terminal function
+	 * @param tf the terminal function
+	 */
+	public void setTf(TerminalFunction tf){
+		this.tf = tf;
+	}
+
+
+	/**
+	 * Finds all states reachable from the source state that have not already been expanded and stores the transition dynamics of every
+	 * state that it expands in the given map.
+	 * @param source the source state
+	 * @param transitionDynamics the map in which the transition dynamics of expanded states are stored; states with an entry are not expanded again
+	 * @return all states visited by the search, in BFS level order, including the terminal states at which the search was pruned; states that were
+	 * expanded before the search are not included.
+	 */
+	public List<StateHashTuple> expandFrom(StateHashTuple source, final ConcurrentMap<StateHashTuple, List<ActionTransitions>> transitionDynamics){
+
+		long start = System.nanoTime();
+		int numExpanded = 0;
+
+		List<StateHashTuple> visitedOrder = new ArrayList<StateHashTuple>();
+		final ConcurrentMap<StateHashTuple, Boolean> visited = new ConcurrentHashMap<StateHashTuple, Boolean>();
+
+		List<StateHashTuple> frontier = new ArrayList<StateHashTuple>();
+		if(!this.isExpanded(source, transitionDynamics)){
+			visited.put(source, Boolean.TRUE);
+			frontier.add(source);
+		}
+
+		while(frontier.size() > 0){
+
+			visitedOrder.addAll(frontier);
+
+			final List<StateHashTuple> level = frontier;
+			int blockSize = (level.size() + this.numPartitions - 1) / this.numPartitions;
+			List<Callable<LevelResult>> blocks = new ArrayList<Callable<LevelResult>>(this.numPartitions);
+			for(int i = 0; i < level.size(); i += blockSize){
+				final int from = i;
+				final int to = Math.min(i+blockSize, level.size());
+				blocks.add(new Callable<LevelResult>() {
+
+					@Override
+					public LevelResult call() throws Exception {
+						return expandBlock(level, from, to, visited, transitionDynamics);
+					}
+				});
+			}
+
+			frontier = new ArrayList<StateHashTuple>();
+			try {
+				for(Future<LevelResult> f : this.executor.invokeAll(blocks)){
+					LevelResult r = f.get();
+					frontier.addAll(r.discovered);
+					numExpanded += r.numExpanded;
+				}
+			} catch (InterruptedException e) {
+				throw new RuntimeException("Parallel reachability analysis was interrupted", e);
+			} catch (ExecutionException e) {
+				throw new RuntimeException("Parallel reachability analysis failed", e.getCause());
+			}
+
+		}
+
+		this.lastNumExpanded = numExpanded;
+		this.lastElapsedNanos = System.nanoTime() - start;
+
+		return visitedOrder;
+	}
+
+
+	/**
+	 * Returns the number of states expanded by the last search
+	 * @return the number of states expanded by the last search
+	 */
+	public int getLastNumExpanded(){
+		return this.lastNumExpanded;
+	}
+
+
+	/**
+	 * Returns the wall clock time of the last search in nanoseconds
+	 * @return the wall clock time of the last search in nanoseconds
+	 */
+	public long getLastElapsedNanos(){
+		return this.lastElapsedNanos;
+	}
+
+
+	/**
+	 * Returns the number of states expanded per second by the last search
+	 * @return the number of states expanded per second by the last search
+	 */
+	public double getLastStatesPerSecond(){
+		if(this.lastElapsedNanos == 0){
+			return 0.;
+		}
+		return this.lastNumExpanded / (this.lastElapsedNanos / 1e9);
+	}
+
+
+	/**
+	 * Returns whether the given state was expanded before the current search and therefore should not be expanded or visited again.
+	 * The default returns whether the transition dynamics map has an entry for the state. This method is called concurrently.
+	 * @param sh the hashed state
+	 * @param transitionDynamics the map of transition dynamics
+	 * @return true if the state was already expanded; false otherwise.
+	 */
+	protected boolean isExpanded(StateHashTuple sh, ConcurrentMap<StateHashTuple, List<ActionTransitions>> transitionDynamics){
+		return transitionDynamics.containsKey(sh);
+	}
+
+
+	/**
+	 * Expands the states of a frontier block and returns the outcome states that this block was the first to visit.
+	 * @param level the frontier
+	 * @param from the index of the first state of the block
+	 * @param to the index after the last state of the block
+	 * @param visited the concurrent visited set
+	 * @param transitionDynamics the map in which transition dynamics are stored
+	 * @return the newly discovered states and the number of expanded states of the block
+	 */
+	protected LevelResult expandBlock(List<StateHashTuple> level, int from, int to, ConcurrentMap<StateHashTuple, Boolean> visited,
+			ConcurrentMap<StateHashTuple, List<ActionTransitions>> transitionDynamics){
+
+		LevelResult result = new LevelResult();
+		for(int i = from; i < to; i++){
+
+			StateHashTuple sh = level.get(i);
+			if(!this.expandTerminalStates && this.tf.isTerminal(sh.s)){
+				continue;
+			}
+
+			List<GroundedAction> gas = Action.getAllApplicableGroundedActionsFromActionList(this.actions, sh.s);
+			List<ActionTransitions> transitions = new ArrayList<ActionTransitions>(gas.size());
+			for(GroundedAction ga : gas){
+				ActionTransitions at = new ActionTransitions(sh.s, ga, this.hashingFactory);
+				transitions.add(at);
+				for(HashedTransitionProbability tp : at.transitions){
+					if(visited.putIfAbsent(tp.sh, Boolean.TRUE) == null && !this.isExpanded(tp.sh, transitionDynamics)){
+						result.discovered.add(tp.sh);
+					}
+				}
+			}
+			transitionDynamics.put(sh, transitions);
+			result.numExpanded++;
+
+		}
+
+		return result;
+	}
+
+
+	/**
+	 * The result of expanding a frontier block
+	 */
+	protected static class LevelResult{
+
+		/**
+		 * The outcome states first visited by the block
+		 */
+		public List<StateHashTuple> discovered = new ArrayList<StateHashTuple>();
+
+		/**
+		 * The number of states expanded by the block
+		 */
+		public int numExpanded = 0;
+
+	}
+
+}
@@ -1,10 +1,14 @@
 package burlap.behavior.singleagent.planning;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
 
 import burlap.behavior.singleagent.Policy;
 import burlap.behavior.singleagent.Policy.ActionProb;
@@ -13,6 +17,7 @@ import burlap.behavior.singleagent.ValueFunctionInitialization;
 import burlap.behavior.singleagent.options.Option;
 import burlap.behavior.statehashing.StateHashFactory;
 import burlap.behavior.statehashing.StateHashTuple;
+import burlap.debugtools.DPrint;
 import burlap.oomdp.auxiliary.common.NullTermination;
 import burlap.oomdp.core.AbstractGroundedAction;
 import burlap.oomdp.core.Domain;
@@ -67,6 +72,25 @@ public abstract class ValueFunctionPlanner extends OOMDPPlanner implements Value
 	protected ValueFunctionInitialization							valueInitializer = new ValueFunctionInitialization.ConstantValueFunctionInitialization();
 	
 	
+	/**
+	 * The array based store of the value function and transition dynamics, which is used instead of the {@link #valueFunction} and
+	 * {@link #transitionDynamics} maps when it is not null. It is enabled with {@link #toggleUseIndexedStateModel(boolean)}.
+	 */
+	protected IndexedStateModel										indexedModel;
+	
+	
+	/**
+	 * The multi-threaded reachability analysis used by planners that find the reachable state space, or null if the reachability
+	 * analysis is single threaded. It is enabled with {@link #setParallelReachability(int)}.
+	 */
+	protected ParallelReachability									parallelReachability;
+	
+	/**
+	 * Whether the executor of the {@link #parallelReachability} was created by {@link #setParallelReachability(int)}, in which case it is shut down when it is replaced.
+	 */
+	protected boolean												ownsReachabilityExecutor = false;
+	
+	
 	
 	
 	
@@ -105,6 +129,9 @@ public abstract class ValueFunctionPlanner extends OOMDPPlanner implements Value
 		this.mapToStateIndex.clear();
 		this.valueFunction.clear();
 		this.transitionDynamics.clear();
+		if(this.indexedModel != null){
+			this.indexedModel.clear();
+		}
 	}
 	
 	/**
@@ -131,6 +158,9 @@ public abstract class ValueFunctionPlanner extends OOMDPPlanner implements Value
 	 */
 	public boolean hasComputedValueFor(State s){
 		StateHashTuple sh = this.hashingFactory.hashState(s);
+		if(this.indexedModel != null){
+			return this.indexedModel.stateId(sh) != -1;
+		}
 		return this.valueFunction.containsKey(sh);
 	}
 	
@@ -157,6 +187,10 @@ public abstract class ValueFunctionPlanner extends OOMDPPlanner implements Value
 		if(this.tf.isTerminal(sh.s)){
 			return 0.;
 		}
+		if(this.indexedModel != null){
+			int id = this.indexedModel.stateId(sh);
+			return id == -1 ? this.getDefaultValue(sh.s) : this.indexedModel.value(id);
+		}
 		Double V = valueFunction.get(sh);
 		double v = V == null ? this.getDefaultValue(sh.s) : V;
 		return v;
@@ -175,18 +209,76 @@ public abstract class ValueFunctionPlanner extends OOMDPPlanner implements Value
 	}
 	
 	
+	/**
+	 * Sets whether this object should store its value function and cached transition dynamics in an {@link IndexedStateModel}, which assigns
+	 * each state a dense int id and stores values and transitions in primitive arrays, rather than in hash maps keyed by hashed states.
+	 * The indexed model uses much less memory and makes value function sweeps much faster for large state spaces. It always caches
+	 * the transition dynamics along with their rewards, so it should not be used if the transition dynamics or reward function change over time.
+	 * Changing this setting resets the planning results.
+	 * @param useIndexedModel true if the value function and transition dynamics should be stored in an {@link IndexedStateModel}; false if they should be stored in hash maps.
+	 */
+	public void toggleUseIndexedStateModel(boolean useIndexedModel){
+		if(useIndexedModel == (this.indexedModel != null)){
+			return;
+		}
+		this.resetPlannerResults();
+		this.indexedModel = useIndexedModel ? new IndexedStateModel() : null;
+	}
+	
+	
+	/**
+	 * Sets the reachability analysis of planners that find the reachable state space, such as {@link burlap.behavior.singleagent.planning.stochastic.valueiteration.ValueIteration},
+	 * to be performed with the given number of threads, which are created in a new thread pool of daemon threads. If numThreads is 1 or less, the reachability analysis is single threaded.
+	 * See {@link ParallelReachability} for the thread safety requirements on the domain.
+	 * @param numThreads the number of threads to use
+	 */
+	public void setParallelReachability(int numThreads){
+		if(numThreads <= 1){
+			this.setParallelReachability(null, 1);
+			return;
+		}
+		this.setParallelReachability(newDaemonThreadPool(numThreads, "Reachability worker"), 4*numThreads);
+		this.ownsReachabilityExecutor = true;
+	}
+	
+	
+	/**
+	 * Sets the reachability analysis of planners that find the reachable state space to submit the blocks of each BFS level to the given executor.
+	 * The executor is not shut down by this object. If the previous executor was created by {@link #setParallelReachability(int)}, it is shut down.
+	 * If the executor is null, the reachability analysis is single threaded.
+	 * @param executor the executor to which the blocks of each BFS level are submitted
+	 * @param numPartitions the number of blocks into which each BFS level is partitioned
+	 */
+	public void setParallelReachability(ExecutorService executor, int numPartitions){
+		if(this.ownsReachabilityExecutor && this.parallelReachability != null && this.parallelReachability.executor != executor){
+			this.parallelReachability.executor.shutdown();
+		}
+		this.ownsReachabilityExecutor = false;
+		if(executor == null){
+			this.parallelReachability = null;
+			return;
+		}
+		this.parallelReachability = new ParallelReachability(this.actions, this.hashingFactory, this.tf, executor, numPartitions){
+			
+			@Override
+			protected boolean isExpanded(StateHashTuple sh, ConcurrentMap<StateHashTuple, List<ActionTransitions>> transitionDynamics){
+				if(indexedModel != null){
+					int id = indexedModel.stateId(sh);
+					return id != -1 && indexedModel.isExpanded(id);
+				}
+				return super.isExpanded(sh, transitionDynamics);
+			}
+			
+		};
+	}
+	
+	
 	@Override
 	public List <QValue> getQs(State s){
 		
 		StateHashTuple sh = this.stateHash(s);
 		Map<String,String> matching = null;
-		StateHashTuple indexSH = mapToStateIndex.get(sh);
-		
-		if(indexSH == null){
-			//then this is an unexplored state
-			indexSH = sh;
-			mapToStateIndex.put(indexSH, indexSH);
-		}
+		StateHashTuple indexSH = this.getIndexedStateFor(sh);
 		
 		
 		if(this.containsParameterizedActions && !this.domain.isObjectIdentifierDependent()){
@@ -213,16 +305,10 @@ public abstract class ValueFunctionPlanner extends OOMDPPlanner implements Value
 	public QValue getQ(State s, AbstractGroundedAction a){
 		
 		
-		if(this.useCachedTransitions){
+		if(this.useCachedTransitions || this.indexedModel != null){
 			StateHashTuple sh = this.stateHash(s);
 			Map<String,String> matching = null;
-			StateHashTuple indexSH = mapToStateIndex.get(sh);
-			
-			if(indexSH == null){
-				//then this is an unexplored state
-				indexSH = sh;
-				mapToStateIndex.put(indexSH, indexSH);
-			}
+			StateHashTuple indexSH = this.getIndexedStateFor(sh);
 			
 			if(this.containsParameterizedActions && !this.domain.isObjectIdentifierDependent() && a.parametersAreObjects()){
 				matching = sh.s.getObjectMatchingTo(indexSH.s, false);
@@ -251,6 +337,14 @@ public abstract class ValueFunctionPlanner extends OOMDPPlanner implements Value
 	 * @return all states that are stored in this planners value function.
 	 */
 	public List <State> getAllStates(){
+		if(this.indexedModel != null){
+			int n = this.indexedModel.numStates();
+			List <State> result = new ArrayList<State>(n);
+			for(int i = 0; i < n; i++){
+				result.add(this.indexedModel.state(i).s);
+			}
+			return result;
+		}
 		List <State> result = new ArrayList<State>(valueFunction.size());
 		Set<StateHashTuple> shs = valueFunction.keySet();
 		for(StateHashTuple sh : shs){
@@ -261,6 +355,14 @@ public abstract class ValueFunctionPlanner extends OOMDPPlanner implements Value
 
 
 	public StaticVFPlanner getCopyOfValueFunction(){
+		if(this.indexedModel != null){
+			int n = this.indexedModel.numStates();
+			Map <StateHashTuple, Double> values = new HashMap<StateHashTuple, Double>(n);
+			for(int i = 0; i < n; i++){
+				values.put(this.indexedModel.state(i), this.indexedModel.value(i));
+			}
+			return new StaticVFPlanner(this.domain, this.rf, this.gamma, this.hashingFactory, this.actions, values);
+		}
 		return new StaticVFPlanner(this.domain, this.rf, this.gamma, this.hashingFactory, this.actions, this.valueFunction);
 	}
 
@@ -281,6 +383,10 @@ public abstract class ValueFunctionPlanner extends OOMDPPlanner implements Value
 			ta = this.translateAction(ta, matching);
 		}
 		
+		if(this.indexedModel != null){
+			return new QValue(sh.s, a, this.computeIndexedQ(sh, ta));
+		}
+		
 		//find ActionTransition for the designated GA
 		List <ActionTransitions> allTransitions = this.getActionsTransitions(sh);
 		ActionTransitions matchingAt = null;
@@ -377,6 +483,10 @@ public abstract class ValueFunctionPlanner extends OOMDPPlanner implements Value
 	 */
 	protected double performBellmanUpdateOn(StateHashTuple sh){
 		
+		if(this.indexedModel != null){
+			return this.performBellmanUpdateOn(this.indexedStateId(sh));
+		}
+		
 		if(this.tf.isTerminal(sh.s)){
 			//terminal states always have a state value of 0
 			valueFunction.put(sh, 0.);
@@ -427,6 +537,9 @@ public abstract class ValueFunctionPlanner extends OOMDPPlanner implements Value
 	 */
 	protected double performFixedPolicyBellmanUpdateOn(StateHashTuple sh, Policy p){
 		
+		if(this.indexedModel != null){
+			return this.performFixedPolicyBellmanUpdateOn(this.indexedStateId(sh), p);
+		}
 		
 		if(this.tf.isTerminal(sh.s)){
 			//terminal states always have a state value of 0
@@ -479,6 +592,337 @@ public abstract class ValueFunctionPlanner extends OOMDPPlanner implements Value
 	}
 	
 	
+	/**
+	 * Performs a Bellman value function update on the state with the given id in the {@link #indexedModel}. Results are stored in the indexed model
+	 * as well as returned. If the transition dynamics of the state are not stored, then they will be created and stored.
+	 * @param id the id of the state on which to perform the Bellman update.
+	 * @return the new value of the state.
+	 */
+	protected double performBellmanUpdateOn(int id){
+		
+		if(this.indexedModel.isTerminal(id)){
+			//terminal states always have a state value of 0
+			return 0.;
+		}
+		
+		if(!this.indexedModel.isExpanded(id)){
+			this.expandIndexedState(id);
+		}
+		
+		double maxQ = this.indexedModel.maxQ(id);
+		this.indexedModel.setValue(id, maxQ);
+		
+		return maxQ;
+	}
+	
+	
+	/**
+	 * Performs a fixed-policy Bellman value function update (i.e., policy evaluation) on the state with the given id in the {@link #indexedModel}.
+	 * Results are stored in the indexed model as well as returned. If the transition dynamics of the state are not stored, then they will be created and stored.
+	 * @param id the id of the state on which to perform the Bellman update.
+	 * @param p the policy that is being evaluated
+	 * @return the new value of the state
+	 */
+	protected double performFixedPolicyBellmanUpdateOn(int id, Policy p){
+		
+		if(this.indexedModel.isTerminal(id)){
+			//terminal states always have a state value of 0
+			return 0.;
+		}
+		
+		if(!this.indexedModel.isExpanded(id)){
+			this.expandIndexedState(id);
+		}
+		
+		double weightedQ = 0.;
+		List<ActionProb> policyDistribution = p.getActionDistributionForState(this.indexedModel.state(id).s);
+		
+		int start = this.indexedModel.firstAction(id);
+		int end = start + this.indexedModel.numActions(id);
+		for(int a = start; a < end; a++){
+			
+			double policyProb = Policy.getProbOfActionGivenDistribution(this.indexedModel.action(a), policyDistribution);
+			if(policyProb == 0.){
+				continue; //doesn't contribute
+			}
+			
+			weightedQ += policyProb*this.indexedModel.q(a);
+			
+		}
+		
+		this.indexedModel.setValue(id, weightedQ);
+		
+		return weightedQ;
+	}
+	
+	
+	/**
+	 * Returns the id of the given state in the {@link #indexedModel}, adding the state with its default value if it is not already stored.
+	 * @param sh the hashed state
+	 * @return the id of the state
+	 */
+	protected int indexedStateId(StateHashTuple sh){
+		int id = this.indexedModel.stateId(sh);
+		if(id == -1){
+			boolean terminal = this.tf.isTerminal(sh.s);
+			id = this.indexedModel.addState(sh, terminal ? 0. : this.getDefaultValue(sh.s), terminal);
+		}
+		return id;
+	}
+	
+	
+	/**
+	 * Generates the transition dynamics of the state with the given id and stores them in the {@link #indexedModel}. Outcome states
+	 * that are not yet stored in the model are added to it with their default values.
+	 * @param id the id of the state to expand
+	 */
+	protected void expandIndexedState(int id){
+		
+		State s = this.indexedModel.state(id).s;
+		List<GroundedAction> gas = Action.getAllApplicableGroundedActionsFromActionList(this.actions, s);
+		
+		this.indexedModel.beginExpansion(id);
+		for(GroundedAction ga : gas){
+			
+			if(ga.action instanceof Option){
+				
+				//note that for options, tp.p will be the *discounted* probability of transition to s',
+				//so there is no need for a discount factor to be included
+				Option o = (Option)ga.action;
+				this.indexedModel.addAction(ga, o.getExpectedRewards(s, ga.params), 1.);
+				for(TransitionProbability tp : o.getTransitions(s, ga.params)){
+					int target = this.indexedStateId(this.hashingFactory.hashState(tp.s));
+					this.indexedModel.addTransition(target, tp.p, 0.);
+				}
+				
+			}
+			else{
+				
+				this.indexedModel.addAction(ga, 0., this.gamma);
+				for(TransitionProbability tp : ga.action.getTransitions(s, ga.params)){
+					int target = this.indexedStateId(this.hashingFactory.hashState(tp.s));
+					this.indexedModel.addTransition(target, tp.p, this.rf.reward(s, ga, tp.s));
+				}
+				
+			}
+			
+		}
+		this.indexedModel.endExpansion();
+		
+	}
+	
+	
+	/**
+	 * Stores the given transition dynamics of the state with the given id in the {@link #indexedModel}. Outcome states
+	 * that are not yet stored in the model are added to it with their default values.
+	 * @param id the id of the state to expand
+	 * @param transitions the transition dynamics of the state
+	 */
+	protected void expandIndexedState(int id, List<ActionTransitions> transitions){
+		
+		State s = this.indexedModel.state(id).s;
+		
+		this.indexedModel.beginExpansion(id);
+		for(ActionTransitions at : transitions){
+			
+			GroundedAction ga = at.ga;
+			boolean isOption = ga.action instanceof Option;
+			if(isOption){
+				this.indexedModel.addAction(ga, ((Option)ga.action).getExpectedRewards(s, ga.params), 1.);
+			}
+			else{
+				this.indexedModel.addAction(ga, 0., this.gamma);
+			}
+			
+			for(HashedTransitionProbability tp : at.transitions){
+				int target = this.indexedStateId(tp.sh);
+				this.indexedModel.addTransition(target, tp.p, isOption ? 0. : this.rf.reward(s, ga, tp.sh.s));
+			}
+			
+		}
+		this.indexedModel.endExpansion();
+		
+	}
+	
+	
+	/**
+	 * Finds all states reachable from the given state with the {@link #parallelReachability} analysis and stores their transition dynamics
+	 * in the {@link #transitionDynamics} map, which is converted to a concurrent map if necessary. All visited states are added to the {@link #mapToStateIndex}.
+	 * @param sh the hashed source state
+	 * @param expandTerminalStates whether the transition dynamics of terminal states should be expanded
+	 * @return all states visited by the search, in BFS level order
+	 */
+	protected List<StateHashTuple> performParallelReachabilityFrom(StateHashTuple sh, boolean expandTerminalStates){
+		
+		if(!(this.transitionDynamics instanceof ConcurrentMap)){
+			this.transitionDynamics = new ConcurrentHashMap<StateHashTuple, List<ActionTransitions>>(this.transitionDynamics);
+		}
+		
+		List<StateHashTuple> visited = this.runParallelReachability(sh, expandTerminalStates, (ConcurrentMap<StateHashTuple, List<ActionTransitions>>)this.transitionDynamics);
+		for(StateHashTuple vsh : visited){
+			mapToStateIndex.put(vsh, vsh);
+		}
+		
+		return visited;
+	}
+	
+	
+	/**
+	 * Runs the {@link #parallelReachability} analysis from the given state with this planner's current actions and terminal function.
+	 * @param sh the hashed source state
+	 * @param expandTerminalStates whether the transition dynamics of terminal states should be expanded
+	 * @param dynamics the map in which the transition dynamics of expanded states are stored
+	 * @return all states visited by the search, in BFS level order
+	 */
+	protected List<StateHashTuple> runParallelReachability(StateHashTuple sh, boolean expandTerminalStates, ConcurrentMap<StateHashTuple, List<ActionTransitions>> dynamics){
+		
+		this.parallelReachability.setActions(this.actions);
+		this.parallelReachability.setTf(this.tf);
+		this.parallelReachability.setExpandTerminalStates(expandTerminalStates);
+		
+		List<StateHashTuple> visited = this.parallelReachability.expandFrom(sh, dynamics);
+		
+		DPrint.cl(this.debugCode, "Parallel reachability expanded " + this.parallelReachability.getLastNumExpanded() + " states in "
+				+ (this.parallelReachability.getLastElapsedNanos() / 1e6) + "ms (" + (int)this.parallelReachability.getLastStatesPerSecond() + " states/sec)");
+		
+		return visited;
+	}
+	
+	
+	/**
+	 * Computes the Q-value of a state and action from the transition dynamics stored in the {@link #indexedModel}. If the state
+	 * is terminal, then 0 is returned.
+	 * @param sh the hashed state
+	 * @param ga the grounded action, with any object parameters translated to the object names of the stored representative of sh
+	 * @return the Q-value
+	 */
+	protected double computeIndexedQ(StateHashTuple sh, GroundedAction ga){
+		
+		int id = this.indexedStateId(sh);
+		if(this.indexedModel.isTerminal(id)){
+			return 0.;
+		}
+		if(!this.indexedModel.isExpanded(id)){
+			this.expandIndexedState(id);
+		}
+		
+		int start = this.indexedModel.firstAction(id);
+		int end = start + this.indexedModel.numActions(id);
+		for(int a = start; a < end; a++){
+			if(this.indexedModel.action(a).equals(ga)){
+				return this.indexedModel.q(a);
+			}
+		}
+		
+		//the action is not applicable in the stored state, so fall back on generating its transitions
+		return this.computeQ(this.indexedModel.state(id), ga);
+	}
+	
+	
+	/**
+	 * Returns the stored representative of the given hashed state, which is used to translate object parameterized actions. If the
+	 * state is not stored yet, it is stored as its own representative.
+	 * @param sh the hashed state
+	 * @return the stored representative of the given hashed state
+	 */
+	protected StateHashTuple getIndexedStateFor(StateHashTuple sh){
+		
+		if(this.indexedModel != null){
+			return this.indexedModel.state(this.indexedStateId(sh));
+		}
+		
+		StateHashTuple indexSH = mapToStateIndex.get(sh);
+		if(indexSH == null){
+			//then this is an unexplored state
+			indexSH = sh;
+			mapToStateIndex.put(indexSH, indexSH);
+		}
+		
+		return indexSH;
+	}
+	
+	
+	/**
+	 * Finds all states reachable from the given state and stores their transition dynamics in the {@link #indexedModel}, using a breadth-first
+	 * search over state ids. States whose transition dynamics are already stored are not expanded again.
+	 * @param sh the hashed source state
+	 * @param expandTerminalStates whether the transition dynamics of terminal states should be expanded, making states reachable only through terminal states reachable
+	 * @return the number of states that were expanded
+	 */
+	protected int performIndexedReachabilityFrom(StateHashTuple sh, boolean expandTerminalStates){
+		
+		if(this.parallelReachability != null){
+			
+			//generate the transitions concurrently and then load them into the model, which is not thread safe
+			ConcurrentMap<StateHashTuple, List<ActionTransitions>> dynamics = new ConcurrentHashMap<StateHashTuple, List<ActionTransitions>>();
+			List<StateHashTuple> visited = this.runParallelReachability(sh, expandTerminalStates, dynamics);
+			
+			int nExpanded = 0;
+			for(StateHashTuple vsh : visited){
+				int id = this.indexedStateId(vsh);
+				List<ActionTransitions> transitions = dynamics.get(vsh);
+				if(transitions != null && !this.indexedModel.isExpanded(id)){
+					this.expandIndexedState(id, transitions);
+					nExpanded++;
+				}
+			}
+			
+			return nExpanded;
+		}
+		
+		int root = this.indexedStateId(sh);
+		
+		int [] queue = new int[64];
+		int head = 0;
+		int tail = 0;
+		BitSet queued = new BitSet();
+		
+		queue[tail++] = root;
+		queued.set(root);
+		
+		int nExpanded = 0;
+		while(head < tail){
+			
+			int id = queue[head++];
+			if(this.indexedModel.isExpanded(id) || (this.indexedModel.isTerminal(id) && !expandTerminalStates)){
+				continue;
+			}
+			
+			this.expandIndexedState(id);
+			nExpanded++;
+			
+			int start = this.indexedModel.firstAction(id);
+			int end = start + this.indexedModel.numActions(id);
+			for(int a = start; a < end; a++){
+				int tEnd = this.indexedModel.firstTransition(a) + this.indexedModel.numTransitions(a);
+				for(int t = this.indexedModel.firstTransition(a); t < tEnd; t++){
+					int target = this.indexedModel.transitionTarget(t);
+					if(!queued.get(target) && !this.indexedModel.isExpanded(target)){
+						queued.set(target);
+						if(tail == queue.length){
+							//compact the queue before growing it
+							if(head > 0){
+								System.arraycopy(queue, head, queue, 0, tail-head);
+								tail -= head;
+								head = 0;
+							}
+							if(tail == queue.length){
+								int [] nQueue = new int[queue.length*2];
+								System.arraycopy(queue, 0, nQueue, 0, tail);
+								queue = nQueue;
+							}
+						}
+						queue[tail++] = target;
+					}
+				}
+			}
+			
+		}
+		
+		return nExpanded;
+	}
+	
+	
 	/**
 	 * Returns the Q-value for a given set and the possible transitions from it for a given action. This computation
 	 * *is* compatible with {@link burlap.behavior.singleagent.options.Option} objects.
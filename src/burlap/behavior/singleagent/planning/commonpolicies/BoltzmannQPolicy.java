@@ -7,6 +7,8 @@ import javax.management.RuntimeErrorException;
 
 import burlap.behavior.singleagent.Policy;
 import burlap.behavior.singleagent.QValue;
+import burlap.behavior.singleagent.learning.tdmethods.QTable;
+import burlap.behavior.singleagent.learning.tdmethods.QTableProvider;
 import burlap.behavior.singleagent.planning.OOMDPPlanner;
 import burlap.behavior.singleagent.planning.PlannerDerivedPolicy;
 import burlap.behavior.singleagent.planning.QComputablePlanner;
@@ -59,6 +61,10 @@ public class BoltzmannQPolicy extends Policy implements PlannerDerivedPolicy{
 
 	@Override
 	public List<ActionProb> getActionDistributionForState(State s) {
+		if(this.qplanner instanceof QTableProvider){
+			QTableProvider provider = (QTableProvider)this.qplanner;
+			return this.getActionDistributionForQTable(s, provider.getQTable(), provider.getQTableStateId(s));
+		}
 		List<QValue> qValues = this.qplanner.getQs(s);
 		return this.getActionDistributionForQValues(s, qValues);
 	}
@@ -85,6 +91,28 @@ public class BoltzmannQPolicy extends Policy implements PlannerDerivedPolicy{
 		return res;
 	}
 
+	private List<ActionProb> getActionDistributionForQTable(State queryState, QTable qTable, int stateId){
+		
+		int first = qTable.firstSlot(stateId);
+		int n = qTable.numSlots(stateId);
+		List <ActionProb> res = new ArrayList<Policy.ActionProb>(n);
+		
+		double [] rawQs = new double[n];
+		for(int i = 0; i < n; i++){
+			rawQs[i] = qTable.q(first+i);
+		}
+		
+		BoltzmannDistribution bd = new BoltzmannDistribution(rawQs, this.temperature);
+		double [] probs = bd.getProbabilities();
+		State stored = qTable.state(stateId).s;
+		for(int i = 0; i < n; i++){
+			ActionProb ap = new ActionProb(qTable.action(first+i).translateParameters(stored, queryState), probs[i]);
+			res.add(ap);
+		}
+		
+		return res;
+	}
+
 	@Override
 	public boolean isStochastic() {
 		return true;
@@ -8,6 +8,8 @@ import javax.management.RuntimeErrorException;
 
 import burlap.behavior.singleagent.Policy;
 import burlap.behavior.singleagent.QValue;
+import burlap.behavior.singleagent.learning.tdmethods.QTable;
+import burlap.behavior.singleagent.learning.tdmethods.QTableProvider;
 import burlap.behavior.singleagent.planning.OOMDPPlanner;
 import burlap.behavior.singleagent.planning.PlannerDerivedPolicy;
 import burlap.behavior.singleagent.planning.QComputablePlanner;
@@ -83,6 +85,20 @@ public class EpsilonGreedy extends Policy implements PlannerDerivedPolicy{
 	public AbstractGroundedAction getAction(State s) {
 		
 		
+		if(this.qplanner instanceof QTableProvider){
+			QTableProvider provider = (QTableProvider)this.qplanner;
+			int sid = provider.getQTableStateId(s);
+			QTable qTable = provider.getQTable();
+			int slot;
+			if(rand.nextDouble() <= epsilon){
+				slot = qTable.firstSlot(sid) + rand.nextInt(qTable.numSlots(sid));
+			}
+			else{
+				slot = qTable.greedySlot(sid, rand);
+			}
+			return qTable.action(slot).translateParameters(qTable.state(sid).s, s);
+		}
+		
 		List<QValue> qValues = this.qplanner.getQs(s);
 		
 		
@@ -8,6 +8,8 @@ import javax.management.RuntimeErrorException;
 
 import burlap.behavior.singleagent.Policy;
 import burlap.behavior.singleagent.QValue;
+import burlap.behavior.singleagent.learning.tdmethods.QTable;
+import burlap.behavior.singleagent.learning.tdmethods.QTableProvider;
 import burlap.behavior.singleagent.planning.OOMDPPlanner;
 import burlap.behavior.singleagent.planning.PlannerDerivedPolicy;
 import burlap.behavior.singleagent.planning.QComputablePlanner;
@@ -18,7 +20,8 @@ import burlap.oomdp.core.State;
 
 
 /**
- * A greedy policy that breaks ties by randomly choosing an action amongst the tied actions. This class requires a QComputablePlanner
+ * A greedy policy that breaks ties by randomly choosing an action amongst the tied actions. This class requires a QComputablePlanner. If the planner
+ * is a {@link QTableProvider}, actions are selected directly from its {@link QTable}.
  * @author James MacGlashan
  *
  */
@@ -55,6 +58,13 @@ public class GreedyQPolicy extends Policy implements PlannerDerivedPolicy{
 	
 	@Override
 	public AbstractGroundedAction getAction(State s) {
+		if(this.qplanner instanceof QTableProvider){
+			QTableProvider provider = (QTableProvider)this.qplanner;
+			int sid = provider.getQTableStateId(s);
+			QTable qTable = provider.getQTable();
+			int slot = qTable.greedySlot(sid, rand);
+			return qTable.action(slot).translateParameters(qTable.state(sid).s, s);
+		}
 		List<QValue> qValues = this.qplanner.getQs(s);
 		List <QValue> maxActions = new ArrayList<QValue>();
 		maxActions.add(qValues.get(0));
@@ -1,12 +1,24 @@
 package burlap.behavior.singleagent.planning.stochastic.montecarlo.uct;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import burlap.behavior.singleagent.QValue;
 import burlap.behavior.singleagent.options.Option;
@@ -19,6 +31,7 @@ import burlap.behavior.statehashing.StateHashFactory;
 import burlap.behavior.statehashing.StateHashTuple;
 import burlap.debugtools.DPrint;
 import burlap.debugtools.RandomFactory;
+import burlap.debugtools.XoshiroRandom;
 import burlap.oomdp.core.AbstractGroundedAction;
 import burlap.oomdp.core.Domain;
 import burlap.oomdp.core.State;
@@ -40,6 +53,14 @@ import burlap.oomdp.singleagent.RewardFunction;
  * {@link burlap.behavior.singleagent.planning.stochastic.montecarlo.uct.UCTTreeWalkPolicy}. The TreeWalkPolicy
  * will be more computationally efficient than replanning at each step, but may have degrading performance after each step since
  * each step has a shorter horizon from which to plan and may not have as many samples from which it estimated its Q-value.
+ * <br/><br/>
+ * When this planner is used to act in a closed loop, the tree of the previous decision can be reused with the {@link #setReuseSubtrees(boolean)} method.
+ * If the next state to plan from is the root, or a child of the root, of the current tree, planning re-roots the tree at that node and continues to
+ * add rollouts to it instead of building a new tree, and the nodes that are no longer reachable from the new root are freed.
+ * <br/><br/>
+ * Rollouts can be performed by multiple threads with the {@link #setParallelRollouts(int, ParallelRolloutMode)} method. See {@link ParallelRolloutMode}
+ * for the two supported parallelization schemes. When rollouts are parallel, the domain's actions, reward function and terminal function are used
+ * concurrently and must be thread safe; options are not supported, because they record the number of steps of their last execution.
  * <br/>
  * <br/>
  * 1. Kocsis, Levente, and Csaba Szepesvari. "Bandit based monte-carlo planning." ECML (2006). 282-293.
@@ -49,6 +70,23 @@ import burlap.oomdp.singleagent.RewardFunction;
  */
 public class UCT extends OOMDPPlanner implements QComputablePlanner{
 
+	/**
+	 * The parallelization scheme of parallel rollouts.
+	 * <p/>
+	 * ROOT parallelization builds an independent tree in each thread, with the rollouts divided among them, and then merges the statistics
+	 * of the root action nodes of all trees into the root of this planner. The root action nodes reference the successor nodes of all trees, but
+	 * the nodes below the root keep the statistics of the single tree that created them.
+	 * <p/>
+	 * TREE parallelization lets all threads perform rollouts in a single shared tree whose node index is stored in concurrent maps. When a thread
+	 * selects an action node, a virtual loss (see {@link UCT#setVirtualLoss(double)}) is applied to it until the rollout returns, so that other threads are
+	 * steered towards different parts of the tree.
+	 *
+	 */
+	public static enum ParallelRolloutMode{
+		ROOT, TREE
+	}
+	
+
 	protected List<Map<StateHashTuple, UCTStateNode>> 			stateDepthIndex;
 	protected Map <StateHashTuple, List <UCTStateNode>>			statesToStateNodes;
 	protected UCTStateNode										root;
@@ -71,6 +109,22 @@ public class UCT extends OOMDPPlanner implements QComputablePlanner{
 	
 	protected Random											rand;
 	
+	protected ExecutorService									rolloutExecutor;
+	
+	/**
+	 * Whether the {@link #rolloutExecutor} was created by {@link #setParallelRollouts(int, ParallelRolloutMode)}, in which case it is shut down when it is replaced
+	 */
+	protected boolean											ownsRolloutExecutor = false;
+	protected int												numRolloutWorkers = 1;
+	protected ParallelRolloutMode								parallelRolloutMode = ParallelRolloutMode.TREE;
+	protected double											virtualLoss = 1.;
+	
+	protected long												lastPlanningNanos;
+	protected long												planningDeadline = -1;
+	protected int												maxDepthReached;
+	
+	protected boolean											reuseSubtrees = false;
+	
 	
 	
 	/**
@@ -127,24 +181,167 @@ public class UCT extends OOMDPPlanner implements QComputablePlanner{
 	}
 	
 	
+	/**
+	 * Sets rollouts to be performed in parallel by the given number of threads, which are created in a new thread pool of daemon threads.
+	 * If numThreads is 1 or less, rollouts are performed sequentially.
+	 * @param numThreads the number of threads to use
+	 * @param mode the parallelization scheme
+	 */
+	public void setParallelRollouts(int numThreads, ParallelRolloutMode mode){
+		if(numThreads <= 1){
+			this.setParallelRollouts(null, 1, mode);
+			return;
+		}
+		this.setParallelRollouts(newDaemonThreadPool(numThreads, "UCT rollout worker"), numThreads, mode);
+		this.ownsRolloutExecutor = true;
+	}
+	
+	
+	/**
+	 * Sets rollouts to be performed in parallel by the given number of workers, which are submitted to the given executor. The executor should have
+	 * at least numWorkers threads, and it is not shut down by this object. If the previous executor was created by {@link #setParallelRollouts(int, ParallelRolloutMode)},
+	 * it is shut down. If the executor is null, rollouts are performed sequentially.
+	 * @param executor the executor that runs the workers
+	 * @param numWorkers the number of workers, each of which performs rollouts until planning stops
+	 * @param mode the parallelization scheme
+	 */
+	public void setParallelRollouts(ExecutorService executor, int numWorkers, ParallelRolloutMode mode){
+		if(this.ownsRolloutExecutor && this.rolloutExecutor != null && this.rolloutExecutor != executor){
+			this.rolloutExecutor.shutdown();
+		}
+		this.rolloutExecutor = executor;
+		this.ownsRolloutExecutor = false;
+		this.numRolloutWorkers = Math.max(numWorkers, 1);
+		this.parallelRolloutMode = mode;
+	}
+	
+	
+	/**
+	 * Sets the virtual loss that is temporarily subtracted from the return of an action node while a rollout through it is in progress in
+	 * {@link ParallelRolloutMode#TREE} mode. It should be on the scale of the returns of the domain; the default is 1.
+	 * @param virtualLoss the virtual loss
+	 */
+	public void setVirtualLoss(double virtualLoss){
+		this.virtualLoss = virtualLoss;
+	}
+	
+	
+	/**
+	 * Returns the number of rollouts per second of wall clock time of the last {@link #planFromState(State)} call.
+	 * @return the number of rollouts per second of the last planning call.
+	 */
+	public double getLastRolloutsPerSecond(){
+		if(this.lastPlanningNanos == 0){
+			return 0.;
+		}
+		return this.numRollOutsFromRoot / (this.lastPlanningNanos / 1e9);
+	}
+	
+	
+	/**
+	 * Plans from the given state until the given wall clock time budget is used up, or until the other stop criteria of this planner are met
+	 * (the maximum number of rollouts, unless it is -1, or finding a goal). The rollout that is in progress when the budget runs out is completed.
+	 * Use {@link #getMaxDepthReached()} and {@link #getTreeSize()} to query how far the search got.
+	 * @param initialState the initial state of the planning problem
+	 * @param nanosBudget the wall clock time budget in nanoseconds
+	 */
+	public void planFromState(State initialState, long nanosBudget){
+		this.planningDeadline = System.nanoTime() + nanosBudget;
+		try{
+			this.planFromState(initialState);
+		}
+		finally{
+			this.planningDeadline = -1;
+		}
+	}
+	
+	
+	/**
+	 * Sets whether planning reuses the tree of the previous planning call when the state to plan from is the root or a child of the root of that tree.
+	 * When the tree is reused, it is re-rooted at the node of the planning state, the depth of all of its nodes is shifted accordingly, and the nodes
+	 * that are not reachable from the new root are freed; the new rollouts are then added to the statistics of the reused nodes. This also causes the Q-value
+	 * query methods to re-root the tree rather than reset it when they are queried for a state that is not the root. Trees built with
+	 * {@link ParallelRolloutMode#ROOT} parallelization are never reused, because the nodes below their root are not indexed. The default is false.
+	 * @param reuseSubtrees true if the tree of previous planning calls should be reused; false if every planning call should build a new tree.
+	 */
+	public void setReuseSubtrees(boolean reuseSubtrees){
+		this.reuseSubtrees = reuseSubtrees;
+	}
+	
+	
+	/**
+	 * Returns the number of state nodes in the tree built by the last planning call.
+	 * @return the number of state nodes in the tree
+	 */
+	public int getTreeSize(){
+		return this.treeSize;
+	}
+	
+	
+	/**
+	 * Returns the maximum depth of a state node in the tree built by the last planning call.
+	 * @return the maximum depth of a state node in the tree
+	 */
+	public int getMaxDepthReached(){
+		return this.maxDepthReached;
+	}
+	
+	
+	/**
+	 * Returns the maximum depth at which this planner's depth index contains a state node.
+	 * @return the maximum depth at which this planner's depth index contains a state node
+	 */
+	protected int indexedTreeDepth(){
+		if(this.stateDepthIndex == null){
+			return 0;
+		}
+		for(int d = this.stateDepthIndex.size()-1; d > 0; d--){
+			if(this.stateDepthIndex.get(d).size() > 0){
+				return d;
+			}
+		}
+		return 0;
+	}
+	
+	
 	@Override
 	public void planFromState(State initialState) {
 		
+		long startTime = System.nanoTime();
+		
+		if(this.rolloutExecutor != null){
+			if(this.parallelRolloutMode == ParallelRolloutMode.ROOT){
+				this.planFromStateRootParallel(initialState);
+			}
+			else{
+				this.planFromStateTreeParallel(initialState);
+				this.maxDepthReached = this.indexedTreeDepth();
+			}
+			this.lastPlanningNanos = System.nanoTime() - startTime;
+			DPrint.cl(debugCode, "\nRollouts: " + numRollOutsFromRoot + " (" + (int)this.getLastRolloutsPerSecond() + " rollouts/sec); tree size: " + treeSize + "; max depth: " + this.getMaxDepthReached() + "; Best Action Expected Return: " + this.bestReturnAction(root).averageReturn());
+			return;
+		}
+		
 		foundGoal = false;
 		
-		treeSize = 1;
 		numVisits = 0;
 		
 		StateHashTuple shi = this.stateHash(initialState);
-		root = stateNodeConstructor.generate(shi, 0, actions, actionNodeConstructor);
+		if(!this.reuseSubtree(shi, false)){
 		
-		uniqueStatesInTree = new HashSet<StateHashTuple>();
-		
-		stateDepthIndex = new ArrayList<Map<StateHashTuple,UCTStateNode>>();
-		statesToStateNodes = new HashMap<StateHashTuple, List<UCTStateNode>>();
-		Map <StateHashTuple, UCTStateNode> depth0Map = new HashMap<StateHashTuple, UCTStateNode>();
-		depth0Map.put(shi, root);
-		stateDepthIndex.add(depth0Map);
+			treeSize = 1;
+			
+			root = stateNodeConstructor.generate(shi, 0, actions, actionNodeConstructor);
+			
+			uniqueStatesInTree = new HashSet<StateHashTuple>();
+			
+			stateDepthIndex = new ArrayList<Map<StateHashTuple,UCTStateNode>>();
+			statesToStateNodes = new HashMap<StateHashTuple, List<UCTStateNode>>();
+			Map <StateHashTuple, UCTStateNode> depth0Map = new HashMap<StateHashTuple, UCTStateNode>();
+			depth0Map.put(shi, root);
+			stateDepthIndex.add(depth0Map);
+			
+		}
 		
 		
 		int lastNumUnique = 0;
@@ -168,7 +365,9 @@ public class UCT extends OOMDPPlanner implements QComputablePlanner{
 			
 			//System.out.println("\nRollouts: " + numRollOutsFromRoot + "; Best Action Expected Return: " + this.bestReturnAction(root).averageReturn());
 		}
-		DPrint.cl(debugCode, "\nRollouts: " + numRollOutsFromRoot + "; Best Action Expected Return: " + this.bestReturnAction(root).averageReturn());
+		this.lastPlanningNanos = System.nanoTime() - startTime;
+		this.maxDepthReached = this.indexedTreeDepth();
+		DPrint.cl(debugCode, "\nRollouts: " + numRollOutsFromRoot + "; tree size: " + treeSize + "; max depth: " + this.getMaxDepthReached() + "; Best Action Expected Return: " + this.bestReturnAction(root).averageReturn());
 
 	}
 
@@ -183,7 +382,9 @@ public class UCT extends OOMDPPlanner implements QComputablePlanner{
 		//if the root node isn't the query state, then replan
 		StateHashTuple sh = this.hashingFactory.hashState(s);
 		if(!sh.equals(this.root.state)){
-			this.resetPlannerResults();
+			if(!this.reuseSubtrees){
+				this.resetPlannerResults();
+			}
 			this.planFromState(s);
 		}
 
@@ -207,7 +408,9 @@ public class UCT extends OOMDPPlanner implements QComputablePlanner{
 		//if the root node isn't the query state, then replan
 		StateHashTuple sh = this.hashingFactory.hashState(s);
 		if(!sh.equals(this.root.state)){
-			this.resetPlannerResults();
+			if(!this.reuseSubtrees){
+				this.resetPlannerResults();
+			}
 			this.planFromState(s);
 		}
 
@@ -293,12 +496,9 @@ public class UCT extends OOMDPPlanner implements QComputablePlanner{
 		double futureReturn = 0.;
 		if(snprime != null){
 			
-			//then this state already exists in the tree
-			
-			if(!anode.referencesSuccessor(snprime)){ 
-				//then this successor has not been generated by this state-action pair before and should be indexed
-				anode.addSuccessor(snprime);
-			}
+			//then this state already exists in the tree; addSuccessor only indexes it if this state-action pair has not generated it before,
+			//and checks and adds under the action node's lock so that concurrent rollouts cannot both add it
+			anode.addSuccessor(snprime);
 			
 			futureReturn = this.treeRollOut(snprime, depth + depthChange, childrenLeftToAdd);
 			sampledReturn = r + Math.pow(gamma, depthChange) * futureReturn;
@@ -321,11 +521,11 @@ public class UCT extends OOMDPPlanner implements QComputablePlanner{
 			
 		}
 		
-		node.n++;
-		anode.update(sampledReturn);
+		this.updateNodeStatistics(node, anode, sampledReturn);
 		
 		if(shouldConnectNode || foundGoalOnRollout){
-			this.addNodeToIndexTree(snprime);
+			//connect the node that ends up in the tree, which may be one that a concurrent rollout added first
+			snprime = this.addNodeToIndexTree(snprime);
 			anode.addSuccessor(snprime);
 			uniqueStatesInTree.add(snprime.state);
 		}
@@ -336,6 +536,270 @@ public class UCT extends OOMDPPlanner implements QComputablePlanner{
 	
 	
 	
+	/**
+	 * Updates the statistics of a state node and the action node that was selected from it with the sample return of a rollout.
+	 * @param node the state node
+	 * @param anode the action node that was selected from the state node
+	 * @param sampledReturn the sample return from the state node
+	 */
+	protected void updateNodeStatistics(UCTStateNode node, UCTActionNode anode, double sampledReturn){
+		node.n++;
+		anode.update(sampledReturn);
+	}
+	
+	
+	/**
+	 * Plans from the given state with {@link ParallelRolloutMode#ROOT} parallelization.
+	 * @param initialState the initial state of the planning problem
+	 */
+	protected void planFromStateRootParallel(State initialState){
+		
+		AtomicBoolean goalFound = new AtomicBoolean(false);
+		List<RolloutWorker> workers = new ArrayList<RolloutWorker>(this.numRolloutWorkers);
+		for(int i = 0; i < this.numRolloutWorkers; i++){
+			int nRollouts = -1;
+			if(this.maxRollOutsFromRoot != -1){
+				nRollouts = this.maxRollOutsFromRoot / this.numRolloutWorkers + (i < this.maxRollOutsFromRoot % this.numRolloutWorkers ? 1 : 0);
+			}
+			workers.add(new RolloutWorker(this, nRollouts, null, goalFound, initialState));
+		}
+		
+		this.runWorkers(workers);
+		
+		//merge the root statistics of all trees
+		StateHashTuple shi = this.stateHash(initialState);
+		root = stateNodeConstructor.generate(shi, 0, actions, actionNodeConstructor);
+		uniqueStatesInTree = new HashSet<StateHashTuple>();
+		stateDepthIndex = new ArrayList<Map<StateHashTuple,UCTStateNode>>();
+		statesToStateNodes = new HashMap<StateHashTuple, List<UCTStateNode>>();
+		Map <StateHashTuple, UCTStateNode> depth0Map = new HashMap<StateHashTuple, UCTStateNode>();
+		depth0Map.put(shi, root);
+		stateDepthIndex.add(depth0Map);
+		
+		foundGoal = false;
+		treeSize = 1;
+		numVisits = 0;
+		numRollOutsFromRoot = 0;
+		maxDepthReached = 0;
+		for(RolloutWorker w : workers){
+			root.n += w.root.n;
+			for(UCTActionNode wanode : w.root.actionNodes){
+				for(UCTActionNode anode : root.actionNodes){
+					if(anode.action.equals(wanode.action)){
+						anode.sumReturn += wanode.sumReturn;
+						anode.n += wanode.n;
+						for(UCTStateNode successor : wanode.getAllSuccessors()){
+							anode.addSuccessor(successor);
+						}
+						break;
+					}
+				}
+			}
+			uniqueStatesInTree.addAll(w.uniqueStatesInTree);
+			treeSize += w.treeSize - 1;
+			numVisits += w.numVisits;
+			numRollOutsFromRoot += w.numRollOutsFromRoot;
+			foundGoal = foundGoal || w.foundGoal;
+			maxDepthReached = Math.max(maxDepthReached, w.maxDepthReached);
+		}
+		
+	}
+	
+	
+	/**
+	 * Plans from the given state with {@link ParallelRolloutMode#TREE} parallelization.
+	 * @param initialState the initial state of the planning problem
+	 */
+	protected void planFromStateTreeParallel(State initialState){
+		
+		foundGoal = false;
+		
+		numVisits = 0;
+		
+		StateHashTuple shi = this.stateHash(initialState);
+		if(!this.reuseSubtree(shi, true)){
+			
+			treeSize = 1;
+			
+			root = stateNodeConstructor.generate(shi, 0, actions, actionNodeConstructor);
+			
+			uniqueStatesInTree = Collections.newSetFromMap(new ConcurrentHashMap<StateHashTuple, Boolean>());
+			
+			List<Map<StateHashTuple, UCTStateNode>> depthMaps = this.newDepthMaps(true);
+			depthMaps.get(0).put(shi, root);
+			stateDepthIndex = new CopyOnWriteArrayList<Map<StateHashTuple,UCTStateNode>>(depthMaps);
+			statesToStateNodes = new ConcurrentHashMap<StateHashTuple, List<UCTStateNode>>();
+			
+		}
+		
+		numRollOutsFromRoot = 0;
+		
+		AtomicInteger rolloutCounter = new AtomicInteger(0);
+		AtomicBoolean goalFound = new AtomicBoolean(false);
+		List<RolloutWorker> workers = new ArrayList<RolloutWorker>(this.numRolloutWorkers);
+		for(int i = 0; i < this.numRolloutWorkers; i++){
+			workers.add(new RolloutWorker(this, this.maxRollOutsFromRoot, rolloutCounter, goalFound, null));
+		}
+		
+		this.runWorkers(workers);
+		
+		for(RolloutWorker w : workers){
+			treeSize += w.treeSize;
+			numVisits += w.numVisits;
+			numRollOutsFromRoot += w.numRollOutsFromRoot;
+			foundGoal = foundGoal || w.foundGoal;
+		}
+		
+	}
+	
+	
+	/**
+	 * If subtree reuse is enabled and the given state is the root, or a child of the root, of the current tree, re-roots the tree at the node
+	 * of the given state with {@link #reRoot(UCTStateNode, boolean)}.
+	 * @param sh the state from which planning is to be performed
+	 * @param concurrent whether the rebuilt tree index should use concurrent data structures
+	 * @return true if the tree was reused; false if a new tree must be built.
+	 */
+	protected boolean reuseSubtree(StateHashTuple sh, boolean concurrent){
+		
+		if(!this.reuseSubtrees || this.root == null || this.stateDepthIndex == null){
+			return false;
+		}
+		
+		UCTStateNode newRoot = null;
+		if(this.root.state.equals(sh)){
+			newRoot = this.root;
+		}
+		else if(this.stateDepthIndex.size() > 1){
+			newRoot = this.stateDepthIndex.get(1).get(sh);
+		}
+		
+		if(newRoot == null){
+			return false;
+		}
+		
+		this.reRoot(newRoot, concurrent);
+		DPrint.cl(debugCode, "Reusing tree of " + treeSize + " nodes.");
+		
+		return true;
+	}
+	
+	
+	/**
+	 * Makes the given node the root of the tree. The depth of every node reachable from the new root is reduced by the depth of the new root,
+	 * the depth index and state index are rebuilt from the reachable nodes, and all other nodes are dropped.
+	 * @param newRoot the node that becomes the root
+	 * @param concurrent whether the rebuilt tree index should use concurrent data structures
+	 */
+	protected void reRoot(UCTStateNode newRoot, boolean concurrent){
+		
+		int shift = newRoot.depth;
+		
+		List<Map<StateHashTuple, UCTStateNode>> depthMaps = this.newDepthMaps(concurrent);
+		Map<StateHashTuple, List<UCTStateNode>> nodesByState;
+		Set<StateHashTuple> unique;
+		if(concurrent){
+			nodesByState = new ConcurrentHashMap<StateHashTuple, List<UCTStateNode>>();
+			unique = Collections.newSetFromMap(new ConcurrentHashMap<StateHashTuple, Boolean>());
+		}
+		else{
+			nodesByState = new HashMap<StateHashTuple, List<UCTStateNode>>();
+			unique = new HashSet<StateHashTuple>();
+		}
+		
+		//successor lists may reference the same node more than once, so visited nodes are tracked by identity
+		Set<UCTStateNode> visited = Collections.newSetFromMap(new IdentityHashMap<UCTStateNode, Boolean>());
+		LinkedList<UCTStateNode> queue = new LinkedList<UCTStateNode>();
+		visited.add(newRoot);
+		queue.add(newRoot);
+		while(queue.size() > 0){
+			
+			UCTStateNode node = queue.poll();
+			node.depth -= shift;
+			
+			while(depthMaps.size() <= node.depth){
+				depthMaps.add(concurrent ? new ConcurrentHashMap<StateHashTuple, UCTStateNode>() : new HashMap<StateHashTuple, UCTStateNode>());
+			}
+			depthMaps.get(node.depth).put(node.state, node);
+			
+			List<UCTStateNode> stateNodes = nodesByState.get(node.state);
+			if(stateNodes == null){
+				stateNodes = concurrent ? Collections.synchronizedList(new ArrayList<UCTStateNode>()) : new ArrayList<UCTStateNode>();
+				nodesByState.put(node.state, stateNodes);
+			}
+			stateNodes.add(node);
+			
+			if(node != newRoot){
+				unique.add(node.state);
+			}
+			
+			for(UCTActionNode anode : node.actionNodes){
+				for(UCTStateNode successor : anode.getAllSuccessors()){
+					if(visited.add(successor)){
+						queue.add(successor);
+					}
+				}
+			}
+			
+		}
+		
+		this.root = newRoot;
+		this.stateDepthIndex = concurrent ? new CopyOnWriteArrayList<Map<StateHashTuple,UCTStateNode>>(depthMaps) : depthMaps;
+		this.statesToStateNodes = nodesByState;
+		this.uniqueStatesInTree = unique;
+		this.treeSize = visited.size();
+		
+	}
+	
+	
+	/**
+	 * Returns a new list of empty depth maps for the depth index. The concurrent list is pre-sized to the horizon because it is only grown
+	 * for options that can pass the horizon, so it can be wrapped in a copy on write list cheaply.
+	 * @param concurrent whether the maps should be concurrent
+	 * @return a new list of empty depth maps
+	 */
+	protected List<Map<StateHashTuple, UCTStateNode>> newDepthMaps(boolean concurrent){
+		List<Map<StateHashTuple, UCTStateNode>> depthMaps = new ArrayList<Map<StateHashTuple,UCTStateNode>>(maxHorizon+1);
+		if(concurrent){
+			for(int d = 0; d <= maxHorizon; d++){
+				depthMaps.add(new ConcurrentHashMap<StateHashTuple, UCTStateNode>());
+			}
+		}
+		return depthMaps;
+	}
+	
+	
+	/**
+	 * Runs all workers with the {@link #rolloutExecutor} and waits for them to finish.
+	 * @param workers the workers to run
+	 */
+	protected void runWorkers(List<RolloutWorker> workers){
+		
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(workers.size());
+		for(final RolloutWorker w : workers){
+			tasks.add(new Callable<Void>() {
+				
+				@Override
+				public Void call() throws Exception {
+					w.runRollouts();
+					return null;
+				}
+			});
+		}
+		
+		try {
+			for(Future<Void> f : this.rolloutExecutor.invokeAll(tasks)){
+				f.get();
+			}
+		} catch (InterruptedException e) {
+			throw new RuntimeException("Parallel UCT rollouts were interrupted", e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException("Parallel UCT rollouts failed", e.getCause());
+		}
+		
+	}
+	
+	
 	/**
 	 * Returns true if rollouts and planning should cease. Planning will stop
 	 * if the planner is told to terminate upon finding a goal and one was found, or if
@@ -346,6 +810,9 @@ public class UCT extends OOMDPPlanner implements QComputablePlanner{
 		if(foundGoal){
 			return true;
 		}
+		if(planningDeadline != -1 && System.nanoTime() >= planningDeadline){
+			return true;
+		}
 		if(maxRollOutsFromRoot == -1){
 			return false;
 		}
@@ -467,8 +934,9 @@ public class UCT extends OOMDPPlanner implements QComputablePlanner{
 	/**
 	 * Adds a {@link UCTStateNode} to the UCT tree
 	 * @param snode the {@link UCTStateNode} to add
+	 * @return the node that is indexed in the tree for the state and depth of snode, which is the node that should be connected to its parent
 	 */
-	protected void addNodeToIndexTree(UCTStateNode snode){
+	protected UCTStateNode addNodeToIndexTree(UCTStateNode snode){
 		
 		while(stateDepthIndex.size() <= snode.depth){
 			stateDepthIndex.add(new HashMap<StateHashTuple, UCTStateNode>());
@@ -486,6 +954,8 @@ public class UCT extends OOMDPPlanner implements QComputablePlanner{
 		
 		treeSize++;
 		
+		return snode;
+		
 	}
 	
 	
@@ -552,4 +1022,179 @@ public class UCT extends OOMDPPlanner implements QComputablePlanner{
 	}
 	
 
+	
+	
+	/**
+	 * A UCT planner that performs the rollouts of one thread of a parallel UCT planner. In {@link ParallelRolloutMode#ROOT} mode a worker
+	 * builds its own tree from the initial state; in {@link ParallelRolloutMode#TREE} mode it performs rollouts in the tree of its
+	 * master planner, using concurrent index updates and virtual loss, and the number of rollouts is counted across all workers.
+	 *
+	 */
+	protected static class RolloutWorker extends UCT{
+		
+		/**
+		 * The planner whose tree is shared in TREE mode
+		 */
+		protected UCT						master;
+		
+		/**
+		 * The number of rollouts started by all workers of a shared tree, or null if this worker builds its own tree
+		 */
+		protected AtomicInteger				sharedRolloutCounter;
+		
+		/**
+		 * Whether any worker has found a goal
+		 */
+		protected AtomicBoolean				sharedGoalFound;
+		
+		/**
+		 * The initial state from which this worker builds its own tree, or null if the tree is shared
+		 */
+		protected State						initialState;
+		
+		
+		/**
+		 * Initializes a worker with the settings of the given master planner.
+		 * @param master the parallel UCT planner
+		 * @param nRollouts the maximum number of rollouts of this worker, or of all workers if the tree is shared; -1 for no limit
+		 * @param sharedRolloutCounter the rollout counter of all workers sharing the master's tree, or null if this worker builds its own tree
+		 * @param sharedGoalFound the flag that is set when any worker finds a goal
+		 * @param initialState the state from which to build this worker's own tree; ignored if the tree is shared
+		 */
+		public RolloutWorker(UCT master, int nRollouts, AtomicInteger sharedRolloutCounter, AtomicBoolean sharedGoalFound, State initialState){
+			super(master.domain, master.rf, master.tf, master.gamma, master.hashingFactory, master.maxHorizon, nRollouts, 0);
+			this.master = master;
+			this.rf = master.rf;
+			this.actions = master.actions;
+			this.containsParameterizedActions = master.containsParameterizedActions;
+			this.explorationBias = master.explorationBias;
+			this.stateNodeConstructor = master.stateNodeConstructor;
+			this.actionNodeConstructor = master.actionNodeConstructor;
+			this.goalCondition = master.goalCondition;
+			this.virtualLoss = master.virtualLoss;
+			this.planningDeadline = master.planningDeadline;
+			this.debugCode = master.debugCode;
+			this.rand = new XoshiroRandom(master.rand.nextLong());
+			this.sharedRolloutCounter = sharedRolloutCounter;
+			this.sharedGoalFound = sharedGoalFound;
+			this.initialState = initialState;
+		}
+		
+		
+		/**
+		 * Performs rollouts until planning should stop.
+		 */
+		public void runRollouts(){
+			
+			if(this.sharedRolloutCounter == null){
+				this.planFromState(this.initialState);
+				return;
+			}
+			
+			this.foundGoal = false;
+			this.treeSize = 0;
+			this.numVisits = 0;
+			this.numRollOutsFromRoot = 0;
+			this.root = this.master.root;
+			this.stateDepthIndex = this.master.stateDepthIndex;
+			this.statesToStateNodes = this.master.statesToStateNodes;
+			this.uniqueStatesInTree = this.master.uniqueStatesInTree;
+			
+			while(!this.stopPlanning()){
+				this.initializeRollOut();
+				this.treeRollOut(this.root, 0, this.maxHorizon);
+				this.numRollOutsFromRoot++;
+			}
+			
+		}
+		
+		
+		@Override
+		public boolean stopPlanning(){
+			if(this.foundGoal){
+				this.sharedGoalFound.set(true);
+				return true;
+			}
+			if(this.sharedGoalFound.get()){
+				return true;
+			}
+			if(this.planningDeadline != -1 && System.nanoTime() >= this.planningDeadline){
+				return true;
+			}
+			if(this.sharedRolloutCounter == null){
+				return super.stopPlanning();
+			}
+			if(this.maxRollOutsFromRoot == -1){
+				return false;
+			}
+			return this.sharedRolloutCounter.getAndIncrement() >= this.maxRollOutsFromRoot;
+		}
+		
+		
+		@Override
+		protected UCTActionNode selectActionNode(UCTStateNode snode){
+			UCTActionNode anode = super.selectActionNode(snode);
+			if(anode != null && this.sharedRolloutCounter != null){
+				synchronized(snode){
+					snode.n++;
+				}
+				anode.applyVirtualLoss(this.virtualLoss);
+			}
+			return anode;
+		}
+		
+		
+		@Override
+		protected void updateNodeStatistics(UCTStateNode node, UCTActionNode anode, double sampledReturn){
+			if(this.sharedRolloutCounter == null){
+				super.updateNodeStatistics(node, anode, sampledReturn);
+				return;
+			}
+			//the visit counts were incremented when the action node was selected
+			anode.updateWithVirtualLoss(sampledReturn, this.virtualLoss);
+		}
+		
+		
+		@Override
+		protected UCTStateNode addNodeToIndexTree(UCTStateNode snode){
+			
+			if(this.sharedRolloutCounter == null){
+				return super.addNodeToIndexTree(snode);
+			}
+			
+			if(stateDepthIndex.size() <= snode.depth){
+				synchronized(stateDepthIndex){
+					while(stateDepthIndex.size() <= snode.depth){
+						stateDepthIndex.add(new ConcurrentHashMap<StateHashTuple, UCTStateNode>());
+					}
+				}
+			}
+			
+			ConcurrentMap<StateHashTuple, UCTStateNode> depthMap = (ConcurrentMap<StateHashTuple, UCTStateNode>)stateDepthIndex.get(snode.depth);
+			UCTStateNode existingNode = depthMap.putIfAbsent(snode.state, snode);
+			if(existingNode != null){
+				//another thread added a node for this state and depth first, so that node is the one to connect
+				return existingNode;
+			}
+			
+			ConcurrentMap<StateHashTuple, List<UCTStateNode>> nodesMap = (ConcurrentMap<StateHashTuple, List<UCTStateNode>>)statesToStateNodes;
+			List <UCTStateNode> depthNodes = nodesMap.get(snode.state);
+			if(depthNodes == null){
+				depthNodes = Collections.synchronizedList(new ArrayList<UCTStateNode>());
+				List <UCTStateNode> existing = nodesMap.putIfAbsent(snode.state, depthNodes);
+				if(existing != null){
+					depthNodes = existing;
+				}
+			}
+			
+			depthNodes.add(snode);
+			
+			treeSize++;
+			
+			return snode;
+			
+		}
+		
+	}
+	
 }
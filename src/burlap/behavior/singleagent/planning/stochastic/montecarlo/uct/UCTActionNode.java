@@ -69,11 +69,34 @@ public class UCTActionNode {
 		n++;
 	}
 	
+	
+	/**
+	 * Counts a visit of this node that is still in progress and temporarily lowers its return by a virtual loss, which discourages
+	 * other threads that share the same tree from selecting this node until the visit is completed with {@link #updateWithVirtualLoss(double, double)}.
+	 * @param virtualLoss the virtual loss to subtract from the sum return
+	 */
+	public synchronized void applyVirtualLoss(double virtualLoss){
+		sumReturn -= virtualLoss;
+		n++;
+	}
+	
+	
+	/**
+	 * Completes a visit started with {@link #applyVirtualLoss(double)} by removing the virtual loss and adding the sample return.
+	 * The visit count is not changed, because it was already incremented when the virtual loss was applied.
+	 * @param sampledReturn the sample return observed
+	 * @param virtualLoss the virtual loss that was applied for this visit
+	 */
+	public synchronized void updateWithVirtualLoss(double sampledReturn, double virtualLoss){
+		sumReturn += sampledReturn + virtualLoss;
+	}
+	
 	/**
-	 * Adds a successor node to the list of possible successors
-	 * @param node
+	 * Adds a successor node to the list of possible successors if it is not already in it. The check and the add are made under this node's lock,
+	 * so that a tree can be shared by multiple threads without two of them adding the same successor.
+	 * @param node the successor node to add
 	 */
-	public void addSuccessor(UCTStateNode node){
+	public synchronized void addSuccessor(UCTStateNode node){
 		
 		List <UCTStateNode> succesorsMatchingState = successorStates.get(node.state);
 		if(succesorsMatchingState == null){
@@ -92,7 +115,7 @@ public class UCTActionNode {
 	 * @param node the node which is checked to be in the current successor states
 	 * @return true if this node contains in its observed successors the input state node
 	 */
-	public boolean referencesSuccessor(UCTStateNode node){
+	public synchronized boolean referencesSuccessor(UCTStateNode node){
 		
 		List <UCTStateNode> succesorsMatchingState = successorStates.get(node.state);
 		if(succesorsMatchingState == null){
@@ -112,7 +135,7 @@ public class UCTActionNode {
 	 * Returns a list of all successor nodes observed
 	 * @return a list of all successor nodes observed
 	 */
-	public List <UCTStateNode> getAllSuccessors(){
+	public synchronized List <UCTStateNode> getAllSuccessors(){
 		List <UCTStateNode> res = new ArrayList<UCTStateNode>();
 		for(List <UCTStateNode> nodes : successorStates.values()){
 			for(UCTStateNode node : nodes){
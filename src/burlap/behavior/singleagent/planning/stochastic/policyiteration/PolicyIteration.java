@@ -173,6 +173,10 @@ public class PolicyIteration extends ValueFunctionPlanner {
 		
 		double maxChangeInPolicyEvaluation = Double.NEGATIVE_INFINITY;
 		
+		if(this.indexedModel != null){
+			return this.evaluatePolicyIndexed();
+		}
+		
 		Set <StateHashTuple> states = mapToStateIndex.keySet();
 		
 		int i = 0;
@@ -202,6 +206,42 @@ public class PolicyIteration extends ValueFunctionPlanner {
 	}
 	
 	
+	/**
+	 * Computes the value function under following the current evaluative policy by sweeping over the state ids of the indexed state model.
+	 * @return the maximum single iteration change in the value function
+	 */
+	protected double evaluatePolicyIndexed(){
+		
+		double maxChangeInPolicyEvaluation = Double.NEGATIVE_INFINITY;
+		
+		int i = 0;
+		for(i = 0; i < this.maxIterations; i++){
+			
+			double delta = 0.;
+			int n = this.indexedModel.numStates();
+			for(int id = 0; id < n; id++){
+				
+				double v = this.indexedModel.value(id);
+				double maxQ = this.performFixedPolicyBellmanUpdateOn(id, (Policy)this.evaluativePolicy);
+				delta = Math.max(Math.abs(maxQ - v), delta);
+				
+			}
+			
+			maxChangeInPolicyEvaluation = Math.max(delta, maxChangeInPolicyEvaluation);
+			
+			if(delta < this.maxEvalDelta){
+				break; //approximated well enough; stop iterating
+			}
+			
+		}
+		
+		DPrint.cl(this.debugCode, "Policy Eval Passes: " + i);
+		
+		return maxChangeInPolicyEvaluation;
+		
+	}
+	
+	
 	
 	
 	
@@ -216,6 +256,19 @@ public class PolicyIteration extends ValueFunctionPlanner {
 		
 		
 		StateHashTuple sih = this.stateHash(si);
+		
+		if(this.indexedModel != null){
+			int id = this.indexedModel.stateId(sih);
+			if(id != -1 && this.indexedModel.isExpanded(id) && this.foundReachableStates){
+				return false; //no need for additional reachability testing
+			}
+			DPrint.cl(this.debugCode, "Starting reachability analysis");
+			this.performIndexedReachabilityFrom(sih, false);
+			DPrint.cl(this.debugCode, "Finished reachability analysis; # states: " + this.indexedModel.numStates());
+			this.foundReachableStates = true;
+			return true;
+		}
+		
 		//if this is not a new state and we are not required to perform a new reachability analysis, then this method does not need to do anything.
 		if(transitionDynamics.containsKey(sih) && this.foundReachableStates){
 			return false; //no need for additional reachability testing
@@ -223,6 +276,13 @@ public class PolicyIteration extends ValueFunctionPlanner {
 		
 		DPrint.cl(this.debugCode, "Starting reachability analysis");
 		
+		if(this.parallelReachability != null){
+			this.performParallelReachabilityFrom(sih, false);
+			DPrint.cl(this.debugCode, "Finished reachability analysis; # states: " + mapToStateIndex.size());
+			this.foundReachableStates = true;
+			return true;
+		}
+		
 		//add to the open list
 		LinkedList <StateHashTuple> openList = new LinkedList<StateHashTuple>();
 		Set <StateHashTuple> openedSet = new HashSet<StateHashTuple>();
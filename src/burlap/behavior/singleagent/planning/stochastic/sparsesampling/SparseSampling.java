@@ -4,6 +4,13 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 import burlap.behavior.singleagent.Policy;
@@ -44,9 +51,21 @@ import burlap.oomdp.singleagent.RewardFunction;
  * subsequent tree creations, thereby limiting the amount of additional computation required. However, if memory is scarce, the class can be told to forget all prior planning
  * results, except the Q-value estimate for the most recently planned for state, by using the {@link #forgetPreviousPlanResults} method.
  * <p/>
+ * Planning can also be limited by a wall clock time budget with the {@link #planFromState(State, long)} method, which performs iterative deepening
+ * over the tree height: it plans with heights 1, 2, ..., H until the budget runs out and keeps the root Q-values of the tallest tree that was completed.
+ * Because tree nodes are indexed by state and height, each iteration reuses the nodes of the previous iterations, unless variable C is used.
+ * <p/>
+ * The tree can be expanded by multiple threads with the {@link #setParallelExpansion(int, int)} method. The sampled (or exact) backups of
+ * nodes above a height cutoff are then submitted as separate tasks to an {@link ExecutorService}, while the nodes at or below the cutoff are expanded
+ * sequentially by the thread that needs them. Nodes are indexed in a concurrent map and each node's value is estimated exactly once, so
+ * the node and value estimate counts are the same as for sequential planning. When the tree is expanded in parallel,
+ * the domain's actions, reward function and terminal function are used concurrently and must be thread safe; options are not supported, because
+ * they record the number of steps of their last execution.
+ * <p/>
  * By default, the C parameter (number of state transition samples) is fixed for all nodes; however, it may also be set to use a variable C that reduces the number
  * of sampled states the further down in the tree it is according to C_i = C_0 * gamma^(2i), where i is the depth of the node from the root and gamma is the discount
- * factor.
+ * factor. The depth is measured from the root of the tree being built, so the roots of the shorter trees of iterative deepening also use C_0. Because a node's C then
+ * depends on the height of its root, nodes are indexed by their root height as well when variable C is used, and each deepening iteration builds its own tree.
  * <p/>
  * By default, the state value of leafs will be set to 0, but this value can be changed by providing a {@link ValueFunctionInitialization} object via the
  * {@link #setValueForLeafNodes(ValueFunctionInitialization)} method. Using a non-zero heuristic value may reduce the need for a large tree height.
@@ -109,18 +128,53 @@ public class SparseSampling extends OOMDPPlanner implements QComputablePlanner{
 	/**
 	 * The tree nodes indexed by state and height.
 	 */
-	protected Map<HashedHeightState, StateNode> nodesByHeight;
+	protected ConcurrentMap<HashedHeightState, StateNode> nodesByHeight;
 	
 	/**
 	 * The root state node Q-values that have been estimated by previous planning calls.
 	 */
 	protected Map<StateHashTuple, List<QValue>> rootLevelQValues;
 	
+	/**
+	 * The tree height with which the root level Q-values of each state were estimated.
+	 */
+	protected Map<StateHashTuple, Integer> rootLevelHeights;
+	
 	
 	/**
 	 * The total number of pseudo-Bellman updates
 	 */
-	protected int numUpdates = 0;
+	protected AtomicInteger numUpdates = new AtomicInteger(0);
+	
+	/**
+	 * The {@link System#nanoTime()} at which the current time budgeted planning call must stop; -1 if planning is not time budgeted.
+	 */
+	protected long planningDeadline = -1;
+	
+	/**
+	 * The tree height of the root Q-values produced by the last planning call
+	 */
+	protected int lastDepthReached = 0;
+	
+	/**
+	 * The number of state value estimates performed by the last planning call
+	 */
+	protected int lastNumNodesExpanded = 0;
+	
+	/**
+	 * The executor to which the backups of nodes above the parallel height cutoff are submitted; null if the tree is expanded sequentially.
+	 */
+	protected ExecutorService expansionExecutor;
+	
+	/**
+	 * Whether the {@link #expansionExecutor} was created by {@link #setParallelExpansion(int, int)}, in which case it is shut down when it is replaced
+	 */
+	protected boolean ownsExpansionExecutor = false;
+	
+	/**
+	 * The height above which the backups of a node are computed in parallel
+	 */
+	protected int parallelHeightCutoff;
 
 	
 	
@@ -141,8 +195,9 @@ public class SparseSampling extends OOMDPPlanner implements QComputablePlanner{
 		this.plannerInit(domain, rf, tf, gamma, hashingFactory);
 		this.h = h;
 		this.c = c;
-		this.nodesByHeight = new HashMap<SparseSampling.HashedHeightState, SparseSampling.StateNode>();
+		this.nodesByHeight = new ConcurrentHashMap<SparseSampling.HashedHeightState, SparseSampling.StateNode>();
 		this.rootLevelQValues = new HashMap<StateHashTuple, List<QValue>>();
+		this.rootLevelHeights = new HashMap<StateHashTuple, Integer>();
 		if(this.c < 0){
 			this.computeExactValueFunction = true;
 		}
@@ -251,6 +306,42 @@ public class SparseSampling extends OOMDPPlanner implements QComputablePlanner{
 		}
 	}
 	
+	/**
+	 * Sets the tree to be expanded by the given number of threads, which are created in a new thread pool. The backups of nodes
+	 * whose height is greater than heightCutoff are computed in parallel; nodes at or below the cutoff are expanded sequentially, which avoids
+	 * the overhead of creating tasks for the many small subtrees near the leaves. If numThreads is 1 or less, the tree is expanded sequentially.
+	 * The threads of the pool are daemon threads.
+	 * @param numThreads the number of threads to use
+	 * @param heightCutoff the height above which node backups are computed in parallel
+	 */
+	public void setParallelExpansion(int numThreads, int heightCutoff){
+		if(numThreads <= 1){
+			this.setParallelExpansion(null, heightCutoff);
+			return;
+		}
+		this.setParallelExpansion(newDaemonThreadPool(numThreads, "Sparse Sampling worker"), heightCutoff);
+		this.ownsExpansionExecutor = true;
+	}
+	
+	
+	/**
+	 * Sets the tree to be expanded by submitting the backups of nodes whose height is greater than heightCutoff to the given executor.
+	 * The thread that submits the backups of a node also computes those that have not been started by the executor when it needs them,
+	 * so any executor can be used, including one with fewer threads than the tree has parallel levels. The executor is not shut down by this object.
+	 * If the previous executor was created by {@link #setParallelExpansion(int, int)}, it is shut down. If the executor is null, the tree is expanded sequentially.
+	 * @param executor the executor to which node backups are submitted
+	 * @param heightCutoff the height above which node backups are computed in parallel
+	 */
+	public void setParallelExpansion(ExecutorService executor, int heightCutoff){
+		if(this.ownsExpansionExecutor && this.expansionExecutor != null && this.expansionExecutor != executor){
+			this.expansionExecutor.shutdown();
+		}
+		this.expansionExecutor = executor;
+		this.ownsExpansionExecutor = false;
+		this.parallelHeightCutoff = Math.max(heightCutoff, 0);
+	}
+	
+	
 	/**
 	 * Sets the {@link ValueFunctionInitialization} object to use for settting the value of leaf nodes.
 	 * @param vinit the {@link ValueFunctionInitialization} object to use for settting the value of leaf nodes.
@@ -281,7 +372,7 @@ public class SparseSampling extends OOMDPPlanner implements QComputablePlanner{
 	 * @return the total number of state value estimates performed since the {@link #resetPlannerResults()} call.
 	 */
 	public int getNumberOfValueEsitmates(){
-		return this.numUpdates;
+		return this.numUpdates.get();
 	}
 	
 	/**
@@ -292,26 +383,49 @@ public class SparseSampling extends OOMDPPlanner implements QComputablePlanner{
 		return this.nodesByHeight.size() + this.rootLevelQValues.size();
 	}
 	
+	/**
+	 * Returns the tree height with which the root Q-values of the last planning call were estimated. For a time budgeted planning call
+	 * this is the height of the tallest completed iterative deepening tree.
+	 * @return the tree height of the root Q-values of the last planning call
+	 */
+	public int getLastDepthReached(){
+		return this.lastDepthReached;
+	}
+	
+	/**
+	 * Returns the number of state value estimates (expanded state nodes) performed by the last planning call.
+	 * @return the number of state value estimates performed by the last planning call
+	 */
+	public int getLastNumNodesExpanded(){
+		return this.lastNumNodesExpanded;
+	}
+	
 	
 	@Override
 	public void planFromState(State initialState) {
 		
 		if(this.forgetPreviousPlanResults){
 			this.rootLevelQValues.clear();
+			this.rootLevelHeights.clear();
 		}
 		
 		StateHashTuple sh = this.hashingFactory.hashState(initialState);
-		if(this.rootLevelQValues.containsKey(sh)){
+		Integer plannedHeight = this.rootLevelHeights.get(sh);
+		if(plannedHeight != null && plannedHeight >= this.h){
 			return; //already planned for this state
 		}
 		
 		DPrint.cl(this.debugCode, "Beginning Planning.");
-		int oldUpdates = this.numUpdates;
+		int oldUpdates = this.numUpdates.get();
 		
-		StateNode sn = this.getStateNode(initialState, this.h);
+		StateNode sn = this.getStateNode(initialState, this.h, this.h);
 		rootLevelQValues.put(sh, sn.estimateQs());
+		rootLevelHeights.put(sh, this.h);
+		
+		this.lastDepthReached = this.h;
+		this.lastNumNodesExpanded = this.numUpdates.get() - oldUpdates;
 		
-		DPrint.cl(this.debugCode, "Finished Planning with " + (this.numUpdates - oldUpdates) + " value esitmates; for a cumulative total of: " + this.numUpdates);
+		DPrint.cl(this.debugCode, "Finished Planning with " + this.lastNumNodesExpanded + " value esitmates; for a cumulative total of: " + this.numUpdates.get());
 		
 		if(this.forgetPreviousPlanResults){
 			this.nodesByHeight.clear();
@@ -320,12 +434,74 @@ public class SparseSampling extends OOMDPPlanner implements QComputablePlanner{
 		this.mapToStateIndex.put(sh, sh);
 
 	}
+	
+	
+	/**
+	 * Plans from the given state with iterative deepening until the given wall clock time budget is used up or the full tree height H is completed.
+	 * Each iteration builds the tree with one more level than the previous, and the root Q-values of the tallest completed tree are kept; the iteration
+	 * in progress when the budget runs out is abandoned. If not even a tree of height 1 can be completed, the root Q-values are set to the leaf node values.
+	 * With variable C, each iteration's tree uses C_0 samples at its own root, as a tree of that height planned by {@link #planFromState(State)} would, so it
+	 * cannot reuse the nodes of the previous iterations, whose C differs at the same height.
+	 * Use {@link #getLastDepthReached()} and {@link #getLastNumNodesExpanded()} to query how far the search got.
+	 * @param initialState the initial state of the planning problem
+	 * @param nanosBudget the wall clock time budget in nanoseconds
+	 */
+	public void planFromState(State initialState, long nanosBudget){
+		
+		if(this.forgetPreviousPlanResults){
+			this.rootLevelQValues.clear();
+			this.rootLevelHeights.clear();
+		}
+		
+		StateHashTuple sh = this.hashingFactory.hashState(initialState);
+		Integer plannedHeight = this.rootLevelHeights.get(sh);
+		this.lastDepthReached = plannedHeight != null ? plannedHeight : 0;
+		this.lastNumNodesExpanded = 0;
+		if(plannedHeight != null && plannedHeight >= this.h){
+			return; //already planned for this state
+		}
+		
+		DPrint.cl(this.debugCode, "Beginning Planning with a budget of " + (nanosBudget / 1000000) + "ms.");
+		int oldUpdates = this.numUpdates.get();
+		
+		this.planningDeadline = System.nanoTime() + nanosBudget;
+		try{
+			for(int height = this.lastDepthReached+1; height <= this.h; height++){
+				StateNode sn = this.getStateNode(initialState, height, height);
+				List<QValue> qs = sn.estimateQs();
+				this.rootLevelQValues.put(sh, qs);
+				this.rootLevelHeights.put(sh, height);
+				this.lastDepthReached = height;
+			}
+		} catch(PlanningDeadlineException e){
+			//keep the Q-values of the tallest completed tree
+		} finally{
+			this.planningDeadline = -1;
+		}
+		
+		if(!this.rootLevelQValues.containsKey(sh)){
+			this.rootLevelQValues.put(sh, this.getStateNode(initialState, 0, 0).estimateQs());
+			this.rootLevelHeights.put(sh, 0);
+		}
+		
+		this.lastNumNodesExpanded = this.numUpdates.get() - oldUpdates;
+		
+		DPrint.cl(this.debugCode, "Finished Planning to height " + this.lastDepthReached + " with " + this.lastNumNodesExpanded + " value esitmates; for a cumulative total of: " + this.numUpdates.get());
+		
+		if(this.forgetPreviousPlanResults){
+			this.nodesByHeight.clear();
+		}
+		
+		this.mapToStateIndex.put(sh, sh);
+		
+	}
 
 	@Override
 	public void resetPlannerResults() {
 		this.nodesByHeight.clear();
 		this.rootLevelQValues.clear();
-		this.numUpdates = 0;
+		this.rootLevelHeights.clear();
+		this.numUpdates.set(0);
 	}
 	
 	
@@ -369,17 +545,28 @@ public class SparseSampling extends OOMDPPlanner implements QComputablePlanner{
 	
 	
 	/**
-	 * Returns the value of C for a node at the given height (height from a leaf node).
+	 * Returns the value of C for a node at the given height (height from a leaf node) in a tree of height H.
 	 * @param height the height from a leaf node.
 	 * @return the value of C to use.
 	 */
 	protected int getCAtHeight(int height){
+		return this.getCAtHeight(height, this.h);
+	}
+	
+	
+	/**
+	 * Returns the value of C for a node at the given height (height from a leaf node) in a tree whose root is at the given height.
+	 * @param height the height from a leaf node.
+	 * @param rootHeight the height of the root of the tree
+	 * @return the value of C to use.
+	 */
+	protected int getCAtHeight(int height, int rootHeight){
 		if(!this.useVariableC){
 			return this.c;
 		}
 		
 		//convert height from bottom to depth from root
-		int d = this.h = height;
+		int d = rootHeight - height;
 		int vc = (int) (this.c * Math.pow(this.gamma, 2*d));
 		if(vc == 0){
 			vc = 1;
@@ -389,24 +576,91 @@ public class SparseSampling extends OOMDPPlanner implements QComputablePlanner{
 	
 	
 	/**
-	 * Either returns, or creates, indexes, and returns, the state node for the given state at the given height in the tree
+	 * Either returns, or creates, indexes, and returns, the state node for the given state at the given height in a tree of height H. If multiple
+	 * threads request the same missing node, only one node is indexed and returned to all of them.
 	 * @param s the state
 	 * @param height the height (distance from leaf node) of the node.
 	 * @return the state node for the given state at the given height in the tree
 	 */
 	protected StateNode getStateNode(State s, int height){
+		return this.getStateNode(s, height, this.h);
+	}
+	
+	
+	/**
+	 * Either returns, or creates, indexes, and returns, the state node for the given state at the given height in a tree whose root is at the given height.
+	 * The root height is only part of the node's index when variable C is used, because otherwise it does not affect the node's value.
+	 * If multiple threads request the same missing node, only one node is indexed and returned to all of them.
+	 * @param s the state
+	 * @param height the height (distance from leaf node) of the node.
+	 * @param rootHeight the height of the root of the tree
+	 * @return the state node for the given state at the given height in the tree
+	 */
+	protected StateNode getStateNode(State s, int height, int rootHeight){
 		StateHashTuple sh = this.hashingFactory.hashState(s);
-		HashedHeightState hhs = new HashedHeightState(sh, height);
+		HashedHeightState hhs = new HashedHeightState(sh, height, this.useVariableC ? rootHeight : 0);
 		StateNode sn = this.nodesByHeight.get(hhs);
 		if(sn == null){
-			sn = new StateNode(sh, height);
-			this.nodesByHeight.put(hhs, sn);
+			sn = new StateNode(sh, height, rootHeight);
+			StateNode existing = this.nodesByHeight.putIfAbsent(hhs, sn);
+			if(existing != null){
+				sn = existing;
+			}
 		}
 		
 		return sn;
 	}
 	
 	
+	/**
+	 * Returns whether the backups of a node at the given height are computed in parallel.
+	 * @param height the height of the node
+	 * @return true if the backups of the node are computed in parallel; false otherwise.
+	 */
+	protected boolean expandsInParallel(int height){
+		return this.expansionExecutor != null && height > this.parallelHeightCutoff;
+	}
+	
+	
+	/**
+	 * Submits the given tasks to the {@link #expansionExecutor}, runs those that have not been started by the executor in the calling thread,
+	 * and waits for all of them to finish. Running unstarted tasks in the calling thread ensures progress when all threads of the executor
+	 * are themselves waiting for their subtasks. If a task fails, the exception of the first failed task is rethrown after all tasks have finished.
+	 * @param tasks the tasks to run
+	 * @return the results of the tasks, in the order of the tasks
+	 */
+	protected double [] runBackups(List<FutureTask<Double>> tasks){
+		
+		for(FutureTask<Double> task : tasks){
+			this.expansionExecutor.execute(task);
+		}
+		for(FutureTask<Double> task : tasks){
+			task.run(); //does nothing if the executor already started the task
+		}
+		
+		double [] results = new double[tasks.size()];
+		RuntimeException failure = null;
+		for(int i = 0; i < tasks.size(); i++){
+			try {
+				results[i] = tasks.get(i).get();
+			} catch (InterruptedException e) {
+				if(failure == null){
+					failure = new RuntimeException("Sparse Sampling parallel expansion was interrupted", e);
+				}
+			} catch (ExecutionException e) {
+				if(failure == null){
+					failure = e.getCause() instanceof RuntimeException ? (RuntimeException)e.getCause() : new RuntimeException("Sparse Sampling parallel expansion failed", e.getCause());
+				}
+			}
+		}
+		if(failure != null){
+			throw failure;
+		}
+		
+		return results;
+	}
+	
+	
 	/**
 	 * A class for state nodes. Includes the state, a value estimate, whether the node has been closed and methods for estimating the Q and V values.
 	 * @author James MacGlashan
@@ -429,6 +683,11 @@ public class SparseSampling extends OOMDPPlanner implements QComputablePlanner{
 		 */
 		double v;
 		
+		/**
+		 * The height of the root of the tree to which this node belongs
+		 */
+		int rootHeight;
+		
 		/**
 		 * Whether this node has been closed.
 		 */
@@ -436,13 +695,25 @@ public class SparseSampling extends OOMDPPlanner implements QComputablePlanner{
 		
 		
 		/**
-		 * Creates a node for the given hased state at the given height
+		 * Creates a node for the given hased state at the given height in a tree of height H
 		 * @param sh the hashed state
 		 * @param height the height of the node
 		 */
 		public StateNode(StateHashTuple sh, int height){
+			this(sh, height, SparseSampling.this.h);
+		}
+		
+		
+		/**
+		 * Creates a node for the given hased state at the given height in a tree whose root is at the given height
+		 * @param sh the hashed state
+		 * @param height the height of the node
+		 * @param rootHeight the height of the root of the tree
+		 */
+		public StateNode(StateHashTuple sh, int height, int rootHeight){
 			this.sh = sh;
 			this.height = height;
+			this.rootHeight = rootHeight;
 		}
 		
 		
@@ -452,6 +723,9 @@ public class SparseSampling extends OOMDPPlanner implements QComputablePlanner{
 		 */
 		public List<QValue> estimateQs(){
 			List<GroundedAction> gas = SparseSampling.this.getAllGroundedActions(this.sh.s);
+			if(this.height > 0 && SparseSampling.this.expandsInParallel(this.height)){
+				return this.estimateQsInParallel(gas);
+			}
 			List<QValue> qs = new ArrayList<QValue>(gas.size());
 			for(GroundedAction ga : gas){
 				if(this.height <= 0){
@@ -473,6 +747,67 @@ public class SparseSampling extends OOMDPPlanner implements QComputablePlanner{
 			return qs;
 		}
 		
+		/**
+		 * Estimates the Q-values of the given actions by computing each of their sampled (or exact) backups as a separate task
+		 * with {@link SparseSampling#runBackups(List)}. The backups of each action are summed in the same order as in the sequential methods.
+		 * @param gas the actions applicable in this node's state
+		 * @return a {@link List} of the estiamted Q-values for each action.
+		 */
+		protected List<QValue> estimateQsInParallel(List<GroundedAction> gas){
+			
+			List<FutureTask<Double>> tasks = new ArrayList<FutureTask<Double>>();
+			int [] numBackups = new int[gas.size()];
+			for(int i = 0; i < gas.size(); i++){
+				final GroundedAction ga = gas.get(i);
+				if(!SparseSampling.this.computeExactValueFunction){
+					int c = SparseSampling.this.getCAtHeight(this.height, this.rootHeight);
+					for(int j = 0; j < c; j++){
+						tasks.add(new FutureTask<Double>(new Callable<Double>() {
+							
+							@Override
+							public Double call() throws Exception {
+								return sampledBackup(ga);
+							}
+						}));
+					}
+					numBackups[i] = c;
+				}
+				else{
+					if(ga.action instanceof Option){
+						throw new RuntimeException("Sparse Sampling Planner with Full Bellman updates turned on cannot work with options because it needs factored access to the depth for each option transition. Use the standard sampling mode instead.");
+					}
+					List<TransitionProbability> tps = ga.action.getTransitions(this.sh.s, ga.params);
+					for(final TransitionProbability tp : tps){
+						tasks.add(new FutureTask<Double>(new Callable<Double>() {
+							
+							@Override
+							public Double call() throws Exception {
+								return transitionBackup(ga, tp);
+							}
+						}));
+					}
+					numBackups[i] = tps.size();
+				}
+			}
+			
+			double [] backups = SparseSampling.this.runBackups(tasks);
+			
+			List<QValue> qs = new ArrayList<QValue>(gas.size());
+			int t = 0;
+			for(int i = 0; i < gas.size(); i++){
+				double sum = 0.;
+				for(int j = 0; j < numBackups[i]; j++){
+					sum += backups[t++];
+				}
+				if(!SparseSampling.this.computeExactValueFunction){
+					sum /= (double)numBackups[i];
+				}
+				qs.add(new QValue(this.sh.s, gas.get(i), sum));
+			}
+			
+			return qs;
+		}
+		
 		/**
 		 * Estimates the Q-value using sampling from the transition dynamics. This is the standard Sparse Sampling procedure.
 		 * @param ga the action for which the Q-value estimate is to be returned
@@ -483,30 +818,51 @@ public class SparseSampling extends OOMDPPlanner implements QComputablePlanner{
 			double sum = 0.;
 			
 			//generate C samples
-			int c = SparseSampling.this.getCAtHeight(this.height);
+			int c = SparseSampling.this.getCAtHeight(this.height, this.rootHeight);
 			for(int i = 0; i < c; i++){
-				
-				//execute
-				State ns = ga.executeIn(this.sh.s);
-				
-				//manage option stepsize modifications
-				int k = 1;
-				if(ga.action instanceof Option){
-					k = ((Option)ga.action).getLastNumSteps();
-				}
-				
-				//get reward; our rf will automatically do cumumative discounted if it's an option
-				double r = SparseSampling.this.rf.reward(this.sh.s, ga, ns);
-				
-				StateNode nsn = SparseSampling.this.getStateNode(ns, this.height-k);
-				
-				sum += r + Math.pow(SparseSampling.this.gamma, k)*nsn.estimateV();
+				sum += this.sampledBackup(ga);
 			}
 			sum /= (double)c;
 			
 			return sum;
 		}
 		
+		/**
+		 * Samples an outcome state of the given action and returns the sampled reward plus the discounted value of the outcome state's node.
+		 * @param ga the action to sample
+		 * @return the sampled backup
+		 */
+		protected double sampledBackup(GroundedAction ga){
+			
+			//execute
+			State ns = ga.executeIn(this.sh.s);
+			
+			//manage option stepsize modifications
+			int k = 1;
+			if(ga.action instanceof Option){
+				k = ((Option)ga.action).getLastNumSteps();
+			}
+			
+			//get reward; our rf will automatically do cumumative discounted if it's an option
+			double r = SparseSampling.this.rf.reward(this.sh.s, ga, ns);
+			
+			StateNode nsn = SparseSampling.this.getStateNode(ns, this.height-k, this.rootHeight);
+			
+			return r + Math.pow(SparseSampling.this.gamma, k)*nsn.estimateV();
+		}
+		
+		/**
+		 * Returns the probability weighted reward plus discounted value of the outcome state's node for the given transition of the given action.
+		 * @param ga the action
+		 * @param tp the transition
+		 * @return the probability weighted backup of the transition
+		 */
+		protected double transitionBackup(GroundedAction ga, TransitionProbability tp){
+			double r = SparseSampling.this.rf.reward(this.sh.s, ga, tp.s);
+			StateNode nsn = SparseSampling.this.getStateNode(tp.s, this.height-1, this.rootHeight);
+			return tp.p * (r + SparseSampling.this.gamma * nsn.estimateV());
+		}
+		
 		
 		/**
 		 * Computes the exact Q-value using full Bellman update with the actual transition dynamics. This procedure will cause Sparse Sampling
@@ -523,11 +879,7 @@ public class SparseSampling extends OOMDPPlanner implements QComputablePlanner{
 			if(!(ga.action instanceof Option)){
 				
 				for(TransitionProbability tp : tps){
-					
-					double r = SparseSampling.this.rf.reward(this.sh.s, ga, tp.s);
-					StateNode nsn = SparseSampling.this.getStateNode(tp.s, this.height-1);
-					sum += tp.p * (r + SparseSampling.this.gamma * nsn.estimateV());
-					
+					sum += this.transitionBackup(ga, tp);
 				}
 				
 			}
@@ -543,10 +895,11 @@ public class SparseSampling extends OOMDPPlanner implements QComputablePlanner{
 		
 		
 		/**
-		 * Returns the estimated Q-value if this node is closed, or estimates it and closes it otherwise.
+		 * Returns the estimated Q-value if this node is closed, or estimates it and closes it otherwise. This method is synchronized so that
+		 * the value is estimated only once when the tree is expanded in parallel.
 		 * @return the estimated Q-value for this node.
 		 */
-		public double estimateV(){
+		public synchronized double estimateV(){
 			if(this.closed){
 				return this.v;
 			}
@@ -557,13 +910,17 @@ public class SparseSampling extends OOMDPPlanner implements QComputablePlanner{
 				return this.v;
 			}
 			
+			if(SparseSampling.this.planningDeadline != -1 && System.nanoTime() >= SparseSampling.this.planningDeadline){
+				throw new PlanningDeadlineException();
+			}
+			
 			
 			List<QValue> qs = this.estimateQs();
 			double max = Double.NEGATIVE_INFINITY;
 			for(QValue q : qs){
 				max = Math.max(max, q.q);
 			}
-			SparseSampling.this.numUpdates++;
+			SparseSampling.this.numUpdates.incrementAndGet();
 			this.v = max;
 			this.closed = true;
 			return max;
@@ -572,6 +929,21 @@ public class SparseSampling extends OOMDPPlanner implements QComputablePlanner{
 	}
 	
 	
+	/**
+	 * Thrown by a state node when the deadline of a time budgeted planning call has passed, to abandon the current iterative deepening iteration.
+	 *
+	 */
+	protected static class PlanningDeadlineException extends RuntimeException{
+		
+		private static final long serialVersionUID = 1L;
+		
+		public PlanningDeadlineException(){
+			super("Sparse Sampling planning deadline passed");
+		}
+		
+	}
+	
+	
 	/**
 	 * Tuple for a state and its height in a tree that can be hashed for quick retrieval.
 	 * @author James MacGlashan
@@ -589,6 +961,11 @@ public class SparseSampling extends OOMDPPlanner implements QComputablePlanner{
 		 */
 		public int height;
 		
+		/**
+		 * The height of the root of the tree containing the state, or 0 if nodes are shared by trees of all heights
+		 */
+		public int rootHeight;
+		
 		
 		/**
 		 * Initializes.
@@ -596,19 +973,31 @@ public class SparseSampling extends OOMDPPlanner implements QComputablePlanner{
 		 * @param height the height of the state.
 		 */
 		public HashedHeightState(StateHashTuple sh, int height){
+			this(sh, height, 0);
+		}
+		
+		
+		/**
+		 * Initializes.
+		 * @param sh the hashed state
+		 * @param height the height of the state.
+		 * @param rootHeight the height of the root of the tree containing the state, or 0 if nodes are shared by trees of all heights
+		 */
+		public HashedHeightState(StateHashTuple sh, int height, int rootHeight){
 			this.sh = sh;
 			this.height = height;
+			this.rootHeight = rootHeight;
 		}
 		
 		@Override
 		public boolean equals(Object other){
 			HashedHeightState o = (HashedHeightState)other;
-			return this.height == o.height && this.sh.equals(o.sh);
+			return this.height == o.height && this.rootHeight == o.rootHeight && this.sh.equals(o.sh);
 		}
 		
 		@Override
 		public int hashCode(){
-			return this.height*31 + this.sh.hashCode();
+			return (this.rootHeight*31 + this.height)*31 + this.sh.hashCode();
 		}
 		
 	}
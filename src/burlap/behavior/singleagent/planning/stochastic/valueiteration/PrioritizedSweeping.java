@@ -44,6 +44,11 @@ public class PrioritizedSweeping extends ValueIteration{
 	 */
 	protected int maxBackups;
 	
+	/**
+	 * The priority node of each state id when the indexed state model is used
+	 */
+	protected BPTRNode [] indexedNodes;
+	
 	
 	/**
 	 * Initializes
@@ -70,6 +75,27 @@ public class PrioritizedSweeping extends ValueIteration{
 	}
 	
 	
+	@Override
+	public void resetPlannerResults(){
+		super.resetPlannerResults();
+		this.priorityNodes = new HashIndexedHeap<PrioritizedSweeping.BPTRNode>(new BPTRNodeComparator());
+		this.indexedNodes = null;
+	}
+	
+	
+	@Override
+	public void recomputeReachableStates(){
+		super.recomputeReachableStates();
+		if(this.indexedNodes != null){
+			for(BPTRNode node : this.indexedNodes){
+				if(node != null){
+					node.linkedForwardTransitions = false;
+				}
+			}
+		}
+	}
+	
+	
 	
 	@Override
 	public void runVI(){
@@ -87,8 +113,16 @@ public class PrioritizedSweeping extends ValueIteration{
 			BPTRNode node = this.priorityNodes.poll();
 			lastDelta = node.priority;
 			
-			double oldV = this.value(node.sh);
-			double newV = this.performBellmanUpdateOn(node.sh);
+			double oldV;
+			double newV;
+			if(this.indexedModel != null){
+				oldV = this.indexedModel.value(node.stateId);
+				newV = this.performBellmanUpdateOn(node.stateId);
+			}
+			else{
+				oldV = this.value(node.sh);
+				newV = this.performBellmanUpdateOn(node.sh);
+			}
 			double delta = Math.abs(newV-oldV);
 			
 			//update this nodes priority
@@ -114,6 +148,11 @@ public class PrioritizedSweeping extends ValueIteration{
 	public boolean performReachabilityFrom(State si){
 		
 		StateHashTuple sih = this.stateHash(si);
+		
+		if(this.indexedModel != null){
+			return this.performIndexedReachabilityFrom(sih);
+		}
+		
 		//if this is not a new state and we are not required to perform a new reachability analysis, then this method does not need to do anything.
 		if(mapToStateIndex.containsKey(sih) && this.foundReachableStates){
 			return false; //no need for additional reachability testing
@@ -121,6 +160,31 @@ public class PrioritizedSweeping extends ValueIteration{
 		
 		DPrint.cl(this.debugCode, "Starting reachability analysis");
 		
+		if(this.parallelReachability != null){
+			
+			//link the nodes of the visited states after the transitions have been generated concurrently
+			List<StateHashTuple> visited = this.performParallelReachabilityFrom(sih, !this.stopReachabilityFromTerminalStates);
+			for(StateHashTuple sh : visited){
+				BPTRNode node = this.getNodeFor(sh);
+				List <ActionTransitions> transitions = this.transitionDynamics.get(sh);
+				if(transitions == null){
+					continue;
+				}
+				for(ActionTransitions at : transitions){
+					for(HashedTransitionProbability tp : at.transitions){
+						this.getNodeFor(tp.sh).addBackTransition(node, tp.p);
+					}
+				}
+			}
+			
+			DPrint.cl(this.debugCode, "Finished reachability analysis; # states: " + mapToStateIndex.size());
+			
+			this.foundReachableStates = true;
+			this.hasRunVI = false;
+			
+			return true;
+		}
+		
 		//add to the open list
 		BPTRNode inode = this.getNodeFor(sih);
 		LinkedList <BPTRNode> openList = new LinkedList<BPTRNode>();
@@ -174,6 +238,65 @@ public class PrioritizedSweeping extends ValueIteration{
 	}
 	
 	
+	@Override
+	protected boolean performIndexedReachabilityFrom(StateHashTuple sih){
+		
+		if(!super.performIndexedReachabilityFrom(sih)){
+			return false;
+		}
+		
+		//create nodes for all states and add back pointers for the transitions of newly expanded states
+		int n = this.indexedModel.numStates();
+		for(int id = 0; id < n; id++){
+			BPTRNode node = this.getNodeFor(id);
+			if(node.linkedForwardTransitions || !this.indexedModel.isExpanded(id)){
+				continue;
+			}
+			int start = this.indexedModel.firstAction(id);
+			int end = start + this.indexedModel.numActions(id);
+			for(int a = start; a < end; a++){
+				int tEnd = this.indexedModel.firstTransition(a) + this.indexedModel.numTransitions(a);
+				for(int t = this.indexedModel.firstTransition(a); t < tEnd; t++){
+					BPTRNode tnode = this.getNodeFor(this.indexedModel.transitionTarget(t));
+					tnode.addBackTransition(node, this.indexedModel.transitionProbability(t));
+				}
+			}
+			node.linkedForwardTransitions = true;
+		}
+		
+		return true;
+		
+	}
+	
+	
+	/**
+	 * Returns or creates, stores, and returns a priority back pointer node for the state with the given id in the indexed state model.
+	 * @param id the state id
+	 * @return a priority back pointer node for the state
+	 */
+	protected BPTRNode getNodeFor(int id){
+		
+		if(this.indexedNodes == null){
+			this.indexedNodes = new BPTRNode[Math.max(this.indexedModel.numStates(), 16)];
+		}
+		else if(id >= this.indexedNodes.length){
+			BPTRNode [] nNodes = new BPTRNode[Math.max(this.indexedNodes.length*2, id+1)];
+			System.arraycopy(this.indexedNodes, 0, nNodes, 0, this.indexedNodes.length);
+			this.indexedNodes = nNodes;
+		}
+		
+		BPTRNode node = this.indexedNodes[id];
+		if(node == null){
+			node = new BPTRNode(this.indexedModel.state(id));
+			node.stateId = id;
+			this.priorityNodes.insert(node);
+			this.indexedNodes[id] = node;
+		}
+		
+		return node;
+	}
+	
+	
 	/**
 	 * Returns or creates, stores, and returns a priority back pointer node for the given hased state 
 	 * @param sh the hashed state for which its node should be returned.
@@ -207,6 +330,16 @@ public class PrioritizedSweeping extends ValueIteration{
 		public double maxSelfTransitionProb = 0.;
 		public double priority = Double.MAX_VALUE;
 		
+		/**
+		 * The state id of this node in the indexed state model, or -1 if the indexed state model is not used
+		 */
+		public int stateId = -1;
+		
+		/**
+		 * Whether back pointers for the stored transitions of this node's state have been added to the nodes of its outcome states
+		 */
+		public boolean linkedForwardTransitions = false;
+		
 		/**
 		 * Creates a back pointer for the given state with no back pointers and a priority of Double.MAX_VALUE (ensures one sweep of the state space to start)
 		 * @param sh the hased state for which this node will correspond
@@ -242,6 +375,27 @@ public class PrioritizedSweeping extends ValueIteration{
 			
 		}
 		
+		/**
+		 * Adds a backpointer transition with a known transition probability. If the back pointer already exists, its
+		 * maximum transition probability is updated.
+		 * @param bptr the node that can transition to this node
+		 * @param p the probability with which the back node transitions to this node for some action
+		 */
+		public void addBackTransition(BPTRNode bptr, double p){
+			if(bptr != this){
+				for(BPTR b : this.backPointers){
+					if(b.backNode == bptr){
+						b.forwardMaxProbability = Math.max(b.forwardMaxProbability, p);
+						return;
+					}
+				}
+				this.backPointers.add(new BPTR(bptr, p));
+			}
+			else{
+				this.maxSelfTransitionProb = Math.max(this.maxSelfTransitionProb, p);
+			}
+		}
+		
 		@Override
 		public int hashCode(){
 			return this.sh.hashCode();
@@ -298,6 +452,17 @@ public class PrioritizedSweeping extends ValueIteration{
 			this.forwardMaxProbability = maxProb;
 		}
 		
+		
+		/**
+		 * Stores back pointer information with a known transition probability.
+		 * @param backNode the backwards node
+		 * @param forwardMaxProbability the maximum probability that the back node will transition to the forward state node
+		 */
+		public BPTR(BPTRNode backNode, double forwardMaxProbability){
+			this.backNode = backNode;
+			this.forwardMaxProbability = forwardMaxProbability;
+		}
+		
 	}
 	
 	
@@ -1,10 +1,15 @@
 package burlap.behavior.singleagent.planning.stochastic.valueiteration;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import burlap.behavior.singleagent.planning.ActionTransitions;
 import burlap.behavior.singleagent.planning.HashedTransitionProbability;
@@ -27,6 +32,10 @@ import burlap.oomdp.singleagent.RewardFunction;
  * that VI does not pass over non-reachable states.
  * 
  * This implementation is compatible with options.
+ * <p/>
+ * Sweeps can optionally be performed by multiple threads with the {@link #setParallelSweeps(int, ParallelSweepMode)} method, in which case
+ * the states are partitioned into contiguous blocks of state ids of the {@link burlap.behavior.singleagent.planning.IndexedStateModel}
+ * that are backed up concurrently. See {@link ParallelSweepMode} for the available update schemes.
  * 
  * 
  * @author James MacGlashan
@@ -34,6 +43,22 @@ import burlap.oomdp.singleagent.RewardFunction;
  */
 public class ValueIteration extends ValueFunctionPlanner{
 
+	/**
+	 * The update scheme of parallel VI sweeps.
+	 * <p/>
+	 * JACOBI computes the new value of every state from the values of the previous sweep, which are double buffered. The result
+	 * of each sweep is therefore deterministic and independent of the number of threads, but values propagate more slowly, so it typically
+	 * needs more sweeps than sequential VI.
+	 * <p/>
+	 * GAUSS_SEIDEL updates values in place without any locking, so a backup may use values that were already updated in the same sweep by any
+	 * thread. It typically converges in fewer sweeps than JACOBI, but the exact values after each sweep depend on thread scheduling.
+	 *
+	 */
+	public static enum ParallelSweepMode{
+		JACOBI, GAUSS_SEIDEL
+	}
+	
+
 	/**
 	 * When the maximum change in the value function is smaller than this value, VI will terminate.
 	 */
@@ -63,6 +88,30 @@ public class ValueIteration extends ValueFunctionPlanner{
 	protected boolean												hasRunVI = false;
 	
 	
+	/**
+	 * The executor that performs parallel sweeps, or null if sweeps are performed sequentially.
+	 */
+	protected ExecutorService										sweepExecutor;
+	
+	
+	/**
+	 * Whether the {@link #sweepExecutor} was created by {@link #setParallelSweeps(int, ParallelSweepMode)}, in which case it is shut down when it is replaced.
+	 */
+	protected boolean												ownsSweepExecutor = false;
+	
+	
+	/**
+	 * The number of contiguous blocks of states into which each parallel sweep is partitioned.
+	 */
+	protected int													numSweepPartitions = 1;
+	
+	
+	/**
+	 * The update scheme of parallel sweeps.
+	 */
+	protected ParallelSweepMode										parallelSweepMode = ParallelSweepMode.GAUSS_SEIDEL;
+	
+	
 	/**
 	 * Initializers the planner.
 	 * @param domain the domain in which to plan
@@ -90,6 +139,9 @@ public class ValueIteration extends ValueFunctionPlanner{
 	public void recomputeReachableStates(){
 		this.foundReachableStates = false;
 		this.transitionDynamics = new HashMap<StateHashTuple, List<ActionTransitions>>();
+		if(this.indexedModel != null){
+			this.indexedModel.clearTransitionDynamics();
+		}
 	}
 	
 	
@@ -103,6 +155,47 @@ public class ValueIteration extends ValueFunctionPlanner{
 	}
 	
 	
+	/**
+	 * Sets VI to perform its sweeps with the given number of threads, which are created in a new thread pool. Parallel sweeps operate on the
+	 * {@link burlap.behavior.singleagent.planning.IndexedStateModel}, so this method also enables it if it is not already used (which resets any planning results).
+	 * If numThreads is 1 or less, sweeps are performed sequentially. The threads of the pool are daemon threads.
+	 * Note that {@link PrioritizedSweeping} does not perform sweeps, so it ignores this setting.
+	 * @param numThreads the number of threads to use
+	 * @param mode the update scheme of parallel sweeps
+	 */
+	public void setParallelSweeps(int numThreads, ParallelSweepMode mode){
+		if(numThreads <= 1){
+			this.setParallelSweeps(null, 1, mode);
+			return;
+		}
+		this.setParallelSweeps(newDaemonThreadPool(numThreads, "VI sweep worker"), 4*numThreads, mode);
+		this.ownsSweepExecutor = true;
+	}
+	
+	
+	/**
+	 * Sets VI to perform its sweeps by submitting blocks of states to the given executor. Parallel sweeps operate on the
+	 * {@link burlap.behavior.singleagent.planning.IndexedStateModel}, so this method also enables it if it is not already used (which resets any planning results).
+	 * The executor is not shut down by this object. If the previous executor was created by {@link #setParallelSweeps(int, ParallelSweepMode)},
+	 * it is shut down. If the executor is null, sweeps are performed sequentially.
+	 * @param executor the executor to which the blocks of each sweep are submitted
+	 * @param numPartitions the number of contiguous blocks of states into which each sweep is partitioned; using a few more blocks than threads helps balance the load
+	 * @param mode the update scheme of parallel sweeps
+	 */
+	public void setParallelSweeps(ExecutorService executor, int numPartitions, ParallelSweepMode mode){
+		if(this.ownsSweepExecutor && this.sweepExecutor != null && this.sweepExecutor != executor){
+			this.sweepExecutor.shutdown();
+		}
+		this.sweepExecutor = executor;
+		this.ownsSweepExecutor = false;
+		this.numSweepPartitions = Math.max(numPartitions, 1);
+		this.parallelSweepMode = mode;
+		if(executor != null){
+			this.toggleUseIndexedStateModel(true);
+		}
+	}
+	
+	
 	@Override
 	public void planFromState(State initialState){
 		this.initializeOptionsForExpectationComputations();
@@ -131,6 +224,16 @@ public class ValueIteration extends ValueFunctionPlanner{
 			throw new RuntimeException("Cannot run VI until the reachable states have been found. Use the planFromState or performReachabilityFrom method at least once before calling runVI.");
 		}
 		
+		if(this.indexedModel != null){
+			if(this.sweepExecutor != null){
+				this.runParallelVI();
+			}
+			else{
+				this.runIndexedVI();
+			}
+			return;
+		}
+		
 		Set <StateHashTuple> states = mapToStateIndex.keySet();
 		
 		int i = 0;
@@ -158,6 +261,138 @@ public class ValueIteration extends ValueFunctionPlanner{
 	}
 	
 	
+	/**
+	 * Runs VI over the state ids of the indexed state model until the specified termination conditions are met.
+	 */
+	protected void runIndexedVI(){
+		
+		int i = 0;
+		for(i = 0; i < this.maxIterations; i++){
+			
+			double delta = 0.;
+			int n = this.indexedModel.numStates();
+			for(int id = 0; id < n; id++){
+				
+				double v = this.indexedModel.value(id);
+				double maxQ = this.performBellmanUpdateOn(id);
+				delta = Math.max(Math.abs(maxQ - v), delta);
+				
+			}
+			
+			if(delta < this.maxDelta){
+				break; //approximated well enough; stop iterating
+			}
+			
+		}
+		
+		DPrint.cl(this.debugCode, "Passes: " + i);
+		
+		this.hasRunVI = true;
+		
+	}
+	
+	
+	/**
+	 * Runs VI with parallel sweeps over blocks of state ids of the indexed state model until the specified termination conditions are met.
+	 * The maximum value change of a sweep is the maximum of the changes of all blocks.
+	 */
+	protected void runParallelVI(){
+		
+		//expansion modifies the model, so all states must be expanded before the workers start
+		this.expandAllIndexedStates();
+		
+		final int n = this.indexedModel.numStates();
+		final double [] nextValues = this.parallelSweepMode == ParallelSweepMode.JACOBI ? new double[n] : null;
+		
+		int blockSize = (n + this.numSweepPartitions - 1) / this.numSweepPartitions;
+		List<Callable<Double>> blocks = new ArrayList<Callable<Double>>(this.numSweepPartitions);
+		for(int start = 0; start < n; start += blockSize){
+			final int from = start;
+			final int to = Math.min(start+blockSize, n);
+			blocks.add(new Callable<Double>() {
+				
+				@Override
+				public Double call() throws Exception {
+					return sweepBlock(from, to, nextValues);
+				}
+			});
+		}
+		
+		int i = 0;
+		for(i = 0; i < this.maxIterations; i++){
+			
+			double delta = 0.;
+			try {
+				for(Future<Double> f : this.sweepExecutor.invokeAll(blocks)){
+					delta = Math.max(f.get(), delta);
+				}
+			} catch (InterruptedException e) {
+				throw new RuntimeException("Parallel VI sweep was interrupted", e);
+			} catch (ExecutionException e) {
+				throw new RuntimeException("Parallel VI sweep failed", e.getCause());
+			}
+			
+			if(nextValues != null){
+				this.indexedModel.setValues(nextValues, n);
+			}
+			
+			if(delta < this.maxDelta){
+				break; //approximated well enough; stop iterating
+			}
+			
+		}
+		
+		DPrint.cl(this.debugCode, "Passes: " + i);
+		
+		this.hasRunVI = true;
+		
+	}
+	
+	
+	/**
+	 * Performs Bellman updates on the states with ids from (inclusive) to to (exclusive), which must all be expanded or terminal.
+	 * If nextValues is not null, the new values are written into it instead of the indexed state model.
+	 * @param from the first state id of the block
+	 * @param to the state id after the last state id of the block
+	 * @param nextValues the array receiving the new values, or null to update the values of the indexed state model in place
+	 * @return the maximum value change in the block
+	 */
+	protected double sweepBlock(int from, int to, double [] nextValues){
+		double delta = 0.;
+		for(int id = from; id < to; id++){
+			if(this.indexedModel.isTerminal(id)){
+				if(nextValues != null){
+					nextValues[id] = 0.;
+				}
+				continue;
+			}
+			double v = this.indexedModel.value(id);
+			double maxQ = this.indexedModel.maxQ(id);
+			if(nextValues != null){
+				nextValues[id] = maxQ;
+			}
+			else{
+				this.indexedModel.setValue(id, maxQ);
+			}
+			delta = Math.max(Math.abs(maxQ - v), delta);
+		}
+		return delta;
+	}
+	
+	
+	/**
+	 * Expands every non-terminal state stored in the indexed state model whose transition dynamics are not yet stored, including any states discovered
+	 * by those expansions.
+	 */
+	protected void expandAllIndexedStates(){
+		for(int id = 0; id < this.indexedModel.numStates(); id++){
+			if(!this.indexedModel.isTerminal(id) && !this.indexedModel.isExpanded(id)){
+				this.expandIndexedState(id);
+			}
+		}
+	}
+	
+	
 	/**
 	 * This method will find all reachable states that will be used by the {@link #runVI()} method and will cache all the transition dynamics.
 	 * This method will not do anything if all reachable states from the input state have been discovered from previous calls to this method.
@@ -169,6 +404,11 @@ public class ValueIteration extends ValueFunctionPlanner{
 		
 		
 		StateHashTuple sih = this.stateHash(si);
+		
+		if(this.indexedModel != null){
+			return this.performIndexedReachabilityFrom(sih);
+		}
+		
 		//if this is not a new state and we are not required to perform a new reachability analysis, then this method does not need to do anything.
 		if(mapToStateIndex.containsKey(sih) && this.foundReachableStates){
 			return false; //no need for additional reachability testing
@@ -176,6 +416,14 @@ public class ValueIteration extends ValueFunctionPlanner{
 		
 		DPrint.cl(this.debugCode, "Starting reachability analysis");
 		
+		if(this.parallelReachability != null){
+			this.performParallelReachabilityFrom(sih, !this.stopReachabilityFromTerminalStates);
+			DPrint.cl(this.debugCode, "Finished reachability analysis; # states: " + mapToStateIndex.size());
+			this.foundReachableStates = true;
+			this.hasRunVI = false;
+			return true;
+		}
+		
 		//add to the open list
 		LinkedList <StateHashTuple> openList = new LinkedList<StateHashTuple>();
 		Set <StateHashTuple> openedSet = new HashSet<StateHashTuple>();
@@ -225,6 +473,32 @@ public class ValueIteration extends ValueFunctionPlanner{
 	}
 	
 	
+	/**
+	 * Performs the reachability analysis of {@link #performReachabilityFrom(State)} with the indexed state model.
+	 * @param sih the hashed source state
+	 * @return true if a reachability analysis had never been performed from this state; false otherwise.
+	 */
+	protected boolean performIndexedReachabilityFrom(StateHashTuple sih){
+		
+		int id = this.indexedModel.stateId(sih);
+		if(id != -1 && (this.indexedModel.isExpanded(id) || this.indexedModel.isTerminal(id)) && this.foundReachableStates){
+			return false; //no need for additional reachability testing
+		}
+		
+		DPrint.cl(this.debugCode, "Starting reachability analysis");
+		
+		this.performIndexedReachabilityFrom(sih, !this.stopReachabilityFromTerminalStates);
+		
+		DPrint.cl(this.debugCode, "Finished reachability analysis; # states: " + this.indexedModel.numStates());
+		
+		this.foundReachableStates = true;
+		this.hasRunVI = false;
+		
+		return true;
+		
+	}
+	
+	
 	
 
 	
@@ -0,0 +1,103 @@
+package burlap.behavior.singleagent.vfa;
+
+
+/**
+ * A caller owned buffer into which value function approximators write the identifiers and values of the features that were active
+ * (non-zero) in a query. The buffer is cleared by each query that writes into it and its arrays only grow, so reusing the same buffer
+ * across queries does not allocate once it has reached the largest number of active features.
+ *
+ */
+public class ActiveFeatureBuffer {
+
+	/**
+	 * The identifiers of the active features
+	 */
+	protected int []				ids;
+
+	/**
+	 * The values of the active features
+	 */
+	protected double []				values;
+
+	/**
+	 * The number of active features in the buffer
+	 */
+	protected int					size = 0;
+
+
+	/**
+	 * Initializes with space for 16 features.
+	 */
+	public ActiveFeatureBuffer(){
+		this(16);
+	}
+
+
+	/**
+	 * Initializes with space for the given number of features.
+	 * @param capacity the number of features for which space is initially reserved
+	 */
+	public ActiveFeatureBuffer(int capacity){
+		capacity = Math.max(capacity, 1);
+		this.ids = new int[capacity];
+		this.values = new double[capacity];
+	}
+
+
+	/**
+	 * Removes all features from the buffer.
+	 */
+	public void clear(){
+		this.size = 0;
+	}
+
+
+	/**
+	 * Appends a feature to the buffer, growing it if necessary.
+	 * @param id the feature identifier
+	 * @param value the feature value
+	 */
+	public void add(int id, double value){
+		if(this.size == this.ids.length){
+			int [] nIds = new int[this.ids.length*2];
+			double [] nValues = new double[this.ids.length*2];
+			System.arraycopy(this.ids, 0, nIds, 0, this.size);
+			System.arraycopy(this.values, 0, nValues, 0, this.size);
+			this.ids = nIds;
+			this.values = nValues;
+		}
+		this.ids[this.size] = id;
+		this.values[this.size] = value;
+		this.size++;
+	}
+
+
+	/**
+	 * Returns the number of features in the buffer
+	 * @return the number of features in the buffer
+	 */
+	public int size(){
+		return this.size;
+	}
+
+
+	/**
+	 * Returns the identifier of the i'th feature in the buffer
+	 * @param i the index of the feature in the buffer
+	 * @return the identifier of the i'th feature in the buffer
+	 */
+	public int id(int i){
+		return this.ids[i];
+	}
+
+
+	/**
+	 * Returns the value of the i'th feature in the buffer
+	 * @param i the index of the feature in the buffer
+	 * @return the value of the i'th feature in the buffer
+	 */
+	public double value(int i){
+		return this.values[i];
+	}
+
+}
@@ -0,0 +1,315 @@
+package burlap.behavior.singleagent.vfa;
+
+import java.util.Arrays;
+import java.util.List;
+
+
+/**
+ * A growable array of function weights indexed by feature identifier. Weights that have never been set have the default weight value.
+ * Linear value function approximators can use this class to store their weights in a primitive double array rather than in a map of
+ * {@link FunctionWeight} objects, which makes predictions free of boxing, hashing and allocation. The predict methods write the
+ * features that were active in the prediction to a caller supplied {@link ActiveFeatureBuffer}.
+ * <p/>
+ * For compatibility with code that works with {@link FunctionWeight} objects, {@link #getFunctionWeight(int)} returns a view of a weight
+ * that reads and writes the value stored in this vector. Views are created on first request and cached, so asking for the same weight twice
+ * returns the same object.
+ * <p/>
+ * The size of the vector is one more than the largest feature identifier that has been set, queried through a predict method, or
+ * requested as a view. Feature identifiers must be non-negative. Because the size also covers identifiers below the largest one that
+ * were never used, {@link #contains(int)} reports whether a given weight itself has been used, like a map of weights would.
+ *
+ */
+public class DenseWeightVector {
+
+	/**
+	 * The weight values, indexed by feature identifier
+	 */
+	protected double []					values;
+
+	/**
+	 * Whether each weight has been set, queried or requested as a view since the last reset, indexed by feature identifier
+	 */
+	protected boolean []				used;
+
+	/**
+	 * The cached {@link FunctionWeight} views, indexed by feature identifier
+	 */
+	protected FunctionWeight []			views;
+
+	/**
+	 * One more than the largest feature identifier in use
+	 */
+	protected int						size = 0;
+
+	/**
+	 * The value of weights that have not been set
+	 */
+	protected double					defaultWeight;
+
+
+	/**
+	 * Initializes with space for 16 weights.
+	 * @param defaultWeight the value of weights that have not been set
+	 */
+	public DenseWeightVector(double defaultWeight){
+		this(16, defaultWeight);
+	}
+
+
+	/**
+	 * Initializes.
+	 * @param initialCapacity the number of weights for which space is initially reserved
+	 * @param defaultWeight the value of weights that have not been set
+	 */
+	public DenseWeightVector(int initialCapacity, double defaultWeight){
+		this.defaultWeight = defaultWeight;
+		this.values = new double[Math.max(initialCapacity, 1)];
+		this.used = new boolean[this.values.length];
+		if(defaultWeight != 0.){
+			Arrays.fill(this.values, defaultWeight);
+		}
+	}
+
+
+	/**
+	 * Returns one more than the largest feature identifier in use
+	 * @return one more than the largest feature identifier in use
+	 */
+	public int size(){
+		return this.size;
+	}
+
+
+	/**
+	 * Returns the value of weights that have not been set
+	 * @return the value of weights that have not been set
+	 */
+	public double getDefaultWeight(){
+		return this.defaultWeight;
+	}
+
+
+	/**
+	 * Returns whether the weight for the given feature identifier has been set, included in a prediction or requested as a view since the vector
+	 * was last reset. Weights below the reset size count as used.
+	 * @param id the feature identifier
+	 * @return true if the weight has been used; false otherwise
+	 */
+	public boolean contains(int id){
+		return id < this.size && this.used[id];
+	}
+
+
+	/**
+	 * Returns the weight for the given feature identifier, which is the default weight if it has not been set.
+	 * @param id the feature identifier
+	 * @return the weight for the given feature identifier
+	 */
+	public double get(int id){
+		if(id < this.values.length){
+			return this.values[id];
+		}
+		return this.defaultWeight;
+	}
+
+
+	/**
+	 * Sets the weight for the given feature identifier.
+	 * @param id the feature identifier
+	 * @param w the weight value
+	 */
+	public void set(int id, double w){
+		this.ensureSize(id+1);
+		this.values[id] = w;
+		this.used[id] = true;
+	}
+
+
+	/**
+	 * Adds a value to the weight for the given feature identifier.
+	 * @param id the feature identifier
+	 * @param delta the value to add to the weight
+	 */
+	public void add(int id, double delta){
+		this.ensureSize(id+1);
+		this.values[id] += delta;
+		this.used[id] = true;
+	}
+
+
+	/**
+	 * Makes sure that the vector has at least the given size, growing it with default weights if necessary.
+	 * @param n the minimum size of the vector
+	 */
+	public void ensureSize(int n){
+		if(n > this.values.length){
+			int nCapacity = Math.max(n, this.values.length*2);
+			double [] nValues = new double[nCapacity];
+			System.arraycopy(this.values, 0, nValues, 0, this.values.length);
+			if(this.defaultWeight != 0.){
+				Arrays.fill(nValues, this.values.length, nCapacity, this.defaultWeight);
+			}
+			this.values = nValues;
+			this.used = Arrays.copyOf(this.used, nCapacity);
+		}
+		if(n > this.size){
+			this.size = n;
+		}
+	}
+
+
+	/**
+	 * Sets all weights to the default weight value and sets the size of the vector to the given size. The weights below the new size count as
+	 * used and the others as unused. {@link FunctionWeight} views previously returned by this object remain valid.
+	 * @param n the new size of the vector
+	 */
+	public void reset(int n){
+		int end = Math.min(Math.max(this.size, n), this.values.length);
+		Arrays.fill(this.values, 0, end, this.defaultWeight);
+		Arrays.fill(this.used, 0, end, false);
+		this.size = 0;
+		this.ensureSize(n);
+		Arrays.fill(this.used, 0, n, true);
+	}
+
+
+	/**
+	 * Returns the linear combination of the given features and the weights without modifying the vector.
+	 * @param features the features
+	 * @return the linear combination of the given features and the weights
+	 */
+	public double dot(List<StateFeature> features){
+		double sum = 0.;
+		for(int i = 0; i < features.size(); i++){
+			StateFeature sf = features.get(i);
+			sum += sf.value*this.get(sf.id);
+		}
+		return sum;
+	}
+
+
+	/**
+	 * Returns the linear combination of the given features and the weights and writes the features into the given buffer. The vector is grown
+	 * to include every feature of the query.
+	 * @param features the features
+	 * @param active the buffer to which the features are written; it is cleared first. May be null if the features are not needed.
+	 * @return the linear combination of the given features and the weights
+	 */
+	public double predict(List<StateFeature> features, ActiveFeatureBuffer active){
+		if(active != null){
+			active.clear();
+		}
+		double sum = 0.;
+		for(int i = 0; i < features.size(); i++){
+			StateFeature sf = features.get(i);
+			if(sf.id >= this.size){
+				this.ensureSize(sf.id+1);
+			}
+			sum += sf.value*this.values[sf.id];
+			this.used[sf.id] = true;
+			if(active != null){
+				active.add(sf.id, sf.value);
+			}
+		}
+		return sum;
+	}
+
+
+	/**
+	 * Returns the linear combination of a feature vector and the block of weights starting at the given offset, so that element i of the
+	 * vector is multiplied with the weight of feature identifier offset+i. The non-zero elements of the vector are written to the given buffer
+	 * with their feature identifiers. The vector is grown to include the whole block.
+	 * @param vec the feature vector
+	 * @param offset the feature identifier of the first element of the vector
+	 * @param active the buffer to which the non-zero features are written; it is cleared first. May be null if the features are not needed.
+	 * @return the linear combination of the feature vector and the block of weights
+	 */
+	public double predict(double [] vec, int offset, ActiveFeatureBuffer active){
+		if(active != null){
+			active.clear();
+		}
+		this.ensureSize(offset+vec.length);
+		Arrays.fill(this.used, offset, offset+vec.length, true);
+		double sum = 0.;
+		for(int i = 0; i < vec.length; i++){
+			if(vec[i] != 0.){
+				sum += vec[i]*this.values[offset+i];
+				if(active != null){
+					active.add(offset+i, vec[i]);
+				}
+			}
+		}
+		return sum;
+	}
+
+
+	/**
+	 * Returns a {@link FunctionWeight} view of the weight for the given feature identifier that reads and writes the value stored in this
+	 * vector. The vector is grown to include the feature.
+	 * @param id the feature identifier
+	 * @return a {@link FunctionWeight} view of the weight
+	 */
+	public FunctionWeight getFunctionWeight(int id){
+		this.ensureSize(id+1);
+		this.used[id] = true;
+		if(this.views == null || id >= this.views.length){
+			FunctionWeight [] nViews = new FunctionWeight[this.values.length];
+			if(this.views != null){
+				System.arraycopy(this.views, 0, nViews, 0, this.views.length);
+			}
+			this.views = nViews;
+		}
+		FunctionWeight fw = this.views[id];
+		if(fw == null){
+			fw = new WeightView(this, id);
+			this.views[id] = fw;
+		}
+		return fw;
+	}
+
+
+	/**
+	 * Returns a copy of the weights of this vector as an array of length {@link #size()}.
+	 * @return a copy of the weights
+	 */
+	public double [] toArray(){
+		return Arrays.copyOf(this.values, this.size);
+	}
+
+
+
+	/**
+	 * A {@link FunctionWeight} that reads and writes its value in a {@link DenseWeightVector}.
+	 *
+	 */
+	public static class WeightView extends FunctionWeight{
+
+		/**
+		 * The vector that stores the weight value
+		 */
+		protected DenseWeightVector		vector;
+
+
+		/**
+		 * Initializes.
+		 * @param vector the vector that stores the weight value
+		 * @param weightId the weight identifier
+		 */
+		public WeightView(DenseWeightVector vector, int weightId){
+			super(weightId, 0.);
+			this.vector = vector;
+		}
+
+		@Override
+		public double weightValue(){
+			return this.vector.get(this.weightId);
+		}
+
+		@Override
+		public void setWeight(double w){
+			this.vector.set(this.weightId, w);
+		}
+
+	}
+
+}
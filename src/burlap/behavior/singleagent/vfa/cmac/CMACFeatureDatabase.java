@@ -37,8 +37,13 @@ import burlap.oomdp.singleagent.GroundedAction;
  * x position while another tiles the y position. Alternatively, a tiling may be multidimensional with different tilings
  * being defined over different setns of attributes. Having different tilings defined over different sets of attributes
  * enables the VFA to capture value function independence over different attributes.
- * 
- * 
+ * <p/>
+ * Because feature identifiers are assigned as new tiles are visited, the memory used by the database and its VFA grows with exploration.
+ * Alternatively, {@link #setHashedTileCoding(int)} enables hashed tile coding, in which the tiling index, the integer tile coordinates
+ * of the state and the action are hashed into a fixed-size table of feature identifiers. Hashed features are computed
+ * with a few multiplications per tiling, no tile objects are created or stored, and the number of features is fixed to the table size.
+ * Different tiles that hash to the same identifier share a weight, so the table should be large compared to the number of tiles that
+ * are actually visited.
  * 
  * <p/>
  * 
@@ -127,6 +132,11 @@ public class CMACFeatureDatabase implements FeatureDatabase {
 	 */
 	protected int													nextStateFeatureId = 0;
 	
+	/**
+	 * The size of the feature table when using hashed tile coding; 0 when feature identifiers are assigned to tiles as they are visited.
+	 */
+	protected int													hashedTableSize = 0;
+	
 	
 	
 	
@@ -201,6 +211,28 @@ public class CMACFeatureDatabase implements FeatureDatabase {
 	}
 	
 	
+	/**
+	 * Enables hashed tile coding, in which each tile of each tiling (and action, for state-action features) is hashed into a feature
+	 * table of the given size rather than assigned its own feature identifier. This should be set before the database is first queried.
+	 * @param tableSize the number of features of the table; use 0 to disable hashed tile coding.
+	 */
+	public void setHashedTileCoding(int tableSize){
+		if(tableSize < 0){
+			throw new RuntimeException("The size of the hashed tile coding table must be non-negative; got " + tableSize);
+		}
+		this.hashedTableSize = tableSize;
+	}
+	
+	
+	/**
+	 * Returns whether this database uses hashed tile coding.
+	 * @return true if this database uses hashed tile coding; false if feature identifiers are assigned to tiles as they are visited.
+	 */
+	public boolean usesHashedTileCoding(){
+		return this.hashedTableSize > 0;
+	}
+	
+	
 	/**
 	 * After all the tiling specifications have been set, this method can be called to produce a linear
 	 * VFA object.
@@ -216,6 +248,14 @@ public class CMACFeatureDatabase implements FeatureDatabase {
 		
 		List <StateFeature> result = new ArrayList<StateFeature>(nTilings);
 		
+		if(this.hashedTableSize > 0){
+			for(int i = 0; i < nTilings; i++){
+				int tileHash = this.tilings.get(i).getTileHash(s);
+				result.add(new StateFeature(this.hashedFeatureId(i, tileHash, 0), 1.0)); //CMACs use binary features
+			}
+			return result;
+		}
+		
 		for(int i = 0; i < nTilings; i++){
 			Tiling tiling = this.tilings.get(i);
 			StateTile st = tiling.getStateTile(s);
@@ -243,6 +283,18 @@ public class CMACFeatureDatabase implements FeatureDatabase {
 			result.add(afq);
 		}
 		
+		if(this.hashedTableSize > 0){
+			for(int i = 0; i < nTilings; i++){
+				int tileHash = this.tilings.get(i).getTileHash(s);
+				for(int j = 0; j < result.size(); j++){
+					ActionFeaturesQuery afq = result.get(j);
+					int fid = this.hashedFeatureId(i, tileHash, actionHash(afq.queryAction));
+					afq.addFeature(new StateFeature(fid, 1.0)); //CMACs use binary features
+				}
+			}
+			return result;
+		}
+		
 		for(int i = 0; i < nTilings; i++){
 			Tiling tiling = this.tilings.get(i);
 			StateTile st = tiling.getStateTile(s);
@@ -291,9 +343,45 @@ public class CMACFeatureDatabase implements FeatureDatabase {
 	
 	@Override
 	public int numberOfFeatures() {
+		if(this.hashedTableSize > 0){
+			return this.hashedTableSize;
+		}
 		return Math.max(this.nextActionFeatureId, this.nextStateFeatureId);
 	}
 	
+	
+	/**
+	 * Returns the hashed feature identifier of a tile of a tiling for an action.
+	 * @param tiling the index of the tiling
+	 * @param tileHash the hash code of the tile, as returned by {@link Tiling#getTileHash(State)}
+	 * @param actionHash the hash code of the action, or 0 for state features
+	 * @return the feature identifier in [0, table size)
+	 */
+	protected int hashedFeatureId(int tiling, int tileHash, int actionHash){
+		int h = tileHash*0x9E3779B1 + tiling;
+		h = h*0x85EBCA6B + actionHash;
+		h ^= h >>> 16;
+		h *= 0x85EBCA6B;
+		h ^= h >>> 13;
+		h *= 0xC2B2AE35;
+		h ^= h >>> 16;
+		return (h & 0x7fffffff) % this.hashedTableSize;
+	}
+	
+	
+	/**
+	 * Returns a hash code of a grounded action that is computed from its name and parameters without creating any objects.
+	 * @param ga the grounded action
+	 * @return a hash code of the grounded action
+	 */
+	protected static int actionHash(GroundedAction ga){
+		int h = ga.action.getName().hashCode();
+		for(int i = 0; i < ga.params.length; i++){
+			h = 31*h + ga.params[i].hashCode();
+		}
+		return h;
+	}
+	
 	/**
 	 * A class that is used to assign unique feature identifiers for each action for each state tile.
 	 * @author James MacGlashan
@@ -83,6 +83,60 @@ public class Tiling {
 	}
 	
 	
+	/**
+	 * Returns a hash code of the multi-dimensional tile from this tiling that corresponds to the given input state. The hash code
+	 * is computed from the integer tile coordinates of the tiled attributes without creating a {@link StateTile}. The tiles of the objects of the
+	 * same class are combined with a sum of their mixed hash codes, which makes the hash code invariant to the order of the objects.
+	 * Different tiles may have the same hash code, so this method is meant for hashed tile coding in which such collisions are tolerated.
+	 * @param s the input state
+	 * @return a hash code of the multi-dimensional tile that corresponds to the given input state.
+	 */
+	public int getTileHash(State s){
+		
+		int hash = 1;
+		for(int i = 0; i < this.classOrder.size(); i++){
+			String className = this.classOrder.get(i);
+			List<AttributeTileSpecification> classSpecs = this.specification.get(className);
+			List<ObjectInstance> objectsOfClass = s.getObjectsOfClass(className);
+			int classHash = 0;
+			for(int j = 0; j < objectsOfClass.size(); j++){
+				ObjectInstance o = objectsOfClass.get(j);
+				int objectHash = 1;
+				for(int k = 0; k < classSpecs.size(); k++){
+					objectHash = 31*objectHash + this.tileCoordinate(o, classSpecs.get(k));
+				}
+				//mix before summing so that the object tiles do not cancel each other out
+				objectHash *= 0x9E3779B1;
+				classHash += objectHash ^ (objectHash >>> 16);
+			}
+			hash = 31*hash + classHash;
+		}
+		
+		return hash;
+	}
+	
+	
+	/**
+	 * Returns the integer tile coordinate of an object instance's attribute along the dimension of an attribute tile specification.
+	 * Discrete attributes use their value as the tile coordinate.
+	 * @param o the object instance
+	 * @param ats the attribute tile specification
+	 * @return the integer tile coordinate of the object instance along the dimension of the attribute tile specification
+	 */
+	protected int tileCoordinate(ObjectInstance o, AttributeTileSpecification ats){
+		String attName = ats.attribute.name;
+		int tv = 0;
+		if(ats.attribute.type.equals(Attribute.AttributeType.DISC)){
+			tv = o.getIntValForAttribute(attName);
+		}
+		else if(ats.attribute.type.equals(Attribute.AttributeType.REAL) || ats.attribute.type.equals(Attribute.AttributeType.REALUNBOUND)){
+			double v = o.getRealValForAttribute(attName);
+			tv = (int)((v - ats.bucketBoundary) / ats.windowSize);
+		}
+		return tv;
+	}
+	
+	
 	
 	/**
 	 * A class for representing a tile, which can be treated as a state feature.
@@ -245,16 +299,8 @@ public class Tiling {
 			className = o.getTrueClassName();
 			List<AttributeTileSpecification> classSpecs = specification.get(className);
 			for(AttributeTileSpecification ats : classSpecs){
-				String attName = ats.attribute.name;
-				int tv = 0;
-				if(ats.attribute.type.equals(Attribute.AttributeType.DISC)){
-					tv = o.getIntValForAttribute(attName);
-				}
-				else if(ats.attribute.type.equals(Attribute.AttributeType.REAL) || ats.attribute.type.equals(Attribute.AttributeType.REALUNBOUND)){
-					double v = o.getRealValForAttribute(attName);
-					tv = (int)((v - ats.bucketBoundary) / ats.windowSize);
-				}
-				attTiles.put(attName, tv);
+				int tv = Tiling.this.tileCoordinate(o, ats);
+				attTiles.put(ats.attribute.name, tv);
 				hashCode = 31*hashCode + tv;
 			}
 			
@@ -21,6 +21,11 @@ import java.util.Map;
  * is called first. If the former, then it performs state value function approximation; if the latter then Q-value
  * function approximation. Once it has been set for either state or Q-value function approximation, it cannot be used
  * for the other and will throw a runtime exception if it queried for the other kind of function.
+ * <br/><br/>
+ * Weights are stored in a {@link burlap.behavior.singleagent.vfa.DenseWeightVector}. The methods {@link #predictStateValue(double[], burlap.behavior.singleagent.vfa.ActiveFeatureBuffer)}
+ * and {@link #predictStateActionValue(double[], burlap.oomdp.singleagent.GroundedAction, burlap.behavior.singleagent.vfa.ActiveFeatureBuffer)} compute
+ * predictions from a state feature vector without allocating any result objects, which lets callers that evaluate several actions generate the
+ * state feature vector only once.
  * @author James MacGlashan.
  */
 public class LinearFVVFA implements ValueFunctionApproximation{
@@ -39,13 +44,13 @@ public class LinearFVVFA implements ValueFunctionApproximation{
 	/**
 	 * The function weights when performing state value function approximation.
 	 */
-	protected FunctionWeight[]							stateWeights;
+	protected DenseWeightVector							stateWeights;
 
 
 	/**
 	 * The function weights when performing Q-value function approximation.
 	 */
-	protected FunctionWeight[]							stateActionWeights;
+	protected DenseWeightVector							stateActionWeights;
 
 	/**
 	 * A default weight value for the functions weights.
@@ -79,27 +84,17 @@ public class LinearFVVFA implements ValueFunctionApproximation{
 	@Override
 	public ApproximationResult getStateValue(State s) {
 
-		if(this.stateActionWeights != null){
-			throw new RuntimeException("LinearFVVFA is already being used to predict the Q-value function; it cannot be overloaded to predict the state value function");
-		}
-
 		double [] vec = this.fvGen.generateFeatureVectorFrom(s);
-
-		if(stateWeights == null){
-			stateWeights = new FunctionWeight[vec.length];
-			for(int i = 0; i < stateWeights.length; i++){
-				stateWeights[i] = new FunctionWeight(i, this.defaultWeight);
-			}
-		}
+		this.initStateWeights(vec.length);
 
 		double sum = 0.;
 		List<StateFeature> sfs = new ArrayList<StateFeature>(vec.length);
 		List <FunctionWeight> fws = new ArrayList<FunctionWeight>(vec.length);
 		for(int i = 0; i < vec.length; i++){
 			if(vec[i] != 0.) {
-				sum += vec[i] * this.stateWeights[i].weightValue();
+				sum += vec[i] * this.stateWeights.get(i);
 				sfs.add(new StateFeature(i, vec[i]));
-				fws.add(stateWeights[i]);
+				fws.add(this.stateWeights.getFunctionWeight(i));
 			}
 		}
 
@@ -108,47 +103,53 @@ public class LinearFVVFA implements ValueFunctionApproximation{
 		return res;
 	}
 
-	@Override
-	public List<ActionApproximationResult> getStateActionValues(State s, List<GroundedAction> gas) {
 
-		if(this.stateWeights != null){
-			throw new RuntimeException("LinearFVVFA is already being used to predict the state value function; it cannot be overloaded to predict the Q-value function");
-		}
+	/**
+	 * Computes the value of a state from its feature vector without allocating any result objects. The ids and values of the non-zero
+	 * features are written to the given buffer.
+	 * @param stateFeatureVector the feature vector of the state, as produced by the feature vector generator of this object
+	 * @param active the buffer to which the non-zero features are written; it is cleared first. May be null.
+	 * @return the approximated value of the state
+	 */
+	public double predictStateValue(double [] stateFeatureVector, ActiveFeatureBuffer active){
+		this.initStateWeights(stateFeatureVector.length);
+		return this.stateWeights.predict(stateFeatureVector, 0, active);
+	}
 
-		double [] vec = this.fvGen.generateFeatureVectorFrom(s);
 
-		if(this.stateActionWeights == null){
+	/**
+	 * Computes the Q-value of an action in a state from the state's feature vector without allocating any result objects. The ids
+	 * and values of the non-zero state-action features are written to the given buffer.
+	 * @param stateFeatureVector the feature vector of the state, as produced by the feature vector generator of this object
+	 * @param ga the action to evaluate
+	 * @param active the buffer to which the non-zero features are written; it is cleared first. May be null.
+	 * @return the approximated Q-value of the action
+	 */
+	public double predictStateActionValue(double [] stateFeatureVector, GroundedAction ga, ActiveFeatureBuffer active){
+		this.initStateActionWeights(stateFeatureVector.length);
+		int si = this.getActionOffset(ga) * stateFeatureVector.length;
+		return this.stateActionWeights.predict(stateFeatureVector, si, active);
+	}
 
-			this.stateActionWeights = new FunctionWeight[vec.length*gas.size()];
-			for(int i = 0; i < stateActionWeights.length; i++){
-				this.stateActionWeights[i] = new FunctionWeight(i, this.defaultWeight);
-			}
-			for(int i = 0; i < gas.size(); i++){
-				GroundedAction ga = gas.get(i);
-				this.actionOffset.put(ga, i);
-			}
+	@Override
+	public List<ActionApproximationResult> getStateActionValues(State s, List<GroundedAction> gas) {
 
-		}
+		double [] vec = this.fvGen.generateFeatureVectorFrom(s);
+		this.initStateActionWeights(vec.length);
 
 		List <ActionApproximationResult> results = new ArrayList<ActionApproximationResult>(gas.size());
 		for(GroundedAction ga : gas){
-			Integer Offset = this.actionOffset.get(ga);
-			if(Offset == null){
-				//previously unseen action; expand our function weights
-				this.actionOffset.put(ga, this.actionOffset.size());
-				this.expandStateActionWeights(vec.length);
-				Offset = this.actionOffset.size()-1;
-			}
-			int si = Offset * vec.length;
+			int si = this.getActionOffset(ga) * vec.length;
+			this.stateActionWeights.ensureSize(si + vec.length);
 
 			double sum = 0.;
 			List<StateFeature> sfs = new ArrayList<StateFeature>(vec.length);
 			List <FunctionWeight> fws = new ArrayList<FunctionWeight>(vec.length);
 			for(int i = 0; i < vec.length; i++){
 				if(vec[i] != 0.) {
-					sum += vec[i] * this.stateActionWeights[i+si].weightValue();
+					sum += vec[i] * this.stateActionWeights.get(i+si);
 					sfs.add(new StateFeature(i+si, vec[i]));
-					fws.add(stateActionWeights[i+si]);
+					fws.add(this.stateActionWeights.getFunctionWeight(i+si));
 				}
 			}
 
@@ -162,18 +163,47 @@ public class LinearFVVFA implements ValueFunctionApproximation{
 
 
 	/**
-	 * Expands the state-action function weight vector by a fixed sized and initializes their value
-	 * to the default weight value set for this object.
-	 * @param num the number of function weights to add to the state-action function weight vector
+	 * Sets this object to perform state value function approximation if it has not been set to either kind of function approximation yet.
+	 * @param dim the dimensionality of the state feature vector
+	 */
+	protected void initStateWeights(int dim){
+		if(this.stateActionWeights != null){
+			throw new RuntimeException("LinearFVVFA is already being used to predict the Q-value function; it cannot be overloaded to predict the state value function");
+		}
+		if(this.stateWeights == null){
+			this.stateWeights = new DenseWeightVector(dim, this.defaultWeight);
+			this.stateWeights.ensureSize(dim);
+		}
+	}
+
+
+	/**
+	 * Sets this object to perform Q-value function approximation if it has not been set to either kind of function approximation yet.
+	 * @param dim the dimensionality of the state feature vector
 	 */
-	protected void expandStateActionWeights(int num){
-		FunctionWeight [] nWeights = new FunctionWeight[this.stateActionWeights.length+num];
-		for(int i = 0; i < this.stateActionWeights.length; i++){
-			nWeights[i] = this.stateActionWeights[i];
+	protected void initStateActionWeights(int dim){
+		if(this.stateWeights != null){
+			throw new RuntimeException("LinearFVVFA is already being used to predict the state value function; it cannot be overloaded to predict the Q-value function");
 		}
-		for(int i = this.stateActionWeights.length; i < nWeights.length; i++){
-			nWeights[i] = new FunctionWeight(i, this.defaultWeight);
+		if(this.stateActionWeights == null){
+			this.stateActionWeights = new DenseWeightVector(dim, this.defaultWeight);
+		}
+	}
+
+
+	/**
+	 * Returns the index of the weight block of the given action, assigning the next block to previously unseen actions. The state-action
+	 * function weight vector grows with default weight values when a new block is first queried.
+	 * @param ga the action
+	 * @return the index of the weight block of the action
+	 */
+	protected int getActionOffset(GroundedAction ga){
+		Integer offset = this.actionOffset.get(ga);
+		if(offset == null){
+			offset = this.actionOffset.size();
+			this.actionOffset.put(ga, offset);
 		}
+		return offset;
 	}
 
 
@@ -191,14 +221,10 @@ public class LinearFVVFA implements ValueFunctionApproximation{
 	@Override
 	public void resetWeights() {
 		if(this.stateWeights != null){
-			for(FunctionWeight fw : this.stateWeights){
-				fw.setWeight(this.defaultWeight);
-			}
+			this.stateWeights.reset(this.stateWeights.size());
 		}
 		if(this.stateActionWeights != null){
-			for(FunctionWeight fw : this.stateActionWeights){
-				fw.setWeight(this.defaultWeight);
-			}
+			this.stateActionWeights.reset(this.stateActionWeights.size());
 		}
 	}
 
@@ -206,16 +232,18 @@ public class LinearFVVFA implements ValueFunctionApproximation{
 	public void setWeight(int featureId, double w) {
 
 		if(this.stateWeights != null){
-			if(featureId >= this.stateWeights.length){
-				throw new RuntimeException("Cannot set function weight for feature " + featureId + ", because VFA dimensionality is only " + this.stateWeights.length);
+			if(featureId >= this.stateWeights.size()){
+				throw new RuntimeException("Cannot set function weight for feature " + featureId + ", because VFA dimensionality is only " + this.stateWeights.size());
 			}
-			this.stateWeights[featureId].setWeight(w);
+			this.stateWeights.set(featureId, w);
+			return;
 		}
 		else if(this.stateActionWeights != null){
-			if(featureId >= this.stateActionWeights.length){
-				throw new RuntimeException("Cannot set function weight for feature " + featureId + ", because VFA dimensionality is only " + this.stateActionWeights.length);
+			if(featureId >= this.stateActionWeights.size()){
+				throw new RuntimeException("Cannot set function weight for feature " + featureId + ", because VFA dimensionality is only " + this.stateActionWeights.size());
 			}
-			this.stateActionWeights[featureId].setWeight(w);
+			this.stateActionWeights.set(featureId, w);
+			return;
 		}
 
 		throw new RuntimeException("VFA cannot set function weight, because function weights and dimensionality have not yet been initialized.");
@@ -226,16 +254,16 @@ public class LinearFVVFA implements ValueFunctionApproximation{
 	public FunctionWeight getFunctionWeight(int featureId) {
 
 		if(this.stateWeights != null){
-			if(featureId >= this.stateWeights.length){
-				throw new RuntimeException("Cannot return function weight for feature " + featureId + ", because VFA dimensionality is only " + this.stateWeights.length);
+			if(featureId >= this.stateWeights.size()){
+				throw new RuntimeException("Cannot return function weight for feature " + featureId + ", because VFA dimensionality is only " + this.stateWeights.size());
 			}
-			return this.stateWeights[featureId];
+			return this.stateWeights.getFunctionWeight(featureId);
 		}
 		else if(this.stateActionWeights != null){
-			if(featureId >= this.stateActionWeights.length){
-				throw new RuntimeException("Cannot return function weight for feature " + featureId + ", because VFA dimensionality is only " + this.stateActionWeights.length);
+			if(featureId >= this.stateActionWeights.size()){
+				throw new RuntimeException("Cannot return function weight for feature " + featureId + ", because VFA dimensionality is only " + this.stateActionWeights.size());
 			}
-			return this.stateActionWeights[featureId];
+			return this.stateActionWeights.getFunctionWeight(featureId);
 		}
 
 		throw new RuntimeException("VFA cannot return function weight, because function weights and dimensionality have not yet been initialized.");
@@ -245,10 +273,10 @@ public class LinearFVVFA implements ValueFunctionApproximation{
 	public int numFeatures() {
 
 		if(this.stateWeights != null){
-			return this.stateWeights.length;
+			return this.stateWeights.size();
 		}
 		if(this.stateActionWeights != null){
-			return this.stateActionWeights.length;
+			return this.stateActionWeights.size();
 		}
 
 		return 0;
@@ -1,13 +1,13 @@
 package burlap.behavior.singleagent.vfa.common;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 import burlap.behavior.singleagent.vfa.ActionApproximationResult;
 import burlap.behavior.singleagent.vfa.ActionFeaturesQuery;
+import burlap.behavior.singleagent.vfa.ActiveFeatureBuffer;
 import burlap.behavior.singleagent.vfa.ApproximationResult;
+import burlap.behavior.singleagent.vfa.DenseWeightVector;
 import burlap.behavior.singleagent.vfa.FeatureDatabase;
 import burlap.behavior.singleagent.vfa.FunctionWeight;
 import burlap.behavior.singleagent.vfa.StateFeature;
@@ -22,6 +22,10 @@ import burlap.oomdp.singleagent.GroundedAction;
  * This class is used for general purpose linear VFA. It only needs to be provided a FeatureDatabase object that will be used to store
  * retrieve state features. For every feature returned by the feature database, this class will automatically create a weight associated with it.
  * The returned approximated value for any state is the linear combination of state features and weights.
+ * <p/>
+ * Weights are stored in a {@link DenseWeightVector} indexed by feature identifier, so feature databases should produce compact identifiers.
+ * The {@link #predict(List, ActiveFeatureBuffer)} method computes a prediction without allocating {@link ApproximationResult} or
+ * {@link FunctionWeight} objects; the {@link FunctionWeight} objects of the standard query methods are views that write through to the weight vector.
  *  
  * @author James MacGlashan
  *
@@ -34,9 +38,9 @@ public class LinearVFA implements ValueFunctionApproximation {
 	protected FeatureDatabase						featureDatabase;
 	
 	/**
-	 * A map from feature identifiers to function weights
+	 * The function weights indexed by feature identifier
 	 */
-	protected Map<Integer, FunctionWeight>			weights;
+	protected DenseWeightVector						weights;
 	
 	/**
 	 * A default weight for the functions
@@ -51,12 +55,7 @@ public class LinearVFA implements ValueFunctionApproximation {
 	public LinearVFA(FeatureDatabase featureDatabase) {
 		
 		this.featureDatabase = featureDatabase;
-		if(featureDatabase.numberOfFeatures() > 0){
-			this.weights = new HashMap<Integer, FunctionWeight>(featureDatabase.numberOfFeatures());
-		}
-		else{
-			this.weights = new HashMap<Integer, FunctionWeight>();
-		}
+		this.weights = new DenseWeightVector(Math.max(featureDatabase.numberOfFeatures(), 16), defaultWeight);
 		
 	}
 	
@@ -70,12 +69,7 @@ public class LinearVFA implements ValueFunctionApproximation {
 		
 		this.featureDatabase = featureDatabase;
 		this.defaultWeight = defaultWeight;
-		if(featureDatabase.numberOfFeatures() > 0){
-			this.weights = new HashMap<Integer, FunctionWeight>(featureDatabase.numberOfFeatures());
-		}
-		else{
-			this.weights = new HashMap<Integer, FunctionWeight>();
-		}
+		this.weights = new DenseWeightVector(Math.max(featureDatabase.numberOfFeatures(), 16), defaultWeight);
 		
 	}
 
@@ -116,6 +110,39 @@ public class LinearVFA implements ValueFunctionApproximation {
 	
 	
 	
+	/**
+	 * Computes the linear function over the given features and the stored feature weights without allocating any result objects.
+	 * Features that do not yet have a weight are given the default weight.
+	 * @param features the state features of the query
+	 * @param active the buffer to which the ids and values of the features are written; it is cleared first. May be null.
+	 * @return the linear function over the given features and the stored feature weights
+	 */
+	public double predict(List <StateFeature> features, ActiveFeatureBuffer active){
+		return this.weights.predict(features, active);
+	}
+	
+	
+	/**
+	 * Computes the value of a state without allocating any result objects other than those produced by the feature database.
+	 * @param s the state to evaluate
+	 * @param active the buffer to which the ids and values of the state features are written; it is cleared first. May be null.
+	 * @return the approximated value of the state
+	 */
+	public double predictStateValue(State s, ActiveFeatureBuffer active){
+		return this.weights.predict(this.featureDatabase.getStateFeatures(s), active);
+	}
+	
+	
+	/**
+	 * Returns the weight vector in which the function weights of this object are stored.
+	 * @return the weight vector in which the function weights of this object are stored.
+	 */
+	public DenseWeightVector getWeightVector(){
+		return this.weights;
+	}
+	
+	
+	
 	/**
 	 * Computes the linear function over the given features and the stored feature weights.
 	 * @param features List of the {@link StateFeature} obejcts defining the state features of this approximator.
@@ -125,15 +152,9 @@ public class LinearVFA implements ValueFunctionApproximation {
 		
 		List <FunctionWeight> activedWeights = new ArrayList<FunctionWeight>(features.size());
 		
-		double predictedValue = 0.;
+		double predictedValue = this.weights.predict(features, null);
 		for(StateFeature sf : features){
-			FunctionWeight fw = this.weights.get(sf.id);
-			if(fw == null){
-				fw = new FunctionWeight(sf.id, defaultWeight);
-				this.weights.put(fw.weightId(), fw);
-			}
-			predictedValue += sf.value*fw.weightValue();
-			activedWeights.add(fw);
+			activedWeights.add(this.weights.getFunctionWeight(sf.id));
 		}
 		
 		ApproximationResult result = new ApproximationResult(predictedValue, features, activedWeights);
@@ -145,20 +166,13 @@ public class LinearVFA implements ValueFunctionApproximation {
 	
 	@Override
 	public void resetWeights(){
-		this.weights.clear();
+		this.weights.reset(0);
 	}
 
 
 	@Override
 	public void setWeight(int featureId, double w) {
-		FunctionWeight fw = this.weights.get(featureId);
-		if(fw == null){
-			fw = new FunctionWeight(featureId, w);
-			this.weights.put(featureId, fw);
-		}
-		else{
-			fw.setWeight(w);
-		}
+		this.weights.set(featureId, w);
 	}
 
 
@@ -170,7 +184,10 @@ public class LinearVFA implements ValueFunctionApproximation {
 
 	@Override
 	public FunctionWeight getFunctionWeight(int featureId) {
-		return this.weights.get(featureId);
+		if(!this.weights.contains(featureId)){
+			return null;
+		}
+		return this.weights.getFunctionWeight(featureId);
 	}
 
 }
@@ -1,9 +1,11 @@
 package burlap.behavior.singleagent.vfa.fourier;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import burlap.behavior.singleagent.learning.tdmethods.vfa.GradientDescentSarsaLam;
 import burlap.behavior.singleagent.vfa.ActionFeaturesQuery;
@@ -29,6 +31,15 @@ import burlap.oomdp.singleagent.GroundedAction;
  * <p/>
  * When using a learning algorithm like {@link GradientDescentSarsaLam} with Fourier basis functions, it is typically a good idea to use the {@link FourierBasisLearningRateWrapper}, which scales the normal learning rate by the inverse of the norm
  * of a basis function's coefficient vector. 
+ * <p/>
+ * Basis functions are evaluated in a batch: the coefficient vectors are flattened into one contiguous variable-major matrix so that the dot
+ * products of all coefficient vectors with the input are accumulated in a single pass of simple loops over primitive arrays, which the JIT compiler
+ * can vectorize. The basis values of a state are computed once and shared by the features of every action, and the values of the most recently
+ * evaluated input vector are cached, since learning algorithms typically query the same state several times in a row.
+ * <p/>
+ * The coefficient vectors are generated under a lock when the first input is evaluated and are then published as one immutable {@link CoefficientSet},
+ * and action multipliers are assigned under a lock, so a single instance can be queried by several threads at once, such as the shards of a
+ * parallel LSTDQ.
  * 
  * <p/>
  * 1. G.D. Konidaris, S. Osentoski and P.S. Thomas. Value Function Approximation in Reinforcement Learning using the Fourier Basis. In Proceedings of the Twenty-Fifth Conference on Artificial Intelligence, pages 380-385, August 2011.
@@ -48,11 +59,6 @@ public class FourierBasis implements FeatureDatabase {
 	 */
 	protected StateToFeatureVectorGenerator		featureVectorGenerator;
 	
-	/**
-	 * The coefficient vectors used
-	 */
-	protected List<short[]>						coefficientVectors;
-	
 	/**
 	 * The maximum number of non-zero coefficient entries permitted in a coefficient vector
 	 */
@@ -67,13 +73,25 @@ public class FourierBasis implements FeatureDatabase {
 	 * A map for returning a multiplier to the number of state features for each action. Effectively
 	 * this ensures a unique feature ID for each Fourier basis function for each action.
 	 */
-	protected Map<String, Integer> actionFeatureMultiplier = new HashMap<String, Integer>();
+	protected Map<String, Integer> actionFeatureMultiplier = new ConcurrentHashMap<String, Integer>();
 	
 	
 	/**
 	 * The next action Fourier basis function size multiplier to use for the next newly seen action.
 	 */
-	protected int nextActionMultiplier = 0;
+	protected volatile int nextActionMultiplier = 0;
+	
+	
+	/**
+	 * The coefficient vectors used, along with their flattened matrix and norms; null until they are generated or set.
+	 */
+	protected volatile CoefficientSet			coefficients;
+	
+	/**
+	 * The most recently evaluated input vector and its basis values. Evaluations are never modified once they are stored, so they can be
+	 * read concurrently.
+	 */
+	protected volatile BasisEvaluation			lastEvaluation;
 	
 	
 	
@@ -109,8 +127,12 @@ public class FourierBasis implements FeatureDatabase {
 	 * Forces the set of coefficient vectors (and thereby Fourier basis functions) used. Use this method only if you want to fine tune the basis functions used.
 	 * @param coefficientVectors the coefficient vectors used to produce the Fourier basis functions.
 	 */
-	public void setCoefficientVectors(List<short[]> coefficientVectors){
-		this.coefficientVectors = coefficientVectors;
+	public synchronized void setCoefficientVectors(List<short[]> coefficientVectors){
+		if(coefficientVectors.size() > 0){
+			this.numStateVariables = coefficientVectors.get(0).length;
+		}
+		this.coefficients = new CoefficientSet(coefficientVectors, this.numStateVariables);
+		this.lastEvaluation = null;
 	}
 	
 	
@@ -123,13 +145,13 @@ public class FourierBasis implements FeatureDatabase {
 	 * @return the value of the basis function for the given input state variables
 	 */
 	public double basisValue(double [] input, int basisFunction){
-		short [] coefficientVector = this.coefficientVectors.get(basisFunction % this.coefficientVectors.size());
+		short [] coefficientVector = this.getCoefficientVector(basisFunction);
 		if(coefficientVector.length != input.length){
-			throw new RuntimeException("Error in Fourier Basis function evaluation: expected input state variable vector of size " + this.numStateVariables + ", but received one of dimension " + input.length);
+			throw new RuntimeException("Error in Fourier Basis function evaluation: expected input state variable vector of size " + coefficientVector.length + ", but received one of dimension " + input.length);
 		}
 		//dot product of input and coefficient vector
 		double sum = 0.;
-		for(int i = 0; i < this.numStateVariables; i++){
+		for(int i = 0; i < coefficientVector.length; i++){
 			sum += input[i] * (double)coefficientVector[i];
 		}
 		
@@ -139,23 +161,63 @@ public class FourierBasis implements FeatureDatabase {
 		return sum;
 	}
 	
+	
+	/**
+	 * Computes the values of all basis functions for the given state variables in one batch and writes them to the given array. The value of the
+	 * basis function of coefficient vector j is written to index j. This method does not allocate any objects.
+	 * @param input the state variables
+	 * @param out the array to which the basis function values are written; its length must be at least the number of coefficient vectors.
+	 */
+	public void computeBasisValues(double [] input, double [] out){
+		this.computeBasisValues(this.coefficients, input, out);
+	}
+	
+	
+	/**
+	 * Computes the values of all basis functions of the given coefficient set for the given state variables and writes them to the given array.
+	 * @param coefficients the coefficient set
+	 * @param input the state variables
+	 * @param out the array to which the basis function values are written
+	 */
+	protected void computeBasisValues(CoefficientSet coefficients, double [] input, double [] out){
+		
+		if(input.length != coefficients.numStateVariables){
+			throw new RuntimeException("Error in Fourier Basis function evaluation: expected input state variable vector of size " + coefficients.numStateVariables + ", but received one of dimension " + input.length);
+		}
+		
+		double [] matrix = coefficients.matrix;
+		int m = coefficients.norms.length;
+		
+		//accumulate the dot products of all coefficient vectors one state variable at a time
+		Arrays.fill(out, 0, m, 0.);
+		for(int i = 0; i < input.length; i++){
+			double x = input[i];
+			if(x == 0.){
+				continue;
+			}
+			int offset = i*m;
+			for(int j = 0; j < m; j++){
+				out[j] += matrix[offset+j] * x;
+			}
+		}
+		
+		for(int j = 0; j < m; j++){
+			out[j] = Math.cos(out[j] * Math.PI);
+		}
+		
+	}
+	
+	
 	@Override
 	public List<StateFeature> getStateFeatures(State s) {
 		
 		double [] input = this.featureVectorGenerator.generateFeatureVectorFrom(s);
-		if(this.coefficientVectors == null){
-			this.numStateVariables = input.length;
-			if(this.maxNonZeroCoefficents == -1){
-				this.maxNonZeroCoefficents = this.numStateVariables;
-			}
-			this.generateCoefficientVectors();
-		}
+		double [] values = this.getBasisValues(input);
 		
-		List<StateFeature> res = new ArrayList<StateFeature>(this.coefficientVectors.size());
+		List<StateFeature> res = new ArrayList<StateFeature>(values.length);
 		
-		for(int i = 0; i < this.coefficientVectors.size(); i++){
-			double value = this.basisValue(input, i);
-			StateFeature sf = new StateFeature(i, value);
+		for(int i = 0; i < values.length; i++){
+			StateFeature sf = new StateFeature(i, values[i]);
 			res.add(sf);
 		}
 		
@@ -169,15 +231,17 @@ public class FourierBasis implements FeatureDatabase {
 		
 		List<ActionFeaturesQuery> lstAFQ = new ArrayList<ActionFeaturesQuery>();
 		
-		List<StateFeature> sfs = this.getStateFeatures(s);
+		//the state basis is computed once and shared by all actions
+		double [] input = this.featureVectorGenerator.generateFeatureVectorFrom(s);
+		double [] values = this.getBasisValues(input);
 		
 		for(GroundedAction ga : actions){
 			int actionMult = this.getActionMultiplier(ga);
-			int indexOffset = actionMult*this.coefficientVectors.size();
+			int indexOffset = actionMult*values.length;
 			
 			ActionFeaturesQuery afq = new ActionFeaturesQuery(ga);
-			for(StateFeature sf : sfs){
-				afq.addFeature(new StateFeature(sf.id + indexOffset, sf.value));
+			for(int i = 0; i < values.length; i++){
+				afq.addFeature(new StateFeature(i + indexOffset, values[i]));
 			}
 			
 			lstAFQ.add(afq);
@@ -195,13 +259,14 @@ public class FourierBasis implements FeatureDatabase {
 
 	@Override
 	public int numberOfFeatures() {
-		if(this.coefficientVectors == null){
+		CoefficientSet coefficients = this.coefficients;
+		if(coefficients == null){
 			return 0;
 		}
 		if(this.nextActionMultiplier == 0){
-			return this.coefficientVectors.size();
+			return coefficients.vectors.size();
 		}
-		return this.coefficientVectors.size()*this.nextActionMultiplier;
+		return coefficients.vectors.size()*this.nextActionMultiplier;
 	}
 	
 	
@@ -213,7 +278,8 @@ public class FourierBasis implements FeatureDatabase {
 	 * @return the coefficient vector for the given basis function
 	 */
 	public short [] getCoefficientVector(int i){
-		return this.coefficientVectors.get(i % this.coefficientVectors.size());
+		List<short[]> vectors = this.coefficients.vectors;
+		return vectors.get(i % vectors.size());
 	}
 	
 	
@@ -225,13 +291,8 @@ public class FourierBasis implements FeatureDatabase {
 	 * @return the norm of the coefficient vector for the given basis function
 	 */
 	public double coefficientNorm(int i){
-		short [] vector = this.coefficientVectors.get(i % this.coefficientVectors.size());
-		double sum = 0.;
-		for(short c : vector){
-			sum += (double)c*(double)c;
-		}
-		sum = Math.sqrt(sum);
-		return sum;
+		double [] norms = this.coefficients.norms;
+		return norms[i % norms.length];
 	}
 	
 	
@@ -250,9 +311,57 @@ public class FourierBasis implements FeatureDatabase {
 	 * Generates all coefficient vectors given the number of state variables and the maximum number of non-zero coefficient element entries.
 	 */
 	protected void generateCoefficientVectors(){
-		this.coefficientVectors = new ArrayList<short[]>();
+		List<short[]> vectors = new ArrayList<short[]>();
 		short [] tempVector = new short[this.numStateVariables];
-		this.generateCoefficientVectorsHelper(0, tempVector, 0);
+		this.generateCoefficientVectorsHelper(0, tempVector, 0, vectors);
+		this.coefficients = new CoefficientSet(vectors, this.numStateVariables);
+		this.lastEvaluation = null;
+	}
+	
+	
+	/**
+	 * Returns the coefficient set, generating the coefficient vectors for inputs of the given dimension if they have not been generated or set yet.
+	 * @param numStateVariables the number of state variables of the input
+	 * @return the coefficient set
+	 */
+	protected CoefficientSet getOrGenerateCoefficients(int numStateVariables){
+		CoefficientSet coefficients = this.coefficients;
+		if(coefficients != null){
+			return coefficients;
+		}
+		synchronized(this){
+			if(this.coefficients == null){
+				this.numStateVariables = numStateVariables;
+				if(this.maxNonZeroCoefficents == -1){
+					this.maxNonZeroCoefficents = this.numStateVariables;
+				}
+				this.generateCoefficientVectors();
+			}
+			return this.coefficients;
+		}
+	}
+	
+	
+	/**
+	 * Returns the values of all basis functions for the given state variables, generating the coefficient vectors on the first call. The returned
+	 * array is shared with the cache of the most recent evaluation and must not be modified.
+	 * @param input the state variables
+	 * @return the values of all basis functions, indexed by coefficient vector
+	 */
+	protected double [] getBasisValues(double [] input){
+		
+		CoefficientSet coefficients = this.getOrGenerateCoefficients(input.length);
+		
+		BasisEvaluation last = this.lastEvaluation;
+		if(last != null && last.coefficients == coefficients && Arrays.equals(last.input, input)){
+			return last.values;
+		}
+		
+		double [] values = new double[coefficients.norms.length];
+		this.computeBasisValues(coefficients, input, values);
+		this.lastEvaluation = new BasisEvaluation(coefficients, input.clone(), values);
+		
+		return values;
 	}
 	
 	
@@ -261,29 +370,30 @@ public class FourierBasis implements FeatureDatabase {
 	 * @param index the index into the coefficient vector that needs to have its values filled in.
 	 * @param vector the coefficient vector generated thus far
 	 * @param numNonZeroEntries the number of non-zero coefficient vector entires currently in the vector.
+	 * @param vectors the list to which the generated coefficient vectors are added
 	 */
-	protected void generateCoefficientVectorsHelper(int index, short[] vector, int numNonZeroEntries){
+	protected void generateCoefficientVectorsHelper(int index, short[] vector, int numNonZeroEntries, List<short[]> vectors){
 		
 		//base case is we're at the end of the vector
 		if(index == this.numStateVariables){
-			this.coefficientVectors.add(vector.clone());
+			vectors.add(vector.clone());
 			return;
 		}
 		
 		//otherwise, consider all possible values for this vector provided we don't have too many non-zero entries
 		if(numNonZeroEntries >= this.maxNonZeroCoefficents){
 			vector[index] = 0;
-			this.generateCoefficientVectorsHelper(index+1, vector, numNonZeroEntries);
+			this.generateCoefficientVectorsHelper(index+1, vector, numNonZeroEntries, vectors);
 		}
 		else{
 			//consider all possible values
 			for(short i = 0; i <= this.order; i++){
 				vector[index] = i;
 				if(i > 0){
-					this.generateCoefficientVectorsHelper(index+1, vector, numNonZeroEntries+1);
+					this.generateCoefficientVectorsHelper(index+1, vector, numNonZeroEntries+1, vectors);
 				}
 				else{
-					this.generateCoefficientVectorsHelper(index+1, vector, numNonZeroEntries);
+					this.generateCoefficientVectorsHelper(index+1, vector, numNonZeroEntries, vectors);
 				}
 			}
 		}
@@ -305,11 +415,18 @@ public class FourierBasis implements FeatureDatabase {
 			throw new RuntimeException("Fourier Basis Feature Database does not support actions with OO-MDP object parameterizations.");
 		}
 		
-		Integer stored = this.actionFeatureMultiplier.get(ga.toString());
+		String key = ga.isParameterized() ? ga.toString() : ga.actionName();
+		Integer stored = this.actionFeatureMultiplier.get(key);
 		if(stored == null){
-			this.actionFeatureMultiplier.put(ga.actionName(), this.nextActionMultiplier);
-			stored = this.nextActionMultiplier;
-			this.nextActionMultiplier++;
+			//multipliers are assigned under a lock so that concurrent queries cannot give two actions the same multiplier
+			synchronized(this.actionFeatureMultiplier){
+				stored = this.actionFeatureMultiplier.get(key);
+				if(stored == null){
+					stored = this.nextActionMultiplier;
+					this.actionFeatureMultiplier.put(key, stored);
+					this.nextActionMultiplier = stored + 1;
+				}
+			}
 		}
 		
 		return stored;
@@ -317,4 +434,101 @@ public class FourierBasis implements FeatureDatabase {
 	
 	
 	
+	
+	/**
+	 * An immutable set of coefficient vectors, flattened into a variable-major matrix for batch evaluation, along with the norm of each vector.
+	 *
+	 */
+	protected static class CoefficientSet{
+		
+		/**
+		 * The coefficient vectors
+		 */
+		public final List<short[]>		vectors;
+		
+		/**
+		 * The number of state variables of the coefficient vectors
+		 */
+		public final int				numStateVariables;
+		
+		/**
+		 * The coefficient vectors flattened into a variable-major matrix: the coefficient of state variable i in coefficient vector j is stored
+		 * at index i*m + j, where m is the number of coefficient vectors.
+		 */
+		public final double []			matrix;
+		
+		/**
+		 * The norm of each coefficient vector
+		 */
+		public final double []			norms;
+		
+		
+		/**
+		 * Initializes, flattening the given coefficient vectors and computing their norms.
+		 * @param vectors the coefficient vectors
+		 * @param numStateVariables the number of state variables of the coefficient vectors
+		 */
+		public CoefficientSet(List<short[]> vectors, int numStateVariables){
+			
+			int m = vectors.size();
+			int d = numStateVariables;
+			double [] matrix = new double[d*m];
+			double [] norms = new double[m];
+			for(int j = 0; j < m; j++){
+				short [] vector = vectors.get(j);
+				double sum = 0.;
+				for(int i = 0; i < d; i++){
+					matrix[i*m + j] = vector[i];
+					sum += (double)vector[i]*(double)vector[i];
+				}
+				norms[j] = Math.sqrt(sum);
+			}
+			
+			this.vectors = Collections.unmodifiableList(new ArrayList<short[]>(vectors));
+			this.numStateVariables = d;
+			this.matrix = matrix;
+			this.norms = norms;
+			
+		}
+		
+	}
+	
+	
+	/**
+	 * An input vector and the values of the basis functions for it.
+	 *
+	 */
+	protected static class BasisEvaluation{
+		
+		/**
+		 * The coefficient set with which the values were computed
+		 */
+		public final CoefficientSet	coefficients;
+		
+		/**
+		 * The input state variables
+		 */
+		public final double []		input;
+		
+		/**
+		 * The values of the basis functions for the input
+		 */
+		public final double []		values;
+		
+		
+		/**
+		 * Initializes.
+		 * @param coefficients the coefficient set with which the values were computed
+		 * @param input the input state variables
+		 * @param values the values of the basis functions for the input
+		 */
+		public BasisEvaluation(CoefficientSet coefficients, double [] input, double [] values){
+			this.coefficients = coefficients;
+			this.input = input;
+			this.values = values;
+		}
+		
+	}
+	
+	
 }
@@ -0,0 +1,332 @@
+package burlap.behavior.singleagent.vfa.rbf;
+
+import java.util.Arrays;
+import java.util.List;
+
+
+/**
+ * A static k-d tree over a set of points, such as the centers of {@link FVRBF} units, that finds all points within a Euclidean radius of a query point.
+ * The tree is stored implicitly in arrays: the points are reordered so that the point at the middle of any subrange splits the rest of the subrange
+ * along the dimension in which the subrange has the widest spread. A radius query therefore only visits the subranges whose bounding slabs intersect
+ * the query ball, which for small radii takes time roughly logarithmic in the number of points plus the number of points found.
+ * <p/>
+ * The tree is not modified by queries, so it can be queried concurrently.
+ *
+ */
+public class CenterKDTree {
+
+	/**
+	 * The dimensionality of the points
+	 */
+	protected int				dim;
+
+	/**
+	 * The points in tree order, flattened so that coordinate j of the i'th point in tree order is at index i*dim + j
+	 */
+	protected double []			points;
+
+	/**
+	 * The index of each point, in tree order, in the list from which the tree was built
+	 */
+	protected int []			pointIndices;
+
+	/**
+	 * The split dimension of the subrange whose middle is at each tree order position
+	 */
+	protected int []			splitDims;
+
+
+	/**
+	 * Builds the tree over the given points. The points are copied, so later changes to the arrays do not affect the tree.
+	 * @param centers the points, which must all have the same dimensionality
+	 */
+	public CenterKDTree(List<double[]> centers){
+
+		int n = centers.size();
+		this.dim = n > 0 ? centers.get(0).length : 0;
+		this.points = new double[n*this.dim];
+		this.pointIndices = new int[n];
+		this.splitDims = new int[n];
+
+		for(int i = 0; i < n; i++){
+			double [] c = centers.get(i);
+			if(c.length != this.dim){
+				throw new RuntimeException("Cannot build k-d tree; point " + i + " has dimension " + c.length + " but expected " + this.dim);
+			}
+			System.arraycopy(c, 0, this.points, i*this.dim, this.dim);
+			this.pointIndices[i] = i;
+		}
+
+		this.build(0, n);
+
+	}
+
+
+	/**
+	 * Returns the number of points in the tree
+	 * @return the number of points in the tree
+	 */
+	public int size(){
+		return this.pointIndices.length;
+	}
+
+
+	/**
+	 * Finds all points within the given Euclidean radius of the query point and writes their indices (in the list from which the tree was built)
+	 * and squared distances to the query point to the given result, in no particular order.
+	 * @param query the query point
+	 * @param radius the search radius
+	 * @param result the result to which the indices and squared distances of the points found are written; it is cleared first.
+	 */
+	public void radiusSearch(double [] query, double radius, Neighbors result){
+		if(query.length != this.dim && this.pointIndices.length > 0){
+			throw new RuntimeException("Cannot search k-d tree; query point has dimension " + query.length + " but the tree has dimension " + this.dim);
+		}
+		result.clear();
+		this.radiusSearch(query, radius*radius, 0, this.pointIndices.length, result);
+	}
+
+
+	/**
+	 * Recursively searches the subrange [lo, hi) of the tree.
+	 * @param query the query point
+	 * @param r2 the squared search radius
+	 * @param lo the first tree order position of the subrange
+	 * @param hi one past the last tree order position of the subrange
+	 * @param result the result to which the points found are written
+	 */
+	protected void radiusSearch(double [] query, double r2, int lo, int hi, Neighbors result){
+
+		while(lo < hi){
+
+			int mid = (lo + hi) >>> 1;
+			int offset = mid*this.dim;
+
+			double d2 = 0.;
+			for(int j = 0; j < this.dim; j++){
+				double diff = query[j] - this.points[offset+j];
+				d2 += diff*diff;
+			}
+			if(d2 <= r2){
+				result.add(this.pointIndices[mid], d2);
+			}
+
+			int sd = this.splitDims[mid];
+			double diff = query[sd] - this.points[offset+sd];
+			boolean crossesSplit = diff*diff <= r2;
+
+			//search the near side iteratively and the far side recursively only if the query ball crosses the split
+			if(diff < 0.){
+				if(crossesSplit){
+					this.radiusSearch(query, r2, mid+1, hi, result);
+				}
+				hi = mid;
+			}
+			else{
+				if(crossesSplit){
+					this.radiusSearch(query, r2, lo, mid, result);
+				}
+				lo = mid+1;
+			}
+
+		}
+
+	}
+
+
+	/**
+	 * Recursively orders the subrange [lo, hi) so that its middle point splits it along its dimension of widest spread.
+	 * @param lo the first position of the subrange
+	 * @param hi one past the last position of the subrange
+	 */
+	protected void build(int lo, int hi){
+
+		if(hi - lo < 1){
+			return;
+		}
+
+		int mid = (lo + hi) >>> 1;
+
+		//find the dimension of widest spread
+		int sd = 0;
+		double bestSpread = -1.;
+		for(int j = 0; j < this.dim; j++){
+			double min = Double.POSITIVE_INFINITY;
+			double max = Double.NEGATIVE_INFINITY;
+			for(int i = lo; i < hi; i++){
+				double v = this.points[i*this.dim + j];
+				min = Math.min(min, v);
+				max = Math.max(max, v);
+			}
+			if(max - min > bestSpread){
+				bestSpread = max - min;
+				sd = j;
+			}
+		}
+
+		this.select(lo, hi, mid, sd);
+		this.splitDims[mid] = sd;
+
+		this.build(lo, mid);
+		this.build(mid+1, hi);
+
+	}
+
+
+	/**
+	 * Partially sorts the subrange [lo, hi) along a dimension so that position k holds the point that would be there if the subrange were sorted,
+	 * with no greater coordinates before it and no smaller coordinates after it.
+	 * @param lo the first position of the subrange
+	 * @param hi one past the last position of the subrange
+	 * @param k the position to select
+	 * @param sd the dimension along which to sort
+	 */
+	protected void select(int lo, int hi, int k, int sd){
+
+		int left = lo;
+		int right = hi-1;
+		while(right > left){
+
+			double pivot = this.points[((left + right) >>> 1)*this.dim + sd];
+			int i = left;
+			int j = right;
+			while(i <= j){
+				while(this.points[i*this.dim + sd] < pivot){
+					i++;
+				}
+				while(this.points[j*this.dim + sd] > pivot){
+					j--;
+				}
+				if(i <= j){
+					this.swap(i, j);
+					i++;
+					j--;
+				}
+			}
+
+			if(k <= j){
+				right = j;
+			}
+			else if(k >= i){
+				left = i;
+			}
+			else{
+				return;
+			}
+
+		}
+
+	}
+
+
+	/**
+	 * Swaps two points in the tree order
+	 * @param a the position of the first point
+	 * @param b the position of the second point
+	 */
+	protected void swap(int a, int b){
+		if(a == b){
+			return;
+		}
+		int ao = a*this.dim;
+		int bo = b*this.dim;
+		for(int j = 0; j < this.dim; j++){
+			double t = this.points[ao+j];
+			this.points[ao+j] = this.points[bo+j];
+			this.points[bo+j] = t;
+		}
+		int ti = this.pointIndices[a];
+		this.pointIndices[a] = this.pointIndices[b];
+		this.pointIndices[b] = ti;
+	}
+
+
+
+	/**
+	 * A reusable result of a radius search: the indices of the points found and their squared distances to the query point, stored in separate
+	 * arrays that only grow, so reusing the same result across searches does not allocate once it has reached the largest number of points found.
+	 * A result must only be used by one thread at a time.
+	 *
+	 */
+	public static class Neighbors {
+
+		/**
+		 * The indices of the points found
+		 */
+		protected int []			indices;
+
+		/**
+		 * The squared distance of each point found to the query point
+		 */
+		protected double []			squaredDistances;
+
+		/**
+		 * The number of points found
+		 */
+		protected int				size = 0;
+
+
+		/**
+		 * Initializes with space for 16 points.
+		 */
+		public Neighbors(){
+			this.indices = new int[16];
+			this.squaredDistances = new double[16];
+		}
+
+
+		/**
+		 * Removes all points from the result.
+		 */
+		public void clear(){
+			this.size = 0;
+		}
+
+
+		/**
+		 * Appends a point to the result, growing it if necessary.
+		 * @param index the index of the point
+		 * @param squaredDistance the squared distance of the point to the query point
+		 */
+		public void add(int index, double squaredDistance){
+			if(this.size == this.indices.length){
+				this.indices = Arrays.copyOf(this.indices, this.size*2);
+				this.squaredDistances = Arrays.copyOf(this.squaredDistances, this.size*2);
+			}
+			this.indices[this.size] = index;
+			this.squaredDistances[this.size] = squaredDistance;
+			this.size++;
+		}
+
+
+		/**
+		 * Returns the number of points found
+		 * @return the number of points found
+		 */
+		public int size(){
+			return this.size;
+		}
+
+
+		/**
+		 * Returns the index of the i'th point found, in the list from which the tree was built
+		 * @param i the position of the point in this result
+		 * @return the index of the i'th point found
+		 */
+		public int index(int i){
+			return this.indices[i];
+		}
+
+
+		/**
+		 * Returns the squared distance of the i'th point found to the query point
+		 * @param i the position of the point in this result
+		 * @return the squared distance of the i'th point found to the query point
+		 */
+		public double squaredDistance(int i){
+			return this.squaredDistances[i];
+		}
+
+	}
+
+}
@@ -21,6 +21,14 @@ import java.util.Map;
  * for states for each RBF unit. Therefore, for RBFs like ones that  use Gaussian functions over
  * Euclidean distance metrics, this class is recommended. However, the standard {@link burlap.behavior.singleagent.vfa.rbf.RBFFeatureDatabase}
  * may have the advantage of using RBF units that exploit the OO-MDP state representation for distance measures.
+ * <br/><br/>
+ * When there are many RBF units, most of them have a negligible response to any given state. Setting a truncation radius with
+ * {@link #setTruncationRadius(double)} makes this database build a {@link burlap.behavior.singleagent.vfa.rbf.CenterKDTree} over the RBF
+ * centers and return as features only the units whose center is within the radius of the state's feature vector. The remaining units are
+ * treated as having a zero response and are not evaluated, so a query costs roughly the same whether there are dozens or thousands of units.
+ * The index measures Euclidean distance between feature vectors, so truncation is intended for units like
+ * {@link burlap.behavior.singleagent.vfa.rbf.functions.FVGaussianRBF} over a Euclidean metric. The radius should be several
+ * bandwidths wide, because responses drop to zero at the radius.
  *
  * @author James MacGlashan.
  */
@@ -57,6 +65,26 @@ public class FVRBFFeatureDatabase implements FeatureDatabase{
 	 */
 	protected int nextActionMultiplier = 0;
 
+	/**
+	 * The radius beyond which RBF units are treated as having a zero response; negative when RBF units are not truncated.
+	 */
+	protected double truncationRadius = -1.;
+
+	/**
+	 * The spatial index over the RBF centers used for truncation; built lazily and discarded when RBF units are added.
+	 */
+	protected volatile CenterKDTree centerIndex;
+
+	/**
+	 * The scratch radius search result of each thread, reused across queries so that truncated queries do not allocate search results.
+	 */
+	protected ThreadLocal<CenterKDTree.Neighbors> neighborsScratch = new ThreadLocal<CenterKDTree.Neighbors>(){
+		@Override
+		protected CenterKDTree.Neighbors initialValue(){
+			return new CenterKDTree.Neighbors();
+		}
+	};
+
 
 	/**
 	 * Initializes with an empty list of RBF units.
@@ -82,6 +110,7 @@ public class FVRBFFeatureDatabase implements FeatureDatabase{
 	{
 		this.rbfs.add(rbf);
 		nRbfs++;
+		this.centerIndex = null;
 	}
 
 	/**
@@ -91,6 +120,27 @@ public class FVRBFFeatureDatabase implements FeatureDatabase{
 	public void addRBFs(List<FVRBF> rbfs){
 		this.nRbfs += rbfs.size();
 		this.rbfs.addAll(rbfs);
+		this.centerIndex = null;
+	}
+
+
+	/**
+	 * Sets the radius beyond which RBF units are treated as having a zero response. When the radius is non-negative, only the units whose
+	 * center is within the Euclidean radius of a state's feature vector are evaluated and returned as features, which are found with a k-d tree over
+	 * the RBF centers.
+	 * @param truncationRadius the truncation radius; a negative value disables truncation and evaluates every unit.
+	 */
+	public void setTruncationRadius(double truncationRadius){
+		this.truncationRadius = truncationRadius;
+	}
+
+
+	/**
+	 * Returns the radius beyond which RBF units are treated as having a zero response; negative if RBF units are not truncated.
+	 * @return the truncation radius
+	 */
+	public double getTruncationRadius(){
+		return this.truncationRadius;
 	}
 
 	@Override
@@ -102,12 +152,23 @@ public class FVRBFFeatureDatabase implements FeatureDatabase{
 
 		double [] svars = this.fvGen.generateFeatureVectorFrom(s);
 
-		for(FVRBF r : rbfs)
-		{
-			double value = r.responseFor(svars);
-			StateFeature sf = new StateFeature(id, value);
-			rbfsf.add(sf);
-			id++;
+		if(this.truncationRadius >= 0.){
+			CenterKDTree.Neighbors near = this.neighborsScratch.get();
+			this.getCenterIndex().radiusSearch(svars, this.truncationRadius, near);
+			for(int i = 0; i < near.size(); i++){
+				int rid = near.index(i);
+				rbfsf.add(new StateFeature(rid, this.rbfs.get(rid).responseFor(svars)));
+			}
+			id = this.rbfs.size();
+		}
+		else{
+			for(FVRBF r : rbfs)
+			{
+				double value = r.responseFor(svars);
+				StateFeature sf = new StateFeature(id, value);
+				rbfsf.add(sf);
+				id++;
+			}
 		}
 
 		if(hasOffset)
@@ -162,6 +223,30 @@ public class FVRBFFeatureDatabase implements FeatureDatabase{
 
 
 
+	/**
+	 * Returns the spatial index over the RBF centers, building it if RBF units have been added since it was last built.
+	 * @return the spatial index over the RBF centers
+	 */
+	protected CenterKDTree getCenterIndex(){
+		CenterKDTree index = this.centerIndex;
+		if(index == null){
+			synchronized(this){
+				index = this.centerIndex;
+				if(index == null){
+					List<double[]> centers = new ArrayList<double[]>(this.rbfs.size());
+					for(FVRBF r : this.rbfs){
+						centers.add(r.getCenteredState());
+					}
+					index = new CenterKDTree(centers);
+					this.centerIndex = index;
+				}
+			}
+		}
+		return index;
+	}
+
+
+
 	/**
 	 * This method returns the action multiplier for the specified grounded action.
 	 * If the action is not stored, a new action multiplier will created, stored, and returned.
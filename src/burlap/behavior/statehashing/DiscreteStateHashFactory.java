@@ -2,14 +2,16 @@ package burlap.behavior.statehashing;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import burlap.oomdp.core.Attribute;
+import burlap.oomdp.core.AttributeHandle;
 import burlap.oomdp.core.Attribute.AttributeType;
 import burlap.oomdp.core.ObjectClass;
+import burlap.oomdp.core.ObjectHashFunction;
 import burlap.oomdp.core.ObjectInstance;
 import burlap.oomdp.core.State;
 
@@ -32,6 +34,11 @@ public class DiscreteStateHashFactory implements StateHashFactory {
 
 	protected Map<String, List<Attribute>>	attributesForHashCode;
 	
+	/**
+	 * The compiled hashing specification of each object class, keyed by object class name
+	 */
+	protected Map<String, ClassHashSpecification>	classHashSpecifications = new ConcurrentHashMap<String, ClassHashSpecification>();
+	
 	/**
 	 * Initializes this hashing factory to compute hash codes with all attributes of all object classes.
 	 */
@@ -53,6 +60,7 @@ public class DiscreteStateHashFactory implements StateHashFactory {
 	 */
 	public void setAttributesForHashCode(Map<String, List<Attribute>> attributesForHashCode){
 		this.attributesForHashCode = attributesForHashCode;
+		this.clearClassHashSpecifications();
 	}
 	
 	
@@ -69,6 +77,7 @@ public class DiscreteStateHashFactory implements StateHashFactory {
 			attributesForHashCode = new HashMap<String, List<Attribute>>();
 		}
 		attributesForHashCode.put(classname, new ArrayList<Attribute>(atts));
+		this.clearClassHashSpecifications();
 	}
 	
 	
@@ -97,6 +106,7 @@ public class DiscreteStateHashFactory implements StateHashFactory {
 		}
 		//if reached here then this att is not already added
 		atts.add(att);
+		this.clearClassHashSpecifications();
 	}
 	
 	@Override
@@ -105,117 +115,159 @@ public class DiscreteStateHashFactory implements StateHashFactory {
 	}
 	
 	
-	
-	public class DiscreteStateHashTuple extends StateHashTuple{
-		
-
-		public DiscreteStateHashTuple(State s) {
-			super(s);
+	/**
+	 * Returns the compiled hashing specification for the given object class, compiling it if it has not been compiled since
+	 * the attributes to use for hashing were last changed.
+	 * @param oc the object class
+	 * @return the compiled hashing specification for the object class
+	 */
+	protected ClassHashSpecification getClassHashSpecification(ObjectClass oc){
+		ClassHashSpecification spec = this.classHashSpecifications.get(oc.name);
+		if(spec == null || spec.objectClass != oc){
+			spec = new ClassHashSpecification(oc, this.getAttributesForClass(oc));
+			this.classHashSpecifications.put(oc.name, spec);
 		}
-
-
-		@Override
-		public void computeHashCode(){
-			
-			List <String> objectClasses = this.getOrderedClasses();
-			int totalVol = 1;
-			hashCode = 0;
-			for(String oclass : objectClasses){
-				List <ObjectInstance> obs = s.getObjectsOfClass(oclass);
-				ObjectClass oc = obs.get(0).getObjectClass();
-				int vol = this.computeVolumeForClass(oc);
-				
-				//too ensure object order invariance, the hash values must first be sorted by their object-wise hashcode
-				int [] obHashCodes = new int[obs.size()];
-				for(int i = 0; i < obs.size(); i++){
-					obHashCodes[i] = this.getIndexValue(obs.get(i), oc);
-				}
-				Arrays.sort(obHashCodes);
-				
-				//multiply in reverse (for smaller total hash codes)
-				for(int i = obHashCodes.length-1; i >= 0; i--){
-					hashCode += obHashCodes[i]*totalVol;
-					totalVol *= vol;
-				}
-				
+		return spec;
+	}
+	
+	
+	/**
+	 * Returns the attributes of the given object class that are used for hashing
+	 * @param oc the object class
+	 * @return the attributes of the given object class that are used for hashing
+	 */
+	protected List <Attribute> getAttributesForClass(ObjectClass oc){
+		if(this.attributesForHashCode != null){
+			List <Attribute> selectedAtts = this.attributesForHashCode.get(oc.name);
+			if(selectedAtts == null){
+				//no definition at all for this class, so return empty list
+				return new ArrayList<Attribute>();
 			}
-			
-			needToRecomputeHashCode = false;
-			
-			
+			return selectedAtts;
 		}
 		
+		//then default to using all attributes for all object classes
+		return oc.attributeList;
+	}
+	
+	
+	/**
+	 * Discards all compiled class hashing specifications. Called whenever the attributes to use for hashing change.
+	 */
+	protected void clearClassHashSpecifications(){
+		this.classHashSpecifications.clear();
+	}
+	
+	
+	/**
+	 * A murmur3 style finalizer that spreads the bits of a hash code.
+	 * @param h the hash code to mix
+	 * @return the mixed hash code
+	 */
+	protected static int mix(int h){
+		h ^= h >>> 16;
+		h *= 0x85ebca6b;
+		h ^= h >>> 13;
+		h *= 0xc2b2ae35;
+		h ^= h >>> 16;
+		return h;
+	}
+	
+	
+	
+	/**
+	 * The precompiled hashing specification for an object class: the attribute handles and types to use for hashing. It also
+	 * serves as the {@link ObjectHashFunction} with which object hash codes are cached, so a new specification invalidates
+	 * all object hash codes computed with a previous one.
+	 */
+	protected static class ClassHashSpecification implements ObjectHashFunction{
 		
-		//this method will assume that attributes are all discrete
-		private int getIndexValue(ObjectInstance o, ObjectClass oc){
-			
-			List <Attribute> attributes = this.getAttributesForClass(oc);
-			int index = 0;
-			int vol = 1;
-			for(Attribute att : attributes){
-				if(att.type == AttributeType.STRING){
-					index += o.getStringValForAttribute(att.name).hashCode()*vol;
-				}
-				else if(att.type == AttributeType.INTARRAY){
-					index += this.intArrayCode(o.getIntArrayValForAttribute(att.name))*vol;
-				}
-				else{
-					index += o.getIntValForAttribute(att.name)*vol;
-				}
-				if(att.type==AttributeType.DISC || att.type == AttributeType.BOOLEAN){
-					vol *= att.discValues.size();
-				}
-				else if(att.type==AttributeType.INT || att.type==AttributeType.STRING || att.type==AttributeType.INTARRAY){
-					vol *= 31;
-				}
-				else{
+		/**
+		 * The object class of this specification
+		 */
+		protected ObjectClass			objectClass;
+		
+		/**
+		 * The handles of the attributes used for hashing
+		 */
+		protected AttributeHandle []	attributeHandles;
+		
+		/**
+		 * The types of the attributes used for hashing
+		 */
+		protected AttributeType []		attributeTypes;
+		
+		/**
+		 * The starting hash value for objects of this class, which distinguishes objects of different classes with the same values
+		 */
+		protected int					seed;
+		
+		
+		public ClassHashSpecification(ObjectClass oc, List <Attribute> attributes){
+			this.objectClass = oc;
+			this.attributeHandles = new AttributeHandle[attributes.size()];
+			this.attributeTypes = new AttributeType[attributes.size()];
+			for(int i = 0; i < attributes.size(); i++){
+				Attribute att = attributes.get(i);
+				if(att.type != AttributeType.DISC && att.type != AttributeType.BOOLEAN && att.type != AttributeType.INT
+						&& att.type != AttributeType.STRING && att.type != AttributeType.INTARRAY){
 					throw new RuntimeException("DiscreteStateHashFactory cannot compute hash for non discrete (discrete, boolean, string, or int) values");
 				}
-				
+				this.attributeHandles[i] = oc.getAttributeHandle(att.name);
+				this.attributeTypes[i] = att.type;
 			}
-			
-			return index;
-			
+			this.seed = oc.name.hashCode();
 		}
 		
-		//this method will assume that attributes are all discrete
-		private int computeVolumeForClass(ObjectClass oclass){
-			
-			List <Attribute> attributes = this.getAttributesForClass(oclass);
-			int vol = 1;
-			for(Attribute att : attributes){
-				if(att.type==AttributeType.DISC || att.type == AttributeType.BOOLEAN){
-					vol *= att.discValues.size();
+		
+		@Override
+		public int hashObject(ObjectInstance o){
+			int h = this.seed;
+			for(int i = 0; i < this.attributeHandles.length; i++){
+				int v;
+				if(this.attributeTypes[i] == AttributeType.STRING){
+					v = this.attributeHandles[i].getString(o).hashCode();
 				}
-				else if(att.type==AttributeType.INT || att.type==AttributeType.STRING || att.type==AttributeType.INTARRAY){
-					vol *= 31;
+				else if(this.attributeTypes[i] == AttributeType.INTARRAY){
+					v = Arrays.hashCode(this.attributeHandles[i].viewIntArray(o));
 				}
 				else{
-					throw new RuntimeException("DiscreteStateHashFactory cannot compute hash for non discrete (discrete, boolean, string, or int) values");
+					v = this.attributeHandles[i].getInt(o);
 				}
+				h = (h ^ v) * 0x01000193;
 			}
-			
-			return vol;
+			return mix(h);
 		}
 		
-		private List <Attribute> getAttributesForClass(ObjectClass oc){
-			if(DiscreteStateHashFactory.this.attributesForHashCode != null){
-				List <Attribute> selectedAtts = DiscreteStateHashFactory.this.attributesForHashCode.get(oc.name);
-				if(selectedAtts == null){
-					//no definition at all for this class, so return empty list
-					return new ArrayList<Attribute>();
+	}
+	
+	
+	
+	public class DiscreteStateHashTuple extends StateHashTuple{
+		
+
+		public DiscreteStateHashTuple(State s) {
+			super(s);
+		}
+
+
+		@Override
+		public void computeHashCode(){
+			
+			//the mixed object hash codes are summed so that the state hash code is independent of the object order
+			int code = 0;
+			for(ObjectInstance o : s.getAllObjects()){
+				ClassHashSpecification spec = DiscreteStateHashFactory.this.getClassHashSpecification(o.getObjectClass());
+				if(spec.attributeHandles.length == 0){
+					continue;
 				}
-				return selectedAtts;
+				code += o.cachedHashCode(spec);
 			}
 			
-			//then default to using all attributes for all object classes
-			return oc.attributeList;
-		}
-		
-		private List <String> getOrderedClasses(){
-			List <String> objectClasses = new ArrayList<String>(s.getObjectClassesPresent());
-			Collections.sort(objectClasses);
-			return objectClasses;
+			hashCode = code;
+			needToRecomputeHashCode = false;
+			
+			
 		}
 		
 		
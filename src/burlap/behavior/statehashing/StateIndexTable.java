@@ -0,0 +1,198 @@
+package burlap.behavior.statehashing;
+
+
+/**
+ * An open-addressing hash table that assigns each distinct {@link StateHashTuple} a dense int id, starting at 0 in the order
+ * in which states are added. Dense ids allow tabular planning and learning algorithms to store per-state data in primitive arrays
+ * instead of in maps keyed by {@link StateHashTuple}, which avoids boxing and a map entry object per state.
+ * <p/>
+ * The table uses linear probing over an int slot array and stores the hash code of each state so that probing and resizing never
+ * recompute state hash codes; {@link StateHashTuple#equals(Object)} is only called when the hash codes match.
+ * This class is not thread safe for concurrent additions.
+ *
+ */
+public class StateIndexTable {
+
+	/**
+	 * The stored states, indexed by id
+	 */
+	protected StateHashTuple []				states;
+
+	/**
+	 * The spread hash code of each stored state, indexed by id
+	 */
+	protected int []						hashes;
+
+	/**
+	 * The open-addressing slots; each slot holds a state id + 1, or 0 if the slot is empty. The length is always a power of 2.
+	 */
+	protected int []						slots;
+
+	/**
+	 * The number of stored states
+	 */
+	protected int							size;
+
+
+
+	/**
+	 * Initializes an empty table.
+	 */
+	public StateIndexTable(){
+		this(16);
+	}
+
+
+	/**
+	 * Initializes an empty table with enough capacity for the given number of states before it needs to resize.
+	 * @param expectedSize the expected number of states
+	 */
+	public StateIndexTable(int expectedSize){
+		int capacity = Math.max(expectedSize, 4);
+		this.states = new StateHashTuple[capacity];
+		this.hashes = new int[capacity];
+		this.slots = new int[slotCapacityFor(capacity)];
+		this.size = 0;
+	}
+
+
+	/**
+	 * Returns the id of the given state, or -1 if it is not stored in this table.
+	 * @param sh the hashed state
+	 * @return the id of the state, or -1 if it is not stored
+	 */
+	public int indexOf(StateHashTuple sh){
+		int h = spread(sh.hashCode());
+		int mask = this.slots.length-1;
+		int i = h & mask;
+		int slot;
+		while((slot = this.slots[i]) != 0){
+			int id = slot-1;
+			if(this.hashes[id] == h && this.states[id].equals(sh)){
+				return id;
+			}
+			i = (i+1) & mask;
+		}
+		return -1;
+	}
+
+
+	/**
+	 * Returns the id of the given state, adding it to this table with the next free id if it is not already stored.
+	 * Use {@link #size()} before and after the call to determine whether the state was added.
+	 * @param sh the hashed state
+	 * @return the id of the state
+	 */
+	public int getOrAdd(StateHashTuple sh){
+
+		int h = spread(sh.hashCode());
+		int mask = this.slots.length-1;
+		int i = h & mask;
+		int slot;
+		while((slot = this.slots[i]) != 0){
+			int id = slot-1;
+			if(this.hashes[id] == h && this.states[id].equals(sh)){
+				return id;
+			}
+			i = (i+1) & mask;
+		}
+
+		int id = this.size;
+		if(id == this.states.length){
+			this.growStorage();
+		}
+		this.states[id] = sh;
+		this.hashes[id] = h;
+		this.slots[i] = id+1;
+		this.size++;
+
+		//keep the load factor at most 1/2
+		if(2*this.size > this.slots.length){
+			this.rehash(this.slots.length*2);
+		}
+
+		return id;
+	}
+
+
+	/**
+	 * Returns the state with the given id
+	 * @param id the id of the state
+	 * @return the state with the given id
+	 */
+	public StateHashTuple get(int id){
+		if(id < 0 || id >= this.size){
+			throw new IndexOutOfBoundsException("State id " + id + " is not in the table of " + this.size + " states");
+		}
+		return this.states[id];
+	}
+
+
+	/**
+	 * Returns the number of states stored in this table. The stored ids are 0 to size()-1.
+	 * @return the number of states stored in this table
+	 */
+	public int size(){
+		return this.size;
+	}
+
+
+	/**
+	 * Removes all states from this table.
+	 */
+	public void clear(){
+		for(int i = 0; i < this.size; i++){
+			this.states[i] = null;
+		}
+		for(int i = 0; i < this.slots.length; i++){
+			this.slots[i] = 0;
+		}
+		this.size = 0;
+	}
+
+
+	protected void growStorage(){
+		int capacity = this.states.length*2;
+		StateHashTuple [] nStates = new StateHashTuple[capacity];
+		System.arraycopy(this.states, 0, nStates, 0, this.size);
+		this.states = nStates;
+		int [] nHashes = new int[capacity];
+		System.arraycopy(this.hashes, 0, nHashes, 0, this.size);
+		this.hashes = nHashes;
+	}
+
+
+	protected void rehash(int slotCapacity){
+		int [] nSlots = new int[slotCapacity];
+		int mask = slotCapacity-1;
+		for(int id = 0; id < this.size; id++){
+			int i = this.hashes[id] & mask;
+			while(nSlots[i] != 0){
+				i = (i+1) & mask;
+			}
+			nSlots[i] = id+1;
+		}
+		this.slots = nSlots;
+	}
+
+
+	protected static int slotCapacityFor(int expectedSize){
+		int capacity = 1;
+		while(capacity < 2*expectedSize){
+			capacity <<= 1;
+		}
+		return capacity;
+	}
+
+
+	/**
+	 * Spreads the bits of a hash code so that hash codes that only differ in their high bits do not cluster in the linear probing.
+	 * @param h the hash code
+	 * @return the spread hash code
+	 */
+	protected static int spread(int h){
+		h *= 0x9e3779b9;
+		return h ^ (h >>> 16);
+	}
+
+}
@@ -0,0 +1,273 @@
+package burlap.datastructures;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import burlap.debugtools.RandomFactory;
+
+
+/**
+ * An array backed alternative to {@link StochasticTree} with the same insert, change weight, remove, sample and poll operations. The elements are stored
+ * in a dense array and their weights in a {@link WeightTree} ({@link SumTree} by default, or a {@link FenwickTree}) at the same index, so that all
+ * operations take O(lg(n)) time without creating tree node objects or recursing, and the weights are laid out contiguously in memory, which scales to
+ * millions of elements. Removing an element moves the last element into its place.
+ * <p/>
+ * As with {@link StochasticTree}, the weights should be positive but do not need to sum to one, and operations that reference an element require T to be hashable.
+ *
+ * @param <T> any Java object that will be sampled
+ */
+public class ArrayStochasticTree <T> {
+
+	/**
+	 * The weights of the elements, indexed by the position of the element in the element array
+	 */
+	protected WeightTree				weights;
+
+	/**
+	 * The elements
+	 */
+	protected Object []					elements;
+
+	/**
+	 * The number of elements
+	 */
+	protected int						size = 0;
+
+	/**
+	 * A map from elements to their position in the element array
+	 */
+	protected Map<T, Integer>			positions;
+
+	/**
+	 * A random object used for sampling.
+	 */
+	protected Random					rand;
+
+
+	/**
+	 * Initializes an empty tree backed by a {@link SumTree}.
+	 */
+	public ArrayStochasticTree(){
+		this(new SumTree());
+	}
+
+
+	/**
+	 * Initializes an empty tree backed by the given weight tree, which should be empty.
+	 * @param weights the weight tree in which the weights of the elements are stored
+	 */
+	public ArrayStochasticTree(WeightTree weights){
+		this.weights = weights;
+		this.elements = new Object[Math.max(weights.capacity(), 1)];
+		this.positions = new HashMap<T, Integer>();
+		this.rand = RandomFactory.getMapped(2347636);
+	}
+
+
+	/**
+	 * Initializes a tree backed by a {@link SumTree} for objects with the given weights
+	 * @param weights the weights of a set objects that determine how likely they are to be sampled
+	 * @param elements the elements of the tree that will be sampled
+	 */
+	public ArrayStochasticTree(List <Double> weights, List <T> elements){
+		this(new SumTree(weights.size()));
+		for(int i = 0; i < weights.size(); i++){
+			this.insert(weights.get(i), elements.get(i));
+		}
+	}
+
+
+	/**
+	 * Sets the tree to use a specific random object when performing sampling
+	 * @param r the random object to use
+	 */
+	public void setRandom(Random r){
+		this.rand = r;
+	}
+
+
+	/**
+	 * Returns the number of objects in this tree
+	 * @return the number of objects in this tree
+	 */
+	public int size(){
+		return this.size;
+	}
+
+
+	/**
+	 * Returns the pointer to the stored entry in this tree for the given query element.
+	 * @param el the element whose stored object in the tree is to be returned
+	 * @return the pointer to the stored entry in this tree for the given query element, or null if it is not in the tree
+	 */
+	public T getStoredEntry(T el){
+		Integer pos = this.positions.get(el);
+		if(pos == null){
+			return null;
+		}
+		return this.element(pos);
+	}
+
+
+	/**
+	 * Returns the weight of the given element.
+	 * @param el the element
+	 * @return the weight of the element, or 0 if it is not in the tree
+	 */
+	public double getWeight(T el){
+		Integer pos = this.positions.get(el);
+		if(pos == null){
+			return 0.;
+		}
+		return this.weights.get(pos);
+	}
+
+
+	/**
+	 * Returns the sum of the weights of all elements
+	 * @return the sum of the weights of all elements
+	 */
+	public double totalWeight(){
+		return this.weights.total();
+	}
+
+
+	/**
+	 * Inserts the given element into the tree with the given weight. If the element is already in the tree, its weight is changed instead.
+	 * @param w the weight of the element
+	 * @param el the element to insert
+	 */
+	public void insert(double w, T el){
+		Integer pos = this.positions.get(el);
+		if(pos != null){
+			this.weights.set(pos, w);
+			return;
+		}
+		if(this.size == this.elements.length){
+			Object [] nElements = new Object[this.elements.length*2];
+			System.arraycopy(this.elements, 0, nElements, 0, this.size);
+			this.elements = nElements;
+		}
+		this.elements[this.size] = el;
+		this.positions.put(el, this.size);
+		this.weights.set(this.size, w);
+		this.size++;
+	}
+
+
+	/**
+	 * Changes the weight of the given element.
+	 * @param element the element whose weight should be changed.
+	 * @param w the new weight of the element.
+	 */
+	public void changeWeight(T element, double w){
+		Integer pos = this.positions.get(element);
+		if(pos == null){
+			throw new RuntimeException("Cannot change the weight of an element that is not in the tree: " + element);
+		}
+		this.weights.set(pos, w);
+	}
+
+
+	/**
+	 * Removes the given element from the tree. Has no effect if the element is not in the tree.
+	 * @param element the element to remove
+	 */
+	public void remove(T element){
+		Integer pos = this.positions.get(element);
+		if(pos != null){
+			this.removeAt(pos);
+		}
+	}
+
+
+	/**
+	 * Samples an element according to a probability defined by the relative weight of objects from the tree and returns it
+	 * @return a sampled element, or null if the tree is empty
+	 */
+	public T sample(){
+		int pos = this.samplePosition();
+		if(pos == -1){
+			return null;
+		}
+		return this.element(pos);
+	}
+
+
+	/**
+	 * Samples an element according to a probability defined by the relative weight of objects, removes it from the tree, and returns it.
+	 * @return a sampled element, or null if the tree is empty
+	 */
+	public T poll(){
+		int pos = this.samplePosition();
+		if(pos == -1){
+			return null;
+		}
+		T el = this.element(pos);
+		this.removeAt(pos);
+		return el;
+	}
+
+
+	/**
+	 * Removes all elements from the tree.
+	 */
+	public void clear(){
+		for(int i = 0; i < this.size; i++){
+			this.elements[i] = null;
+		}
+		this.size = 0;
+		this.positions.clear();
+		this.weights.clear();
+	}
+
+
+	/**
+	 * Samples the position of an element in the element array
+	 * @return the position of the sampled element, or -1 if the tree is empty
+	 */
+	protected int samplePosition(){
+		if(this.size == 0){
+			return -1;
+		}
+		int pos = this.weights.sample(this.rand);
+		if(pos == -1){
+			//all weights are zero
+			return 0;
+		}
+		return pos;
+	}
+
+
+	/**
+	 * Removes the element at the given position of the element array, moving the last element into its place.
+	 * @param pos the position of the element to remove
+	 */
+	protected void removeAt(int pos){
+		int last = this.size-1;
+		this.positions.remove(this.element(pos));
+		if(pos != last){
+			T moved = this.element(last);
+			this.elements[pos] = moved;
+			this.positions.put(moved, pos);
+			this.weights.set(pos, this.weights.get(last));
+		}
+		this.elements[last] = null;
+		this.weights.set(last, 0.);
+		this.size--;
+	}
+
+
+	/**
+	 * Returns the element at the given position of the element array
+	 * @param pos the position
+	 * @return the element at the position
+	 */
+	@SuppressWarnings("unchecked")
+	protected T element(int pos){
+		return (T)this.elements[pos];
+	}
+
+}
@@ -0,0 +1,126 @@
+package burlap.datastructures;
+
+import java.util.Arrays;
+
+
+/**
+ * A growable list of primitive double values. Unlike a {@link java.util.List} of {@link Double} objects, values are stored unboxed in a
+ * single array, so each value takes 8 bytes and appending a value does not allocate anything unless the array has to grow, in which case its
+ * capacity is doubled.
+ *
+ */
+public class DoubleArrayList {
+
+	/**
+	 * The values; only the first {@link #size} are in use
+	 */
+	protected double []			values;
+
+	/**
+	 * The number of values in the list
+	 */
+	protected int				size = 0;
+
+
+	/**
+	 * Initializes with space for 16 values.
+	 */
+	public DoubleArrayList(){
+		this(16);
+	}
+
+
+	/**
+	 * Initializes.
+	 * @param initialCapacity the number of values for which space is initially reserved
+	 */
+	public DoubleArrayList(int initialCapacity){
+		this.values = new double[Math.max(initialCapacity, 1)];
+	}
+
+
+	/**
+	 * Returns the number of values in the list
+	 * @return the number of values in the list
+	 */
+	public int size(){
+		return this.size;
+	}
+
+
+	/**
+	 * Appends a value to the end of the list.
+	 * @param v the value to append
+	 */
+	public void add(double v){
+		if(this.size == this.values.length){
+			this.values = Arrays.copyOf(this.values, this.values.length*2);
+		}
+		this.values[this.size++] = v;
+	}
+
+
+	/**
+	 * Returns the value at the given index
+	 * @param i the index, which must be on [0, {@link #size()})
+	 * @return the value at the given index
+	 */
+	public double get(int i){
+		if(i >= this.size){
+			throw new IndexOutOfBoundsException("Index " + i + " is out of bounds for a list of size " + this.size);
+		}
+		return this.values[i];
+	}
+
+
+	/**
+	 * Sets the value at the given index
+	 * @param i the index, which must be on [0, {@link #size()})
+	 * @param v the new value
+	 */
+	public void set(int i, double v){
+		if(i >= this.size){
+			throw new IndexOutOfBoundsException("Index " + i + " is out of bounds for a list of size " + this.size);
+		}
+		this.values[i] = v;
+	}
+
+
+	/**
+	 * Returns the last value of the list, or the given default if the list is empty
+	 * @param defaultValue the value returned if the list is empty
+	 * @return the last value of the list, or the default value if the list is empty
+	 */
+	public double last(double defaultValue){
+		if(this.size == 0){
+			return defaultValue;
+		}
+		return this.values[this.size-1];
+	}
+
+
+	/**
+	 * Sorts the values of the list in ascending order.
+	 */
+	public void sort(){
+		Arrays.sort(this.values, 0, this.size);
+	}
+
+
+	/**
+	 * Removes all values from the list without releasing its space.
+	 */
+	public void clear(){
+		this.size = 0;
+	}
+
+
+	/**
+	 * Returns a copy of the values of the list as an array of length {@link #size()}.
+	 * @return a copy of the values
+	 */
+	public double [] toArray(){
+		return Arrays.copyOf(this.values, this.size);
+	}
+
+}
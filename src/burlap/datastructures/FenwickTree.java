@@ -0,0 +1,163 @@
+package burlap.datastructures;
+
+import java.util.Arrays;
+import java.util.Random;
+
+
+/**
+ * A {@link WeightTree} implemented as a Fenwick tree (binary indexed tree) [1], which stores prefix sums of the weights over ranges whose sizes are
+ * the lowest set bits of their indices. It uses a single array of capacity+1 partial sums plus an array of the weights themselves, about the same
+ * memory as a {@link SumTree} of the same capacity, and its prefix sum and find operations touch only O(lg(n)) entries of the
+ * partial sums.
+ * <p/>
+ * Setting a weight adds the difference from the previous weight to the partial sums, so after very many changes the partial sums may drift from the
+ * true sums by floating point error; {@link #rebuild()} recomputes them exactly from the weights in linear time. The capacity is doubled as needed
+ * when a weight beyond it is set.
+ * <p/>
+ * 1. Fenwick, Peter M. "A new data structure for cumulative frequency tables." Software: Practice and Experience 24.3 (1994): 327-336.
+ *
+ */
+public class FenwickTree implements WeightTree {
+
+	/**
+	 * The partial sums; entry k, for k on [1, capacity], holds the sum of the weights of indices on [k - lowbit(k), k)
+	 */
+	protected double []			partialSums;
+
+	/**
+	 * The weight of each index
+	 */
+	protected double []			weights;
+
+
+	/**
+	 * Initializes with space for 16 indices.
+	 */
+	public FenwickTree(){
+		this(16);
+	}
+
+
+	/**
+	 * Initializes with space for the given number of indices.
+	 * @param capacity the number of indices for which space is initially reserved
+	 */
+	public FenwickTree(int capacity){
+		capacity = Math.max(capacity, 1);
+		this.partialSums = new double[capacity+1];
+		this.weights = new double[capacity];
+	}
+
+
+	@Override
+	public int capacity(){
+		return this.weights.length;
+	}
+
+
+	@Override
+	public double get(int i){
+		if(i >= this.weights.length){
+			return 0.;
+		}
+		return this.weights[i];
+	}
+
+
+	@Override
+	public void set(int i, double w){
+		if(i >= this.weights.length){
+			this.grow(i+1);
+		}
+		double delta = w - this.weights[i];
+		this.weights[i] = w;
+		for(int k = i+1; k < this.partialSums.length; k += k & -k){
+			this.partialSums[k] += delta;
+		}
+	}
+
+
+	/**
+	 * Returns the sum of the weights of the indices before i
+	 * @param i the index, on [0, {@link #capacity()}]
+	 * @return the sum of the weights of the indices before i
+	 */
+	public double prefixSum(int i){
+		double sum = 0.;
+		for(int k = Math.min(i, this.weights.length); k > 0; k -= k & -k){
+			sum += this.partialSums[k];
+		}
+		return sum;
+	}
+
+
+	@Override
+	public double total(){
+		return this.prefixSum(this.weights.length);
+	}
+
+
+	@Override
+	public int find(double u){
+		int n = this.weights.length;
+		int step = Integer.highestOneBit(n);
+		int pos = 0;
+		for(; step > 0; step >>>= 1){
+			int next = pos + step;
+			if(next <= n && this.partialSums[next] <= u){
+				pos = next;
+				u -= this.partialSums[next];
+			}
+		}
+		//pos is now the number of indices whose cumulative weight is at most u, which is the index found unless u was at least the total weight
+		if(pos < n && this.weights[pos] > 0.){
+			return pos;
+		}
+		for(int i = Math.min(pos, n-1); i >= 0; i--){
+			if(this.weights[i] > 0.){
+				return i;
+			}
+		}
+		return -1;
+	}
+
+
+	@Override
+	public int sample(Random rand){
+		return this.find(rand.nextDouble() * this.total());
+	}
+
+
+	@Override
+	public void clear(){
+		Arrays.fill(this.partialSums, 0.);
+		Arrays.fill(this.weights, 0.);
+	}
+
+
+	/**
+	 * Recomputes all partial sums exactly from the weights, removing any accumulated floating point error.
+	 */
+	public void rebuild(){
+		Arrays.fill(this.partialSums, 0.);
+		for(int k = 1; k < this.partialSums.length; k++){
+			this.partialSums[k] += this.weights[k-1];
+			int parent = k + (k & -k);
+			if(parent < this.partialSums.length){
+				this.partialSums[parent] += this.partialSums[k];
+			}
+		}
+	}
+
+
+	/**
+	 * Grows the tree to have at least the given capacity, keeping the current weights.
+	 * @param n the minimum capacity
+	 */
+	protected void grow(int n){
+		this.weights = Arrays.copyOf(this.weights, Math.max(n, this.weights.length*2));
+		this.partialSums = new double[this.weights.length+1];
+		this.rebuild();
+	}
+
+}
@@ -14,6 +14,8 @@ import burlap.debugtools.RandomFactory;
  * A class for performing sampling of a set of objects at O(lg(n)) time. Elements can be added and removed dynamically. The "weights" of the objects
  * should be positive values, but do not have to specify a probability distribution. The sampling will be performed according to the relative weight
  * of all objects.
+ * <p/>
+ * For large numbers of elements, {@link ArrayStochasticTree} provides the same operations backed by arrays instead of node objects.
  * @author James MacGlashan
  *
  * @param <T> any Java object that will be sampled
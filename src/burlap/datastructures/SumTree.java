@@ -0,0 +1,138 @@
+package burlap.datastructures;
+
+import java.util.Arrays;
+import java.util.Random;
+
+
+/**
+ * A {@link WeightTree} stored as an implicit complete binary tree in a single double array. The leaves hold the weights and every internal node holds
+ * the sum of its two children, so node 1 holds the total weight, the children of node k are nodes 2k and 2k+1, and the weight of index i is stored at
+ * node {@link #capacity()}+i. Setting a weight recomputes the sums on the path from its leaf to the root from the children, so the sums do not accumulate
+ * floating point error however many times the weights change. Finding an index descends from the root, choosing the child whose range contains the
+ * query value.
+ * <p/>
+ * The capacity is always a power of two and is doubled as needed when a weight beyond it is set.
+ *
+ */
+public class SumTree implements WeightTree {
+
+	/**
+	 * The tree nodes; node 0 is unused
+	 */
+	protected double []			nodes;
+
+	/**
+	 * The number of leaves of the tree
+	 */
+	protected int				numLeaves;
+
+
+	/**
+	 * Initializes with space for 16 indices.
+	 */
+	public SumTree(){
+		this(16);
+	}
+
+
+	/**
+	 * Initializes with space for at least the given number of indices.
+	 * @param capacity the number of indices for which space is initially reserved
+	 */
+	public SumTree(int capacity){
+		this.numLeaves = 1;
+		while(this.numLeaves < capacity){
+			this.numLeaves *= 2;
+		}
+		this.nodes = new double[2*this.numLeaves];
+	}
+
+
+	@Override
+	public int capacity(){
+		return this.numLeaves;
+	}
+
+
+	@Override
+	public double get(int i){
+		if(i >= this.numLeaves){
+			return 0.;
+		}
+		return this.nodes[this.numLeaves+i];
+	}
+
+
+	@Override
+	public void set(int i, double w){
+		if(i >= this.numLeaves){
+			this.grow(i+1);
+		}
+		int node = this.numLeaves + i;
+		this.nodes[node] = w;
+		node >>>= 1;
+		while(node >= 1){
+			this.nodes[node] = this.nodes[2*node] + this.nodes[2*node+1];
+			node >>>= 1;
+		}
+	}
+
+
+	@Override
+	public double total(){
+		return this.nodes[1];
+	}
+
+
+	@Override
+	public int find(double u){
+		if(this.nodes[1] <= 0.){
+			return -1;
+		}
+		int node = 1;
+		while(node < this.numLeaves){
+			int left = 2*node;
+			//the right child is skipped if it has no weight so that floating point error cannot select a zero weight index
+			if(u < this.nodes[left] || this.nodes[left+1] <= 0.){
+				node = left;
+			}
+			else{
+				u -= this.nodes[left];
+				node = left+1;
+			}
+		}
+		return node - this.numLeaves;
+	}
+
+
+	@Override
+	public int sample(Random rand){
+		return this.find(rand.nextDouble() * this.nodes[1]);
+	}
+
+
+	@Override
+	public void clear(){
+		Arrays.fill(this.nodes, 0.);
+	}
+
+
+	/**
+	 * Grows the tree to have at least the given number of leaves, keeping the current weights.
+	 * @param n the minimum number of leaves
+	 */
+	protected void grow(int n){
+		int nLeaves = this.numLeaves;
+		while(nLeaves < n){
+			nLeaves *= 2;
+		}
+		double [] nNodes = new double[2*nLeaves];
+		System.arraycopy(this.nodes, this.numLeaves, nNodes, nLeaves, this.numLeaves);
+		for(int node = nLeaves-1; node >= 1; node--){
+			nNodes[node] = nNodes[2*node] + nNodes[2*node+1];
+		}
+		this.nodes = nNodes;
+		this.numLeaves = nLeaves;
+	}
+
+}
@@ -0,0 +1,67 @@
+package burlap.datastructures;
+
+import java.util.Random;
+
+
+/**
+ * An interface for array backed trees of non-negative weights indexed by dense integers on [0, {@link #capacity()}) that support changing a weight and
+ * finding or sampling an index in proportion to its weight in O(lg(n)) time without any per-element objects. Indices whose weight has never been set
+ * have weight zero and are never sampled. Implementations grow their capacity as needed when a weight beyond it is set.
+ *
+ */
+public interface WeightTree {
+
+	/**
+	 * Returns the number of indices for which space is reserved
+	 * @return the number of indices for which space is reserved
+	 */
+	public int capacity();
+
+
+	/**
+	 * Returns the weight of an index
+	 * @param i the index
+	 * @return the weight of the index
+	 */
+	public double get(int i);
+
+
+	/**
+	 * Sets the weight of an index, growing the capacity if necessary
+	 * @param i the index
+	 * @param w the non-negative weight of the index
+	 */
+	public void set(int i, double w);
+
+
+	/**
+	 * Returns the sum of all weights
+	 * @return the sum of all weights
+	 */
+	public double total();
+
+
+	/**
+	 * Returns the index at which the cumulative weight first exceeds u, that is, the index i for which the sum of the weights of indices before i
+	 * is at most u and the sum of the weights of indices up to and including i is greater than u. If u is at least the total weight, which can
+	 * happen from floating point error, the last index with a positive weight is returned. Returns -1 if all weights are zero.
+	 * @param u a value on [0, {@link #total()})
+	 * @return the index at which the cumulative weight first exceeds u
+	 */
+	public int find(double u);
+
+
+	/**
+	 * Samples an index with probability proportional to its weight. Returns -1 if all weights are zero.
+	 * @param rand the random number generator to use
+	 * @return the sampled index
+	 */
+	public int sample(Random rand);
+
+
+	/**
+	 * Sets all weights to zero.
+	 */
+	public void clear();
+
+}
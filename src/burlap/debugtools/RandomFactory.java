@@ -1,6 +1,8 @@
 package burlap.debugtools;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 
 
@@ -14,6 +16,24 @@ import java.util.*;
  * To synchronize, just seed either a mapped random generator or the default in the
  * main method and use the get method to retrieve the random object for all other
  * classes. To break the fixed sequence, just construct it without a seed
+ * <p/>
+ * A thread can be given its own factory with {@link #setThreadFactory(RandomFactory)}, after which the static methods called from that thread
+ * use that factory instead of the shared one. A factory created with a base seed ({@link #RandomFactory(long)}) seeds every generator that
+ * is not explicitly seeded from the base seed and the generator's id, so all code that obtains its generators from the factory inside that
+ * thread gets the same independent random sequences on every run. This is how concurrent experiment trials are made reproducible.
+ * <p/>
+ * The generators that a base-seeded factory creates without an explicit seed are {@link XoshiroRandom} streams, which are much faster than
+ * {@link Random} because they are not synchronized, and so must only be used by the thread that owns the factory. To give each worker thread
+ * or trial of a parallel computation its own factory, split one with {@link #split(long)}: the split factories are derived
+ * deterministically from the parent's base seed and the index, so a seeded computation is reproducible however its work is scheduled.
+ * Explicitly seeded generators still use {@link Random}, so seeded sequential code produces the same numbers as before.
+ * <p/>
+ * A factory without a base seed, such as the shared factory, gives each thread its own generator for each id that has not been explicitly
+ * seeded, so threads that draw from an unseeded generator at every step do not contend for the atomic seed of one shared {@link Random}.
+ * These per-thread generators are still {@link Random} objects, because many classes keep the generator they get in a field and may
+ * later be used from another thread. Explicitly seeded generators are shared by all threads, so that seeding a generator in the
+ * main method still fixes the sequence of all code that uses it. The generators are kept in concurrent maps, so getting a generator
+ * never takes a lock.
  * 
  * 
  * @author James MacGlashan
@@ -24,19 +44,40 @@ public class RandomFactory {
 	private static RandomFactory factory = new RandomFactory();
 	
 	/**
-	 * A default random number generator
+	 * The factories that have been set for individual threads
 	 */
-	Random defaultRandom_;
+	private static final ThreadLocal<RandomFactory> threadFactories = new ThreadLocal<RandomFactory>();
 	
 	/**
-	 * The set of random number generators that have been constructed for different int codes
+	 * The seed from which generators that are not explicitly seeded are seeded, or null if they are seeded arbitrarily
 	 */
-	Map <Integer, Random> intMapped;
+	Long baseSeed;
 	
 	/**
-	 * The set of random number generators that have been constructed for different String codes
+	 * A default random number generator shared by all threads; null if it has not been seeded or, for a factory without a base seed,
+	 * if each thread uses its own default generator
 	 */
-	Map <String, Random> stringMapped;
+	volatile Random defaultRandom_;
+	
+	/**
+	 * The set of random number generators shared by all threads that have been constructed for different int codes
+	 */
+	ConcurrentMap <Integer, Random> intMapped;
+	
+	/**
+	 * The set of random number generators shared by all threads that have been constructed for different String codes
+	 */
+	ConcurrentMap <String, Random> stringMapped;
+	
+	/**
+	 * The generators of each thread that have not been explicitly seeded; only used if this factory has no base seed
+	 */
+	final ThreadLocal<ThreadGenerators> threadGenerators = new ThreadLocal<ThreadGenerators>(){
+		@Override
+		protected ThreadGenerators initialValue(){
+			return new ThreadGenerators();
+		}
+	};
 	
 	
 	/**
@@ -67,7 +108,7 @@ public class RandomFactory {
 	 * @return the default random number generator.
 	 */
 	public static Random getDefault(){
-		return factory.ingetDefault();
+		return current().ingetDefault();
 	}
 	
 	/**
@@ -76,7 +117,7 @@ public class RandomFactory {
 	 * @return the default random number generator
 	 */
 	public static Random seedDefault(long seed){
-		return factory.inseedDefault(seed);
+		return current().inseedDefault(seed);
 	}
 	
 	
@@ -86,7 +127,7 @@ public class RandomFactory {
 	 * @return the default random generator
 	 */
 	public static Random getOrSeedDefault(long seed){
-		return factory.ingetOrSeedDefault(seed);
+		return current().ingetOrSeedDefault(seed);
 	}
 	
 	/**
@@ -95,7 +136,7 @@ public class RandomFactory {
 	 * @return the random generator
 	 */
 	public static Random getMapped(int id){
-		return factory.ingetMapped(id);
+		return current().ingetMapped(id);
 	}
 	
 	
@@ -106,7 +147,7 @@ public class RandomFactory {
 	 * @return the random generator
 	 */
 	public static Random seedMapped(int id, long seed){
-		return factory.inseedMapped(id, seed);
+		return current().inseedMapped(id, seed);
 	}
 	
 	
@@ -117,7 +158,7 @@ public class RandomFactory {
 	 * @return the random generator
 	 */
 	public static Random getOrSeedMapped(int id, long seed){
-		return factory.ingetOrSeedMapped(id, seed);
+		return current().ingetOrSeedMapped(id, seed);
 	}
 	
 	
@@ -128,7 +169,7 @@ public class RandomFactory {
 	 * @return the random generator
 	 */
 	public static Random getMapped(String id){
-		return factory.ingetMapped(id);
+		return current().ingetMapped(id);
 	}
 	
 	
@@ -139,7 +180,7 @@ public class RandomFactory {
 	 * @return the random generator
 	 */
 	public static Random seedMapped(String id, long seed){
-		return factory.inseedMapped(id, seed);
+		return current().inseedMapped(id, seed);
 	}
 	
 	
@@ -150,14 +191,70 @@ public class RandomFactory {
 	 * @return the random generator
 	 */
 	public static Random getOrSeedMapped(String id, long seed){
-		return factory.ingetOrSeedMapped(id, seed);
+		return current().ingetOrSeedMapped(id, seed);
+	}
+	
+	
+	
+	
+	
+	
+	
+	
+	
+	
+	
+	/**
+	 * Sets the factory used by the static methods of this class when they are called from the current thread. Passing null makes the
+	 * current thread use the shared factory again.
+	 * @param threadFactory the factory for the current thread, or null to use the shared factory
+	 */
+	public static void setThreadFactory(RandomFactory threadFactory){
+		if(threadFactory == null){
+			threadFactories.remove();
+		}
+		else{
+			threadFactories.set(threadFactory);
+		}
 	}
 	
 	
+	/**
+	 * Returns the factory used by the static methods of this class when they are called from the current thread
+	 * @return the factory set for the current thread, or the shared factory if none is set
+	 */
+	public static RandomFactory current(){
+		RandomFactory f = threadFactories.get();
+		if(f != null){
+			return f;
+		}
+		return factory;
+	}
 	
 	
+	/**
+	 * Returns a new factory split from the current thread's factory for the given index. See {@link #insplit(long)}.
+	 * @param index the index of the split factory, such as a worker or trial number
+	 * @return a new factory split from the current thread's factory
+	 */
+	public static RandomFactory split(long index){
+		return current().insplit(index);
+	}
 	
 	
+	/**
+	 * Deterministically derives a seed from a seed and an index, such as a trial or worker number, so that nearby seeds and indices give
+	 * unrelated seeds. Uses the SplitMix64 finalizer.
+	 * @param seed the seed
+	 * @param index the index
+	 * @return the derived seed
+	 */
+	public static long deriveSeed(long seed, long index){
+		long z = seed + (index + 1) * 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
 	
 	
 	
@@ -168,8 +265,44 @@ public class RandomFactory {
 	 */
 	public RandomFactory(){
 		defaultRandom_ = null;
-		intMapped = new HashMap<Integer, Random>();
-		stringMapped = new HashMap<String, Random>();
+		intMapped = new ConcurrentHashMap<Integer, Random>();
+		stringMapped = new ConcurrentHashMap<String, Random>();
+	}
+	
+	
+	/**
+	 * Initializes the map structures with a base seed from which every generator that is not explicitly seeded is seeded, using
+	 * the generator's id, so that the generators of two factories with the same base seed produce the same sequences.
+	 * @param baseSeed the seed from which generators that are not explicitly seeded are seeded
+	 */
+	public RandomFactory(long baseSeed){
+		this();
+		this.baseSeed = baseSeed;
+	}
+	
+	
+	/**
+	 * Creates a generator that is not explicitly seeded from this factory's base seed and the given salt. Only used if this
+	 * factory has a base seed.
+	 * @param salt a value that identifies the generator
+	 * @return a new random generator
+	 */
+	protected Random newUnseeded(long salt){
+		return new XoshiroRandom(deriveSeed(this.baseSeed, salt));
+	}
+	
+	
+	/**
+	 * Returns a new base-seeded factory whose base seed is derived from this factory's base seed and the given index, so that splitting the
+	 * same factory with the same index always gives a factory with the same generators, and different indices give independent generators.
+	 * If this factory has no base seed, the split factory's seed is derived from a number drawn from this factory's default generator instead, which is
+	 * reproducible if the default generator is seeded.
+	 * @param index the index of the split factory, such as a worker or trial number
+	 * @return a new factory split from this factory
+	 */
+	public RandomFactory insplit(long index){
+		long seed = this.baseSeed != null ? this.baseSeed : this.ingetDefault().nextLong();
+		return new RandomFactory(deriveSeed(seed, index));
 	}
 	
 	
@@ -178,10 +311,23 @@ public class RandomFactory {
 	 * @return the default random number generator.
 	 */
 	public Random ingetDefault(){
-		if(defaultRandom_ == null){
-			defaultRandom_ = new Random();
+		Random r = defaultRandom_;
+		if(r != null){
+			return r;
+		}
+		if(this.baseSeed == null){
+			ThreadGenerators generators = this.threadGenerators.get();
+			if(generators.defaultRandom == null){
+				generators.defaultRandom = new Random();
+			}
+			return generators.defaultRandom;
+		}
+		synchronized(this){
+			if(defaultRandom_ == null){
+				defaultRandom_ = this.newUnseeded(0x5DEECE66DL);
+			}
+			return defaultRandom_;
 		}
-		return defaultRandom_;
 	}
 	
 	
@@ -191,8 +337,9 @@ public class RandomFactory {
 	 * @return the default random number generator
 	 */
 	public Random inseedDefault(long seed){
-		defaultRandom_ = new Random(seed);
-		return defaultRandom_;
+		Random r = new Random(seed);
+		defaultRandom_ = r;
+		return r;
 	}
 	
 	
@@ -202,10 +349,19 @@ public class RandomFactory {
 	 * @return the default random generator
 	 */
 	public Random ingetOrSeedDefault(long seed){
-		if(defaultRandom_ == null){
-			defaultRandom_ = new Random(seed);
+		Random r = defaultRandom_;
+		if(r != null){
+			return r;
+		}
+		if(this.baseSeed == null && this.threadGenerators.get().defaultRandom != null){
+			return this.threadGenerators.get().defaultRandom;
+		}
+		synchronized(this){
+			if(defaultRandom_ == null){
+				defaultRandom_ = new Random(seed);
+			}
+			return defaultRandom_;
 		}
-		return defaultRandom_;
 	}
 	
 	
@@ -220,11 +376,18 @@ public class RandomFactory {
 		if(r != null){
 			return r;
 		}
-		else{
-			r = new Random();
-			intMapped.put(id, r);
+		if(this.baseSeed == null){
+			Map<Integer, Random> threadMapped = this.threadGenerators.get().intMapped;
+			r = threadMapped.get(id);
+			if(r == null){
+				r = new Random();
+				threadMapped.put(id, r);
+			}
+			return r;
 		}
-		return r;
+		r = this.newUnseeded(id);
+		Random existing = intMapped.putIfAbsent(id, r);
+		return existing != null ? existing : r;
 	}
 	
 	
@@ -252,11 +415,15 @@ public class RandomFactory {
 		if(r != null){
 			return r;
 		}
-		else{
-			r = new Random(seed);
-			intMapped.put(id, r);
+		if(this.baseSeed == null){
+			r = this.threadGenerators.get().intMapped.get(id);
+			if(r != null){
+				return r;
+			}
 		}
-		return r;
+		r = new Random(seed);
+		Random existing = intMapped.putIfAbsent(id, r);
+		return existing != null ? existing : r;
 	}
 	
 	
@@ -267,15 +434,22 @@ public class RandomFactory {
 	 * @return the random generator
 	 */
 	public Random ingetMapped(String id){
-		Random r = intMapped.get(id);
+		Random r = stringMapped.get(id);
 		if(r != null){
 			return r;
 		}
-		else{
-			r = new Random();
-			stringMapped.put(id, r);
+		if(this.baseSeed == null){
+			Map<String, Random> threadMapped = this.threadGenerators.get().stringMapped;
+			r = threadMapped.get(id);
+			if(r == null){
+				r = new Random();
+				threadMapped.put(id, r);
+			}
+			return r;
 		}
-		return r;
+		r = this.newUnseeded(((long)id.hashCode() << 32) ^ 0x2545F4914F6CDD1DL);
+		Random existing = stringMapped.putIfAbsent(id, r);
+		return existing != null ? existing : r;
 	}
 	
 	
@@ -303,11 +477,41 @@ public class RandomFactory {
 		if(r != null){
 			return r;
 		}
-		else{
-			r = new Random(seed);
-			stringMapped.put(id, r);
+		if(this.baseSeed == null){
+			r = this.threadGenerators.get().stringMapped.get(id);
+			if(r != null){
+				return r;
+			}
 		}
-		return r;
+		r = new Random(seed);
+		Random existing = stringMapped.putIfAbsent(id, r);
+		return existing != null ? existing : r;
+	}
+	
+	
+	
+	/**
+	 * The generators that one thread uses from a factory without a base seed for the ids that have not been explicitly seeded.
+	 * Only accessed by its thread, so it is not synchronized.
+	 *
+	 */
+	static class ThreadGenerators {
+		
+		/**
+		 * The thread's default generator
+		 */
+		Random defaultRandom;
+		
+		/**
+		 * The thread's generators for int codes
+		 */
+		Map <Integer, Random> intMapped = new HashMap<Integer, Random>();
+		
+		/**
+		 * The thread's generators for String codes
+		 */
+		Map <String, Random> stringMapped = new HashMap<String, Random>();
+		
 	}
 	
 	
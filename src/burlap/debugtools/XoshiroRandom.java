@@ -0,0 +1,112 @@
+package burlap.debugtools;
+
+import java.util.Random;
+
+
+/**
+ * A fast random number generator that implements the xoshiro256** algorithm [1] as a subclass of {@link Random}, so that it can be used anywhere
+ * a {@link Random} is expected. Its 256 bits of state are initialized from a 64 bit seed with the SplitMix64 generator, so that similar seeds
+ * give unrelated sequences. The generator has a period of 2^256 - 1 and passes the common statistical test suites, which the 48 bit linear
+ * congruential generator of {@link Random} does not.
+ * <p/>
+ * Unlike {@link Random}, this generator is not thread-safe: its state is updated without any synchronization or atomic operations, which
+ * makes it much faster, but each instance must only be used by one thread at a time. Code that needs random numbers in several threads
+ * should give each thread its own generator, either with {@link #split()} or from a {@link RandomFactory} set for the thread with
+ * {@link RandomFactory#setThreadFactory(RandomFactory)}. Since the split generators are derived deterministically from the parent, a
+ * computation that splits a seeded generator once per worker or trial produces the same random numbers on every run regardless of how the
+ * work is scheduled.
+ * <p/>
+ * 1. Blackman, David, and Sebastiano Vigna. "Scrambled linear pseudorandom number generators." arXiv preprint arXiv:1805.01407 (2018).
+ *
+ */
+public class XoshiroRandom extends Random {
+
+	private static final long serialVersionUID = 1L;
+
+	//the state is deliberately not initialized in its declarations because Random's constructor calls setSeed before they would run
+	private long s0;
+	private long s1;
+	private long s2;
+	private long s3;
+
+
+	/**
+	 * Initializes with an arbitrary seed.
+	 */
+	public XoshiroRandom(){
+		this(System.nanoTime() ^ new Random().nextLong());
+	}
+
+
+	/**
+	 * Initializes with the given seed.
+	 * @param seed the seed
+	 */
+	public XoshiroRandom(long seed){
+		super(seed); //Random's constructor calls setSeed, which sets the state
+	}
+
+
+	/**
+	 * Reseeds this generator, setting its state from the seed with the SplitMix64 generator.
+	 * @param seed the seed
+	 */
+	@Override
+	public void setSeed(long seed){
+		super.setSeed(seed); //clears the cached Gaussian value
+		long x = seed;
+		this.s0 = splitMix(x += 0x9E3779B97F4A7C15L);
+		this.s1 = splitMix(x += 0x9E3779B97F4A7C15L);
+		this.s2 = splitMix(x += 0x9E3779B97F4A7C15L);
+		this.s3 = splitMix(x + 0x9E3779B97F4A7C15L);
+	}
+
+
+	/**
+	 * Returns a new generator whose seed is drawn from this generator, so that it produces a sequence independent of this generator's.
+	 * Splitting a seeded generator the same number of times always gives the same generators.
+	 * @return a new generator split from this generator
+	 */
+	public XoshiroRandom split(){
+		return new XoshiroRandom(this.nextLong());
+	}
+
+
+	@Override
+	public long nextLong(){
+		long result = Long.rotateLeft(this.s1 * 5, 7) * 9;
+		long t = this.s1 << 17;
+		this.s2 ^= this.s0;
+		this.s3 ^= this.s1;
+		this.s1 ^= this.s2;
+		this.s0 ^= this.s3;
+		this.s2 ^= t;
+		this.s3 = Long.rotateLeft(this.s3, 45);
+		return result;
+	}
+
+
+	@Override
+	protected int next(int bits){
+		return (int)(this.nextLong() >>> (64 - bits));
+	}
+
+
+	@Override
+	public double nextDouble(){
+		return (this.nextLong() >>> 11) * 0x1.0p-53;
+	}
+
+
+	/**
+	 * The SplitMix64 finalizer, which scrambles the bits of a value.
+	 * @param z the value
+	 * @return the scrambled value
+	 */
+	private static long splitMix(long z){
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+}
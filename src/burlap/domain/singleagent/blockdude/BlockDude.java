@@ -404,6 +404,20 @@ public class BlockDude implements DomainGenerator{
 	 * @param maxx the maximum x dimensionality of the world
 	 */
 	public static void moveHorizontally(State s, int dx, int maxx){
+		moveHorizontally(s, dx, maxx, handles(s));
+	}
+
+
+	/**
+	 * Modifies state s to be the result of a horizontal movement. This method will also move any held blocks
+	 * by the agent and cause the agent (and its held block) to fall if it walks off a cliff. The agent will not
+	 * be able to move to an x position < 0 or >= the maximum x dimensionality
+	 * @param s the state to modify
+	 * @param dx the change in x direction; should only be +1 (east) or -1 (west).
+	 * @param maxx the maximum x dimensionality of the world
+	 * @param atts the handles of the block dude attributes
+	 */
+	public static void moveHorizontally(State s, int dx, int maxx, BDAttributeHandles atts){
 
 		if(dx != 1 && dx != -1){
 			throw new RuntimeException("Agent horizontal movement can only be a difference of +1 (east) or -1 (west).");
@@ -411,19 +425,19 @@ public class BlockDude implements DomainGenerator{
 
 		ObjectInstance agent = s.getObjectsOfClass(CLASSAGENT).get(0);
 		ObjectInstance bricks = s.getFirstObjectOfClass(CLASSBRICKS);
-		int [] map = bricks.getIntArrayValForAttribute(ATTMAP);
+		int [] map = atts.bricksMap.viewIntArray(bricks);
 
 		//always set direction
 		if(dx > 0){
-			agent.setValue(ATTDIR, 1);
+			atts.agentDir.setInt(agent, 1);
 		}
 		else{
-			agent.setValue(ATTDIR, 0);
+			atts.agentDir.setInt(agent, 0);
 		}
 
 
-		int ax = agent.getIntValForAttribute(ATTX);
-		int ay = agent.getIntValForAttribute(ATTY);
+		int ax = atts.agentX.getInt(agent);
+		int ay = atts.agentY.getInt(agent);
 
 		int nx = ax+dx;
 
@@ -431,7 +445,7 @@ public class BlockDude implements DomainGenerator{
 			return;
 		}
 
-		int heightAtNX = greatestHeightBelow(s, map, maxx, nx, ay);
+		int heightAtNX = greatestHeightBelow(s, map, maxx, nx, ay, atts);
 
 
 		//can only move if new position is below agent height
@@ -442,12 +456,12 @@ public class BlockDude implements DomainGenerator{
 		int ny = heightAtNX + 1; //stand on top of stack
 
 
-		agent.setValue(ATTX, nx);
-		agent.setValue(ATTY, ny);
+		atts.agentX.setInt(agent, nx);
+		atts.agentY.setInt(agent, ny);
 
 
 
-		moveCarriedBlockToNewAgentPosition(s, agent, ax, ay, nx, ny);
+		moveCarriedBlockToNewAgentPosition(s, agent, ax, ay, nx, ny, atts);
 
 
 	}
@@ -461,15 +475,28 @@ public class BlockDude implements DomainGenerator{
 	 * @param maxx the maximum x dimensionality of the world
 	 */
 	public static void moveUp(State s, int maxx){
+		moveUp(s, maxx, handles(s));
+	}
+
+
+	/**
+	 * Modifies state s to be the result of a vertical movement, that will result in the agent onto the platform adjacent
+	 * to its current location in the direction the agent is facing, provided that there is room for the agent (and any block
+	 * it's holding) to step onto it.
+	 * @param s the state to modify.
+	 * @param maxx the maximum x dimensionality of the world
+	 * @param atts the handles of the block dude attributes
+	 */
+	public static void moveUp(State s, int maxx, BDAttributeHandles atts){
 
 		ObjectInstance agent = s.getObjectsOfClass(CLASSAGENT).get(0);
 		ObjectInstance bricks = s.getFirstObjectOfClass(CLASSBRICKS);
-		int [] map = bricks.getIntArrayValForAttribute(ATTMAP);
+		int [] map = atts.bricksMap.viewIntArray(bricks);
 
-		int ax = agent.getIntValForAttribute(ATTX);
-		int ay = agent.getIntValForAttribute(ATTY);
-		int dir = agent.getIntValForAttribute(ATTDIR);
-		boolean holding = agent.getBooleanValForAttribute(ATTHOLD);
+		int ax = atts.agentX.getInt(agent);
+		int ay = atts.agentY.getInt(agent);
+		int dir = atts.agentDir.getInt(agent);
+		boolean holding = atts.agentHold.getBoolean(agent);
 
 		if(dir == 0){
 			dir = -1;
@@ -484,17 +511,17 @@ public class BlockDude implements DomainGenerator{
 
 		int clearing = holding ? ny+1 : ny;
 
-		int heightAtNX = greatestHeightBelow(s, map, maxx, nx, clearing);
+		int heightAtNX = greatestHeightBelow(s, map, maxx, nx, clearing, atts);
 
 		//in order to move up, the height of world in new x position must be at the same current agent position
 		if(heightAtNX != ay){
 			return ; //not a viable move up condition, so do nothing
 		}
 
-		agent.setValue(ATTX, nx);
-		agent.setValue(ATTY, ny);
+		atts.agentX.setInt(agent, nx);
+		atts.agentY.setInt(agent, ny);
 
-		moveCarriedBlockToNewAgentPosition(s, agent, ax, ay, nx, ny);
+		moveCarriedBlockToNewAgentPosition(s, agent, ax, ay, nx, ny, atts);
 
 
 	}
@@ -506,19 +533,31 @@ public class BlockDude implements DomainGenerator{
 	 * @param maxx the maximum x dimensionality of the world
 	 */
 	public static void pickupBlock(State s, int maxx){
+		pickupBlock(s, maxx, handles(s));
+	}
+
+
+	/**
+	 * Modifies state s to be the result of the pick up action. If no block that is clear (i.e., no block on top of it)
+	 * is in front of the agent, then a block is not picked up.
+	 * @param s the state to modify.
+	 * @param maxx the maximum x dimensionality of the world
+	 * @param atts the handles of the block dude attributes
+	 */
+	public static void pickupBlock(State s, int maxx, BDAttributeHandles atts){
 
 		ObjectInstance agent = s.getObjectsOfClass(CLASSAGENT).get(0);
 		ObjectInstance bricks = s.getFirstObjectOfClass(CLASSBRICKS);
-		int [] map = bricks.getIntArrayValForAttribute(ATTMAP);
+		int [] map = atts.bricksMap.viewIntArray(bricks);
 
-		int holding = agent.getIntValForAttribute(ATTHOLD);
+		int holding = atts.agentHold.getInt(agent);
 		if(holding == 1){
 			return; //already holding a block
 		}
 
-		int ax = agent.getIntValForAttribute(ATTX);
-		int ay = agent.getIntValForAttribute(ATTY);
-		int dir = agent.getIntValForAttribute(ATTDIR);
+		int ax = atts.agentX.getInt(agent);
+		int ay = atts.agentY.getInt(agent);
+		int dir = atts.agentDir.getInt(agent);
 
 		if(dir == 0){
 			dir = -1;
@@ -526,12 +565,12 @@ public class BlockDude implements DomainGenerator{
 
 		//can only pick up blocks one unit away in agent facing direction and at same height as agent
 		int bx = ax+dir;
-		ObjectInstance block = getBlockAt(s, bx, ay);
+		ObjectInstance block = getBlockAt(s, bx, ay, atts);
 
 		if(block != null){
 
 			//make sure that block is the top of the world, otherwise something is stacked above it and you cannot pick it up
-			ObjectInstance blockAbove = getBlockAt(s, bx, ay+1);
+			ObjectInstance blockAbove = getBlockAt(s, bx, ay+1, atts);
 			if(blockAbove != null){
 				return;
 			}
@@ -540,10 +579,10 @@ public class BlockDude implements DomainGenerator{
 				return;
 			}
 
-			block.setValue(ATTX, ax);
-			block.setValue(ATTY, ay+1);
+			atts.blockX.setInt(block, ax);
+			atts.blockY.setInt(block, ay+1);
 
-			agent.setValue(ATTHOLD, 1);
+			atts.agentHold.setInt(agent, 1);
 
 		}
 
@@ -557,19 +596,31 @@ public class BlockDude implements DomainGenerator{
 	 * @param maxx the maximum x dimensionality of the world
 	 */
 	public static void putdownBlock(State s, int maxx){
+		putdownBlock(s, maxx, handles(s));
+	}
+
+
+	/**
+	 * Modifies state s to put down the block the agent is holding. If the agent is not holding a block or there is
+	 * not a clear place to put the block, then the action does nothing.
+	 * @param s the state to modify
+	 * @param maxx the maximum x dimensionality of the world
+	 * @param atts the handles of the block dude attributes
+	 */
+	public static void putdownBlock(State s, int maxx, BDAttributeHandles atts){
 
 		ObjectInstance agent = s.getObjectsOfClass(CLASSAGENT).get(0);
 		ObjectInstance bricks = s.getFirstObjectOfClass(CLASSBRICKS);
-		int [] map = bricks.getIntArrayValForAttribute(ATTMAP);
+		int [] map = atts.bricksMap.viewIntArray(bricks);
 
-		int holding = agent.getIntValForAttribute(ATTHOLD);
+		int holding = atts.agentHold.getInt(agent);
 		if(holding == 0){
 			return; //not holding a block
 		}
 
-		int ax = agent.getIntValForAttribute(ATTX);
-		int ay = agent.getIntValForAttribute(ATTY);
-		int dir = agent.getIntValForAttribute(ATTDIR);
+		int ax = atts.agentX.getInt(agent);
+		int ay = atts.agentY.getInt(agent);
+		int dir = atts.agentDir.getInt(agent);
 
 		if(dir == 0){
 			dir = -1;
@@ -578,16 +629,16 @@ public class BlockDude implements DomainGenerator{
 
 		int nx = ax + dir;
 
-		int heightAtNX = greatestHeightBelow(s, map, maxx, nx, ay+1);
+		int heightAtNX = greatestHeightBelow(s, map, maxx, nx, ay+1, atts);
 		if(heightAtNX > ay){
 			return; //cannot drop block if walled off from throw position
 		}
 
-		ObjectInstance block = getBlockAt(s, ax, ay+1); //carried block is one unit above agent
-		block.setValue(ATTX, nx);
-		block.setValue(ATTY, heightAtNX+1); //stacked on top of this position
+		ObjectInstance block = getBlockAt(s, ax, ay+1, atts); //carried block is one unit above agent
+		atts.blockX.setInt(block, nx);
+		atts.blockY.setInt(block, heightAtNX+1); //stacked on top of this position
 
-		agent.setValue(ATTHOLD, 0);
+		atts.agentHold.setInt(agent, 0);
 
 	}
 
@@ -602,12 +653,27 @@ public class BlockDude implements DomainGenerator{
 	 * @param ny the new y position of the *agent*
 	 */
 	protected static void moveCarriedBlockToNewAgentPosition(State s, ObjectInstance agent, int ax, int ay, int nx, int ny){
-		int holding = agent.getIntValForAttribute(ATTHOLD);
+		moveCarriedBlockToNewAgentPosition(s, agent, ax, ay, nx, ny, handles(s));
+	}
+
+
+	/**
+	 * Moves a carried block to a new position of the agent
+	 * @param s the state to modify
+	 * @param agent the agent {@link burlap.oomdp.core.ObjectInstance}
+	 * @param ax the previous x position of the agent
+	 * @param ay the previous y position of the agent
+	 * @param nx the new x position of the *agent*
+	 * @param ny the new y position of the *agent*
+	 * @param atts the handles of the block dude attributes
+	 */
+	protected static void moveCarriedBlockToNewAgentPosition(State s, ObjectInstance agent, int ax, int ay, int nx, int ny, BDAttributeHandles atts){
+		int holding = atts.agentHold.getInt(agent);
 		if(holding == 1){
 			//then move the box being carried too
-			ObjectInstance carriedBlock = getBlockAt(s, ax, ay+1); //carried block is one unit above agent
-			carriedBlock.setValue(ATTX, nx);
-			carriedBlock.setValue(ATTY, ny+1);
+			ObjectInstance carriedBlock = getBlockAt(s, ax, ay+1, atts); //carried block is one unit above agent
+			atts.blockX.setInt(carriedBlock, nx);
+			atts.blockY.setInt(carriedBlock, ny+1);
 		}
 	}
 
@@ -621,11 +687,25 @@ public class BlockDude implements DomainGenerator{
 	 * @return the {@link burlap.oomdp.core.ObjectInstance} for the corresponding block object in the state at the given position or null if one does not exist.
 	 */
 	protected static ObjectInstance getBlockAt(State s, int x, int y){
+		return getBlockAt(s, x, y, handles(s));
+	}
+
+
+	/**
+	 * Finds a block object in the {@link State} located at the provided position and returns its
+	 * {@link burlap.oomdp.core.ObjectInstance}. If not block at the location exists, then null is returned.
+	 * @param s the state to check
+	 * @param x the x position
+	 * @param y the y position
+	 * @param atts the handles of the block dude attributes
+	 * @return the {@link burlap.oomdp.core.ObjectInstance} for the corresponding block object in the state at the given position or null if one does not exist.
+	 */
+	protected static ObjectInstance getBlockAt(State s, int x, int y, BDAttributeHandles atts){
 
 		List<ObjectInstance> blocks = s.getObjectsOfClass(CLASSBLOCK);
 		for(ObjectInstance block : blocks){
-			int bx = block.getIntValForAttribute(ATTX);
-			int by = block.getIntValForAttribute(ATTY);
+			int bx = atts.blockX.getInt(block);
+			int by = atts.blockY.getInt(block);
 			if(bx == x && by == y){
 				return block;
 			}
@@ -647,6 +727,22 @@ public class BlockDude implements DomainGenerator{
 	 * @return the maximum height or zero if there are no bricks or blocks at x, y<=maxY.
 	 */
 	public static int greatestHeightBelow(State s, int [] map, int xWidth, int x, int maxY){
+		return greatestHeightBelow(s, map, xWidth, x, maxY, handles(s));
+	}
+
+
+	/**
+	 * Returns the maximum height of the world at the provided x coordinate that is <= the value maxY. The height
+	 * is based on either the highest brick at x and y<=maxY, or the highest block at x and y<=maxY.
+	 * @param s the state to search
+	 * @param map the brick map
+	 * @param xWidth the maximum x dimensionality of the world
+	 * @param x the x position to search
+	 * @param maxY the y position under which the highest point is searched
+	 * @param atts the handles of the block dude attributes
+	 * @return the maximum height or zero if there are no bricks or blocks at x, y<=maxY.
+	 */
+	public static int greatestHeightBelow(State s, int [] map, int xWidth, int x, int maxY, BDAttributeHandles atts){
 
 		int maxHeight = 0;
 		for(int y = maxY; y >= 0; y--){
@@ -660,9 +756,9 @@ public class BlockDude implements DomainGenerator{
 			//then check the blocks
 			List<ObjectInstance> blocks = s.getObjectsOfClass(CLASSBLOCK);
 			for(ObjectInstance b : blocks){
-				int bx = b.getIntValForAttribute(ATTX);
+				int bx = atts.blockX.getInt(b);
 				if(bx == x){
-					int by = b.getIntValForAttribute(ATTY);
+					int by = atts.blockY.getInt(b);
 					if(by > maxHeight && by <= maxY){
 						maxHeight = by;
 					}
@@ -675,6 +771,58 @@ public class BlockDude implements DomainGenerator{
 	}
 
 
+	/**
+	 * Returns the {@link BDAttributeHandles} of the domain of the given state.
+	 * @param s a block dude state
+	 * @return the {@link BDAttributeHandles} of the domain of the state
+	 */
+	protected static BDAttributeHandles handles(State s){
+		return new BDAttributeHandles(s.getObjectsOfClass(CLASSAGENT).get(0).getObjectClass().domain);
+	}
+
+
+	/**
+	 * The {@link AttributeHandle}s of the attributes of the block dude object classes, resolved once so that the domain dynamics and propositional
+	 * functions do not look up attributes by name or copy the brick map.
+	 */
+	public static class BDAttributeHandles{
+
+		public final AttributeHandle agentX;
+		public final AttributeHandle agentY;
+		public final AttributeHandle agentDir;
+		public final AttributeHandle agentHold;
+
+		public final AttributeHandle blockX;
+		public final AttributeHandle blockY;
+
+		public final AttributeHandle exitX;
+		public final AttributeHandle exitY;
+
+		public final AttributeHandle bricksMap;
+
+
+		/**
+		 * Resolves the handles from the object classes of the given block dude domain.
+		 * @param domain the block dude domain
+		 */
+		public BDAttributeHandles(Domain domain){
+			this.agentX = domain.getAttributeHandle(CLASSAGENT, ATTX);
+			this.agentY = domain.getAttributeHandle(CLASSAGENT, ATTY);
+			this.agentDir = domain.getAttributeHandle(CLASSAGENT, ATTDIR);
+			this.agentHold = domain.getAttributeHandle(CLASSAGENT, ATTHOLD);
+
+			this.blockX = domain.getAttributeHandle(CLASSBLOCK, ATTX);
+			this.blockY = domain.getAttributeHandle(CLASSBLOCK, ATTY);
+
+			this.exitX = domain.getAttributeHandle(CLASSEXIT, ATTX);
+			this.exitY = domain.getAttributeHandle(CLASSEXIT, ATTY);
+
+			this.bricksMap = domain.getAttributeHandle(CLASSBRICKS, ATTMAP);
+		}
+
+	}
+
+
 	/**
 	 * A class for performing a horizontal movement either east or west.
 	 */
@@ -683,6 +831,7 @@ public class BlockDude implements DomainGenerator{
 		protected int dir;
 		protected boolean useSemiDeep;
 		protected int maxx;
+		protected BDAttributeHandles atts;
 
 		/**
 		 * Initializes.
@@ -695,6 +844,7 @@ public class BlockDude implements DomainGenerator{
 			this.dir = dir;
 			this.useSemiDeep = BlockDude.this.useSemiDeep;
 			this.maxx = BlockDude.this.maxx;
+			this.atts = new BDAttributeHandles(domain);
 		}
 
 
@@ -707,13 +857,13 @@ public class BlockDude implements DomainGenerator{
 
 				ObjectInstance agent = s.getFirstObjectOfClass(CLASSAGENT);
 				deepCopiedObjects.add(agent);
-				int ah = agent.getIntValForAttribute(ATTHOLD);
+				int ah = atts.agentHold.getInt(agent);
 
 				if(ah == 1){
-					int ax = agent.getIntValForAttribute(ATTX);
-					int ay = agent.getIntValForAttribute(ATTY);
+					int ax = atts.agentX.getInt(agent);
+					int ay = atts.agentY.getInt(agent);
 
-					ObjectInstance block = getBlockAt(s, ax, ay+1);
+					ObjectInstance block = getBlockAt(s, ax, ay+1, atts);
 					if(block != null){
 						deepCopiedObjects.add(block);
 					}
@@ -730,7 +880,7 @@ public class BlockDude implements DomainGenerator{
 
 		@Override
 		protected State performActionHelper(State s, String[] params) {
-			moveHorizontally(s, dir, maxx);
+			moveHorizontally(s, dir, maxx, atts);
 			return s;
 		}
 
@@ -748,11 +898,13 @@ public class BlockDude implements DomainGenerator{
 
 		protected boolean useSemiDeep;
 		protected int maxx;
+		protected BDAttributeHandles atts;
 
 		public MoveUpAction(Domain domain){
 			super(ACTIONUP, domain, "");
 			this.useSemiDeep = BlockDude.this.useSemiDeep;
 			this.maxx = BlockDude.this.maxx;
+			this.atts = new BDAttributeHandles(domain);
 		}
 
 		@Override
@@ -764,13 +916,13 @@ public class BlockDude implements DomainGenerator{
 
 				ObjectInstance agent = s.getFirstObjectOfClass(CLASSAGENT);
 				deepCopiedObjects.add(agent);
-				int ah = agent.getIntValForAttribute(ATTHOLD);
+				int ah = atts.agentHold.getInt(agent);
 
 				if(ah == 1){
-					int ax = agent.getIntValForAttribute(ATTX);
-					int ay = agent.getIntValForAttribute(ATTY);
+					int ax = atts.agentX.getInt(agent);
+					int ay = atts.agentY.getInt(agent);
 
-					ObjectInstance block = getBlockAt(s, ax, ay+1);
+					ObjectInstance block = getBlockAt(s, ax, ay+1, atts);
 					if(block != null){
 						deepCopiedObjects.add(block);
 					}
@@ -786,7 +938,7 @@ public class BlockDude implements DomainGenerator{
 
 		@Override
 		protected State performActionHelper(State s, String[] params) {
-			moveUp(s, maxx);
+			moveUp(s, maxx, atts);
 			return s;
 		}
 
@@ -804,11 +956,13 @@ public class BlockDude implements DomainGenerator{
 
 		protected boolean useSemiDeep;
 		protected int maxx;
+		protected BDAttributeHandles atts;
 
 		public PickupAction(Domain domain){
 			super(ACTIONPICKUP, domain, "");
 			this.useSemiDeep = BlockDude.this.useSemiDeep;
 			this.maxx = BlockDude.this.maxx;
+			this.atts = new BDAttributeHandles(domain);
 		}
 
 
@@ -821,18 +975,18 @@ public class BlockDude implements DomainGenerator{
 
 				ObjectInstance agent = s.getFirstObjectOfClass(CLASSAGENT);
 				deepCopiedObjects.add(agent);
-				int ah = agent.getIntValForAttribute(ATTHOLD);
+				int ah = atts.agentHold.getInt(agent);
 
 				if(ah == 0){
-					int ax = agent.getIntValForAttribute(ATTX);
-					int ay = agent.getIntValForAttribute(ATTY);
-					int dir = agent.getIntValForAttribute(ATTDIR);
+					int ax = atts.agentX.getInt(agent);
+					int ay = atts.agentY.getInt(agent);
+					int dir = atts.agentDir.getInt(agent);
 
 					if(dir == 0){
 						dir = -1;
 					}
 
-					ObjectInstance block = getBlockAt(s, ax+dir, ay);
+					ObjectInstance block = getBlockAt(s, ax+dir, ay, atts);
 					if(block != null){
 						deepCopiedObjects.add(block);
 					}
@@ -849,7 +1003,7 @@ public class BlockDude implements DomainGenerator{
 
 		@Override
 		protected State performActionHelper(State s, String[] params) {
-			pickupBlock(s, maxx);
+			pickupBlock(s, maxx, atts);
 			return s;
 		}
 
@@ -867,11 +1021,13 @@ public class BlockDude implements DomainGenerator{
 
 		protected boolean useSemiDeep;
 		protected int maxx;
+		protected BDAttributeHandles atts;
 
 		public PutdownAction(Domain domain){
 			super(ACTIONPUTDOWN, domain, "");
 			this.useSemiDeep = BlockDude.this.useSemiDeep;
 			this.maxx = BlockDude.this.maxx;
+			this.atts = new BDAttributeHandles(domain);
 		}
 
 
@@ -884,13 +1040,13 @@ public class BlockDude implements DomainGenerator{
 
 				ObjectInstance agent = s.getFirstObjectOfClass(CLASSAGENT);
 				deepCopiedObjects.add(agent);
-				int ah = agent.getIntValForAttribute(ATTHOLD);
+				int ah = atts.agentHold.getInt(agent);
 
 				if(ah == 1){
-					int ax = agent.getIntValForAttribute(ATTX);
-					int ay = agent.getIntValForAttribute(ATTY);
+					int ax = atts.agentX.getInt(agent);
+					int ay = atts.agentY.getInt(agent);
 
-					ObjectInstance block = getBlockAt(s, ax, ay+1);
+					ObjectInstance block = getBlockAt(s, ax, ay+1, atts);
 					if(block != null){
 						deepCopiedObjects.add(block);
 					}
@@ -907,7 +1063,7 @@ public class BlockDude implements DomainGenerator{
 
 		@Override
 		protected State performActionHelper(State s, String[] params) {
-			putdownBlock(s, maxx);
+			putdownBlock(s, maxx, atts);
 			return s;
 		}
 
@@ -924,8 +1080,11 @@ public class BlockDude implements DomainGenerator{
 	 */
 	public class HoldingBlockPF extends PropositionalFunction{
 
+		protected BDAttributeHandles atts;
+
 		public HoldingBlockPF(Domain domain) {
 			super(PFHOLDINGBLOCK, domain, new String[]{CLASSAGENT, CLASSBLOCK});
+			this.atts = new BDAttributeHandles(domain);
 		}
 
 
@@ -935,12 +1094,12 @@ public class BlockDude implements DomainGenerator{
 			ObjectInstance agent = st.getObject(params[0]);
 			ObjectInstance block = st.getObject(params[1]);
 
-			int ax = agent.getIntValForAttribute(ATTX);
-			int ay = agent.getIntValForAttribute(ATTY);
-			int ah = agent.getIntValForAttribute(ATTHOLD);
+			int ax = atts.agentX.getInt(agent);
+			int ay = atts.agentY.getInt(agent);
+			int ah = atts.agentHold.getInt(agent);
 
-			int bx = block.getIntValForAttribute(ATTX);
-			int by = block.getIntValForAttribute(ATTY);
+			int bx = atts.blockX.getInt(block);
+			int by = atts.blockY.getInt(block);
 
 			if(ax == bx && ay == by-1 && ah == 1){
 				return true;
@@ -960,8 +1119,11 @@ public class BlockDude implements DomainGenerator{
 	 */
 	public class AtExitPF extends PropositionalFunction{
 
+		protected BDAttributeHandles atts;
+
 		public AtExitPF(Domain domain) {
 			super(PFATEXIT, domain, new String[]{CLASSAGENT,CLASSEXIT});
+			this.atts = new BDAttributeHandles(domain);
 		}
 
 
@@ -972,12 +1134,12 @@ public class BlockDude implements DomainGenerator{
 			ObjectInstance agent = st.getObject(params[0]);
 			ObjectInstance exit = st.getObject(params[1]);
 
-			int ax = agent.getIntValForAttribute(ATTX);
-			int ay = agent.getIntValForAttribute(ATTY);
+			int ax = atts.agentX.getInt(agent);
+			int ay = atts.agentY.getInt(agent);
 
 
-			int ex = exit.getIntValForAttribute(ATTX);
-			int ey = exit.getIntValForAttribute(ATTY);
+			int ex = atts.exitX.getInt(exit);
+			int ey = atts.exitY.getInt(exit);
 
 			if(ax == ex && ay == ey){
 				return true;
@@ -354,12 +354,26 @@ public class CartPoleDomain implements DomainGenerator {
 	 * @return the input state, which has been modified to the next state after one time step of simulation.
 	 */
 	public static State moveClassicModel(State s, double dir, CPPhysicsParams physParams){
+		return moveClassicModel(s, dir, physParams, new CPAttributeHandles(s.getFirstObjectOfClass(CLASSCARTPOLE).getObjectClass()));
+	}
+	
+	
+	/**
+	 * Simulates the physics of the classic model for one time step, reading and writing the cart pole attributes through pre-resolved
+	 * attribute handles. See {@link #moveClassicModel(State, double, CPPhysicsParams)}.
+	 * @param s the current state from which one time step of physics will be simulated.
+	 * @param dir the direction of force applied; should be -1, or 1 and is multiplied to this objects movementForceMag parameter. 0 would cause no force.
+	 * @param physParams the {@link burlap.domain.singleagent.cartpole.CartPoleDomain.CPPhysicsParams} object specifying the physics to use for movement
+	 * @param atts the handles of the cart pole attributes
+	 * @return the input state, which has been modified to the next state after one time step of simulation.
+	 */
+	public static State moveClassicModel(State s, double dir, CPPhysicsParams physParams, CPAttributeHandles atts){
 		
 		ObjectInstance cartPole = s.getFirstObjectOfClass(CLASSCARTPOLE);
-		double x0 = cartPole.getRealValForAttribute(ATTX);
-		double xv0 = cartPole.getRealValForAttribute(ATTV);
-		double a0 = cartPole.getRealValForAttribute(ATTANGLE);
-		double av0 = cartPole.getRealValForAttribute(ATTANGLEV);
+		double x0 = atts.x.getReal(cartPole);
+		double xv0 = atts.v.getReal(cartPole);
+		double a0 = atts.angle.getReal(cartPole);
+		double av0 = atts.angleV.getReal(cartPole);
 		
 		double f = dir * physParams.movementForceMag;
 		
@@ -424,11 +438,11 @@ public class CartPoleDomain implements DomainGenerator {
 		
 		//set new values
 		if(physParams.isFiniteTrack){
-			cartPole.setValue(ATTX, xf);
+			atts.x.setReal(cartPole, xf);
 		}
-		cartPole.setValue(ATTV, xvf);
-		cartPole.setValue(ATTANGLE, af);
-		cartPole.setValue(ATTANGLEV, avf);
+		atts.v.setReal(cartPole, xvf);
+		atts.angle.setReal(cartPole, af);
+		atts.angleV.setReal(cartPole, avf);
 		
 		
 		return s;
@@ -445,13 +459,27 @@ public class CartPoleDomain implements DomainGenerator {
 	 * @return the input state, which has been modified to the next state after one time step of simulation.
 	 */
 	public static State moveCorrectModel(State s, double dir, CPPhysicsParams physParams){
+		return moveCorrectModel(s, dir, physParams, new CPAttributeHandles(s.getFirstObjectOfClass(CLASSCARTPOLE).getObjectClass()));
+	}
+	
+	
+	/**
+	 * Simulates the physics of the corrected model for one time step, reading and writing the cart pole attributes through pre-resolved
+	 * attribute handles. See {@link #moveCorrectModel(State, double, CPPhysicsParams)}.
+	 * @param s the current state from which one time step of physics will be simulated.
+	 * @param dir the direction of force applied; should be -1, or 1 and is multiplied to this objects movementForceMag parameter. 0 would cause no force.
+	 * @param physParams the {@link burlap.domain.singleagent.cartpole.CartPoleDomain.CPPhysicsParams} object specifying the physics to use for movement
+	 * @param atts the handles of the cart pole attributes
+	 * @return the input state, which has been modified to the next state after one time step of simulation.
+	 */
+	public static State moveCorrectModel(State s, double dir, CPPhysicsParams physParams, CPAttributeHandles atts){
 		
 		ObjectInstance cartPole = s.getFirstObjectOfClass(CLASSCARTPOLE);
-		double x0 = cartPole.getRealValForAttribute(ATTX);
-		double xv0 = cartPole.getRealValForAttribute(ATTV);
-		double a0 = cartPole.getRealValForAttribute(ATTANGLE);
-		double av0 = cartPole.getRealValForAttribute(ATTANGLEV);
-		double nsgn0 = cartPole.getRealValForAttribute(ATTNORMSGN);
+		double x0 = atts.x.getReal(cartPole);
+		double xv0 = atts.v.getReal(cartPole);
+		double a0 = atts.angle.getReal(cartPole);
+		double av0 = atts.angleV.getReal(cartPole);
+		double nsgn0 = atts.normSgn.getReal(cartPole);
 		
 		double f = dir * physParams.movementForceMag;
 		
@@ -494,12 +522,12 @@ public class CartPoleDomain implements DomainGenerator {
 		
 		//set new values
 		if(physParams.isFiniteTrack){
-			cartPole.setValue(ATTX, xf);
+			atts.x.setReal(cartPole, xf);
 		}
-		cartPole.setValue(ATTV, xvf);
-		cartPole.setValue(ATTANGLE, af);
-		cartPole.setValue(ATTANGLEV, avf);
-		cartPole.setValue(ATTNORMSGN, n);
+		atts.v.setReal(cartPole, xvf);
+		atts.angle.setReal(cartPole, af);
+		atts.angleV.setReal(cartPole, avf);
+		atts.normSgn.setReal(cartPole, n);
 		
 		
 		
@@ -600,6 +628,54 @@ public class CartPoleDomain implements DomainGenerator {
 	
 	
 	
+	/**
+	 * The {@link AttributeHandle}s of the attributes of the cart pole class, resolved once so that the physics simulation does not look up
+	 * attributes by name.
+	 *
+	 */
+	public static class CPAttributeHandles{
+		
+		/**
+		 * The handle of the cart position attribute
+		 */
+		public final AttributeHandle x;
+		
+		/**
+		 * The handle of the cart velocity attribute
+		 */
+		public final AttributeHandle v;
+		
+		/**
+		 * The handle of the pole angle attribute
+		 */
+		public final AttributeHandle angle;
+		
+		/**
+		 * The handle of the pole angular velocity attribute
+		 */
+		public final AttributeHandle angleV;
+		
+		/**
+		 * The handle of the normal force sign attribute, or null if the class does not have it (the classic model)
+		 */
+		public final AttributeHandle normSgn;
+		
+		
+		/**
+		 * Resolves the handles from the given cart pole object class.
+		 * @param cartPoleClass the cart pole object class
+		 */
+		public CPAttributeHandles(ObjectClass cartPoleClass){
+			this.x = cartPoleClass.getAttributeHandle(ATTX);
+			this.v = cartPoleClass.getAttributeHandle(ATTV);
+			this.angle = cartPoleClass.getAttributeHandle(ATTANGLE);
+			this.angleV = cartPoleClass.getAttributeHandle(ATTANGLEV);
+			this.normSgn = cartPoleClass.hasAttribute(ATTNORMSGN) ? cartPoleClass.getAttributeHandle(ATTNORMSGN) : null;
+		}
+		
+	}
+	
+	
 	/**
 	 * A movement action which applies force in the specified direction.
 	 * @author James MacGlashan
@@ -614,6 +690,11 @@ public class CartPoleDomain implements DomainGenerator {
 		 */
 		double dir;
 		
+		/**
+		 * The handles of the cart pole attributes
+		 */
+		CPAttributeHandles atts;
+		
 		/**
 		 * Initializes.
 		 * @param name the name of the action.
@@ -625,14 +706,15 @@ public class CartPoleDomain implements DomainGenerator {
 			super(name, domain, "");
 			this.dir = dir;
 			this.physParams = physParams;
+			this.atts = new CPAttributeHandles(domain.getObjectClass(CLASSCARTPOLE));
 		}
 
 		@Override
 		protected State performActionHelper(State s, String[] params) {
 			if(physParams.useCorrectModel){
-				return CartPoleDomain.moveCorrectModel(s, this.dir, this.physParams);
+				return CartPoleDomain.moveCorrectModel(s, this.dir, this.physParams, this.atts);
 			}
-			return CartPoleDomain.moveClassicModel(s, this.dir, this.physParams);
+			return CartPoleDomain.moveClassicModel(s, this.dir, this.physParams, this.atts);
 		}
 
 
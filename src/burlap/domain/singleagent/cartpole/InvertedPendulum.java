@@ -5,6 +5,7 @@ import java.util.List;
 import burlap.debugtools.RandomFactory;
 import burlap.oomdp.auxiliary.DomainGenerator;
 import burlap.oomdp.core.Attribute;
+import burlap.oomdp.core.AttributeHandle;
 import burlap.oomdp.core.Domain;
 import burlap.oomdp.core.ObjectClass;
 import burlap.oomdp.core.ObjectInstance;
@@ -190,10 +191,25 @@ public class InvertedPendulum implements DomainGenerator {
 	 * @param physParams the {@link burlap.domain.singleagent.cartpole.InvertedPendulum.IPPhysicsParams} object specifying the physics to use for movement
 	 */
 	public static void updateState(State s, double controlForce, IPPhysicsParams physParams){
+		ObjectClass pendulumClass = s.getFirstObjectOfClass(CLASSPENDULUM).getObjectClass();
+		updateState(s, controlForce, physParams, pendulumClass.getAttributeHandle(ATTANGLE), pendulumClass.getAttributeHandle(ATTANGLEV));
+	}
+	
+	
+	/**
+	 * Updates the given state object given the control force, reading and writing the pendulum's angle and angular velocity through
+	 * pre-resolved attribute handles.
+	 * @param s the input state
+	 * @param controlForce the control force acted upon the cart.
+	 * @param physParams the {@link burlap.domain.singleagent.cartpole.InvertedPendulum.IPPhysicsParams} object specifying the physics to use for movement
+	 * @param angleAtt the handle of the pendulum's angle attribute
+	 * @param angleVAtt the handle of the pendulum's angular velocity attribute
+	 */
+	public static void updateState(State s, double controlForce, IPPhysicsParams physParams, AttributeHandle angleAtt, AttributeHandle angleVAtt){
 		
 		ObjectInstance pend = s.getFirstObjectOfClass(CLASSPENDULUM);
-		double a0 = pend.getRealValForAttribute(ATTANGLE);
-		double av0 = pend.getRealValForAttribute(ATTANGLEV);
+		double a0 = angleAtt.getReal(pend);
+		double av0 = angleVAtt.getReal(pend);
 		
 		double alpha = 1./ (physParams.cartMass + physParams.poleMass);
 		
@@ -223,8 +239,8 @@ public class InvertedPendulum implements DomainGenerator {
 		}
 		
 		//set it
-		pend.setValue(ATTANGLE, af);
-		pend.setValue(ATTANGLEV, avf);
+		angleAtt.setReal(pend, af);
+		angleVAtt.setReal(pend, avf);
 		
 	}
 	
@@ -273,6 +289,16 @@ public class InvertedPendulum implements DomainGenerator {
 		 */
 		protected IPPhysicsParams physParams;
 		
+		/**
+		 * The handle of the pendulum's angle attribute
+		 */
+		protected AttributeHandle angleAtt;
+		
+		/**
+		 * The handle of the pendulum's angular velocity attribute
+		 */
+		protected AttributeHandle angleVAtt;
+		
 		/**
 		 * Initializes the force action
 		 * @param name the name of the action
@@ -284,6 +310,8 @@ public class InvertedPendulum implements DomainGenerator {
 			super(name, domain, "");
 			this.baseForce = force;
 			this.physParams = physParams;
+			this.angleAtt = domain.getAttributeHandle(CLASSPENDULUM, ATTANGLE);
+			this.angleVAtt = domain.getAttributeHandle(CLASSPENDULUM, ATTANGLEV);
 		}
 		
 		@Override
@@ -291,7 +319,7 @@ public class InvertedPendulum implements DomainGenerator {
 			
 			double roll = RandomFactory.getMapped(0).nextDouble() * (2 * physParams.actionNoise) - physParams.actionNoise;
 			double force = this.baseForce + roll;
-			InvertedPendulum.updateState(s, force, this.physParams);
+			InvertedPendulum.updateState(s, force, this.physParams, this.angleAtt, this.angleVAtt);
 			return s;
 		}
 		
@@ -408,17 +408,30 @@ public class FrostbiteDomain implements DomainGenerator{
 	 * @param yd the attempted Y position increment of the agent
 	 */
 	protected void move(State s, int xd, int yd) {
+		this.move(s, xd, yd, new FBAttributeHandles(s.getObjectsOfClass(AGENTCLASS).get(0).getObjectClass().domain));
+	}
+
+	/**
+	 * Attempts to move the agent into the given position, taking into account platforms and screen borders, using pre-resolved
+	 * attribute handles
+	 *
+	 * @param s    the current state
+	 * @param xd   the attempted X position increment of the agent
+	 * @param yd   the attempted Y position increment of the agent
+	 * @param atts the handles of the frostbite attributes
+	 */
+	protected void move(State s, int xd, int yd, FBAttributeHandles atts) {
 
 		ObjectInstance agent = s.getObjectsOfClass(AGENTCLASS).get(0);
-		int ax = agent.getIntValForAttribute(XATTNAME);
-		int ay = agent.getIntValForAttribute(YATTNAME);
-		int leftToJump = agent.getIntValForAttribute(HEIGHTATTNAME);
+		int ax = atts.agentX.getInt(agent);
+		int ay = atts.agentY.getInt(agent);
+		int leftToJump = atts.agentHeight.getInt(agent);
 
 		int nx = ax + xd * stepSize;
 		int ny = ay;
 
 		boolean inAir = leftToJump != 0;
-		int platformSpeedOnAgent = this.getLandedPlatformSpeed(s);
+		int platformSpeedOnAgent = this.getLandedPlatformSpeed(s, atts);
 
 		// Is a jump triggered while player is on the ground?
 		if (leftToJump == 0 && yd != 0) {
@@ -450,16 +463,16 @@ public class FrostbiteDomain implements DomainGenerator{
 			ny = ay;
 		}
 
-		agent.setValue(XATTNAME, nx);
-		agent.setValue(YATTNAME, ny);
-		agent.setValue(HEIGHTATTNAME, leftToJump);
+		atts.agentX.setInt(agent, nx);
+		atts.agentY.setInt(agent, ny);
+		atts.agentHeight.setInt(agent, leftToJump);
 
 		boolean justLanded = false;
 		if(inAir && leftToJump == 0){
 			justLanded = true;
 		}
 
-		update(s, leftToJump, justLanded, platformSpeedOnAgent);
+		update(s, leftToJump, justLanded, platformSpeedOnAgent, atts);
 
 		moveStep++;
 	}
@@ -467,31 +480,32 @@ public class FrostbiteDomain implements DomainGenerator{
 	/**
 	 * Executes update step on state. Handles everything that is not player specific.
 	 * @param s the state to apply the update step on
+	 * @param atts the handles of the frostbite attributes
 	 */
-	private void update(State s, int leftToJump, boolean justLanded, int platformSpeedOnAgent) {
+	private void update(State s, int leftToJump, boolean justLanded, int platformSpeedOnAgent, FBAttributeHandles atts) {
 		// Move the platforms
 		List<ObjectInstance> platforms = s.getObjectsOfClass(PLATFORMCLASS);
 		for (int i = 0; i < platforms.size(); i++) {
 			int directionL = ((i / numberPlatformCol) % 2 == 0) ? 1 : -1;
-			int x = platforms.get(i).getIntValForAttribute(XATTNAME) + directionL * platformSpeed;
+			int x = atts.platformX.getInt(platforms.get(i)) + directionL * platformSpeed;
 			if (x < 0)
 				x += gameWidth;
-			platforms.get(i).setValue(XATTNAME, x % gameWidth);
+			atts.platformX.setInt(platforms.get(i), x % gameWidth);
 		}
 
 		// Player landed
 		if (leftToJump == 0) {
 			// Just landed: Potentially activate some platforms
 			if (justLanded)
-				activatePlatforms(s);
+				activatePlatforms(s, atts);
 
 
 			// Termination conditions (only used to test the domain)
 			if (visualizingDomain) {
 				ObjectInstance agent = s.getObjectsOfClass(AGENTCLASS).get(0);
-				int ay = agent.getIntValForAttribute(YATTNAME) + agentSize / 2;
+				int ay = atts.agentY.getInt(agent) + agentSize / 2;
 				ObjectInstance igloo = s.getObjectsOfClass(IGLOOCLASS).get(0);
-				int building = igloo.getIntValForAttribute(BUILDINGATTNAME);
+				int building = atts.iglooBuilding.getInt(igloo);
 				if (platformSpeedOnAgent == 0 && ay > gameIceHeight) {
 					System.out.println("Game over.");
 					System.exit(0);
@@ -504,29 +518,30 @@ public class FrostbiteDomain implements DomainGenerator{
 
 		// If all platforms are active, deactivate them
 		for (int i = 0; i < platforms.size(); i++)
-			if (!platforms.get(i).getBooleanValue(ACTIVATEDATTNAME))
+			if (!atts.platformActivated.getBoolean(platforms.get(i)))
 				return;
 		for (int i = 0; i < platforms.size(); i++)
-			platforms.get(i).setValue(ACTIVATEDATTNAME, false);
+			atts.platformActivated.setBoolean(platforms.get(i), false);
 	}
 
 	/**
 	 * Activates platforms on which the user has landed (and the rest of the row).
 	 * @param s State on which to activate the platforms
+	 * @param atts the handles of the frostbite attributes
 	 */
-	private void activatePlatforms(State s) {
+	private void activatePlatforms(State s, FBAttributeHandles atts) {
 		ObjectInstance agent = s.getObjectsOfClass(AGENTCLASS).get(0);
-		int ax = agent.getIntValForAttribute(XATTNAME) + agentSize / 2;
-		int ay = agent.getIntValForAttribute(YATTNAME) + agentSize / 2;
+		int ax = atts.agentX.getInt(agent) + agentSize / 2;
+		int ay = atts.agentY.getInt(agent) + agentSize / 2;
 		List<ObjectInstance> platforms = s.getObjectsOfClass(PLATFORMCLASS);
 		for (int i = 0; i < platforms.size(); i++) {
 			ObjectInstance platform = platforms.get(i);
-			if (!platform.getBooleanValue(ACTIVATEDATTNAME))
-				if (pointInPlatform(ax, ay, platform.getIntValForAttribute(XATTNAME), platform.getIntValForAttribute(YATTNAME), platform.getIntValForAttribute(SIZEATTNAME))) {
+			if (!atts.platformActivated.getBoolean(platform))
+				if (pointInPlatform(ax, ay, atts.platformX.getInt(platform), atts.platformY.getInt(platform), atts.platformSize.getInt(platform))) {
 					for (int j = numberPlatformCol * (i / numberPlatformCol); j < numberPlatformCol * (1 + i / numberPlatformCol); j++)
-						platforms.get(j).setValue(ACTIVATEDATTNAME, true);
+						atts.platformActivated.setBoolean(platforms.get(j), true);
 					ObjectInstance igloo = s.getFirstObjectOfClass(IGLOOCLASS);
-					igloo.setValue(BUILDINGATTNAME, igloo.getIntValForAttribute(BUILDINGATTNAME) + 1);
+					atts.iglooBuilding.setInt(igloo, atts.iglooBuilding.getInt(igloo) + 1);
 					break;
 				}
 		}
@@ -535,16 +550,17 @@ public class FrostbiteDomain implements DomainGenerator{
 	/**
 	 * Checks whether the player is on a platform and return its platform speed if so.
 	 * @param s State on which the check is made
+	 * @param atts the handles of the frostbite attributes
 	 * @return 0 if the player is not on a platform. Otherwise returns the platform speed of the platform the player is on.
 	 */
-	private int getLandedPlatformSpeed(State s) {
+	private int getLandedPlatformSpeed(State s, FBAttributeHandles atts) {
 		ObjectInstance agent = s.getObjectsOfClass(AGENTCLASS).get(0);
-		int ax = agent.getIntValForAttribute(XATTNAME) + agentSize / 2;
-		int ay = agent.getIntValForAttribute(YATTNAME) + agentSize / 2;
+		int ax = atts.agentX.getInt(agent) + agentSize / 2;
+		int ay = atts.agentY.getInt(agent) + agentSize / 2;
 		List<ObjectInstance> platforms = s.getObjectsOfClass(PLATFORMCLASS);
 		for (int i = 0; i < platforms.size(); i++) {
 			ObjectInstance platform = platforms.get(i);
-			if (pointInPlatform(ax, ay, platform.getIntValForAttribute(XATTNAME), platform.getIntValForAttribute(YATTNAME), platform.getIntValForAttribute(SIZEATTNAME)))
+			if (pointInPlatform(ax, ay, atts.platformX.getInt(platform), atts.platformY.getInt(platform), atts.platformSize.getInt(platform)))
 				return ((i / numberPlatformCol) % 2 == 0) ? platformSpeed : -platformSpeed;
 		}
 		return 0;
@@ -582,6 +598,43 @@ public class FrostbiteDomain implements DomainGenerator{
 		return px > x && px < x + s && py > y && py < y + s;
 	}
 
+	/**
+	 * The {@link AttributeHandle}s of the attributes of the frostbite object classes, resolved once so that the domain dynamics and
+	 * propositional functions do not look up attributes by name.
+	 */
+	public static class FBAttributeHandles {
+
+		public final AttributeHandle agentX;
+		public final AttributeHandle agentY;
+		public final AttributeHandle agentHeight;
+
+		public final AttributeHandle platformX;
+		public final AttributeHandle platformY;
+		public final AttributeHandle platformSize;
+		public final AttributeHandle platformActivated;
+
+		public final AttributeHandle iglooBuilding;
+
+		/**
+		 * Resolves the handles from the object classes of the given frostbite domain.
+		 *
+		 * @param domain the frostbite domain
+		 */
+		public FBAttributeHandles(Domain domain) {
+			this.agentX = domain.getAttributeHandle(AGENTCLASS, XATTNAME);
+			this.agentY = domain.getAttributeHandle(AGENTCLASS, YATTNAME);
+			this.agentHeight = domain.getAttributeHandle(AGENTCLASS, HEIGHTATTNAME);
+
+			this.platformX = domain.getAttributeHandle(PLATFORMCLASS, XATTNAME);
+			this.platformY = domain.getAttributeHandle(PLATFORMCLASS, YATTNAME);
+			this.platformSize = domain.getAttributeHandle(PLATFORMCLASS, SIZEATTNAME);
+			this.platformActivated = domain.getAttributeHandle(PLATFORMCLASS, ACTIVATEDATTNAME);
+
+			this.iglooBuilding = domain.getAttributeHandle(IGLOOCLASS, BUILDINGATTNAME);
+		}
+
+	}
+
 	/**
 	 * An action class for moving the agent.
 	 */
@@ -597,6 +650,11 @@ public class FrostbiteDomain implements DomainGenerator{
 		 */
 		protected Random rand;
 
+		/**
+		 * The handles of the frostbite attributes
+		 */
+		protected FBAttributeHandles atts;
+
 
 		/**
 		 * Initializes for the given name, domain and actually direction probabilities the agent will go
@@ -609,6 +667,7 @@ public class FrostbiteDomain implements DomainGenerator{
 			super(name, domain, "");
 			this.directionProbs = directions.clone();
 			this.rand = RandomFactory.getMapped(0);
+			this.atts = new FBAttributeHandles(domain);
 		}
 
 		@Override
@@ -626,7 +685,7 @@ public class FrostbiteDomain implements DomainGenerator{
 			}
 
 			int[] dcomps = FrostbiteDomain.this.movementDirectionFromIndex(dir);
-			FrostbiteDomain.this.move(st, dcomps[0], dcomps[1]);
+			FrostbiteDomain.this.move(st, dcomps[0], dcomps[1], this.atts);
 
 			return st;
 		}
@@ -642,7 +701,7 @@ public class FrostbiteDomain implements DomainGenerator{
 				}
 				State ns = st.copy();
 				int[] dcomps = FrostbiteDomain.this.movementDirectionFromIndex(i);
-				FrostbiteDomain.this.move(ns, dcomps[0], dcomps[1]);
+				FrostbiteDomain.this.move(ns, dcomps[0], dcomps[1], this.atts);
 
 				//make sure this direction doesn't actually stay in the same place and replicate another no-op
 				boolean isNew = true;
@@ -669,6 +728,8 @@ public class FrostbiteDomain implements DomainGenerator{
 
 	public class ActionIdle extends Action {
 
+		protected FBAttributeHandles atts;
+
 		/**
 		 * Initializes the idle action.
 		 *
@@ -677,12 +738,13 @@ public class FrostbiteDomain implements DomainGenerator{
 		 */
 		public ActionIdle(String name, Domain domain) {
 			super(name, domain, "");
+			this.atts = new FBAttributeHandles(domain);
 		}
 
 
 		@Override
 		protected State performActionHelper(State st, String[] params) {
-			FrostbiteDomain.this.move(st, 0, 0);
+			FrostbiteDomain.this.move(st, 0, 0, this.atts);
 			return st;
 		}
 
@@ -693,6 +755,9 @@ public class FrostbiteDomain implements DomainGenerator{
 	}
 
 	public class OnPlatformPF extends PropositionalFunction {
+
+		protected FBAttributeHandles atts;
+
 		/**
 		 * Initializes to be evaluated on an agent object and platform object.
 		 *
@@ -701,6 +766,7 @@ public class FrostbiteDomain implements DomainGenerator{
 		 */
 		public OnPlatformPF(String name, Domain domain) {
 			super(name, domain, new String[]{AGENTCLASS, PLATFORMCLASS});
+			this.atts = new FBAttributeHandles(domain);
 		}
 
 
@@ -710,13 +776,13 @@ public class FrostbiteDomain implements DomainGenerator{
 			ObjectInstance agent = st.getObject(params[0]);
 			ObjectInstance platform = st.getObject(params[1]);
 
-			int x = platform.getIntValForAttribute(XATTNAME);
-			int y = platform.getIntValForAttribute(YATTNAME);
-			int s = platform.getIntValForAttribute(SIZEATTNAME);
+			int x = atts.platformX.getInt(platform);
+			int y = atts.platformY.getInt(platform);
+			int s = atts.platformSize.getInt(platform);
 
-			int ax = agent.getIntValForAttribute(XATTNAME) + agentSize / 2;
-			int ay = agent.getIntValForAttribute(YATTNAME) + agentSize / 2;
-			int ah = agent.getIntValForAttribute(HEIGHTATTNAME);
+			int ax = atts.agentX.getInt(agent) + agentSize / 2;
+			int ay = atts.agentY.getInt(agent) + agentSize / 2;
+			int ah = atts.agentHeight.getInt(agent);
 
 			if(ah != 0){
 				return false;
@@ -727,6 +793,9 @@ public class FrostbiteDomain implements DomainGenerator{
 	}
 
 	public class PlatformActivePF extends PropositionalFunction {
+
+		protected FBAttributeHandles atts;
+
 		/**
 		 * Initializes to be evaluated on an agent object and platform object.
 		 *
@@ -735,16 +804,20 @@ public class FrostbiteDomain implements DomainGenerator{
 		 */
 		public PlatformActivePF(String name, Domain domain) {
 			super(name, domain, new String[]{PLATFORMCLASS});
+			this.atts = new FBAttributeHandles(domain);
 		}
 
 		@Override
 		public boolean isTrue(State st, String[] params) {
 			ObjectInstance platform = st.getObject(params[0]);
-			return platform.getBooleanValue(ACTIVATEDATTNAME);
+			return atts.platformActivated.getBoolean(platform);
 		}
 	}
 
 	public class InWaterPF extends PropositionalFunction {
+
+		protected FBAttributeHandles atts;
+
 		/**
 		 * Initializes to be evaluated on an agent object.
 		 *
@@ -753,6 +826,7 @@ public class FrostbiteDomain implements DomainGenerator{
 		 */
 		public InWaterPF(String name, Domain domain) {
 			super(name, domain, new String[]{AGENTCLASS});
+			this.atts = new FBAttributeHandles(domain);
 		}
 
 
@@ -760,21 +834,24 @@ public class FrostbiteDomain implements DomainGenerator{
 		public boolean isTrue(State st, String[] params) {
 
 			ObjectInstance agent = st.getObject(params[0]);
-			int ah = agent.getIntValForAttribute(HEIGHTATTNAME);
+			int ah = atts.agentHeight.getInt(agent);
 
 			if (ah != 0)
 				return false;
 
 			// Agent is on a platform
-			if (getLandedPlatformSpeed(st) != 0)
+			if (getLandedPlatformSpeed(st, atts) != 0)
 				return false;
 
-			int ay = agent.getIntValForAttribute(YATTNAME) + agentSize / 2;
+			int ay = atts.agentY.getInt(agent) + agentSize / 2;
 			return ay >= gameIceHeight;
 		}
 	}
 
 	public class OnIcePF extends PropositionalFunction {
+
+		protected FBAttributeHandles atts;
+
 		/**
 		 * Initializes to be evaluated on an agent object.
 		 *
@@ -783,6 +860,7 @@ public class FrostbiteDomain implements DomainGenerator{
 		 */
 		public OnIcePF(String name, Domain domain) {
 			super(name, domain, new String[]{AGENTCLASS});
+			this.atts = new FBAttributeHandles(domain);
 		}
 
 
@@ -790,12 +868,15 @@ public class FrostbiteDomain implements DomainGenerator{
 		public boolean isTrue(State st, String[] params) {
 			ObjectInstance agent = st.getObject(params[0]);
 
-			int ay = agent.getIntValForAttribute(YATTNAME) + agentSize / 2;
+			int ay = atts.agentY.getInt(agent) + agentSize / 2;
 			return ay < gameIceHeight;
 		}
 	}
 
 	public class IglooBuiltPF extends PropositionalFunction {
+
+		protected FBAttributeHandles atts;
+
 		/**
 		 * Initializes to be evaluated on an agent object.
 		 *
@@ -804,13 +885,14 @@ public class FrostbiteDomain implements DomainGenerator{
 		 */
 		public IglooBuiltPF(String name, Domain domain) {
 			super(name, domain, new String[]{IGLOOCLASS});
+			this.atts = new FBAttributeHandles(domain);
 		}
 
 		@Override
 		public boolean isTrue(State st, String[] params) {
 			ObjectInstance igloo = st.getObject(params[0]);
 
-			int building = igloo.getIntValForAttribute(BUILDINGATTNAME);
+			int building = atts.iglooBuilding.getInt(igloo);
 			return building >= buildingStepsToWin;
 		}
 	}
@@ -10,6 +10,7 @@ import burlap.behavior.singleagent.planning.QComputablePlanner;
 import burlap.debugtools.RandomFactory;
 import burlap.oomdp.auxiliary.DomainGenerator;
 import burlap.oomdp.core.Attribute;
+import burlap.oomdp.core.AttributeHandle;
 import burlap.oomdp.core.Domain;
 import burlap.oomdp.core.ObjectClass;
 import burlap.oomdp.core.ObjectInstance;
@@ -647,10 +648,26 @@ public class GridWorldDomain implements DomainGenerator {
 	 * @param yd the attempted new Y position of the agent
 	 */
 	protected void move(State s, int xd, int yd, int [][] map){
+		ObjectClass agentClass = s.getObjectsOfClass(CLASSAGENT).get(0).getObjectClass();
+		this.move(s, xd, yd, map, agentClass.getAttributeHandle(ATTX), agentClass.getAttributeHandle(ATTY));
+	}
+	
+	
+	/**
+	 * Attempts to move the agent into the given position, taking into account walls and blocks, using pre-resolved attribute handles
+	 * for the agent's position.
+	 * @param s the current state
+	 * @param xd the attempted new X position of the agent
+	 * @param yd the attempted new Y position of the agent
+	 * @param map the map of the world
+	 * @param xAtt the handle of the agent's x attribute
+	 * @param yAtt the handle of the agent's y attribute
+	 */
+	protected void move(State s, int xd, int yd, int [][] map, AttributeHandle xAtt, AttributeHandle yAtt){
 		
 		ObjectInstance agent = s.getObjectsOfClass(CLASSAGENT).get(0);
-		int ax = agent.getIntValForAttribute(ATTX);
-		int ay = agent.getIntValForAttribute(ATTY);
+		int ax = xAtt.getInt(agent);
+		int ay = yAtt.getInt(agent);
 		
 		int nx = ax+xd;
 		int ny = ay+yd;
@@ -663,8 +680,8 @@ public class GridWorldDomain implements DomainGenerator {
 			ny = ay;
 		}
 		
-		agent.setValue(ATTX, nx);
-		agent.setValue(ATTY, ny);
+		xAtt.setInt(agent, nx);
+		yAtt.setInt(agent, ny);
 	}
 	
 	/**
@@ -723,6 +740,16 @@ public class GridWorldDomain implements DomainGenerator {
 		 */
 		protected int [][] map;
 		
+		/**
+		 * The handle of the agent's x attribute
+		 */
+		protected AttributeHandle xAtt;
+		
+		/**
+		 * The handle of the agent's y attribute
+		 */
+		protected AttributeHandle yAtt;
+		
 		
 		/**
 		 * Initializes for the given name, domain and actually direction probabilities the agent will go
@@ -736,6 +763,8 @@ public class GridWorldDomain implements DomainGenerator {
 			this.directionProbs = directions.clone();
 			this.rand = RandomFactory.getMapped(0);
 			this.map = map;
+			this.xAtt = domain.getAttributeHandle(CLASSAGENT, ATTX);
+			this.yAtt = domain.getAttributeHandle(CLASSAGENT, ATTY);
 		}
 		
 		@Override
@@ -753,7 +782,7 @@ public class GridWorldDomain implements DomainGenerator {
 			}
 			
 			int [] dcomps = GridWorldDomain.this.movementDirectionFromIndex(dir);
-			GridWorldDomain.this.move(st, dcomps[0], dcomps[1], this.map);
+			GridWorldDomain.this.move(st, dcomps[0], dcomps[1], this.map, this.xAtt, this.yAtt);
 			
 			return st;
 		}
@@ -769,7 +798,7 @@ public class GridWorldDomain implements DomainGenerator {
 				}
 				State ns = st.copy();
 				int [] dcomps = GridWorldDomain.this.movementDirectionFromIndex(i);
-				GridWorldDomain.this.move(ns, dcomps[0], dcomps[1], this.map);
+				GridWorldDomain.this.move(ns, dcomps[0], dcomps[1], this.map, this.xAtt, this.yAtt);
 				
 				//make sure this direction doesn't actually stay in the same place and replicate another no-op
 				boolean isNew = true;
@@ -806,6 +835,11 @@ public class GridWorldDomain implements DomainGenerator {
 	 */
 	public class AtLocationPF extends PropositionalFunction{
 
+		/**
+		 * The handles of the x and y attributes of the agent and location parameters
+		 */
+		protected AttributeHandle agentXAtt, agentYAtt, locationXAtt, locationYAtt;
+		
 		
 		/**
 		 * Initializes with given name domain and parameter object class types
@@ -815,6 +849,10 @@ public class GridWorldDomain implements DomainGenerator {
 		 */
 		public AtLocationPF(String name, Domain domain, String[] parameterClasses) {
 			super(name, domain, parameterClasses);
+			this.agentXAtt = domain.getAttributeHandle(parameterClasses[0], ATTX);
+			this.agentYAtt = domain.getAttributeHandle(parameterClasses[0], ATTY);
+			this.locationXAtt = domain.getAttributeHandle(parameterClasses[1], ATTX);
+			this.locationYAtt = domain.getAttributeHandle(parameterClasses[1], ATTY);
 		}
 
 		@Override
@@ -823,11 +861,11 @@ public class GridWorldDomain implements DomainGenerator {
 			ObjectInstance agent = st.getObject(params[0]);
 			ObjectInstance location = st.getObject(params[1]);
 			
-			int ax = agent.getIntValForAttribute(ATTX);
-			int ay = agent.getIntValForAttribute(ATTY);
+			int ax = this.agentXAtt.getInt(agent);
+			int ay = this.agentYAtt.getInt(agent);
 			
-			int lx = location.getIntValForAttribute(ATTX);
-			int ly = location.getIntValForAttribute(ATTY);
+			int lx = this.locationXAtt.getInt(location);
+			int ly = this.locationYAtt.getInt(location);
 			
 			if(ax == lx && ay == ly){
 				return true;
@@ -858,6 +896,11 @@ public class GridWorldDomain implements DomainGenerator {
 		 */
 		protected int ydelta;
 		
+		/**
+		 * The handles of the x and y attributes of the agent parameter
+		 */
+		protected AttributeHandle agentXAtt, agentYAtt;
+		
 		
 		
 		/**
@@ -872,6 +915,8 @@ public class GridWorldDomain implements DomainGenerator {
 			int [] dcomps = GridWorldDomain.this.movementDirectionFromIndex(direction);
 			xdelta = dcomps[0];
 			ydelta = dcomps[1];
+			this.agentXAtt = domain.getAttributeHandle(parameterClasses[0], ATTX);
+			this.agentYAtt = domain.getAttributeHandle(parameterClasses[0], ATTY);
 		}
 
 		@Override
@@ -879,8 +924,8 @@ public class GridWorldDomain implements DomainGenerator {
 			
 			ObjectInstance agent = st.getObject(params[0]);
 			
-			int ax = agent.getIntValForAttribute(ATTX);
-			int ay = agent.getIntValForAttribute(ATTY);
+			int ax = this.agentXAtt.getInt(agent);
+			int ay = this.agentYAtt.getInt(agent);
 			
 			int cx = ax + xdelta;
 			int cy = ay + ydelta;
@@ -699,9 +699,20 @@ public class LunarLanderDomain implements DomainGenerator {
 	 * @param dir the direction to turn; +1 is clockwise, -1 is counterclockwise
 	 */
 	protected static void incAngle(State s, double dir, LLPhysicsParams physParams){
+		incAngle(s, dir, physParams, new LLAttributeHandles(s.getObjectsOfClass(AGENTCLASS).get(0).getObjectClass().domain));
+	}
+	
+	
+	/**
+	 * Turns the lander in the direction indicated by the domains defined change in angle for turn actions, using pre-resolved attribute handles.
+	 * @param s the state in which the lander's angle should be changed
+	 * @param dir the direction to turn; +1 is clockwise, -1 is counterclockwise
+	 * @param atts the handles of the lunar lander attributes
+	 */
+	protected static void incAngle(State s, double dir, LLPhysicsParams physParams, LLAttributeHandles atts){
 		
 		ObjectInstance agent = s.getObjectsOfClass(AGENTCLASS).get(0);
-		double curA = agent.getRealValForAttribute(AATTNAME);
+		double curA = atts.agentA.getReal(agent);
 		
 		double newa = curA + (dir * physParams.anginc);
 		if(newa > physParams.angmax){
@@ -711,7 +722,7 @@ public class LunarLanderDomain implements DomainGenerator {
 			newa = -physParams.angmax;
 		}
 		
-		agent.setValue(AATTNAME, newa);
+		atts.agentA.setReal(agent, newa);
 		
 	}
 	
@@ -722,16 +733,27 @@ public class LunarLanderDomain implements DomainGenerator {
 	 * @param thrust the amount of thrust force exerted by the lander.
 	 */
 	protected static void updateMotion(State s, double thrust, LLPhysicsParams physParams){
+		updateMotion(s, thrust, physParams, new LLAttributeHandles(s.getObjectsOfClass(AGENTCLASS).get(0).getObjectClass().domain));
+	}
+	
+	
+	/**
+	 * Updates the position of the agent/lander given the provided thrust force that has been exerted, using pre-resolved attribute handles.
+	 * @param s the state in which the agent/lander should be modified
+	 * @param thrust the amount of thrust force exerted by the lander.
+	 * @param atts the handles of the lunar lander attributes
+	 */
+	protected static void updateMotion(State s, double thrust, LLPhysicsParams physParams, LLAttributeHandles atts){
 		
 		double ti = 1.;
 		double tt = ti*ti;
 		
 		ObjectInstance agent = s.getObjectsOfClass(AGENTCLASS).get(0);
-		double ang = agent.getRealValForAttribute(AATTNAME);
-		double x = agent.getRealValForAttribute(XATTNAME);
-		double y = agent.getRealValForAttribute(YATTNAME);
-		double vx = agent.getRealValForAttribute(VXATTNAME);
-		double vy = agent.getRealValForAttribute(VYATTNAME);
+		double ang = atts.agentA.getReal(agent);
+		double x = atts.agentX.getReal(agent);
+		double y = atts.agentY.getReal(agent);
+		double vx = atts.agentVX.getReal(agent);
+		double vy = atts.agentVY.getReal(agent);
 		
 		double worldAngle = (Math.PI/2.) - ang;
 		
@@ -789,10 +811,10 @@ public class LunarLanderDomain implements DomainGenerator {
 		//check for collisions
 		List <ObjectInstance> obstacles = s.getObjectsOfClass(OBSTACLECLASS);
 		for(ObjectInstance o : obstacles){
-			double l = o.getRealValForAttribute(LATTNAME);
-			double r = o.getRealValForAttribute(RATTNAME);
-			double b = o.getRealValForAttribute(BATTNAME);
-			double t = o.getRealValForAttribute(TATTNAME);
+			double l = atts.obstacleL.getReal(o);
+			double r = atts.obstacleR.getReal(o);
+			double b = atts.obstacleB.getReal(o);
+			double t = atts.obstacleT.getReal(o);
 			
 			//are we intersecting?
 			if(nx > l && nx < r && ny >= b && ny < t){
@@ -831,10 +853,10 @@ public class LunarLanderDomain implements DomainGenerator {
 		
 		//check the pad collision
 		ObjectInstance pad = s.getObjectsOfClass(PADCLASS).get(0);
-		double l = pad.getRealValForAttribute(LATTNAME);
-		double r = pad.getRealValForAttribute(RATTNAME);
-		double b = pad.getRealValForAttribute(BATTNAME);
-		double t = pad.getRealValForAttribute(TATTNAME);
+		double l = atts.padL.getReal(pad);
+		double r = atts.padR.getReal(pad);
+		double b = atts.padB.getReal(pad);
+		double t = atts.padT.getReal(pad);
 		
 		//did we collide?
 		if(nx > l && nx < r && ny >= b && ny < t){
@@ -868,17 +890,67 @@ public class LunarLanderDomain implements DomainGenerator {
 		
 		
 		//now set the new values
-		agent.setValue(XATTNAME, nx);
-		agent.setValue(YATTNAME, ny);
-		agent.setValue(VXATTNAME, nvx);
-		agent.setValue(VYATTNAME, nvy);
-		agent.setValue(AATTNAME, nang);
+		atts.agentX.setReal(agent, nx);
+		atts.agentY.setReal(agent, ny);
+		atts.agentVX.setReal(agent, nvx);
+		atts.agentVY.setReal(agent, nvy);
+		atts.agentA.setReal(agent, nang);
 		
 		
 	}
 	
 	
 	
+	/**
+	 * The {@link AttributeHandle}s of the attributes of the agent, obstacle and landing pad classes, resolved once so that the
+	 * physics simulation and propositional functions do not look up attributes by name.
+	 *
+	 */
+	public static class LLAttributeHandles{
+		
+		public final AttributeHandle agentX;
+		public final AttributeHandle agentY;
+		public final AttributeHandle agentVX;
+		public final AttributeHandle agentVY;
+		public final AttributeHandle agentA;
+		
+		public final AttributeHandle obstacleL;
+		public final AttributeHandle obstacleR;
+		public final AttributeHandle obstacleB;
+		public final AttributeHandle obstacleT;
+		
+		public final AttributeHandle padL;
+		public final AttributeHandle padR;
+		public final AttributeHandle padB;
+		public final AttributeHandle padT;
+		
+		
+		/**
+		 * Resolves the handles from the object classes of the given lunar lander domain.
+		 * @param domain the lunar lander domain
+		 */
+		public LLAttributeHandles(Domain domain){
+			this.agentX = domain.getAttributeHandle(AGENTCLASS, XATTNAME);
+			this.agentY = domain.getAttributeHandle(AGENTCLASS, YATTNAME);
+			this.agentVX = domain.getAttributeHandle(AGENTCLASS, VXATTNAME);
+			this.agentVY = domain.getAttributeHandle(AGENTCLASS, VYATTNAME);
+			this.agentA = domain.getAttributeHandle(AGENTCLASS, AATTNAME);
+			
+			this.obstacleL = domain.getAttributeHandle(OBSTACLECLASS, LATTNAME);
+			this.obstacleR = domain.getAttributeHandle(OBSTACLECLASS, RATTNAME);
+			this.obstacleB = domain.getAttributeHandle(OBSTACLECLASS, BATTNAME);
+			this.obstacleT = domain.getAttributeHandle(OBSTACLECLASS, TATTNAME);
+			
+			this.padL = domain.getAttributeHandle(PADCLASS, LATTNAME);
+			this.padR = domain.getAttributeHandle(PADCLASS, RATTNAME);
+			this.padB = domain.getAttributeHandle(PADCLASS, BATTNAME);
+			this.padT = domain.getAttributeHandle(PADCLASS, TATTNAME);
+		}
+		
+	}
+	
+	
+	
 	/**
 	 * An action class for turning the lander
 	 * @author James MacGlashan
@@ -887,6 +959,7 @@ public class LunarLanderDomain implements DomainGenerator {
 	public class ActionTurn extends Action{
 
 		LLPhysicsParams physParams;
+		LLAttributeHandles atts;
 		double dir;
 		
 		/**
@@ -899,14 +972,15 @@ public class LunarLanderDomain implements DomainGenerator {
 			super(name, domain, "");
 			this.dir = dir;
 			this.physParams = physParams;
+			this.atts = new LLAttributeHandles(domain);
 		}
 		
 		
 
 		@Override
 		protected State performActionHelper(State st, String[] params) {
-			incAngle(st, dir, this.physParams);
-			updateMotion(st, 0.0, this.physParams);
+			incAngle(st, dir, this.physParams, this.atts);
+			updateMotion(st, 0.0, this.physParams, this.atts);
 			return st;
 		}
 
@@ -934,6 +1008,7 @@ public class LunarLanderDomain implements DomainGenerator {
 	public class ActionIdle extends Action{
 
 		LLPhysicsParams physParams;
+		LLAttributeHandles atts;
 		
 		/**
 		 * Initializes the idle action.
@@ -943,12 +1018,13 @@ public class LunarLanderDomain implements DomainGenerator {
 		public ActionIdle(String name, Domain domain, LLPhysicsParams physParams) {
 			super(name, domain, "");
 			this.physParams = physParams;
+			this.atts = new LLAttributeHandles(domain);
 		}
 		
 
 		@Override
 		protected State performActionHelper(State st, String[] params) {
-			updateMotion(st, 0.0, this.physParams);
+			updateMotion(st, 0.0, this.physParams, this.atts);
 			return st;
 		}
 
@@ -977,6 +1053,7 @@ public class LunarLanderDomain implements DomainGenerator {
 
 		protected double thrustValue;
 		LLPhysicsParams physParams;
+		LLAttributeHandles atts;
 		
 		
 		/**
@@ -989,12 +1066,13 @@ public class LunarLanderDomain implements DomainGenerator {
 			super(name, domain, "");
 			this.thrustValue = thrustValue;
 			this.physParams = physParams;
+			this.atts = new LLAttributeHandles(domain);
 		}
 		
 		
 		@Override
 		protected State performActionHelper(State st, String[] params) {
-			updateMotion(st, thrustValue, this.physParams);
+			updateMotion(st, thrustValue, this.physParams, this.atts);
 			return st;
 		}
 
@@ -1032,6 +1110,7 @@ public class LunarLanderDomain implements DomainGenerator {
 	 */
 	public class OnPadPF extends PropositionalFunction{
 
+		LLAttributeHandles atts;
 		
 		/**
 		 * Initializes to be evaluated on an agent object and landing pad object.
@@ -1040,6 +1119,7 @@ public class LunarLanderDomain implements DomainGenerator {
 		 */
 		public OnPadPF(String name, Domain domain) {
 			super(name, domain, new String[]{AGENTCLASS, PADCLASS});
+			this.atts = new LLAttributeHandles(domain);
 		}
 		
 
@@ -1050,12 +1130,12 @@ public class LunarLanderDomain implements DomainGenerator {
 			ObjectInstance pad = st.getObject(params[1]);
 			
 			
-			double l = pad.getRealValForAttribute(LATTNAME);
-			double r = pad.getRealValForAttribute(RATTNAME);
-			double t = pad.getRealValForAttribute(TATTNAME);
+			double l = atts.padL.getReal(pad);
+			double r = atts.padR.getReal(pad);
+			double t = atts.padT.getReal(pad);
 			
-			double x = agent.getRealValForAttribute(XATTNAME);
-			double y = agent.getRealValForAttribute(YATTNAME);
+			double x = atts.agentX.getReal(agent);
+			double y = atts.agentY.getReal(agent);
 			
 			//on pad means landed on surface, so y should be equal to top
 			if(x > l && x < r && y == t){
@@ -1081,6 +1161,7 @@ public class LunarLanderDomain implements DomainGenerator {
 	 */
 	public class TouchPadPF extends PropositionalFunction{
 
+		LLAttributeHandles atts;
 		
 		/**
 		 * Initializes to be evaluated on an agent object and landing pad object.
@@ -1089,6 +1170,7 @@ public class LunarLanderDomain implements DomainGenerator {
 		 */
 		public TouchPadPF(String name, Domain domain) {
 			super(name, domain, new String[]{AGENTCLASS, PADCLASS});
+			this.atts = new LLAttributeHandles(domain);
 		}
 		
 
@@ -1099,13 +1181,13 @@ public class LunarLanderDomain implements DomainGenerator {
 			ObjectInstance pad = st.getObject(params[1]);
 			
 			
-			double l = pad.getRealValForAttribute(LATTNAME);
-			double r = pad.getRealValForAttribute(RATTNAME);
-			double b = pad.getRealValForAttribute(BATTNAME);
-			double t = pad.getRealValForAttribute(TATTNAME);
+			double l = atts.padL.getReal(pad);
+			double r = atts.padR.getReal(pad);
+			double b = atts.padB.getReal(pad);
+			double t = atts.padT.getReal(pad);
 			
-			double x = agent.getRealValForAttribute(XATTNAME);
-			double y = agent.getRealValForAttribute(YATTNAME);
+			double x = atts.agentX.getReal(agent);
+			double y = atts.agentY.getReal(agent);
 			
 			//on pad means landed on surface, so y should be equal to top
 			if(x >= l && x < r && y >= b && y <= t){
@@ -1131,6 +1213,7 @@ public class LunarLanderDomain implements DomainGenerator {
 	 */
 	public class TouchSurfacePF extends PropositionalFunction{
 
+		LLAttributeHandles atts;
 		
 		/**
 		 * Initializes to be evaluated on an agent object and obstacle object.
@@ -1139,6 +1222,7 @@ public class LunarLanderDomain implements DomainGenerator {
 		 */
 		public TouchSurfacePF(String name, Domain domain) {
 			super(name, domain, new String[]{AGENTCLASS, OBSTACLECLASS});
+			this.atts = new LLAttributeHandles(domain);
 		}
 		
 
@@ -1148,13 +1232,13 @@ public class LunarLanderDomain implements DomainGenerator {
 			
 			ObjectInstance agent = st.getObject(params[0]);
 			ObjectInstance o = st.getObject(params[1]);
-			double x = agent.getRealValForAttribute(XATTNAME);
-			double y = agent.getRealValForAttribute(YATTNAME);
+			double x = atts.agentX.getReal(agent);
+			double y = atts.agentY.getReal(agent);
 			
-			double l = o.getRealValForAttribute(LATTNAME);
-			double r = o.getRealValForAttribute(RATTNAME);
-			double b = o.getRealValForAttribute(BATTNAME);
-			double t = o.getRealValForAttribute(TATTNAME);
+			double l = atts.obstacleL.getReal(o);
+			double r = atts.obstacleR.getReal(o);
+			double b = atts.obstacleB.getReal(o);
+			double t = atts.obstacleT.getReal(o);
 			
 			if(x >= l && x <= r && y >= b && y <= t){
 				return true;
@@ -1176,6 +1260,8 @@ public class LunarLanderDomain implements DomainGenerator {
 	 */
 	public class TouchGroundPF extends PropositionalFunction{
 
+		AttributeHandle yAtt;
+		
 		/**
 		 * Initializes to be evaluated on an agent object.
 		 * @param name the name of the propositional function
@@ -1183,6 +1269,7 @@ public class LunarLanderDomain implements DomainGenerator {
 		 */
 		public TouchGroundPF(String name, Domain domain) {
 			super(name, domain, new String[]{AGENTCLASS});
+			this.yAtt = domain.getAttributeHandle(AGENTCLASS, YATTNAME);
 		}
 		
 
@@ -1190,8 +1277,8 @@ public class LunarLanderDomain implements DomainGenerator {
 		public boolean isTrue(State st, String[] params) {
 			
 			ObjectInstance agent = st.getObject(params[0]);
-			double y = agent.getRealValForAttribute(YATTNAME);
-			double ymin = agent.getObjectClass().domain.getAttribute(YATTNAME).lowerLim;
+			double y = this.yAtt.getReal(agent);
+			double ymin = this.yAtt.getAttribute().lowerLim;
 			
 			if(y == ymin){
 				return true;
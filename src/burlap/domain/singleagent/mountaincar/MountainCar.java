@@ -167,12 +167,29 @@ public class MountainCar implements DomainGenerator {
 	 * @return the modified state s
 	 */
 	public static State move(State s, int dir, MCPhysicsParams physParms){
+		ObjectClass agentClass = s.getFirstObjectOfClass(CLASSAGENT).getObjectClass();
+		return move(s, dir, physParms, agentClass.getAttributeHandle(ATTX), agentClass.getAttributeHandle(ATTV));
+	}
+	
+	
+	/**
+	 * Changes the agents position in the provided state using car engine acceleration in the specified direction, reading and writing
+	 * the agent's position and velocity through pre-resolved attribute handles.
+	 * dir=+1 indicates forward acceleration; -1 backwards acceleration; 0 no acceleration (coast).
+	 * @param s the state in which the agents position should be modified
+	 * @param dir the direction of acceleration
+	 * @param physParms the physics parameters
+	 * @param xAtt the handle of the agent's position attribute
+	 * @param vAtt the handle of the agent's velocity attribute
+	 * @return the modified state s
+	 */
+	public static State move(State s, int dir, MCPhysicsParams physParms, AttributeHandle xAtt, AttributeHandle vAtt){
 		
 		
 		ObjectInstance agent = s.getFirstObjectOfClass(CLASSAGENT);
 		
-		double p0 = agent.getRealValForAttribute(ATTX);
-		double v0 = agent.getRealValForAttribute(ATTV);
+		double p0 = xAtt.getReal(agent);
+		double v0 = vAtt.getReal(agent);
 		
 		double netAccel = (physParms.acceleration * dir) - (physParms.gravity * Math.cos(physParms.cosScale*p0));
 		
@@ -196,8 +213,8 @@ public class MountainCar implements DomainGenerator {
 			v1 = 0.;
 		}
 		
-		agent.setValue(ATTX, p1);
-		agent.setValue(ATTV, v1);
+		xAtt.setReal(agent, p1);
+		vAtt.setReal(agent, v1);
 		
 		return s;
 		
@@ -268,6 +285,8 @@ public class MountainCar implements DomainGenerator {
 
 		int dir;
 		MCPhysicsParams physParms;
+		AttributeHandle xAtt;
+		AttributeHandle vAtt;
 		
 		/**
 		 * Initializes with the given name, domain, and direction of acceleration.
@@ -279,11 +298,13 @@ public class MountainCar implements DomainGenerator {
 			super(name, domain, "");
 			this.dir = dir;
 			this.physParms = physParms;
+			this.xAtt = domain.getAttributeHandle(CLASSAGENT, ATTX);
+			this.vAtt = domain.getAttributeHandle(CLASSAGENT, ATTV);
 		}
 		
 		@Override
 		protected State performActionHelper(State s, String[] params) {
-			return MountainCar.move(s, dir, this.physParms);
+			return MountainCar.move(s, dir, this.physParms, this.xAtt, this.vAtt);
 		}
 
 		@Override
@@ -0,0 +1,216 @@
+package burlap.oomdp.core;
+
+
+/**
+ * A pre-resolved reference to an attribute of an {@link ObjectClass} that reads and writes the attribute's value in {@link ObjectInstance}s
+ * by its index in the object class' attribute list. Domain dynamics, propositional functions and state hashing code that access the same
+ * attributes many times per transition should obtain handles once, when the domain or the code is initialized, with
+ * {@link ObjectClass#getAttributeHandle(String)} or {@link Domain#getAttributeHandle(String, String)}, and then use them in place of the
+ * attribute name methods of {@link ObjectInstance}. This skips the attribute name to index hash map lookup of every access, and the getters
+ * return primitive values without copying the {@link Value} object.
+ * <p/>
+ * Setters keep the copy on write behavior of {@link ObjectInstance} because copied objects share their {@link Value} objects.
+ * <p/>
+ * A handle is resolved against the attribute list of its object class when it is created, so it should be obtained after all the attributes of
+ * the class have been added. If a handle is used on an object of a different object class instance (such as the class of a copied domain), it
+ * resolves the attribute by name for that object, so it always accesses the right value.
+ *
+ */
+public class AttributeHandle {
+
+	/**
+	 * The object class of the attribute
+	 */
+	protected final ObjectClass			objectClass;
+
+	/**
+	 * The attribute
+	 */
+	protected final Attribute			attribute;
+
+	/**
+	 * The index of the attribute in the object class' attribute list
+	 */
+	protected final int					index;
+
+
+	/**
+	 * Initializes. A runtime exception is thrown if the object class is not defined by an attribute named attName.
+	 * @param objectClass the object class of the attribute
+	 * @param attName the name of the attribute
+	 */
+	public AttributeHandle(ObjectClass objectClass, String attName){
+		this.objectClass = objectClass;
+		this.index = objectClass.attributeIndex(attName);
+		this.attribute = objectClass.attributeList.get(this.index);
+	}
+
+
+	/**
+	 * Returns the object class of the attribute
+	 * @return the object class of the attribute
+	 */
+	public ObjectClass getObjectClass(){
+		return this.objectClass;
+	}
+
+
+	/**
+	 * Returns the attribute
+	 * @return the attribute
+	 */
+	public Attribute getAttribute(){
+		return this.attribute;
+	}
+
+
+	/**
+	 * Returns the name of the attribute
+	 * @return the name of the attribute
+	 */
+	public String getName(){
+		return this.attribute.name;
+	}
+
+
+	/**
+	 * Returns the index of the attribute in the object class' attribute list
+	 * @return the index of the attribute in the object class' attribute list
+	 */
+	public int getIndex(){
+		return this.index;
+	}
+
+
+	/**
+	 * Returns the int value of the attribute in the given object; see {@link ObjectInstance#getIntValForAttribute(int)}.
+	 * @param o the object instance
+	 * @return the int value of the attribute
+	 */
+	public int getInt(ObjectInstance o){
+		return o.getIntValForAttribute(this.indexIn(o));
+	}
+
+
+	/**
+	 * Returns the double value of the real-valued attribute in the given object; see {@link ObjectInstance#getRealValForAttribute(int)}.
+	 * @param o the object instance
+	 * @return the double value of the attribute
+	 */
+	public double getReal(ObjectInstance o){
+		return o.getRealValForAttribute(this.indexIn(o));
+	}
+
+
+	/**
+	 * Returns the double value of the attribute in the given object, casting int values to double; see {@link ObjectInstance#getNumericValForAttribute(int)}.
+	 * @param o the object instance
+	 * @return the numeric value of the attribute
+	 */
+	public double getNumeric(ObjectInstance o){
+		return o.getNumericValForAttribute(this.indexIn(o));
+	}
+
+
+	/**
+	 * Returns the boolean value of the attribute in the given object; see {@link ObjectInstance#getBooleanValForAttribute(int)}.
+	 * @param o the object instance
+	 * @return the boolean value of the attribute
+	 */
+	public boolean getBoolean(ObjectInstance o){
+		return o.getBooleanValForAttribute(this.indexIn(o));
+	}
+
+
+	/**
+	 * Returns the string representation of the value of the attribute in the given object.
+	 * @param o the object instance
+	 * @return the string representation of the value of the attribute
+	 */
+	public String getString(ObjectInstance o){
+		return o.getStringValForAttribute(this.indexIn(o));
+	}
+
+
+	/**
+	 * Returns the int array value of the attribute in the given object without copying it. The returned array is shared with the object
+	 * and any copies of it, so it must not be modified.
+	 * @param o the object instance
+	 * @return the int array value of the attribute, which must not be modified
+	 */
+	public int [] viewIntArray(ObjectInstance o){
+		return o.values.get(this.indexIn(o)).getIntArray();
+	}
+
+
+	/**
+	 * Returns the double array value of the attribute in the given object without copying it. The returned array is shared with the object
+	 * and any copies of it, so it must not be modified.
+	 * @param o the object instance
+	 * @return the double array value of the attribute, which must not be modified
+	 */
+	public double [] viewDoubleArray(ObjectInstance o){
+		return o.values.get(this.indexIn(o)).getDoubleArray();
+	}
+
+
+	/**
+	 * Sets the int value of the attribute in the given object.
+	 * @param o the object instance
+	 * @param v the value
+	 */
+	public void setInt(ObjectInstance o, int v){
+		o.setValue(this.indexIn(o), v);
+	}
+
+
+	/**
+	 * Sets the double value of the attribute in the given object.
+	 * @param o the object instance
+	 * @param v the value
+	 */
+	public void setReal(ObjectInstance o, double v){
+		o.setValue(this.indexIn(o), v);
+	}
+
+
+	/**
+	 * Sets the boolean value of the attribute in the given object.
+	 * @param o the object instance
+	 * @param v the value
+	 */
+	public void setBoolean(ObjectInstance o, boolean v){
+		o.setValue(this.indexIn(o), v);
+	}
+
+
+	/**
+	 * Sets the value of the attribute in the given object from its string representation.
+	 * @param o the object instance
+	 * @param v the string representation of the value
+	 */
+	public void setString(ObjectInstance o, String v){
+		o.setValue(this.indexIn(o), v);
+	}
+
+
+	/**
+	 * Returns the index of the attribute in the attribute list of the class of the given object, which is the index of this handle unless
+	 * the object belongs to a different object class instance.
+	 * @param o the object instance
+	 * @return the index of the attribute for the object
+	 */
+	protected final int indexIn(ObjectInstance o){
+		if(o.obClass == this.objectClass){
+			return this.index;
+		}
+		return o.obClass.attributeIndex(this.attribute.name);
+	}
+
+
+	@Override
+	public String toString(){
+		return this.objectClass.name + "." + this.attribute.name;
+	}
+
+}
@@ -182,6 +182,22 @@ public abstract class Domain {
 	}
 	
 	
+	/**
+	 * Returns a pre-resolved handle for reading and writing an attribute of the object class with the given name; see {@link AttributeHandle}.
+	 * A runtime exception is thrown if this domain has no such object class or attribute.
+	 * @param className the name of the object class
+	 * @param attName the name of the attribute
+	 * @return a handle for the attribute
+	 */
+	public AttributeHandle getAttributeHandle(String className, String attName){
+		ObjectClass oc = this.getObjectClass(className);
+		if(oc == null){
+			throw new RuntimeException("The object class " + className + " is not defined in this domain");
+		}
+		return oc.getAttributeHandle(attName);
+	}
+	
+	
 	/**
 	 * Returns a list of the attributes that define this domain. Modifying the returned list
 	 * will not alter the list of attributes that define this domain, because it returns a
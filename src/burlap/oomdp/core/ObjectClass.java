@@ -165,6 +165,17 @@ public class ObjectClass {
 	}
 	
 	
+	/**
+	 * Returns a pre-resolved handle for reading and writing the attribute with the given name in instances of this object class.
+	 * A runtime exception is thrown if this object class is not defined by an attribute named attName.
+	 * @param attName the name of the attribute
+	 * @return a handle for the attribute
+	 */
+	public AttributeHandle getAttributeHandle(String attName){
+		return new AttributeHandle(this, attName);
+	}
+	
+	
 	/**
 	 * Returns the number of attributes that define this object class.
 	 * @return the number of attributes that define this object class.
@@ -0,0 +1,20 @@
+package burlap.oomdp.core;
+
+
+/**
+ * A function that computes a hash code for the values of an {@link ObjectInstance}. Hash codes computed with
+ * {@link ObjectInstance#cachedHashCode(ObjectHashFunction)} are cached by the object instance until one of its values changes, so
+ * an implementation must always return the same hash code for the same values. If the way an implementation computes hash codes
+ * changes, a new function object should be used so that stale cached hash codes are not returned.
+ *
+ */
+public interface ObjectHashFunction {
+
+	/**
+	 * Returns the hash code for the values of the given object instance.
+	 * @param o the object instance to hash
+	 * @return the hash code for the values of o
+	 */
+	public int hashObject(ObjectInstance o);
+	
+}
@@ -19,6 +19,21 @@ public class ObjectInstance {
 	protected String						name;				//name of the object for disambiguation
 	protected List <Value>					values;				//the values for each attribute
 	
+	/**
+	 * Cached value fingerprint of this object; a value of 0 indicates that it needs to be recomputed.
+	 */
+	protected int							valueFingerprint;
+	
+	/**
+	 * Cached hash code computed by {@link #cachedHashFunction}
+	 */
+	protected int							cachedHashCode;
+	
+	/**
+	 * The function that computed {@link #cachedHashCode}; null if there is no valid cached hash code.
+	 */
+	protected volatile ObjectHashFunction	cachedHashFunction;
+	
 	
 	
 	
@@ -47,7 +62,14 @@ public class ObjectInstance {
 		this.name = o.name;
 		
 		this.values = new ArrayList <Value>(o.values);
-			
+		this.valueFingerprint = o.valueFingerprint;
+
+		ObjectHashFunction hashFunction = o.cachedHashFunction;
+		if(hashFunction != null){
+			this.cachedHashCode = o.cachedHashCode;
+			this.cachedHashFunction = hashFunction;
+		}
+
 	}
 	
 	
@@ -70,6 +92,7 @@ public class ObjectInstance {
 		for(Attribute att : obClass.attributeList){
 			values.add(att.valueConstructor());
 		}
+		this.invalidateCachedHashes();
 		
 	}
 	
@@ -89,12 +112,20 @@ public class ObjectInstance {
 	 * @param v the string rep value to which the attribute of this object instance should be set.
 	 */
 	public void setValue(String attName, String v){
-		int ind = obClass.attributeIndex(attName);
-		Value value = values.get(ind);
-		Value newValue = value.copy();
+		this.setValue(obClass.attributeIndex(attName), v);
+	}
+	
+	
+	/**
+	 * Sets the value of the attribute at index attIndex of this object's class' attribute list.
+	 * @param attIndex the index of the attribute whose value is to be set.
+	 * @param v the string rep value to which the attribute of this object instance should be set.
+	 */
+	public void setValue(int attIndex, String v){
+		Value newValue = values.get(attIndex).copy();
 		newValue.setValue(v);
-		values.set(ind, newValue);
-		
+		values.set(attIndex, newValue);
+		this.invalidateCachedHashes();
 	}
 	
 	
@@ -104,11 +135,19 @@ public class ObjectInstance {
 	 * @param v the double rep value to which the attribute of this object instance should be set.
 	 */
 	public void setValue(String attName, double v){
-		int ind = obClass.attributeIndex(attName);
-		Value value = values.get(ind);
-		Value newValue = value.copy();
+		this.setValue(obClass.attributeIndex(attName), v);
+	}
+	
+	/**
+	 * Sets the value of the attribute at index attIndex of this object's class' attribute list.
+	 * @param attIndex the index of the attribute whose value is to be set.
+	 * @param v the double rep value to which the attribute of this object instance should be set.
+	 */
+	public void setValue(int attIndex, double v){
+		Value newValue = values.get(attIndex).copy();
 		newValue.setValue(v);
-		values.set(ind, newValue);
+		values.set(attIndex, newValue);
+		this.invalidateCachedHashes();
 	}
 	
 	/**
@@ -117,11 +156,19 @@ public class ObjectInstance {
 	 * @param v the int rep value to which the attribute of this object instance should be set.
 	 */
 	public void setValue(String attName, int v){
-		int ind = obClass.attributeIndex(attName);
-		Value value = values.get(ind);
-		Value newValue = value.copy();
+		this.setValue(obClass.attributeIndex(attName), v);
+	}
+	
+	/**
+	 * Sets the value of the attribute at index attIndex of this object's class' attribute list.
+	 * @param attIndex the index of the attribute whose value is to be set.
+	 * @param v the int rep value to which the attribute of this object instance should be set.
+	 */
+	public void setValue(int attIndex, int v){
+		Value newValue = values.get(attIndex).copy();
 		newValue.setValue(v);
-		values.set(ind, newValue);
+		values.set(attIndex, newValue);
+		this.invalidateCachedHashes();
 	}
 	
 	/**
@@ -130,11 +177,19 @@ public class ObjectInstance {
 	 * @param v the int rep value to which the attribute of this object instance should be set.
 	 */
 	public void setValue(String attName, boolean v){
-		int ind = obClass.attributeIndex(attName);
-		Value value = values.get(ind);
-		Value newValue = value.copy();
+		this.setValue(obClass.attributeIndex(attName), v);
+	}
+	
+	/**
+	 * Sets the value of the attribute at index attIndex of this object's class' attribute list.
+	 * @param attIndex the index of the attribute whose value is to be set.
+	 * @param v the boolean rep value to which the attribute of this object instance should be set.
+	 */
+	public void setValue(int attIndex, boolean v){
+		Value newValue = values.get(attIndex).copy();
 		newValue.setValue(v);
-		values.set(ind, newValue);
+		values.set(attIndex, newValue);
+		this.invalidateCachedHashes();
 	}
 	
 	/**
@@ -148,6 +203,7 @@ public class ObjectInstance {
 		Value newValue = value.copy();
 		newValue.setValue(v);
 		values.set(ind, newValue);
+		this.invalidateCachedHashes();
 	}
 	
 	/**
@@ -161,6 +217,7 @@ public class ObjectInstance {
 		Value newValue = value.copy();
 		newValue.setValue(v);
 		values.set(ind, newValue);
+		this.invalidateCachedHashes();
 	}
 	
 	/**
@@ -175,6 +232,7 @@ public class ObjectInstance {
 		Value newValue = value.copy();
 		newValue.addRelationalTarget(target);
 		values.set(ind, newValue);
+		this.invalidateCachedHashes();
 	}
 	
 	/**
@@ -190,6 +248,7 @@ public class ObjectInstance {
 		Value newValue = value.copy();
 		newValue.addAllRelationalTargets(targets);
 		values.set(ind, newValue);
+		this.invalidateCachedHashes();
 	}
 	
 	/**
@@ -202,6 +261,7 @@ public class ObjectInstance {
 		Value newValue = value.copy();
 		newValue.clearRelationTargets();
 		values.set(ind, newValue);
+		this.invalidateCachedHashes();
 	}
 	
 	/**
@@ -215,6 +275,7 @@ public class ObjectInstance {
 		Value newValue = value.copy();
 		newValue.removeRelationalTarget(target);
 		values.set(ind, newValue);
+		this.invalidateCachedHashes();
 	}
 	
 	
@@ -263,7 +324,17 @@ public class ObjectInstance {
 	 */
 	public double getRealValForAttribute(String attName){
 		int ind = obClass.attributeIndex(attName);
-		return values.get(ind).getRealVal();
+		return this.getRealValForAttribute(ind);
+	}
+	
+	/**
+	 * Returns the double value assignment for the real-valued attribute at index attIndex of this object's class' attribute list.
+	 * Will throw a runtime exception is the attribute is not of type REAL or REALUNBOUNDED
+	 * @param attIndex the index of the attribute whose value should be returned
+	 * @return the double value assignment for the real-valued attribute.
+	 */
+	public double getRealValForAttribute(int attIndex){
+		return values.get(attIndex).getRealVal();
 	}
 	
 	/**
@@ -278,7 +349,17 @@ public class ObjectInstance {
 	 */
 	public double getNumericValForAttribute(String attName){
 		int ind = obClass.attributeIndex(attName);
-		return values.get(ind).getNumericRepresentation();
+		return this.getNumericValForAttribute(ind);
+	}
+	
+	/**
+	 * Returns the double value for the attribute at index attIndex of this object's class' attribute list, casting int values
+	 * of non real attributes to double values; see {@link #getNumericValForAttribute(String)}.
+	 * @param attIndex the index of the attribute whose value should be returned
+	 * @return a double value assignment for the attribute; casting occurs if the attribute is not real-valued.
+	 */
+	public double getNumericValForAttribute(int attIndex){
+		return values.get(attIndex).getNumericRepresentation();
 	}
 	
 	/**
@@ -288,7 +369,16 @@ public class ObjectInstance {
 	 */
 	public String getStringValForAttribute(String attName){
 		int ind = obClass.attributeIndex(attName);
-		return values.get(ind).getStringVal();
+		return this.getStringValForAttribute(ind);
+	}
+	
+	/**
+	 * Returns the string value representation for the attribute at index attIndex of this object's class' attribute list.
+	 * @param attIndex the index of the attribute whose value should be returned
+	 * @return the string value assignment for the attribute.
+	 */
+	public String getStringValForAttribute(int attIndex){
+		return values.get(attIndex).getStringVal();
 	}
 	
 	/**
@@ -299,7 +389,16 @@ public class ObjectInstance {
 	 */
 	public int getIntValForAttribute(String attName){
 		int ind = obClass.attributeIndex(attName);
-		return values.get(ind).getDiscVal();
+		return this.getIntValForAttribute(ind);
+	}
+	
+	/**
+	 * Returns the int value assignment for the discrete-valued attribute at index attIndex of this object's class' attribute list.
+	 * @param attIndex the index of the attribute whose value should be returned
+	 * @return the int value assignment for the discrete-valued attribute.
+	 */
+	public int getIntValForAttribute(int attIndex){
+		return values.get(attIndex).getDiscVal();
 	}
 
 	/**
@@ -338,7 +437,16 @@ public class ObjectInstance {
 	 */
 	public boolean getBooleanValForAttribute(String attName){
 		int ind = obClass.attributeIndex(attName);
-		return values.get(ind).getBooleanValue();
+		return this.getBooleanValForAttribute(ind);
+	}
+	
+	/**
+	 * Returns the boolean value of the attribute at index attIndex of this object's class' attribute list (only defined for boolean attributes, int, and disc values).
+	 * @param attIndex the index of the attribute whose value should be returned
+	 * @return true if the value for the attribute evaluates to true, false otherwise.
+	 */
+	public boolean getBooleanValForAttribute(int attIndex){
+		return values.get(attIndex).getBooleanValue();
 	}
 	
 	/**
@@ -357,7 +465,16 @@ public class ObjectInstance {
 	 */
 	public int [] getIntArrayValForAttribute(String attName){
 		int ind = obClass.attributeIndex(attName);
-		return values.get(ind).getIntArray().clone();
+		return this.getIntArrayValForAttribute(ind);
+	}
+	
+	/**
+	 * Returns the int array value of the attribute at index attIndex of this object's class' attribute list (only defined for int array attributes).
+	 * @param attIndex the index of the attribute whose value should be returned.
+	 * @return the int array value.
+	 */
+	public int [] getIntArrayValForAttribute(int attIndex){
+		return values.get(attIndex).getIntArray().clone();
 	}
 	
 	
@@ -528,5 +645,51 @@ public class ObjectInstance {
 	}
 	
 	
+	/**
+	 * Returns a hash of this object's class and value assignments that is independent of the object's name. Two objects that are
+	 * {@link #valueEquals(ObjectInstance)} will always have the same fingerprint, so objects with different fingerprints
+	 * can be rejected as value-identical without a value-wise comparison. The fingerprint is cached and only recomputed after
+	 * a value of this object changes.
+	 * @return a hash of this object's class and value assignments.
+	 */
+	public int valueFingerprint(){
+		int fp = this.valueFingerprint;
+		if(fp == 0){
+			fp = obClass.name.hashCode();
+			for(Value v : values){
+				fp = 31*fp + v.hashCode();
+			}
+			this.valueFingerprint = fp;
+		}
+		return fp;
+	}
+	
+	
+	/**
+	 * Returns the hash code of this object computed by the given hash function. The hash code is cached, so the function is only
+	 * called again after a value of this object changes, or if a different function was used in the meantime.
+	 * @param hashFunction the function that computes the hash code of this object
+	 * @return the hash code of this object computed by hashFunction
+	 */
+	public int cachedHashCode(ObjectHashFunction hashFunction){
+		if(this.cachedHashFunction == hashFunction){
+			return this.cachedHashCode;
+		}
+		int code = hashFunction.hashObject(this);
+		this.cachedHashCode = code;
+		this.cachedHashFunction = hashFunction; //volatile write publishes the code with it
+		return code;
+	}
+	
+	
+	/**
+	 * Marks the cached value fingerprint and cached hash code of this object as stale. Called whenever a value of this object is changed.
+	 */
+	protected void invalidateCachedHashes(){
+		this.valueFingerprint = 0;
+		this.cachedHashFunction = null;
+	}
+	
+	
 
 }
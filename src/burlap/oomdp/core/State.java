@@ -34,6 +34,27 @@ public class State {
 	 * Map of object instances organized by class name
 	 */
 	protected Map <String, List <ObjectInstance>>			objectIndexByTrueClass;
+	
+	
+	/**
+	 * Cached canonical form of this state. Null when it needs to be rebuilt. The form is immutable and published through this single
+	 * volatile field, so threads that compare a shared state concurrently always see its objects and fingerprints together.
+	 */
+	protected volatile CanonicalForm						canonicalForm;
+	
+	
+	/**
+	 * Orders object instances by their value fingerprint.
+	 */
+	protected static final Comparator<ObjectInstance>		FINGERPRINT_ORDER = new Comparator<ObjectInstance>() {
+		
+		@Override
+		public int compare(ObjectInstance o1, ObjectInstance o2) {
+			int f1 = o1.valueFingerprint();
+			int f2 = o2.valueFingerprint();
+			return f1 < f2 ? -1 : (f1 == f2 ? 0 : 1);
+		}
+	};
 
 	
 	
@@ -51,11 +72,11 @@ public class State {
 		
 		this.initDataStructures();
 		
-		for(ObjectInstance o : s.objectInstances){
+		for(ObjectInstance o : s.observableObjectList()){
 			this.addObject(o.copy());
 		}
 		
-		for(ObjectInstance o : s.hiddenObjectInstances){
+		for(ObjectInstance o : s.hiddenObjectList()){
 			this.addObject(o.copy());
 		}
 		
@@ -140,6 +161,7 @@ public class State {
 		objectMap = new HashMap <String, ObjectInstance>();
 		
 		objectIndexByTrueClass = new HashMap <String, List <ObjectInstance>>();
+		canonicalForm = null;
 	}
 	
 	
@@ -168,6 +190,7 @@ public class State {
 		
 		
 		this.addObjectClassIndexing(o);
+		this.canonicalForm = null;
 		
 		
 	}
@@ -225,6 +248,7 @@ public class State {
 		objectMap.remove(oname);
 		
 		this.removeObjectClassIndexing(o);
+		this.canonicalForm = null;
 		
 	}
 	
@@ -295,34 +319,46 @@ public class State {
 			return new HashMap<String, String>(); //states are not equal and therefore cannot be matched
 		}
 		
-		Set<String> matchedObs = new HashSet<String>();
-		
-		for(List <ObjectInstance> objects : objectIndexByTrueClass.values()){
+		CanonicalForm form = this.getCanonicalForm();
+		CanonicalForm oform = so.getCanonicalForm();
+		ObjectInstance [] objects = form.objects;
+		int [] fps = form.fingerprints;
+		ObjectInstance [] oobjects = oform.objects;
+		int [] ofps = oform.fingerprints;
+		
+		//merge over the fingerprint sorted objects; only objects with the same fingerprint can be value identical
+		int i = 0;
+		int j = 0;
+		while(i < objects.length && j < oobjects.length){
 			
-			String oclass = objects.get(0).getTrueClassName();
-			List <ObjectInstance> oobjects = so.getObjectsOfClass(oclass);
-			if(objects.size() != oobjects.size() && enforceStateExactness){
-				return new HashMap<String, String>(); //states are not equal and therefore cannot be matched
-			}
-			
-			for(ObjectInstance o : objects){
-				boolean foundMatch = false;
-				for(ObjectInstance oo : oobjects){
-					if(matchedObs.contains(oo.getName())){
-						continue; //already matched this one; check another
-					}
-					if(o.valueEquals(oo)){
-						foundMatch = true;
-						matchedObs.add(oo.getName());
-						matching.put(o.getName(), oo.getName());
-						break;
-					}
+			if(fps[i] < ofps[j]){
+				if(enforceStateExactness){
+					return new HashMap<String, String>(); //states are not equal and therefore cannot be matched
 				}
-				if(!foundMatch && enforceStateExactness){
+				i++;
+				continue;
+			}
+			if(fps[i] > ofps[j]){
+				if(enforceStateExactness){
 					return new HashMap<String, String>(); //states are not equal and therefore cannot be matched
 				}
+				j++;
+				continue;
 			}
 			
+			int iEnd = runEnd(fps, i);
+			int jEnd = runEnd(ofps, j);
+			int nMatched = matchRun(objects, i, iEnd, oobjects, j, jEnd, matching);
+			if(enforceStateExactness && (nMatched != iEnd - i || nMatched != jEnd - j)){
+				return new HashMap<String, String>(); //states are not equal and therefore cannot be matched
+			}
+			i = iEnd;
+			j = jEnd;
+			
+		}
+		
+		if(enforceStateExactness && (i < objects.length || j < oobjects.length)){
+			return new HashMap<String, String>(); //states are not equal and therefore cannot be matched
 		}
 		
 		return matching;
@@ -348,33 +384,32 @@ public class State {
 			return false;
 		}
 		
-		Set<String> matchedObjects = new HashSet<String>();
-		for(List <ObjectInstance> objects : objectIndexByTrueClass.values()){
-			
-			String oclass = objects.get(0).getTrueClassName();
-			List <ObjectInstance> oobjects = so.getObjectsOfClass(oclass);
-			if(objects.size() != oobjects.size()){
+		CanonicalForm form = this.getCanonicalForm();
+		CanonicalForm oform = so.getCanonicalForm();
+		ObjectInstance [] objects = form.objects;
+		int [] fps = form.fingerprints;
+		ObjectInstance [] oobjects = oform.objects;
+		int [] ofps = oform.fingerprints;
+		
+		//both forms are sorted by fingerprint, so the states can only be equal if their fingerprint sequences are identical
+		for(int i = 0; i < fps.length; i++){
+			if(fps[i] != ofps[i]){
 				return false;
 			}
-			
-			for(ObjectInstance o : objects){
-				boolean foundMatch = false;
-				for(ObjectInstance oo : oobjects){
-					String ooname = oo.getName();
-					if(matchedObjects.contains(ooname)){
-						continue;
-					}
-					if(o.valueEquals(oo)){
-						foundMatch = true;
-						matchedObjects.add(ooname);
-						break;
-					}
-				}
-				if(!foundMatch){
+		}
+		
+		int i = 0;
+		while(i < objects.length){
+			int end = runEnd(fps, i);
+			if(end - i == 1){
+				if(!objects[i].valueEquals(oobjects[i])){
 					return false;
 				}
 			}
-			
+			else if(matchRun(objects, i, end, oobjects, i, end, null) != end - i){
+				return false;
+			}
+			i = end;
 		}
 		
 		
@@ -382,6 +417,85 @@ public class State {
 	}
 	
 	
+	/**
+	 * Returns the canonical form of this state: its objects (observable and hidden) sorted by their {@link ObjectInstance#valueFingerprint()}.
+	 * The form is cached and is only rebuilt if objects have been added or removed since it was built, or if the value
+	 * fingerprint of any of its objects has changed.
+	 * @return the canonical form of this state.
+	 */
+	protected CanonicalForm getCanonicalForm(){
+		
+		CanonicalForm form = this.canonicalForm;
+		if(form != null && form.isValid()){
+			return form;
+		}
+		
+		List <ObjectInstance> allObjects = this.getAllObjects();
+		ObjectInstance [] canonical = allObjects.toArray(new ObjectInstance[allObjects.size()]);
+		Arrays.sort(canonical, FINGERPRINT_ORDER);
+		
+		int [] fps = new int[canonical.length];
+		for(int i = 0; i < canonical.length; i++){
+			fps[i] = canonical[i].valueFingerprint();
+		}
+		
+		form = new CanonicalForm(canonical, fps);
+		this.canonicalForm = form;
+		
+		return form;
+	}
+	
+	
+	/**
+	 * Returns the exclusive end index of the run of equal fingerprints that starts at index start.
+	 */
+	private static int runEnd(int [] fps, int start){
+		int end = start+1;
+		while(end < fps.length && fps[end] == fps[start]){
+			end++;
+		}
+		return end;
+	}
+	
+	
+	/**
+	 * Greedily matches value identical objects between two runs of objects that share the same fingerprint. Because value equality
+	 * is transitive, the greedy matching is also a maximum matching.
+	 * @param objects the receiving objects
+	 * @param start the start index of the receiving run
+	 * @param end the exclusive end index of the receiving run
+	 * @param oobjects the objects to which the receiving objects are matched
+	 * @param ostart the start index of the other run
+	 * @param oend the exclusive end index of the other run
+	 * @param matching the map to which matched object names are added; may be null
+	 * @return the number of matched objects
+	 */
+	private static int matchRun(ObjectInstance [] objects, int start, int end, ObjectInstance [] oobjects, int ostart, int oend, Map<String, String> matching){
+		
+		boolean [] matched = new boolean[oend - ostart];
+		int nMatched = 0;
+		for(int i = start; i < end; i++){
+			ObjectInstance o = objects[i];
+			for(int j = ostart; j < oend; j++){
+				if(matched[j-ostart]){
+					continue; //already matched this one; check another
+				}
+				ObjectInstance oo = oobjects[j];
+				if(o.valueEquals(oo)){
+					matched[j-ostart] = true;
+					nMatched++;
+					if(matching != null){
+						matching.put(o.getName(), oo.getName());
+					}
+					break;
+				}
+			}
+		}
+		
+		return nMatched;
+	}
+	
+	
 	/**
 	 * Returns the number of observable and hidden object instances in this state.
 	 * @return the number of observable and hidden object instances in this state.
@@ -483,6 +597,37 @@ public class State {
 	}
 
 
+	/**
+	 * Returns the internal list of observable object instances without copying it. The returned list should not be modified.
+	 * Subclasses that store their objects differently should override this method.
+	 * @return the internal list of observable object instances.
+	 */
+	protected List <ObjectInstance> observableObjectList(){
+		return objectInstances;
+	}
+	
+	
+	/**
+	 * Returns the internal list of hidden object instances without copying it. The returned list should not be modified.
+	 * Subclasses that store their objects differently should override this method.
+	 * @return the internal list of hidden object instances.
+	 */
+	protected List <ObjectInstance> hiddenObjectList(){
+		return hiddenObjectInstances;
+	}
+	
+	
+	/**
+	 * Returns the internal list of object instances of the object class named oclass without copying it. The returned list
+	 * should not be modified. Subclasses that store their objects differently should override this method.
+	 * @param oclass the name of the object class
+	 * @return the internal list of object instances of the class, or null if there are no objects of the class in this state.
+	 */
+	protected List <ObjectInstance> classObjectList(String oclass){
+		return objectIndexByTrueClass.get(oclass);
+	}
+	
+	
 	/**
 	 * Returns all objects that belong to the object class named oclass
 	 * @param oclass the name of the object class for which objects should be returned
@@ -716,12 +861,10 @@ public class State {
 		List <String> uniqueRenames = this.identifyUniqueClassesInParameters(paramOrderGroups);
 		List <String> uniqueParamClases = this.identifyUniqueClassesInParameters(paramClasses);
 		
-		Map <String, List <ObjectInstance>>	instanceMap = objectIndexByTrueClass;
-		
 		//first make sure we have objects for each class parameter; if not return empty list
 		for(String oclass : uniqueParamClases){
 			int n = this.getNumOccurencesOfClassInParameters(oclass, paramClasses);
-			List <ObjectInstance> objectsOfClass = instanceMap.get(oclass);
+			List <ObjectInstance> objectsOfClass = this.classObjectList(oclass);
 			if(objectsOfClass == null){
 				return res;
 			}
@@ -730,7 +873,7 @@ public class State {
 			}
 		}
 		
-		this.getPossibleRenameBindingsHelper(res, currentBindingSets, 0, objectInstances, uniqueRenames, paramClasses, paramOrderGroups);
+		this.getPossibleRenameBindingsHelper(res, currentBindingSets, 0, this.observableObjectList(), uniqueRenames, paramClasses, paramOrderGroups);
 		
 		
 		return res;
@@ -959,6 +1102,44 @@ public class State {
 	
 	
 	
+	/**
+	 * An immutable canonical form of a state: its objects sorted by value fingerprint, along with the fingerprint of each object at the
+	 * time the form was built.
+	 *
+	 */
+	protected static final class CanonicalForm {
+		
+		/**
+		 * The objects sorted by their value fingerprint
+		 */
+		public final ObjectInstance []		objects;
+		
+		/**
+		 * The value fingerprint of each object in {@link #objects} when the form was built
+		 */
+		public final int []					fingerprints;
+		
+		
+		public CanonicalForm(ObjectInstance [] objects, int [] fingerprints){
+			this.objects = objects;
+			this.fingerprints = fingerprints;
+		}
+		
+		
+		/**
+		 * Returns whether the fingerprint of every object still matches the fingerprint it had when this form was built.
+		 * @return true if this form is still valid; false if any object has changed.
+		 */
+		public boolean isValid(){
+			for(int i = 0; i < this.objects.length; i++){
+				if(this.objects[i].valueFingerprint() != this.fingerprints[i]){
+					return false;
+				}
+			}
+			return true;
+		}
+		
+	}
 	
 	
 }
@@ -0,0 +1,205 @@
+package burlap.oomdp.core.packed;
+
+import java.util.AbstractList;
+
+import burlap.oomdp.core.ObjectInstance;
+import burlap.oomdp.core.Value;
+import burlap.oomdp.core.values.UnsetValueException;
+
+
+/**
+ * An {@link ObjectInstance} view onto an object block of a {@link PackedState}'s int array. Reads and writes go directly to
+ * the state's int array, so changing a value of this object changes the state that produced it. The frequently used int, boolean
+ * and numeric getters and setters operate on the ints directly; all other {@link ObjectInstance} methods
+ * work on {@link Value} objects that are created from, and written back to, the int array on demand.
+ * <p/>
+ * Views are created by {@link PackedState#getObject(String)} and the other object accessors of {@link PackedState}.
+ * Copying a view with {@link #copy()} returns a regular standalone {@link ObjectInstance}.
+ *
+ */
+public class PackedObjectInstance extends ObjectInstance {
+
+	/**
+	 * The state whose int array stores the values of this object
+	 */
+	protected PackedState			state;
+
+	/**
+	 * The layout index of this object
+	 */
+	protected int					layoutIndex;
+
+	/**
+	 * The offset of this object's block in the state's int array
+	 */
+	protected int					offset;
+
+	/**
+	 * Whether each attribute is an INT attribute (shared with the layout)
+	 */
+	protected boolean []			intAttributes;
+
+
+	/**
+	 * Initializes a view for the object at the given layout index of the given state.
+	 * @param state the state that stores the values of this object
+	 * @param layoutIndex the layout index of the object
+	 */
+	public PackedObjectInstance(PackedState state, int layoutIndex){
+		super(state.layout.objectClasses[layoutIndex], state.layout.objectNames[layoutIndex]);
+		this.state = state;
+		this.layoutIndex = layoutIndex;
+		this.offset = state.layout.offsets[layoutIndex];
+		this.intAttributes = state.layout.intAttributes[layoutIndex];
+	}
+
+
+	/**
+	 * Sets the values of this object to unset. When called from the {@link ObjectInstance} constructor, this method only
+	 * installs the int array backed value list.
+	 */
+	@Override
+	public void initializeValueObjects(){
+		this.values = new PackedValueList();
+		if(this.state != null){
+			this.state.layout.clearObject(this.layoutIndex, this.state.data);
+		}
+		this.invalidateCachedHashes();
+	}
+
+
+	/**
+	 * Renaming the view of a packed object changes the layout of its state, so this method is not supported;
+	 * use {@link PackedState#renameObject(String, String)} instead.
+	 */
+	@Override
+	public void setName(String name){
+		throw new UnsupportedOperationException("Cannot rename a packed object instance directly; use PackedState.renameObject instead.");
+	}
+
+
+	@Override
+	public void setValue(int attIndex, int v){
+		this.state.data[this.offset+attIndex] = v;
+		this.invalidateCachedHashes();
+	}
+
+
+	@Override
+	public void setValue(int attIndex, double v){
+		this.setValue(attIndex, (int)v);
+	}
+
+
+	@Override
+	public void setValue(int attIndex, boolean v){
+		this.setValue(attIndex, v ? 1 : 0);
+	}
+
+
+	@Override
+	public int getIntValForAttribute(int attIndex){
+		return this.rawValue(attIndex);
+	}
+
+
+	@Override
+	public double getNumericValForAttribute(int attIndex){
+		return this.rawValue(attIndex);
+	}
+
+
+	@Override
+	public boolean getBooleanValForAttribute(int attIndex){
+		return this.state.data[this.offset+attIndex] != 0;
+	}
+
+
+	@Override
+	public boolean valueEquals(ObjectInstance obj){
+
+		if(!(obj instanceof PackedObjectInstance)){
+			return super.valueEquals(obj);
+		}
+
+		PackedObjectInstance po = (PackedObjectInstance)obj;
+		if(!this.obClass.name.equals(po.obClass.name)){
+			return false;
+		}
+
+		int [] data = this.state.data;
+		int [] odata = po.state.data;
+		int n = this.intAttributes.length;
+		if(n != po.intAttributes.length){
+			return super.valueEquals(obj);
+		}
+		for(int i = 0; i < n; i++){
+			if(data[this.offset+i] != odata[po.offset+i]){
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+
+	@Override
+	public int valueFingerprint(){
+		int fp = this.valueFingerprint;
+		if(fp == 0){
+			//must match ObjectInstance's fingerprint of the same values, which are DiscreteValue or IntValue objects that hash to their int
+			fp = this.obClass.name.hashCode();
+			int [] data = this.state.data;
+			for(int i = 0; i < this.intAttributes.length; i++){
+				fp = 31*fp + data[this.offset+i];
+			}
+			this.valueFingerprint = fp;
+		}
+		return fp;
+	}
+
+
+	/**
+	 * Returns the int value of the attribute at attribute index ind, throwing an {@link UnsetValueException} if it is an unset
+	 * discrete value.
+	 * @param ind the attribute index
+	 * @return the int value of the attribute
+	 */
+	protected int rawValue(int ind){
+		int v = this.state.data[this.offset+ind];
+		if(v == PackedStateLayout.UNSET && !this.intAttributes[ind]){
+			throw new UnsetValueException();
+		}
+		return v;
+	}
+
+
+
+	/**
+	 * A list of {@link Value} objects backed by this object's block of the state's int array. Values returned by
+	 * {@link #get(int)} are new objects, and {@link #set(int, Value)} writes the int representation of the value back into the array.
+	 */
+	protected class PackedValueList extends AbstractList<Value>{
+
+		@Override
+		public Value get(int index) {
+			Value v = obClass.attributeList.get(index).valueConstructor();
+			v.setValue(state.data[offset+index]);
+			return v;
+		}
+
+		@Override
+		public Value set(int index, Value element) {
+			Value old = this.get(index);
+			state.data[offset+index] = PackedStateLayout.rawValue(element);
+			return old;
+		}
+
+		@Override
+		public int size() {
+			return obClass.numAttributes();
+		}
+
+	}
+
+}
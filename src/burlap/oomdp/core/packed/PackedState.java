@@ -0,0 +1,405 @@
+package burlap.oomdp.core.packed;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import burlap.oomdp.core.ObjectInstance;
+import burlap.oomdp.core.State;
+
+
+/**
+ * A compact {@link State} implementation for discrete OO-MDP domains that stores all of its object values in a single int array.
+ * The mapping from objects and attributes to array positions is defined by a {@link PackedStateLayout}, which is shared by all
+ * states with the same objects, so a packed state only costs its int array plus a few references, rather than the object instances,
+ * value objects and index maps of a standard {@link State}. Copying a packed state with {@link #copy()} clones the int array.
+ * <p/>
+ * Objects are accessed with the standard {@link State} methods, which return {@link PackedObjectInstance} views onto the int array.
+ * Views are created on demand and cached by the state, and setting a value of a view changes this state. Consequently, existing
+ * {@link burlap.oomdp.singleagent.Action} implementations that copy the state and then modify its objects work unchanged.
+ * <p/>
+ * Adding, removing, or renaming objects is supported, but each such operation creates a new layout for this state, so they should
+ * be avoided in domain dynamics; object views obtained before such an operation must not be used after it. Packed states can
+ * only be created for objects whose attributes are all {@link burlap.oomdp.core.Attribute.AttributeType#DISC}, {@link burlap.oomdp.core.Attribute.AttributeType#BOOLEAN}, or
+ * {@link burlap.oomdp.core.Attribute.AttributeType#INT}. Packed states are created with {@link PackedStateLayout#pack(State)}.
+ *
+ */
+public class PackedState extends State {
+
+	/**
+	 * The layout of this state's int array
+	 */
+	protected PackedStateLayout				layout;
+
+	/**
+	 * The values of all objects in this state
+	 */
+	protected int []						data;
+
+	/**
+	 * The object instance views of this state, indexed by layout index; created on demand.
+	 */
+	protected PackedObjectInstance []		views;
+
+
+
+	/**
+	 * Initializes with the given layout and int array. The array is used directly, not copied.
+	 * @param layout the layout of the data
+	 * @param data the values of all objects as defined by the layout
+	 */
+	public PackedState(PackedStateLayout layout, int [] data){
+		if(data.length != layout.size){
+			throw new RuntimeException("Packed state data has length " + data.length + " but its layout requires length " + layout.size);
+		}
+		this.layout = layout;
+		this.data = data;
+	}
+
+
+	/**
+	 * Returns the layout of this state
+	 * @return the layout of this state
+	 */
+	public PackedStateLayout getLayout(){
+		return this.layout;
+	}
+
+
+	/**
+	 * Returns a copy of the int array storing the values of this state. Values should be changed through the object instances of this state,
+	 * which keep its cached hash codes and canonical form up to date.
+	 * @return a copy of the int array storing the values of this state.
+	 */
+	public int [] getData(){
+		return this.data.clone();
+	}
+
+
+	@Override
+	protected void initDataStructures(){
+		//object storage is defined by the layout; none of the State data structures are used
+	}
+
+
+	@Override
+	public State copy(){
+		return new PackedState(this.layout, this.data.clone());
+	}
+
+
+	/**
+	 * Packed objects cannot be shared between states, so this method returns a deep copy.
+	 */
+	@Override
+	public State semiDeepCopy(Set<ObjectInstance> deepCopyObjects){
+		return this.copy();
+	}
+
+
+	@Override
+	public void addObject(ObjectInstance o){
+
+		if(this.layout.objectIndex(o.getName()) != -1){
+			return ; //don't add an object that conflicts with another object of the same name
+		}
+
+		PackedStateLayout nLayout = this.layout.withObject(o);
+		int [] nData = Arrays.copyOf(this.data, nLayout.size);
+		nLayout.writeObject(o, nData, nLayout.offsets[nLayout.numObjects()-1]);
+
+		this.setLayout(nLayout, nData);
+
+	}
+
+
+	@Override
+	public void removeObject(String oname){
+
+		int ind = this.layout.objectIndex(oname);
+		if(ind == -1){
+			return ;
+		}
+
+		PackedStateLayout nLayout = this.layout.withoutObject(ind);
+		int [] nData = new int[nLayout.size];
+		int start = this.layout.offsets[ind];
+		int width = this.layout.objectClasses[ind].numAttributes();
+		System.arraycopy(this.data, 0, nData, 0, start);
+		System.arraycopy(this.data, start+width, nData, start, this.data.length-start-width);
+
+		this.setLayout(nLayout, nData);
+
+	}
+
+
+	@Override
+	public void removeObject(ObjectInstance o){
+		if(o == null){
+			return ;
+		}
+		this.removeObject(o.getName());
+	}
+
+
+	@Override
+	public void renameObject(String originalName, String newName){
+		int ind = this.layout.objectIndex(originalName);
+		this.setLayout(this.layout.withRenamedObject(ind, newName), this.data);
+	}
+
+
+	@Override
+	public void renameObject(ObjectInstance o, String newName){
+		this.renameObject(o.getName(), newName);
+	}
+
+
+	@Override
+	public boolean equals(Object other){
+
+		if(this == other){
+			return true;
+		}
+
+		if(other instanceof PackedState){
+			PackedState po = (PackedState)other;
+			if(po.layout == this.layout && Arrays.equals(po.data, this.data)){
+				return true;
+			}
+		}
+
+		//equal states may still order their objects differently, which is resolved by the general object matching
+		return super.equals(other);
+	}
+
+
+	/**
+	 * Returns the sum of the value fingerprints of this state's objects, which does not depend on the order or names of the objects and so is
+	 * consistent with {@link #equals(Object)}.
+	 */
+	@Override
+	public int hashCode(){
+		int code = 0;
+		for(int fp : this.getCanonicalForm().fingerprints){
+			code += fp;
+		}
+		return code;
+	}
+
+
+	@Override
+	public int numTotalObjets(){
+		return this.layout.numObjects();
+	}
+
+
+	@Override
+	public int numObservableObjects(){
+		return this.layout.observableObjects.length;
+	}
+
+
+	@Override
+	public int numHiddenObjects(){
+		return this.layout.hiddenObjects.length;
+	}
+
+
+	@Override
+	public ObjectInstance getObject(String oname){
+		int ind = this.layout.objectIndex(oname);
+		if(ind == -1){
+			return null;
+		}
+		return this.view(ind);
+	}
+
+
+	@Override
+	public ObjectInstance getObservableObjectAt(int i){
+		if(i >= this.layout.observableObjects.length){
+			return null;
+		}
+		return this.view(this.layout.observableObjects[i]);
+	}
+
+
+	@Override
+	public ObjectInstance getHiddenObjectAt(int i){
+		if(i >= this.layout.hiddenObjects.length){
+			return null;
+		}
+		return this.view(this.layout.hiddenObjects[i]);
+	}
+
+
+	@Override
+	public List<ObjectInstance> getObservableObjects(){
+		return this.views(this.layout.observableObjects);
+	}
+
+
+	@Override
+	public List<ObjectInstance> getHiddenObjects(){
+		return this.views(this.layout.hiddenObjects);
+	}
+
+
+	@Override
+	public List<ObjectInstance> getAllObjects(){
+		List<ObjectInstance> objects = new ArrayList<ObjectInstance>(this.layout.numObjects());
+		for(int i = 0; i < this.layout.numObjects(); i++){
+			objects.add(this.view(i));
+		}
+		return objects;
+	}
+
+
+	@Deprecated
+	@Override
+	public List<ObjectInstance> getObjectsOfTrueClass(String oclass){
+		return this.getObjectsOfClass(oclass);
+	}
+
+
+	@Override
+	public List<ObjectInstance> getObjectsOfClass(String oclass){
+		int [] members = this.layout.objectsByClass.get(oclass);
+		if(members == null){
+			return new ArrayList<ObjectInstance>();
+		}
+		return this.views(members);
+	}
+
+
+	@Override
+	public ObjectInstance getFirstObjectOfClass(String oclass){
+		int [] members = this.layout.objectsByClass.get(oclass);
+		if(members == null){
+			return null;
+		}
+		return this.view(members[0]);
+	}
+
+
+	@Override
+	public Set<String> getObjectClassesPresent(){
+		return new HashSet<String>(this.layout.objectsByClass.keySet());
+	}
+
+
+	@Override
+	public List<List<ObjectInstance>> getAllObjectsByTrueClass(){
+		List<List<ObjectInstance>> res = new ArrayList<List<ObjectInstance>>(this.layout.objectsByClass.size());
+		for(int [] members : this.layout.objectsByClass.values()){
+			res.add(this.views(members));
+		}
+		return res;
+	}
+
+
+	@Override
+	public String getStateDescription(){
+		StringBuilder buf = new StringBuilder();
+		for(ObjectInstance o : this.getObservableObjects()){
+			buf.append(o.getObjectDescription()).append("\n");
+		}
+		return buf.toString();
+	}
+
+
+	@Override
+	public Map<String, List<String>> getAllUnsetAttributes(){
+		Map<String, List<String>> unset = new HashMap<String, List<String>>();
+		for(ObjectInstance o : this.getAllObjects()){
+			List<String> unsetA = o.unsetAttributes();
+			if(unsetA.size() > 0){
+				unset.put(o.getName(), unsetA);
+			}
+		}
+		return unset;
+	}
+
+
+	@Override
+	public String getCompleteStateDescription(){
+		StringBuilder buf = new StringBuilder();
+		for(ObjectInstance o : this.getAllObjects()){
+			buf.append(o.getObjectDescription()).append("\n");
+		}
+		return buf.toString();
+	}
+
+
+	@Override
+	public String getCompleteStateDescriptionWithUnsetAttributesAsNull(){
+		StringBuilder buf = new StringBuilder();
+		for(ObjectInstance o : this.getAllObjects()){
+			buf.append(o.getObjectDesriptionWithNullForUnsetAttributes()).append("\n");
+		}
+		return buf.toString();
+	}
+
+
+	@Override
+	protected List<ObjectInstance> observableObjectList(){
+		return this.getObservableObjects();
+	}
+
+
+	@Override
+	protected List<ObjectInstance> hiddenObjectList(){
+		return this.getHiddenObjects();
+	}
+
+
+	@Override
+	protected List<ObjectInstance> classObjectList(String oclass){
+		int [] members = this.layout.objectsByClass.get(oclass);
+		if(members == null){
+			return null;
+		}
+		return this.views(members);
+	}
+
+
+	/**
+	 * Returns the view of the object at layout index i, creating it if it does not yet exist.
+	 * @param i the layout index of the object
+	 * @return the view of the object
+	 */
+	protected PackedObjectInstance view(int i){
+		if(this.views == null){
+			this.views = new PackedObjectInstance[this.layout.numObjects()];
+		}
+		PackedObjectInstance v = this.views[i];
+		if(v == null){
+			v = new PackedObjectInstance(this, i);
+			this.views[i] = v;
+		}
+		return v;
+	}
+
+
+	protected List<ObjectInstance> views(int [] indices){
+		List<ObjectInstance> objects = new ArrayList<ObjectInstance>(indices.length);
+		for(int i : indices){
+			objects.add(this.view(i));
+		}
+		return objects;
+	}
+
+
+	protected void setLayout(PackedStateLayout layout, int [] data){
+		this.layout = layout;
+		this.data = data;
+		this.views = null;
+		this.canonicalForm = null;
+	}
+
+}
@@ -0,0 +1,386 @@
+package burlap.oomdp.core.packed;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import burlap.oomdp.core.Attribute;
+import burlap.oomdp.core.Attribute.AttributeType;
+import burlap.oomdp.core.ObjectClass;
+import burlap.oomdp.core.ObjectInstance;
+import burlap.oomdp.core.State;
+import burlap.oomdp.core.Value;
+
+
+/**
+ * A layout defines how the object instances of a {@link PackedState} are stored in a single int array. The layout is derived
+ * from a fixed list of object names and their {@link ObjectClass} definitions: each object is assigned a contiguous block of the
+ * array with one int for each of its class' attributes, in the order of the class' attribute list. Since every attribute is stored as
+ * an int, only {@link AttributeType#DISC}, {@link AttributeType#BOOLEAN} and {@link AttributeType#INT} attributes are supported.
+ * <p/>
+ * A layout is immutable and should be shared by all states with the same objects, which is what makes a {@link PackedState}
+ * cheap: the state itself only stores its int array. Typically, a layout is created once from an initial state with
+ * {@link #PackedStateLayout(State)} and then the initial state is converted with {@link #pack(State)}. All states
+ * generated from it by actions are copies and will share the same layout.
+ *
+ */
+public class PackedStateLayout {
+
+	/**
+	 * The value stored for unset {@link AttributeType#DISC} and {@link AttributeType#BOOLEAN} attributes.
+	 */
+	public static final int							UNSET = -1;
+
+
+	/**
+	 * The name of each object
+	 */
+	protected String []								objectNames;
+
+	/**
+	 * The object class of each object
+	 */
+	protected ObjectClass []						objectClasses;
+
+	/**
+	 * The offset of each object's block in the packed int array
+	 */
+	protected int []								offsets;
+
+	/**
+	 * For each object, whether each of its attributes is an {@link AttributeType#INT} attribute (and therefore cannot be unset).
+	 * The arrays are shared by all objects of the same class.
+	 */
+	protected boolean [][]							intAttributes;
+
+	/**
+	 * Map from object names to their index in this layout
+	 */
+	protected Map<String, Integer>					objectIndex;
+
+	/**
+	 * Map from object class names to the indices of the objects of that class, in layout order.
+	 */
+	protected Map<String, int[]>					objectsByClass;
+
+	/**
+	 * The indices of the observable objects
+	 */
+	protected int []								observableObjects;
+
+	/**
+	 * The indices of the hidden objects
+	 */
+	protected int []								hiddenObjects;
+
+	/**
+	 * The length of the packed int array
+	 */
+	protected int									size;
+
+
+
+	/**
+	 * Initializes a layout for the objects in the given state. The layout will order objects with the observable objects first,
+	 * followed by the hidden objects.
+	 * @param prototype the state whose objects define the layout
+	 */
+	public PackedStateLayout(State prototype){
+		this(prototype.getAllObjects());
+	}
+
+
+	/**
+	 * Initializes a layout for the given list of objects. Only the names and object classes of the objects are used.
+	 * @param objects the objects whose names and object classes define the layout
+	 */
+	public PackedStateLayout(List<ObjectInstance> objects){
+
+		int n = objects.size();
+		this.objectNames = new String[n];
+		this.objectClasses = new ObjectClass[n];
+		this.offsets = new int[n];
+		this.intAttributes = new boolean[n][];
+		this.objectIndex = new HashMap<String, Integer>(n);
+
+		Map<String, List<Integer>> classMembers = new LinkedHashMap<String, List<Integer>>();
+		Map<String, boolean[]> classIntAttributes = new HashMap<String, boolean[]>();
+		List<Integer> observable = new ArrayList<Integer>(n);
+		List<Integer> hidden = new ArrayList<Integer>();
+
+		int offset = 0;
+		for(int i = 0; i < n; i++){
+
+			ObjectInstance o = objects.get(i);
+			ObjectClass oc = o.getObjectClass();
+			if(this.objectIndex.containsKey(o.getName())){
+				throw new RuntimeException("Cannot create a packed state layout with more than one object named " + o.getName());
+			}
+
+			this.objectNames[i] = o.getName();
+			this.objectClasses[i] = oc;
+			this.offsets[i] = offset;
+			this.objectIndex.put(o.getName(), i);
+
+			boolean [] intAtts = classIntAttributes.get(oc.name);
+			if(intAtts == null){
+				intAtts = computeIntAttributes(oc);
+				classIntAttributes.put(oc.name, intAtts);
+			}
+			this.intAttributes[i] = intAtts;
+
+			List<Integer> members = classMembers.get(oc.name);
+			if(members == null){
+				members = new ArrayList<Integer>();
+				classMembers.put(oc.name, members);
+			}
+			members.add(i);
+
+			if(oc.hidden){
+				hidden.add(i);
+			}
+			else{
+				observable.add(i);
+			}
+
+			offset += oc.numAttributes();
+
+		}
+
+		this.size = offset;
+
+		this.objectsByClass = new HashMap<String, int[]>(classMembers.size());
+		for(Map.Entry<String, List<Integer>> e : classMembers.entrySet()){
+			this.objectsByClass.put(e.getKey(), toArray(e.getValue()));
+		}
+		this.observableObjects = toArray(observable);
+		this.hiddenObjects = toArray(hidden);
+
+	}
+
+
+	/**
+	 * Creates a new {@link PackedState} with this layout whose values are copied from the source state. The source state must
+	 * contain an object for every object name in this layout, and those objects must belong to the same object class as in this layout.
+	 * @param s the source state
+	 * @return a new {@link PackedState} with this layout and the values of s.
+	 */
+	public PackedState pack(State s){
+
+		int [] data = new int[this.size];
+		for(int i = 0; i < this.objectNames.length; i++){
+			ObjectInstance o = s.getObject(this.objectNames[i]);
+			if(o == null){
+				throw new RuntimeException("Cannot pack state, because it does not have an object named " + this.objectNames[i]);
+			}
+			if(!o.getTrueClassName().equals(this.objectClasses[i].name)){
+				throw new RuntimeException("Cannot pack state, because object " + o.getName() + " is of class " + o.getTrueClassName() + " instead of " + this.objectClasses[i].name);
+			}
+			this.writeObject(o, data, this.offsets[i]);
+		}
+
+		return new PackedState(this, data);
+	}
+
+
+	/**
+	 * Creates a new {@link PackedState} with this layout in which every value is unset ({@link AttributeType#INT} values
+	 * are set to 0).
+	 * @return a new {@link PackedState} with this layout and unset values.
+	 */
+	public PackedState blankState(){
+		int [] data = new int[this.size];
+		for(int i = 0; i < this.objectNames.length; i++){
+			this.clearObject(i, data);
+		}
+		return new PackedState(this, data);
+	}
+
+
+	/**
+	 * Convenience method for creating a layout for the given state and packing it. Note that states packed with this method
+	 * will not share their layout, so prefer creating a single layout and using {@link #pack(State)} when more than one
+	 * state needs to be packed.
+	 * @param s the state to pack
+	 * @return a new {@link PackedState} with the values of s.
+	 */
+	public static PackedState packWithNewLayout(State s){
+		return new PackedStateLayout(s).pack(s);
+	}
+
+
+	/**
+	 * Returns the number of objects in this layout
+	 * @return the number of objects in this layout
+	 */
+	public int numObjects(){
+		return this.objectNames.length;
+	}
+
+
+	/**
+	 * Returns the length of the int array of a state with this layout
+	 * @return the length of the int array of a state with this layout
+	 */
+	public int size(){
+		return this.size;
+	}
+
+
+	/**
+	 * Returns the index of the object with the given name in this layout.
+	 * @param oname the name of the object
+	 * @return the index of the object, or -1 if there is no object with that name in this layout.
+	 */
+	public int objectIndex(String oname){
+		Integer ind = this.objectIndex.get(oname);
+		if(ind == null){
+			return -1;
+		}
+		return ind;
+	}
+
+
+	/**
+	 * Returns the name of the object at the given layout index
+	 * @param i the layout index of the object
+	 * @return the name of the object
+	 */
+	public String objectName(int i){
+		return this.objectNames[i];
+	}
+
+
+	/**
+	 * Returns the object class of the object at the given layout index
+	 * @param i the layout index of the object
+	 * @return the object class of the object
+	 */
+	public ObjectClass objectClass(int i){
+		return this.objectClasses[i];
+	}
+
+
+	/**
+	 * Returns the offset in the packed int array of the block of the object at the given layout index
+	 * @param i the layout index of the object
+	 * @return the offset of the object's block
+	 */
+	public int offset(int i){
+		return this.offsets[i];
+	}
+
+
+	/**
+	 * Returns a copy of this layout's object list with the given object appended to it.
+	 * @param o the object to add
+	 * @return a new layout
+	 */
+	protected PackedStateLayout withObject(ObjectInstance o){
+		List<ObjectInstance> objects = this.prototypeObjects();
+		objects.add(o);
+		return new PackedStateLayout(objects);
+	}
+
+
+	/**
+	 * Returns a copy of this layout's object list without the object at the given layout index.
+	 * @param i the layout index of the object to remove
+	 * @return a new layout
+	 */
+	protected PackedStateLayout withoutObject(int i){
+		List<ObjectInstance> objects = this.prototypeObjects();
+		objects.remove(i);
+		return new PackedStateLayout(objects);
+	}
+
+
+	/**
+	 * Returns a copy of this layout's object list with the object at the given layout index renamed.
+	 * @param i the layout index of the object to rename
+	 * @param newName the new name of the object
+	 * @return a new layout
+	 */
+	protected PackedStateLayout withRenamedObject(int i, String newName){
+		List<ObjectInstance> objects = this.prototypeObjects();
+		objects.set(i, new ObjectInstance(this.objectClasses[i], newName));
+		return new PackedStateLayout(objects);
+	}
+
+
+	/**
+	 * Writes the values of the object o into the block of data starting at offset.
+	 * @param o the source object
+	 * @param data the packed int array
+	 * @param offset the offset of the object's block
+	 */
+	protected void writeObject(ObjectInstance o, int [] data, int offset){
+		List<Attribute> atts = o.getObjectClass().attributeList;
+		for(int j = 0; j < atts.size(); j++){
+			data[offset+j] = rawValue(o.getValueForAttribute(atts.get(j).name));
+		}
+	}
+
+
+	/**
+	 * Sets the block of the object at layout index i to unset values.
+	 * @param i the layout index of the object
+	 * @param data the packed int array
+	 */
+	protected void clearObject(int i, int [] data){
+		boolean [] intAtts = this.intAttributes[i];
+		int offset = this.offsets[i];
+		for(int j = 0; j < intAtts.length; j++){
+			data[offset+j] = intAtts[j] ? 0 : UNSET;
+		}
+	}
+
+
+	/**
+	 * Returns the int that represents the given value in a packed int array.
+	 * @param v the value
+	 * @return the int representation of v
+	 */
+	protected static int rawValue(Value v){
+		if(!v.valueHasBeenSet()){
+			return UNSET;
+		}
+		return v.getDiscVal();
+	}
+
+
+	protected List<ObjectInstance> prototypeObjects(){
+		List<ObjectInstance> objects = new ArrayList<ObjectInstance>(this.objectNames.length+1);
+		for(int i = 0; i < this.objectNames.length; i++){
+			objects.add(new ObjectInstance(this.objectClasses[i], this.objectNames[i]));
+		}
+		return objects;
+	}
+
+
+	protected static boolean [] computeIntAttributes(ObjectClass oc){
+		boolean [] intAtts = new boolean[oc.numAttributes()];
+		for(int j = 0; j < intAtts.length; j++){
+			Attribute att = oc.attributeList.get(j);
+			if(att.type == AttributeType.INT){
+				intAtts[j] = true;
+			}
+			else if(att.type != AttributeType.DISC && att.type != AttributeType.BOOLEAN){
+				throw new RuntimeException("PackedStateLayout can only pack DISC, BOOLEAN and INT attributes; attribute " + att.name + " of class " + oc.name + " is of type " + att.type);
+			}
+		}
+		return intAtts;
+	}
+
+
+	protected static int [] toArray(List<Integer> list){
+		int [] array = new int[list.size()];
+		for(int i = 0; i < array.length; i++){
+			array[i] = list.get(i);
+		}
+		return array;
+	}
+
+}
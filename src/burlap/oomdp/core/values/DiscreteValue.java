@@ -150,6 +150,11 @@ public class DiscreteValue extends Value{
 		
 	}
 
+	@Override
+	public int hashCode(){
+		return this.discVal;
+	}
+
 	@Override
 	public boolean getBooleanValue() {
 		return this.discVal != 0;
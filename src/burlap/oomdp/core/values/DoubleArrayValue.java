@@ -185,6 +185,20 @@ public class DoubleArrayValue extends Value{
 		
 	}
 
+	@Override
+	public int hashCode(){
+		if(this.doubleArray == null){
+			return 0;
+		}
+		int code = 1;
+		for(double d : this.doubleArray){
+			//0.0 and -0.0 are equal values, so they must share a hash code
+			long bits = d == 0. ? 0L : Double.doubleToLongBits(d);
+			code = 31*code + (int)(bits ^ (bits >>> 32));
+		}
+		return code;
+	}
+
 	@Override
 	public void setValue(boolean v) {
 		throw new UnsupportedOperationException("Value is of type DoubleArray; cannot be set to a boolean value.");
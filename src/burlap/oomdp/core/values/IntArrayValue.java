@@ -1,5 +1,6 @@
 package burlap.oomdp.core.values;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Set;
 
@@ -174,6 +175,11 @@ public class IntArrayValue extends Value {
 		return true;
 		
 	}
+
+	@Override
+	public int hashCode(){
+		return Arrays.hashCode(this.intArray);
+	}
 	
 	@Override
 	public void setValue(boolean v) {
@@ -140,6 +140,11 @@ public class IntValue extends Value {
 	}
 
 
+	@Override
+	public int hashCode(){
+		return this.intVal;
+	}
+
 	@Override
 	public boolean getBooleanValue() {
 		return this.intVal != 0;
@@ -140,6 +140,13 @@ public class RealValue extends Value {
 		
 	}
 
+	@Override
+	public int hashCode(){
+		//0.0 and -0.0 are equal values, so they must share a hash code
+		long bits = this.realVal == 0. ? 0L : Double.doubleToLongBits(this.realVal);
+		return (int)(bits ^ (bits >>> 32));
+	}
+
 
 	@Override
 	public boolean getBooleanValue() {
@@ -130,6 +130,11 @@ public class StringValue extends Value {
 		
 	}
 
+	@Override
+	public int hashCode(){
+		return this.stringVal == null ? 0 : this.stringVal.hashCode();
+	}
+
 
 	@Override
 	public boolean getBooleanValue() {
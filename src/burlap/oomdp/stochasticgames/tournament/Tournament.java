@@ -1,10 +1,25 @@
 package burlap.oomdp.stochasticgames.tournament;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import burlap.debugtools.DPrint;
 import burlap.debugtools.RandomFactory;
@@ -20,6 +35,24 @@ import burlap.oomdp.stochasticgames.WorldGenerator;
  * running a tournament of many agents in 2-player games like iterated prisoner's dilemma. The Tournament class requires
  * a list of agents, a world generator and a match selector. The MatchSelector determines which agents will be matched up
  * in a game, which {@link burlap.oomdp.stochasticgames.AgentType} role they will play as and how many matches there will be.
+ * <p/>
+ * Matches can be run concurrently on a thread pool with the {@link #setParallelMatches(int)} method. In this mode all matches are first drawn from
+ * the match selector, and each match then runs in a worker thread with its own world from the world generator and its own agents generated
+ * from the agent factories, so agents are confined to the thread of their match. Each match runs with a {@link RandomFactory} split for the match
+ * (see {@link #setMatchSeed(long)}), so the random generators that its agents obtain from the {@link RandomFactory} do not depend on which worker
+ * runs it. Generators created before the tournament started, such as that of a domain's joint action model, are shared by all matches, so
+ * matches with stochastic dynamics are only reproducible if the world generator creates their domains too. Once all matches are complete, their
+ * rewards are added to the agents' tournament rewards in match order, so the totals do not depend on the order in which the matches finish.
+ * The world generator and the agent factories must be safe to call from multiple threads in this mode.
+ * <p/>
+ * The results of completed matches can be saved to a checkpoint file with the {@link #setCheckpointFile(String)} method. When the tournament is
+ * run and the checkpoint file already exists, the matches it records are not played again; their saved rewards are added to the tournament
+ * rewards instead, so a long tournament that was interrupted can be resumed. Matches are identified by the order in which the match selector
+ * returns them, so the selector must return the same matches in the same order when the tournament is resumed; if a restored match was played by
+ * different agents than the selector chooses for it, or the file records more matches than the selector chooses, running the tournament
+ * throws an exception rather than crediting the saved rewards to the wrong agents. When matches are run one after
+ * another, the restored matches do not draw from the shared random generators, so the remaining matches may not play out exactly as they
+ * would have without the interruption; when they are run concurrently, the random generators of each match depend only on its index.
  * @author James MacGlashan
  *
  */
@@ -38,6 +71,27 @@ public class Tournament {
 	
 	protected int							debugId = 25633;
 	
+	/**
+	 * The executor used to run matches concurrently, or null if matches are run one after another
+	 */
+	protected ExecutorService				matchExecutor = null;
+	
+	/**
+	 * Whether the {@link #matchExecutor} was created by this object, in which case it is shut down when it is replaced
+	 */
+	protected boolean						ownsMatchExecutor = false;
+	
+	/**
+	 * The seed from which the random generators of each match are derived when matches are run concurrently, or null to split them from the
+	 * {@link RandomFactory} of the thread that runs the tournament
+	 */
+	protected Long							matchSeed = null;
+	
+	/**
+	 * The file to which the results of completed matches are saved, or null if they are not saved
+	 */
+	protected String						checkpointPath = null;
+	
 	
 	
 	/**
@@ -172,6 +226,62 @@ public class Tournament {
 	}
 	
 	
+	/**
+	 * Sets the number of threads used to run matches concurrently. A value of 1 or less runs matches one after another, which is the default.
+	 * The threads are daemon threads, so they do not keep the JVM alive.
+	 * @param numThreads the number of threads used to run matches
+	 */
+	public void setParallelMatches(int numThreads){
+		if(numThreads <= 1){
+			this.setParallelMatches(null);
+			return;
+		}
+		this.setParallelMatches(Executors.newFixedThreadPool(numThreads, new ThreadFactory() {
+			
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "Tournament match worker");
+				t.setDaemon(true);
+				return t;
+			}
+		}));
+		this.ownsMatchExecutor = true;
+	}
+	
+	
+	/**
+	 * Sets the executor used to run matches concurrently. The executor is not shut down by this object. If the previous executor was
+	 * created by {@link #setParallelMatches(int)}, it is shut down.
+	 * @param executor the executor used to run matches, or null to run matches one after another
+	 */
+	public void setParallelMatches(ExecutorService executor){
+		if(this.ownsMatchExecutor && this.matchExecutor != null && this.matchExecutor != executor){
+			this.matchExecutor.shutdown();
+		}
+		this.matchExecutor = executor;
+		this.ownsMatchExecutor = false;
+	}
+	
+	
+	/**
+	 * Sets the seed from which the random generators of each match are derived when matches are run concurrently. Match i runs with the
+	 * {@link RandomFactory} split from a factory with this base seed for index i.
+	 * @param seed the seed from which the random generators of each match are derived
+	 */
+	public void setMatchSeed(long seed){
+		this.matchSeed = seed;
+	}
+	
+	
+	/**
+	 * Sets the file to which the results of completed matches are saved, and from which they are restored when the tournament is run.
+	 * @param path the path of the checkpoint file, or null to not save results
+	 */
+	public void setCheckpointFile(String path){
+		this.checkpointPath = path;
+	}
+	
+	
 	/**
 	 * Runs the tournament
 	 */
@@ -179,38 +289,356 @@ public class Tournament {
 		
 		selector.resetMatchSelections();
 		
+		Map<Integer, MatchResult> completed = this.loadCheckpoint();
+		BufferedWriter checkpoint = this.openCheckpoint();
+		
+		try{
+			if(this.matchExecutor != null){
+				this.runParallelMatches(completed, checkpoint);
+				return;
+			}
+			
+			List<MatchEntry> match = null;
+			int matchIndex = 0;
+			while((match = selector.getNextMatch()) != null){
+				
+				MatchResult result = this.restoredResult(completed, matchIndex, match);
+				if(result == null){
+					result = this.runMatch(matchIndex, match, RandomFactory.getMapped(0));
+					this.saveCheckpoint(checkpoint, result);
+				}
+				
+				//record results
+				for(int i = 0; i < result.agentIds.length; i++){
+					int aId = result.agentIds[i];
+					tournamentCumulatedReward.set(aId, result.rewards[i]+tournamentCumulatedReward.get(aId));
+				}
+				
+				matchIndex++;
+				
+			}
+			this.checkNoExtraResults(completed, matchIndex);
+		}
+		finally{
+			this.closeCheckpoint(checkpoint);
+		}
+		
+	}
+	
+	
+	/**
+	 * Runs all matches concurrently with the {@link #matchExecutor}, skipping those that have already been completed.
+	 * @param completed the results of the matches that have already been completed, by match index
+	 * @param checkpoint the writer of the checkpoint file, or null if results are not saved
+	 */
+	protected void runParallelMatches(Map<Integer, MatchResult> completed, final BufferedWriter checkpoint){
+		
+		RandomFactory matchFactories = this.matchSeed != null ? new RandomFactory(this.matchSeed) : RandomFactory.current().insplit(0);
+		
+		List<Future<MatchResult>> futures = new ArrayList<Future<MatchResult>>();
+		List<MatchResult> results = new ArrayList<MatchResult>(); //by match index; null until a match that is run completes
+		List<Integer> futureIndices = new ArrayList<Integer>(); //the match index of each future
 		List<MatchEntry> match = null;
+		int matchIndex = 0;
 		while((match = selector.getNextMatch()) != null){
 			
-			World w = worldGenerator.generateWorld();
-			
-			//shuffle entrants
-			Collections.shuffle(match, RandomFactory.getMapped(0));
+			MatchResult result = this.restoredResult(completed, matchIndex, match);
+			results.add(result);
+			if(result == null){
+				final int index = matchIndex;
+				final List<MatchEntry> entries = match;
+				final RandomFactory matchFactory = matchFactories.insplit(matchIndex);
+				futures.add(this.matchExecutor.submit(new Callable<MatchResult>() {
+					
+					@Override
+					public MatchResult call() throws Exception {
+						RandomFactory.setThreadFactory(matchFactory);
+						try{
+							MatchResult result = Tournament.this.runMatch(index, entries, RandomFactory.getMapped(0));
+							Tournament.this.saveCheckpoint(checkpoint, result);
+							return result;
+						}
+						finally{
+							RandomFactory.setThreadFactory(null);
+						}
+					}
+				}));
+				futureIndices.add(matchIndex);
+			}
 			
-			Map<String, Integer> agentNameToId = new HashMap<String, Integer>();
+			matchIndex++;
 			
-			//have the matched agents join the world
-			for(MatchEntry me : match){
-				Agent a = agents.get(me.agentId).generateAgent();
-				a.joinWorld(w, me.agentType);
-				agentNameToId.put(a.getAgentName(), me.agentId);
-				DPrint.c(debugId, me.agentId + " ");
+		}
+		this.checkNoExtraResults(completed, matchIndex);
+		
+		try{
+			for(int i = 0; i < futures.size(); i++){
+				results.set(futureIndices.get(i), futures.get(i).get());
 			}
-			DPrint.cl(debugId, "");
-			
-			//run the game
-			for(int i = 0; i < this.numGames; i++){
-				w.runGame(maxStages);
+		} catch(InterruptedException e){
+			cancelAll(futures);
+			throw new RuntimeException("Parallel tournament matches were interrupted", e);
+		} catch(ExecutionException e){
+			cancelAll(futures);
+			throw new RuntimeException("Parallel tournament match failed", e.getCause());
+		}
+		
+		//add the rewards in match order, as when the matches are run one after another
+		for(MatchResult result : results){
+			for(int i = 0; i < result.agentIds.length; i++){
+				int aId = result.agentIds[i];
+				tournamentCumulatedReward.set(aId, result.rewards[i]+tournamentCumulatedReward.get(aId));
 			}
-			
-			//record results
-			for(String aname : agentNameToId.keySet()){
-				int aId = agentNameToId.get(aname);
-				double gameCumR = w.getCumulativeRewardForAgent(aname);
-				double tournCumR = tournamentCumulatedReward.get(aId);
-				tournamentCumulatedReward.set(aId, gameCumR+tournCumR);
+		}
+		
+	}
+	
+	
+	/**
+	 * Returns the restored result of the match with the given index, after checking that it was played by the agents the match selector
+	 * chose for that match.
+	 * @param completed the results of the matches that have already been completed, by match index
+	 * @param matchIndex the index of the match
+	 * @param match the entrants of the match chosen by the match selector
+	 * @return the restored result of the match, or null if the match has not been completed
+	 */
+	protected MatchResult restoredResult(Map<Integer, MatchResult> completed, int matchIndex, List<MatchEntry> match){
+		MatchResult result = completed.get(matchIndex);
+		if(result == null){
+			return null;
+		}
+		int [] expected = new int[match.size()];
+		for(int i = 0; i < expected.length; i++){
+			expected[i] = match.get(i).agentId;
+		}
+		int [] restored = result.agentIds.clone();
+		Arrays.sort(expected);
+		Arrays.sort(restored);
+		if(!Arrays.equals(expected, restored)){
+			throw new RuntimeException("Tournament checkpoint file " + this.checkpointPath + " records agents " + Arrays.toString(restored) + " for match "
+					+ matchIndex + ", but the match selector chose agents " + Arrays.toString(expected) + "; it was saved by a tournament with different agents or match selection");
+		}
+		return result;
+	}
+	
+	
+	/**
+	 * Checks that the restored results do not include matches beyond the last match chosen by the match selector.
+	 * @param completed the results of the matches that have already been completed, by match index
+	 * @param numMatches the number of matches chosen by the match selector
+	 */
+	protected void checkNoExtraResults(Map<Integer, MatchResult> completed, int numMatches){
+		for(Integer matchIndex : completed.keySet()){
+			if(matchIndex >= numMatches){
+				throw new RuntimeException("Tournament checkpoint file " + this.checkpointPath + " records match " + matchIndex + ", but the match selector chose only "
+						+ numMatches + " matches; it was saved by a tournament with different agents or match selection");
 			}
-			
+		}
+	}
+	
+	
+	/**
+	 * Plays a match in a new world with newly generated agents and returns the cumulative reward each agent received.
+	 * @param matchIndex the index of the match in the order returned by the match selector
+	 * @param match the entrants of the match
+	 * @param rand the random generator used to shuffle the entrants
+	 * @return the result of the match
+	 */
+	protected MatchResult runMatch(int matchIndex, List<MatchEntry> match, Random rand){
+		
+		World w = worldGenerator.generateWorld();
+		
+		//shuffle entrants
+		Collections.shuffle(match, rand);
+		
+		Map<String, Integer> agentNameToId = new HashMap<String, Integer>();
+		
+		//have the matched agents join the world
+		StringBuilder buf = new StringBuilder();
+		for(MatchEntry me : match){
+			Agent a = agents.get(me.agentId).generateAgent();
+			a.joinWorld(w, me.agentType);
+			agentNameToId.put(a.getAgentName(), me.agentId);
+			buf.append(me.agentId).append(" ");
+		}
+		DPrint.cl(debugId, buf.toString());
+		
+		//run the game
+		for(int i = 0; i < this.numGames; i++){
+			w.runGame(maxStages);
+		}
+		
+		//record results
+		MatchResult result = new MatchResult(matchIndex, agentNameToId.size());
+		int i = 0;
+		for(Map.Entry<String, Integer> e : agentNameToId.entrySet()){
+			result.agentIds[i] = e.getValue();
+			result.rewards[i] = w.getCumulativeRewardForAgent(e.getKey());
+			i++;
+		}
+		
+		return result;
+		
+	}
+	
+	
+	/**
+	 * Reads the results of the completed matches from the checkpoint file. Each line of the file holds the index of a match followed by
+	 * the id and cumulative reward of each of its agents and a terminating semicolon, separated by spaces. Lines without the terminator
+	 * were only partially written when the tournament was interrupted and are ignored, so their matches are played again.
+	 * @return the results of the completed matches, by match index; empty if there is no checkpoint file
+	 */
+	protected Map<Integer, MatchResult> loadCheckpoint(){
+		
+		Map<Integer, MatchResult> completed = new HashMap<Integer, MatchResult>();
+		if(this.checkpointPath == null || !new File(this.checkpointPath).exists()){
+			return completed;
+		}
+		
+		try{
+			BufferedReader in = new BufferedReader(new FileReader(this.checkpointPath));
+			String line;
+			while((line = in.readLine()) != null){
+				line = line.trim();
+				if(!line.endsWith(";")){
+					continue;
+				}
+				String [] comps = line.substring(0, line.length()-1).trim().split(" ");
+				MatchResult result = new MatchResult(Integer.parseInt(comps[0]), comps.length / 2);
+				for(int i = 0; i < result.agentIds.length; i++){
+					result.agentIds[i] = Integer.parseInt(comps[2*i+1]);
+					result.rewards[i] = Double.parseDouble(comps[2*i+2]);
+				}
+				completed.put(result.matchIndex, result);
+			}
+			in.close();
+		} catch(IOException e){
+			throw new RuntimeException("Could not read tournament checkpoint file: " + this.checkpointPath, e);
+		} catch(NumberFormatException e){
+			throw new RuntimeException("Malformed tournament checkpoint file: " + this.checkpointPath, e);
+		}
+		
+		DPrint.cl(debugId, "Restored " + completed.size() + " completed matches from " + this.checkpointPath);
+		
+		return completed;
+	}
+	
+	
+	/**
+	 * Opens the checkpoint file for appending. If the file ends with a partially written line, a line break is added first so that the
+	 * partial line stays separate from the results appended after it.
+	 * @return the writer of the checkpoint file, or null if results are not saved
+	 */
+	protected BufferedWriter openCheckpoint(){
+		if(this.checkpointPath == null){
+			return null;
+		}
+		try{
+			boolean endsWithPartialLine = false;
+			File f = new File(this.checkpointPath);
+			if(f.length() > 0){
+				RandomAccessFile raf = new RandomAccessFile(f, "r");
+				raf.seek(f.length()-1);
+				endsWithPartialLine = raf.read() != '\n';
+				raf.close();
+			}
+			BufferedWriter out = new BufferedWriter(new FileWriter(this.checkpointPath, true));
+			if(endsWithPartialLine){
+				out.write("\n");
+			}
+			return out;
+		} catch(IOException e){
+			throw new RuntimeException("Could not open tournament checkpoint file: " + this.checkpointPath, e);
+		}
+	}
+	
+	
+	/**
+	 * Appends the result of a completed match to the checkpoint file and flushes it, so that the match is not lost if the tournament is interrupted.
+	 * Can be called from multiple threads.
+	 * @param checkpoint the writer of the checkpoint file, or null if results are not saved
+	 * @param result the result of the completed match
+	 */
+	protected void saveCheckpoint(BufferedWriter checkpoint, MatchResult result){
+		if(checkpoint == null){
+			return;
+		}
+		StringBuilder buf = new StringBuilder();
+		buf.append(result.matchIndex);
+		for(int i = 0; i < result.agentIds.length; i++){
+			buf.append(" ").append(result.agentIds[i]).append(" ").append(result.rewards[i]);
+		}
+		buf.append(" ;\n");
+		synchronized(checkpoint){
+			try{
+				checkpoint.write(buf.toString());
+				checkpoint.flush();
+			} catch(IOException e){
+				throw new RuntimeException("Could not write tournament checkpoint file: " + this.checkpointPath, e);
+			}
+		}
+	}
+	
+	
+	/**
+	 * Closes the checkpoint file.
+	 * @param checkpoint the writer of the checkpoint file, or null if results are not saved
+	 */
+	protected void closeCheckpoint(BufferedWriter checkpoint){
+		if(checkpoint == null){
+			return;
+		}
+		try{
+			checkpoint.close();
+		} catch(IOException e){
+			throw new RuntimeException("Could not close tournament checkpoint file: " + this.checkpointPath, e);
+		}
+	}
+	
+	
+	/**
+	 * Cancels all the given futures.
+	 * @param futures the futures to cancel
+	 */
+	protected static void cancelAll(List<? extends Future<?>> futures){
+		for(Future<?> f : futures){
+			f.cancel(true);
+		}
+	}
+	
+	
+	
+	/**
+	 * The cumulative rewards that the agents of a match received.
+	 *
+	 */
+	protected static class MatchResult{
+		
+		/**
+		 * The index of the match in the order returned by the match selector
+		 */
+		public int			matchIndex;
+		
+		/**
+		 * The tournament index of each agent of the match
+		 */
+		public int []		agentIds;
+		
+		/**
+		 * The cumulative reward each agent of the match received
+		 */
+		public double []	rewards;
+		
+		
+		/**
+		 * Initializes.
+		 * @param matchIndex the index of the match in the order returned by the match selector
+		 * @param numAgents the number of agents of the match
+		 */
+		public MatchResult(int matchIndex, int numAgents){
+			this.matchIndex = matchIndex;
+			this.agentIds = new int[numAgents];
+			this.rewards = new double[numAgents];
 		}
 		
 	}
@@ -0,0 +1,89 @@
+package burlap.testing;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import burlap.oomdp.core.Attribute;
+import burlap.oomdp.core.AttributeHandle;
+import burlap.oomdp.core.ObjectClass;
+import burlap.oomdp.core.ObjectInstance;
+import burlap.oomdp.singleagent.SADomain;
+
+public class TestAttributeHandle {
+	SADomain domain;
+	ObjectClass objectClass;
+
+	@Before
+	public void setup() {
+		this.domain = new SADomain();
+		this.objectClass = classWithAttributes(this.domain, "x", "y", "on");
+	}
+
+	@Test
+	public void testAccessByIndex() {
+		AttributeHandle x = this.domain.getAttributeHandle("block", "x");
+		AttributeHandle on = this.objectClass.getAttributeHandle("on");
+		Assert.assertEquals(0, x.getIndex());
+		Assert.assertEquals(2, on.getIndex());
+		Assert.assertEquals("block.on", on.toString());
+
+		ObjectInstance o = new ObjectInstance(this.objectClass, "b0");
+		x.setInt(o, 3);
+		o.setValue("y", 4);
+		on.setBoolean(o, true);
+		Assert.assertEquals(3, o.getIntValForAttribute("x"));
+		Assert.assertEquals(3, x.getInt(o));
+		Assert.assertEquals(3., x.getNumeric(o), 0.);
+		Assert.assertTrue(on.getBoolean(o));
+	}
+
+	@Test
+	public void testOtherClassInstanceFallsBackToName() {
+		AttributeHandle x = this.objectClass.getAttributeHandle("x");
+		AttributeHandle y = this.objectClass.getAttributeHandle("y");
+
+		//a class with the same name but a different attribute order, like the class of a domain that was built differently
+		ObjectClass reordered = classWithAttributes(new SADomain(), "on", "y", "x");
+		ObjectInstance o = new ObjectInstance(reordered, "b0");
+		o.setValue("x", 7);
+		o.setValue("y", 8);
+		o.setValue("on", 1);
+
+		Assert.assertEquals(7, x.getInt(o));
+		Assert.assertEquals(8, y.getInt(o));
+		x.setInt(o, 9);
+		Assert.assertEquals(9, o.getIntValForAttribute("x"));
+		Assert.assertEquals(1, o.getIntValForAttribute("on"));
+	}
+
+	@Test
+	public void testSettersCopyOnWrite() {
+		AttributeHandle x = this.objectClass.getAttributeHandle("x");
+		ObjectInstance o = new ObjectInstance(this.objectClass, "b0");
+		x.setInt(o, 1);
+		ObjectInstance copy = o.copy();
+		x.setInt(copy, 2);
+		Assert.assertEquals(1, x.getInt(o));
+		Assert.assertEquals(2, x.getInt(copy));
+	}
+
+	@Test(expected = RuntimeException.class)
+	public void testUndefinedAttribute() {
+		this.objectClass.getAttributeHandle("z");
+	}
+
+
+	protected static ObjectClass classWithAttributes(SADomain domain, String...names) {
+		ObjectClass oc = new ObjectClass(domain, "block");
+		for(String name : names){
+			Attribute att = new Attribute(domain, name, name.equals("on") ? Attribute.AttributeType.BOOLEAN : Attribute.AttributeType.INT);
+			if(!name.equals("on")){
+				att.setLims(0, 10);
+			}
+			oc.addAttribute(att);
+		}
+		return oc;
+	}
+
+}
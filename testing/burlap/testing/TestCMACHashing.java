@@ -0,0 +1,172 @@
+package burlap.testing;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import burlap.behavior.singleagent.vfa.ActionFeaturesQuery;
+import burlap.behavior.singleagent.vfa.StateFeature;
+import burlap.behavior.singleagent.vfa.cmac.CMACFeatureDatabase;
+import burlap.behavior.singleagent.vfa.cmac.CMACFeatureDatabase.TilingArrangement;
+import burlap.domain.singleagent.mountaincar.MountainCar;
+import burlap.oomdp.core.Attribute;
+import burlap.oomdp.core.Domain;
+import burlap.oomdp.core.ObjectClass;
+import burlap.oomdp.core.ObjectInstance;
+import burlap.oomdp.core.State;
+import burlap.oomdp.singleagent.Action;
+import burlap.oomdp.singleagent.GroundedAction;
+import burlap.oomdp.singleagent.SADomain;
+
+public class TestCMACHashing {
+	static final int NUM_TILINGS = 4;
+	static final int TABLE_SIZE = 1 << 16;
+
+	Domain domain;
+	CMACFeatureDatabase dynamic;
+	CMACFeatureDatabase hashed;
+
+	@Before
+	public void setup() {
+		this.domain = new MountainCar().generateDomain();
+		this.dynamic = this.tileCoding();
+		this.hashed = this.tileCoding();
+		this.hashed.setHashedTileCoding(TABLE_SIZE);
+	}
+
+	@Test
+	public void testStateFeaturesMatchDynamicIds() {
+		Map<Integer, Integer> dynamicToHashed = new HashMap<Integer, Integer>();
+		Set<Integer> hashedIds = new HashSet<Integer>();
+		for(int x = 0; x < 30; x++){
+			for(int v = 0; v < 30; v++){
+				State s = this.stateAt(x, v);
+				List<StateFeature> df = this.dynamic.getStateFeatures(s);
+				List<StateFeature> hf = this.hashed.getStateFeatures(s);
+				Assert.assertEquals(NUM_TILINGS, df.size());
+				Assert.assertEquals(NUM_TILINGS, hf.size());
+				for(int i = 0; i < NUM_TILINGS; i++){
+					this.assertSameTile(dynamicToHashed, df.get(i), hf.get(i));
+					hashedIds.add(hf.get(i).id);
+				}
+			}
+		}
+
+		//states share a hashed feature when they share a tile; different tiles only share one when their hashes collide
+		Assert.assertEquals(this.dynamic.numberOfFeatures(), dynamicToHashed.size());
+		assertFewCollisions(dynamicToHashed.size(), hashedIds.size());
+		Assert.assertEquals(TABLE_SIZE, this.hashed.numberOfFeatures());
+	}
+
+	@Test
+	public void testActionFeaturesMatchDynamicIds() {
+		Map<Integer, Integer> dynamicToHashed = new HashMap<Integer, Integer>();
+		Set<Integer> hashedIds = new HashSet<Integer>();
+		for(int x = 0; x < 30; x++){
+			for(int v = 0; v < 30; v++){
+				State s = this.stateAt(x, v);
+				List<GroundedAction> gas = Action.getAllApplicableGroundedActionsFromActionList(this.domain.getActions(), s);
+				List<ActionFeaturesQuery> dq = this.dynamic.getActionFeaturesSets(s, gas);
+				List<ActionFeaturesQuery> hq = this.hashed.getActionFeaturesSets(s, gas);
+				Assert.assertEquals(gas.size(), hq.size());
+				for(int j = 0; j < gas.size(); j++){
+					Assert.assertEquals(NUM_TILINGS, hq.get(j).features.size());
+					for(int i = 0; i < NUM_TILINGS; i++){
+						this.assertSameTile(dynamicToHashed, dq.get(j).features.get(i), hq.get(j).features.get(i));
+						hashedIds.add(hq.get(j).features.get(i).id);
+					}
+				}
+			}
+		}
+		Assert.assertEquals(this.dynamic.numberOfFeatures(), dynamicToHashed.size());
+		assertFewCollisions(dynamicToHashed.size(), hashedIds.size());
+	}
+
+	@Test
+	public void testHashIsObjectOrderInvariant() {
+		SADomain pointDomain = new SADomain();
+		Attribute px = new Attribute(pointDomain, "px", Attribute.AttributeType.REAL);
+		px.setLims(0., 10.);
+		Attribute py = new Attribute(pointDomain, "py", Attribute.AttributeType.REAL);
+		py.setLims(0., 10.);
+		ObjectClass pointClass = new ObjectClass(pointDomain, "point");
+		pointClass.addAttribute(px);
+		pointClass.addAttribute(py);
+
+		CMACFeatureDatabase cmac = new CMACFeatureDatabase(NUM_TILINGS, TilingArrangement.UNIFORM);
+		cmac.addSpecificationForAllTilings("point", px, 2.);
+		cmac.addSpecificationForAllTilings("point", py, 2.);
+		cmac.setHashedTileCoding(TABLE_SIZE);
+
+		State s1 = new State();
+		s1.addObject(point(pointClass, "p0", 1.5, 2.5));
+		s1.addObject(point(pointClass, "p1", 7.5, 8.5));
+		State s2 = new State();
+		s2.addObject(point(pointClass, "p0", 7.5, 8.5));
+		s2.addObject(point(pointClass, "p1", 1.5, 2.5));
+
+		List<StateFeature> f1 = cmac.getStateFeatures(s1);
+		List<StateFeature> f2 = cmac.getStateFeatures(s2);
+		for(int i = 0; i < NUM_TILINGS; i++){
+			Assert.assertEquals(f1.get(i).id, f2.get(i).id);
+		}
+
+		//moving a point to another tile changes the feature
+		s2.getObject("p0").setValue("px", 0.5);
+		Assert.assertTrue(f1.get(0).id != cmac.getStateFeatures(s2).get(0).id);
+	}
+
+
+	protected CMACFeatureDatabase tileCoding() {
+		CMACFeatureDatabase cmac = new CMACFeatureDatabase(NUM_TILINGS, TilingArrangement.UNIFORM);
+		cmac.addSpecificationForAllTilings(MountainCar.CLASSAGENT, this.domain.getAttribute(MountainCar.ATTX), 0.17);
+		cmac.addSpecificationForAllTilings(MountainCar.CLASSAGENT, this.domain.getAttribute(MountainCar.ATTV), 0.014);
+		return cmac;
+	}
+
+	/**
+	 * Returns a mountain car state on a 30 by 30 grid over the position and velocity ranges.
+	 */
+	protected State stateAt(int x, int v) {
+		ObjectInstance agent = new ObjectInstance(this.domain.getObjectClass(MountainCar.CLASSAGENT), "agent0");
+		agent.setValue(MountainCar.ATTX, -1.2 + 1.7*x/29.);
+		agent.setValue(MountainCar.ATTV, -0.07 + 0.14*v/29.);
+		State s = new State();
+		s.addObject(agent);
+		return s;
+	}
+
+	protected static ObjectInstance point(ObjectClass pointClass, String name, double x, double y) {
+		ObjectInstance o = new ObjectInstance(pointClass, name);
+		o.setValue("px", x);
+		o.setValue("py", y);
+		return o;
+	}
+
+	/**
+	 * Asserts that hashing a number of distinct tiles produced no more than twice the number of colliding tiles expected of a uniform hash.
+	 */
+	protected static void assertFewCollisions(int numTiles, int numHashedIds) {
+		double expected = numTiles * (numTiles - 1.) / (2. * TABLE_SIZE);
+		Assert.assertTrue(numTiles - numHashedIds <= 2.*expected + 2.);
+	}
+
+	/**
+	 * Asserts that a dynamically assigned feature always corresponds to the same hashed feature.
+	 */
+	protected void assertSameTile(Map<Integer, Integer> dynamicToHashed, StateFeature dynamicFeature, StateFeature hashedFeature) {
+		Assert.assertEquals(1., hashedFeature.value, 0.);
+		Assert.assertTrue(hashedFeature.id >= 0 && hashedFeature.id < TABLE_SIZE);
+		Integer previous = dynamicToHashed.put(dynamicFeature.id, hashedFeature.id);
+		if(previous != null){
+			Assert.assertEquals((int)previous, hashedFeature.id);
+		}
+	}
+
+}
@@ -0,0 +1,115 @@
+package burlap.testing;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import burlap.behavior.singleagent.vfa.rbf.CenterKDTree;
+import burlap.behavior.singleagent.vfa.rbf.CenterKDTree.Neighbors;
+
+public class TestCenterKDTree {
+
+	@Test
+	public void testRadiusSearchMatchesBruteForce() {
+		Random rand = new Random(9);
+		Neighbors result = new Neighbors();
+		for(int dim = 1; dim <= 4; dim++){
+			for(int n : new int[]{1, 2, 7, 300}){
+				List<double[]> points = randomPoints(rand, n, dim, false);
+				CenterKDTree tree = new CenterKDTree(points);
+				Assert.assertEquals(n, tree.size());
+				for(int q = 0; q < 50; q++){
+					double [] query = randomPoint(rand, dim, false);
+					double radius = rand.nextDouble() * 0.6;
+					tree.radiusSearch(query, radius, result);
+					assertMatchesBruteForce(points, query, radius, result);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testDuplicateAndBoundaryPoints() {
+		//points on an integer lattice with duplicates, queried from lattice points, put many points on split planes and on the search radius
+		Random rand = new Random(10);
+		Neighbors result = new Neighbors();
+		for(int dim = 1; dim <= 3; dim++){
+			List<double[]> points = randomPoints(rand, 200, dim, true);
+			points.addAll(new ArrayList<double[]>(points.subList(0, 50)));
+			CenterKDTree tree = new CenterKDTree(points);
+			for(int q = 0; q < 50; q++){
+				double [] query = randomPoint(rand, dim, true);
+				for(double radius : new double[]{0., 1., 2., 100.}){
+					tree.radiusSearch(query, radius, result);
+					assertMatchesBruteForce(points, query, radius, result);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testEmptyTree() {
+		CenterKDTree tree = new CenterKDTree(new ArrayList<double[]>());
+		Neighbors result = new Neighbors();
+		result.add(3, 1.);
+		tree.radiusSearch(new double[]{0.5, 0.5}, 10., result);
+		Assert.assertEquals(0, tree.size());
+		Assert.assertEquals(0, result.size());
+	}
+
+	@Test
+	public void testPointsAreCopied() {
+		List<double[]> points = new ArrayList<double[]>();
+		points.add(new double[]{0., 0.});
+		points.add(new double[]{1., 1.});
+		CenterKDTree tree = new CenterKDTree(points);
+		points.get(0)[0] = 5.;
+		Neighbors result = new Neighbors();
+		tree.radiusSearch(new double[]{0., 0.}, 0.5, result);
+		Assert.assertEquals(1, result.size());
+		Assert.assertEquals(0, result.index(0));
+	}
+
+
+	protected static List<double[]> randomPoints(Random rand, int n, int dim, boolean lattice) {
+		List<double[]> points = new ArrayList<double[]>(n);
+		for(int i = 0; i < n; i++){
+			points.add(randomPoint(rand, dim, lattice));
+		}
+		return points;
+	}
+
+	protected static double [] randomPoint(Random rand, int dim, boolean lattice) {
+		double [] p = new double[dim];
+		for(int j = 0; j < dim; j++){
+			p[j] = lattice ? rand.nextInt(5) : rand.nextDouble();
+		}
+		return p;
+	}
+
+	protected static void assertMatchesBruteForce(List<double[]> points, double [] query, double radius, Neighbors result) {
+		Map<Integer, Double> expected = new HashMap<Integer, Double>();
+		for(int i = 0; i < points.size(); i++){
+			double d2 = 0.;
+			for(int j = 0; j < query.length; j++){
+				double diff = query[j] - points.get(i)[j];
+				d2 += diff*diff;
+			}
+			if(d2 <= radius*radius){
+				expected.put(i, d2);
+			}
+		}
+
+		Map<Integer, Double> actual = new HashMap<Integer, Double>();
+		for(int i = 0; i < result.size(); i++){
+			Assert.assertNull(actual.put(result.index(i), result.squaredDistance(i)));
+		}
+		Assert.assertEquals(expected, actual);
+	}
+
+}
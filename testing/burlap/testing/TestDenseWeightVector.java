@@ -0,0 +1,149 @@
+package burlap.testing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import burlap.behavior.singleagent.vfa.ActiveFeatureBuffer;
+import burlap.behavior.singleagent.vfa.DenseWeightVector;
+import burlap.behavior.singleagent.vfa.FunctionWeight;
+import burlap.behavior.singleagent.vfa.StateFeature;
+
+public class TestDenseWeightVector {
+	static final double DEFAULT_WEIGHT = 0.25;
+
+	DenseWeightVector vector;
+	Map<Integer, Double> reference;
+
+	@Before
+	public void setup() {
+		this.vector = new DenseWeightVector(2, DEFAULT_WEIGHT);
+		this.reference = new HashMap<Integer, Double>();
+	}
+
+	@Test
+	public void testMatchesMapOfWeights() {
+		Random rand = new Random(5);
+		ActiveFeatureBuffer active = new ActiveFeatureBuffer();
+		for(int it = 0; it < 5000; it++){
+			int id = rand.nextInt(300);
+			switch(rand.nextInt(4)){
+				case 0:
+					double w = rand.nextGaussian();
+					this.vector.set(id, w);
+					this.reference.put(id, w);
+					break;
+				case 1:
+					double delta = rand.nextGaussian();
+					this.vector.add(id, delta);
+					this.reference.put(id, this.referenceWeight(id) + delta);
+					break;
+				case 2:
+					List<StateFeature> features = this.randomFeatures(rand);
+					Assert.assertEquals(this.referenceDot(features), this.vector.dot(features), 1e-12);
+					Assert.assertEquals(this.referenceDot(features), this.vector.predict(features, active), 1e-12);
+					Assert.assertEquals(features.size(), active.size());
+					for(int i = 0; i < features.size(); i++){
+						Assert.assertEquals(features.get(i).id, active.id(i));
+						Assert.assertEquals(features.get(i).value, active.value(i), 0.);
+						this.reference.put(features.get(i).id, this.referenceWeight(features.get(i).id));
+					}
+					break;
+				default:
+					FunctionWeight fw = this.vector.getFunctionWeight(id);
+					Assert.assertSame(fw, this.vector.getFunctionWeight(id));
+					Assert.assertEquals(this.referenceWeight(id), fw.weightValue(), 0.);
+					fw.setWeight(fw.weightValue() * 2.);
+					this.reference.put(id, this.referenceWeight(id) * 2.);
+					break;
+			}
+		}
+		this.assertMatchesReference();
+	}
+
+	@Test
+	public void testBlockPrediction() {
+		this.vector.set(5, 2.);
+		ActiveFeatureBuffer active = new ActiveFeatureBuffer();
+		double [] vec = new double[]{1., 0., 3.};
+		Assert.assertEquals(1.*2. + 3.*DEFAULT_WEIGHT, this.vector.predict(vec, 5, active), 1e-12);
+		Assert.assertEquals(8, this.vector.size());
+
+		//zero elements are not active but their weights are used
+		Assert.assertEquals(2, active.size());
+		Assert.assertEquals(5, active.id(0));
+		Assert.assertEquals(7, active.id(1));
+		Assert.assertTrue(this.vector.contains(6));
+		Assert.assertFalse(this.vector.contains(4));
+	}
+
+	@Test
+	public void testReset() {
+		this.vector.set(40, 3.);
+		FunctionWeight fw = this.vector.getFunctionWeight(12);
+		fw.setWeight(-1.);
+
+		this.vector.reset(4);
+		Assert.assertEquals(4, this.vector.size());
+		for(int i = 0; i < 4; i++){
+			Assert.assertTrue(this.vector.contains(i));
+		}
+		Assert.assertFalse(this.vector.contains(12));
+		Assert.assertFalse(this.vector.contains(40));
+		Assert.assertEquals(DEFAULT_WEIGHT, this.vector.get(40), 0.);
+
+		//views stay bound to the vector after a reset
+		Assert.assertEquals(DEFAULT_WEIGHT, fw.weightValue(), 0.);
+		fw.setWeight(1.5);
+		Assert.assertEquals(1.5, this.vector.get(12), 0.);
+		Assert.assertSame(fw, this.vector.getFunctionWeight(12));
+	}
+
+
+	protected double referenceWeight(int id) {
+		Double w = this.reference.get(id);
+		return w != null ? w : DEFAULT_WEIGHT;
+	}
+
+	protected double referenceDot(List<StateFeature> features) {
+		double sum = 0.;
+		for(StateFeature sf : features){
+			sum += sf.value * this.referenceWeight(sf.id);
+		}
+		return sum;
+	}
+
+	protected List<StateFeature> randomFeatures(Random rand) {
+		List<StateFeature> features = new ArrayList<StateFeature>();
+		int n = rand.nextInt(6);
+		for(int i = 0; i < n; i++){
+			features.add(new StateFeature(rand.nextInt(300), rand.nextDouble()));
+		}
+		return features;
+	}
+
+	protected void assertMatchesReference() {
+		int max = -1;
+		for(int id : this.reference.keySet()){
+			max = Math.max(max, id);
+		}
+		Assert.assertEquals(max+1, this.vector.size());
+		double [] expected = new double[max+1];
+		Arrays.fill(expected, DEFAULT_WEIGHT);
+		for(int id = 0; id <= max; id++){
+			Assert.assertEquals(this.reference.containsKey(id), this.vector.contains(id));
+			expected[id] = this.referenceWeight(id);
+			Assert.assertEquals(expected[id], this.vector.get(id), 0.);
+		}
+		Assert.assertArrayEquals(expected, this.vector.toArray(), 0.);
+		Assert.assertEquals(DEFAULT_WEIGHT, this.vector.get(max+100), 0.);
+	}
+
+}
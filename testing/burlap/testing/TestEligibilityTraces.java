@@ -0,0 +1,143 @@
+package burlap.testing;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import burlap.behavior.singleagent.learning.tdmethods.vfa.GradientDescentSarsaLam.EligibilityTraces;
+import burlap.behavior.singleagent.vfa.FunctionWeight;
+
+public class TestEligibilityTraces {
+	EligibilityTraces traces;
+	Map<Integer, Double> eligibilities;
+	Map<Integer, Double> initialValues;
+	FunctionWeight [] weights;
+
+	@Before
+	public void setup() {
+		this.traces = new EligibilityTraces();
+		this.eligibilities = new HashMap<Integer, Double>();
+		this.initialValues = new HashMap<Integer, Double>();
+		this.weights = new FunctionWeight[200];
+		for(int i = 0; i < this.weights.length; i++){
+			this.weights[i] = new FunctionWeight(i, i / 10.);
+		}
+	}
+
+	@Test
+	public void testSwapRemoveMatchesMap() {
+		Random rand = new Random(8);
+		for(int it = 0; it < 20000; it++){
+			int id = rand.nextInt(this.weights.length);
+			switch(rand.nextInt(5)){
+				case 0:
+				case 1:
+					double v = rand.nextDouble();
+					if(!this.eligibilities.containsKey(id)){
+						this.eligibilities.put(id, 0.);
+						this.initialValues.put(id, this.weights[id].weightValue());
+					}
+					this.traces.addToTrace(this.weights[id], v);
+					this.eligibilities.put(id, this.eligibilities.get(id) + v);
+					//the weight changes after the trace starts, which must not change the initial value of the trace
+					this.weights[id].setWeight(this.weights[id].weightValue() + 1.);
+					break;
+				case 2:
+					this.traces.remove(id);
+					this.eligibilities.remove(id);
+					this.initialValues.remove(id);
+					break;
+				case 3:
+					this.traces.resetTrace(id);
+					if(this.eligibilities.containsKey(id)){
+						this.eligibilities.put(id, 0.);
+					}
+					break;
+				default:
+					this.decayAndPrune(0.9, 0.05);
+					break;
+			}
+			this.assertMatchesReference();
+		}
+
+		this.traces.clear();
+		this.eligibilities.clear();
+		this.initialValues.clear();
+		this.assertMatchesReference();
+		for(int i = 0; i < this.weights.length; i++){
+			Assert.assertFalse(this.traces.contains(i));
+		}
+	}
+
+	@Test
+	public void testRemoveMovesLastTrace() {
+		for(int i = 0; i < 4; i++){
+			this.traces.addToTrace(this.weights[10+i], i+1.);
+		}
+		this.traces.removeAt(1);
+		Assert.assertEquals(3, this.traces.size());
+		Assert.assertFalse(this.traces.contains(11));
+		Assert.assertSame(this.weights[13], this.traces.weight(1));
+		Assert.assertEquals(4., this.traces.eligibility(1), 0.);
+
+		//the moved trace is still found by id
+		this.traces.remove(13);
+		Assert.assertEquals(2, this.traces.size());
+		Assert.assertSame(this.weights[10], this.traces.weight(0));
+		Assert.assertSame(this.weights[12], this.traces.weight(1));
+
+		this.traces.removeAt(1);
+		Assert.assertEquals(1, this.traces.size());
+		Assert.assertTrue(this.traces.contains(10));
+		Assert.assertFalse(this.traces.contains(12));
+	}
+
+
+	/**
+	 * Decays every trace and removes those that fall below the threshold the way the learning algorithm does, revisiting the position of a
+	 * removed trace because the last trace was moved into it.
+	 */
+	protected void decayAndPrune(double decay, double threshold) {
+		int i = 0;
+		while(i < this.traces.size()){
+			double e = this.traces.eligibility(i) * decay;
+			if(e < threshold){
+				this.traces.removeAt(i);
+			}
+			else{
+				this.traces.setEligibility(i, e);
+				i++;
+			}
+		}
+		List<Integer> ids = new ArrayList<Integer>(this.eligibilities.keySet());
+		for(int id : ids){
+			double e = this.eligibilities.get(id) * decay;
+			if(e < threshold){
+				this.eligibilities.remove(id);
+				this.initialValues.remove(id);
+			}
+			else{
+				this.eligibilities.put(id, e);
+			}
+		}
+	}
+
+	protected void assertMatchesReference() {
+		Assert.assertEquals(this.eligibilities.size(), this.traces.size());
+		for(int i = 0; i < this.traces.size(); i++){
+			FunctionWeight fw = this.traces.weight(i);
+			int id = fw.weightId();
+			Assert.assertSame(this.weights[id], fw);
+			Assert.assertTrue(this.traces.contains(id));
+			Assert.assertEquals(this.eligibilities.get(id), this.traces.eligibility(i), 1e-12);
+			Assert.assertEquals(this.initialValues.get(id), this.traces.initialWeightValue(i), 0.);
+		}
+	}
+
+}
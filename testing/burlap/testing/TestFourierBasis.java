@@ -0,0 +1,112 @@
+package burlap.testing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import burlap.behavior.singleagent.vfa.ActionFeaturesQuery;
+import burlap.behavior.singleagent.vfa.StateFeature;
+import burlap.behavior.singleagent.vfa.common.ConcatenatedObjectFeatureVectorGenerator;
+import burlap.behavior.singleagent.vfa.fourier.FourierBasis;
+import burlap.domain.singleagent.mountaincar.MountainCar;
+import burlap.oomdp.core.Domain;
+import burlap.oomdp.core.ObjectInstance;
+import burlap.oomdp.core.State;
+import burlap.oomdp.singleagent.Action;
+import burlap.oomdp.singleagent.GroundedAction;
+
+public class TestFourierBasis {
+	Domain domain;
+	ConcatenatedObjectFeatureVectorGenerator fvGen;
+	FourierBasis fb;
+
+	@Before
+	public void setup() {
+		this.domain = new MountainCar().generateDomain();
+		this.fvGen = new ConcatenatedObjectFeatureVectorGenerator(true, MountainCar.CLASSAGENT);
+		this.fb = new FourierBasis(this.fvGen, 4);
+	}
+
+	@Test
+	public void testBatchMatchesPerFunctionValues() {
+		Random rand = new Random(6);
+		for(int it = 0; it < 200; it++){
+			State s = this.stateAt(-1.2 + 1.7*rand.nextDouble(), -0.07 + 0.14*rand.nextDouble());
+			double [] input = this.fvGen.generateFeatureVectorFrom(s);
+			List<StateFeature> features = this.fb.getStateFeatures(s);
+			Assert.assertEquals(25, features.size());
+
+			double [] batch = new double[features.size()];
+			this.fb.computeBasisValues(input, batch);
+			for(int j = 0; j < features.size(); j++){
+				double expected = this.fb.basisValue(input, j);
+				Assert.assertEquals(j, features.get(j).id);
+				Assert.assertEquals(expected, features.get(j).value, 1e-12);
+				Assert.assertEquals(expected, batch[j], 1e-12);
+			}
+		}
+	}
+
+	@Test
+	public void testActionFeaturesShareStateValues() {
+		State s = this.stateAt(-0.5, 0.01);
+		List<GroundedAction> gas = Action.getAllApplicableGroundedActionsFromActionList(this.domain.getActions(), s);
+		List<StateFeature> stateFeatures = this.fb.getStateFeatures(s);
+		List<ActionFeaturesQuery> queries = this.fb.getActionFeaturesSets(s, gas);
+		Assert.assertEquals(3, queries.size());
+		int m = stateFeatures.size();
+		for(int a = 0; a < queries.size(); a++){
+			List<StateFeature> af = queries.get(a).features;
+			Assert.assertEquals(m, af.size());
+			for(int j = 0; j < m; j++){
+				Assert.assertEquals(a*m + j, af.get(j).id);
+				Assert.assertEquals(stateFeatures.get(j).value, af.get(j).value, 0.);
+			}
+		}
+		Assert.assertEquals(3*m, this.fb.numberOfFeatures());
+
+		//a different state is not served from the cache of the last evaluation
+		State s2 = this.stateAt(0.2, -0.03);
+		double [] input2 = this.fvGen.generateFeatureVectorFrom(s2);
+		List<StateFeature> af2 = this.fb.getActionFeaturesSets(s2, gas).get(1).features;
+		for(int j = 0; j < m; j++){
+			Assert.assertEquals(this.fb.basisValue(input2, j), af2.get(j).value, 1e-12);
+		}
+	}
+
+	@Test
+	public void testSetCoefficientVectors() {
+		State s = this.stateAt(-0.5, 0.01);
+		double [] input = this.fvGen.generateFeatureVectorFrom(s);
+		this.fb.getStateFeatures(s);
+
+		List<short[]> vectors = new ArrayList<short[]>();
+		vectors.add(new short[]{0, 0});
+		vectors.add(new short[]{1, 2});
+		vectors.add(new short[]{3, 0});
+		this.fb.setCoefficientVectors(vectors);
+
+		//the cached values of the previous coefficients are not reused
+		List<StateFeature> features = this.fb.getStateFeatures(s);
+		Assert.assertEquals(3, features.size());
+		for(int j = 0; j < 3; j++){
+			double dot = input[0]*vectors.get(j)[0] + input[1]*vectors.get(j)[1];
+			Assert.assertEquals(Math.cos(Math.PI*dot), features.get(j).value, 1e-12);
+		}
+	}
+
+
+	protected State stateAt(double x, double v) {
+		ObjectInstance agent = new ObjectInstance(this.domain.getObjectClass(MountainCar.CLASSAGENT), "agent0");
+		agent.setValue(MountainCar.ATTX, x);
+		agent.setValue(MountainCar.ATTV, v);
+		State s = new State();
+		s.addObject(agent);
+		return s;
+	}
+
+}
@@ -0,0 +1,78 @@
+package burlap.testing;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import burlap.behavior.singleagent.vfa.ActionFeaturesQuery;
+import burlap.behavior.singleagent.vfa.StateFeature;
+import burlap.behavior.singleagent.vfa.StateToFeatureVectorGenerator;
+import burlap.behavior.singleagent.vfa.fourier.FourierBasis;
+import burlap.oomdp.core.State;
+import burlap.oomdp.singleagent.Action;
+import burlap.oomdp.singleagent.GroundedAction;
+import burlap.oomdp.singleagent.SADomain;
+
+public class TestFourierBasisRegression {
+
+	protected static final double [] INPUT = new double[]{0.3, 0.6};
+
+	@Test
+	public void testCoefficientVectorsOfFreshBasis() {
+		FourierBasis fb = new FourierBasis(constantInput(), 3);
+		List<short[]> vectors = new ArrayList<short[]>();
+		vectors.add(new short[]{1, 0});
+		vectors.add(new short[]{1, 2});
+		fb.setCoefficientVectors(vectors);
+
+		//the number of state variables comes from the given vectors, since no state has been seen to generate them from
+		List<StateFeature> features = fb.getStateFeatures(new State());
+		Assert.assertEquals(2, features.size());
+		for(int j = 0; j < 2; j++){
+			double dot = INPUT[0]*vectors.get(j)[0] + INPUT[1]*vectors.get(j)[1];
+			Assert.assertEquals(Math.cos(Math.PI*dot), features.get(j).value, 1e-12);
+		}
+	}
+
+	@Test
+	public void testActionsWithValueParametersKeepTheirBlock() {
+		SADomain domain = new SADomain();
+		Action move = new Action("move", domain, new String[]{"distance"}) {
+			@Override
+			public boolean parametersAreObjects() {
+				return false;
+			}
+			@Override
+			protected State performActionHelper(State s, String[] params) {
+				return s;
+			}
+		};
+		List<GroundedAction> gas = new ArrayList<GroundedAction>();
+		gas.add(new GroundedAction(move, new String[]{"1"}));
+		gas.add(new GroundedAction(move, new String[]{"2"}));
+
+		FourierBasis fb = new FourierBasis(constantInput(), 2);
+		int m = fb.getStateFeatures(new State()).size();
+		for(int query = 0; query < 3; query++){
+			//each grounding gets its own block the first time it is queried and keeps it afterwards
+			List<ActionFeaturesQuery> queries = fb.getActionFeaturesSets(new State(), gas);
+			for(int a = 0; a < gas.size(); a++){
+				Assert.assertEquals(a*m, queries.get(a).features.get(0).id);
+			}
+			Assert.assertEquals(2*m, fb.numberOfFeatures());
+		}
+	}
+
+
+	protected static StateToFeatureVectorGenerator constantInput() {
+		return new StateToFeatureVectorGenerator() {
+			@Override
+			public double[] generateFeatureVectorFrom(State s) {
+				return INPUT.clone();
+			}
+		};
+	}
+
+}
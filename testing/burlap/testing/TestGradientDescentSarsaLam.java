@@ -0,0 +1,82 @@
+package burlap.testing;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import burlap.behavior.singleagent.Policy;
+import burlap.behavior.singleagent.learning.tdmethods.vfa.GradientDescentSarsaLam;
+import burlap.behavior.singleagent.vfa.ActionApproximationResult;
+import burlap.behavior.singleagent.vfa.StateToFeatureVectorGenerator;
+import burlap.behavior.singleagent.vfa.common.LinearFVVFA;
+import burlap.domain.singleagent.gridworld.GridWorldDomain;
+import burlap.oomdp.core.AbstractGroundedAction;
+import burlap.oomdp.core.Domain;
+import burlap.oomdp.core.State;
+import burlap.oomdp.singleagent.Action;
+import burlap.oomdp.singleagent.GroundedAction;
+import burlap.oomdp.singleagent.common.SinglePFTF;
+import burlap.oomdp.singleagent.common.UniformCostRF;
+
+public class TestGradientDescentSarsaLam {
+
+	@Test
+	public void testAccumulatingTraceUpdatesEachWeightOncePerStep() {
+		GridWorldDomain gw = new GridWorldDomain(5, 5);
+		Domain domain = gw.generateDomain();
+		State s = GridWorldDomain.getOneAgentOneLocationState(domain);
+		GridWorldDomain.setAgent(s, 0, 0);
+		GridWorldDomain.setLocation(s, 0, 4, 0);
+
+		//a single constant feature, so every Q-value of an action is the one weight of its block
+		StateToFeatureVectorGenerator constant = new StateToFeatureVectorGenerator() {
+			@Override
+			public double[] generateFeatureVectorFrom(State s) {
+				return new double[]{1.};
+			}
+		};
+		LinearFVVFA vfa = new LinearFVVFA(constant, 0.);
+
+		double gamma = 0.9, alpha = 0.1, lambda = 0.8;
+		GradientDescentSarsaLam agent = new GradientDescentSarsaLam(domain, new UniformCostRF(),
+				new SinglePFTF(domain.getPropFunction(GridWorldDomain.PFATLOCATION)), gamma, vfa, alpha, lambda);
+		final GroundedAction east = new GroundedAction(domain.getAction(GridWorldDomain.ACTIONEAST), new String[0]);
+		agent.setLearningPolicy(new Policy() {
+			@Override
+			public AbstractGroundedAction getAction(State s) {
+				return east;
+			}
+			@Override
+			public List<ActionProb> getActionDistributionForState(State s) {
+				return this.getDeterministicPolicy(s);
+			}
+			@Override
+			public boolean isStochastic() {
+				return false;
+			}
+			@Override
+			public boolean isDefinedFor(State s) {
+				return true;
+			}
+		});
+		agent.runLearningEpisodeFrom(s);
+
+		//SARSA(lambda) with an accumulating trace on the one weight that is active in each of the four steps to the goal; the prediction
+		//of the current state is the one made for it as the next state of the previous step
+		double w = 0., predCur = 0., e = 0.;
+		for(int step = 1; step <= 4; step++){
+			double predNext = w;
+			double delta = -1. + gamma*(step < 4 ? predNext : 0.) - predCur;
+			e += 1.;
+			w += alpha*delta*e;
+			e *= lambda*gamma;
+			predCur = predNext;
+		}
+
+		List<ActionApproximationResult> results = vfa.getStateActionValues(s, Action.getAllApplicableGroundedActionsFromActionList(domain.getActions(), s));
+		ActionApproximationResult eastResult = ActionApproximationResult.extractApproximationForAction(results, east);
+		Assert.assertEquals(w, eastResult.approximationResult.predictedValue, 1e-12);
+	}
+
+}
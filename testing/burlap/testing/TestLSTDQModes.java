@@ -0,0 +1,93 @@
+package burlap.testing;
+
+import org.ejml.simple.SimpleMatrix;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import burlap.behavior.singleagent.learning.GoalBasedRF;
+import burlap.behavior.singleagent.learning.lspi.LSPI;
+import burlap.behavior.singleagent.learning.lspi.LSPI.LSTDQMode;
+import burlap.behavior.singleagent.learning.lspi.SARSCollector;
+import burlap.behavior.singleagent.learning.lspi.SARSData;
+import burlap.behavior.singleagent.vfa.common.ConcatenatedObjectFeatureVectorGenerator;
+import burlap.behavior.singleagent.vfa.fourier.FourierBasis;
+import burlap.debugtools.RandomFactory;
+import burlap.domain.singleagent.gridworld.GridWorldDomain;
+import burlap.domain.singleagent.gridworld.GridWorldTerminalFunction;
+import burlap.oomdp.auxiliary.common.ConstantStateGenerator;
+import burlap.oomdp.core.Domain;
+import burlap.oomdp.core.State;
+import burlap.oomdp.core.TerminalFunction;
+import burlap.oomdp.singleagent.RewardFunction;
+
+public class TestLSTDQModes {
+	Domain domain;
+	TerminalFunction tf;
+	RewardFunction rf;
+	SARSData dataset;
+
+	@Before
+	public void setup() {
+		GridWorldDomain gw = new GridWorldDomain(11, 11);
+		gw.setMapToFourRooms();
+		this.domain = gw.generateDomain();
+		this.tf = new GridWorldTerminalFunction(10, 10);
+		this.rf = new GoalBasedRF(this.tf, 5., -0.1);
+		State s = GridWorldDomain.getOneAgentNoLocationState(this.domain);
+		GridWorldDomain.setAgent(s, 0, 0);
+
+		RandomFactory.seedMapped(0, 3);
+		this.dataset = new SARSCollector.UniformRandomSARSCollector(this.domain)
+				.collectNInstances(new ConstantStateGenerator(s), this.rf, 600, 100, this.tf, null);
+	}
+
+	@Test
+	public void testSequentialModesMatchDense() {
+		SimpleMatrix reference = this.runLSTDQ(LSTDQMode.DENSE, 1);
+		Assert.assertTrue(reference.normF() > 0.);
+		assertClose(reference, this.runLSTDQ(LSTDQMode.SHERMAN_MORRISON, 1));
+		assertClose(reference, this.runLSTDQ(LSTDQMode.ACCUMULATE_AND_SOLVE, 1));
+	}
+
+	@Test
+	public void testParallelModesMatchDense() {
+		SimpleMatrix reference = this.runLSTDQ(LSTDQMode.DENSE, 1);
+		for(LSTDQMode mode : LSTDQMode.values()){
+			assertClose(reference, this.runLSTDQ(mode, 3));
+		}
+	}
+
+
+	/**
+	 * Runs a first LSTDQ iteration sequentially in DENSE mode from a seeded tie-breaking generator, so that every configuration starts its policy
+	 * from the same weights, then runs two more iterations in the given mode with the given number of threads.
+	 */
+	protected SimpleMatrix runLSTDQ(LSTDQMode mode, int numThreads) {
+		FourierBasis fb = new FourierBasis(new ConcatenatedObjectFeatureVectorGenerator(true, GridWorldDomain.CLASSAGENT), 2);
+		LSPI lspi = new LSPI(this.domain, this.rf, this.tf, 0.95, fb);
+		lspi.setDataset(this.dataset);
+
+		//the first iteration's greedy policy is tied everywhere, so its ties must be broken identically
+		RandomFactory.seedMapped(0, 7);
+		lspi.LSTDQ();
+
+		lspi.setLSTDQMode(mode);
+		lspi.setParallelLSTDQ(numThreads);
+		SimpleMatrix w = null;
+		for(int i = 0; i < 2; i++){
+			w = lspi.LSTDQ();
+		}
+		lspi.setParallelLSTDQ(1);
+		return w;
+	}
+
+	protected static void assertClose(SimpleMatrix expected, SimpleMatrix actual) {
+		Assert.assertEquals(expected.numRows(), actual.numRows());
+		double tolerance = 1e-6 * Math.max(1., expected.normF());
+		for(int i = 0; i < expected.numRows(); i++){
+			Assert.assertEquals(expected.get(i, 0), actual.get(i, 0), tolerance);
+		}
+	}
+
+}
@@ -0,0 +1,75 @@
+package burlap.testing;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import burlap.behavior.singleagent.vfa.ActionApproximationResult;
+import burlap.behavior.singleagent.vfa.common.ConcatenatedObjectFeatureVectorGenerator;
+import burlap.behavior.singleagent.vfa.common.LinearFVVFA;
+import burlap.domain.singleagent.mountaincar.MountainCar;
+import burlap.oomdp.core.Domain;
+import burlap.oomdp.core.ObjectInstance;
+import burlap.oomdp.core.State;
+import burlap.oomdp.singleagent.Action;
+import burlap.oomdp.singleagent.GroundedAction;
+
+public class TestLinearFVVFA {
+	Domain domain;
+	ConcatenatedObjectFeatureVectorGenerator fvGen;
+	State s;
+
+	@Before
+	public void setup() {
+		this.domain = new MountainCar().generateDomain();
+		this.fvGen = new ConcatenatedObjectFeatureVectorGenerator(false, MountainCar.CLASSAGENT);
+		ObjectInstance agent = new ObjectInstance(this.domain.getObjectClass(MountainCar.CLASSAGENT), "agent0");
+		agent.setValue(MountainCar.ATTX, -0.5);
+		agent.setValue(MountainCar.ATTV, 0.02);
+		this.s = new State();
+		this.s.addObject(agent);
+	}
+
+	@Test
+	public void testSetStateWeight() {
+		LinearFVVFA vfa = new LinearFVVFA(this.fvGen, 0.);
+		vfa.getStateValue(this.s);
+		vfa.setWeight(1, 3.);
+		Assert.assertEquals(3., vfa.getFunctionWeight(1).weightValue(), 0.);
+		Assert.assertEquals(3. * 0.02, vfa.getStateValue(this.s).predictedValue, 1e-12);
+	}
+
+	@Test
+	public void testSetStateActionWeight() {
+		LinearFVVFA vfa = new LinearFVVFA(this.fvGen, 0.);
+		List<GroundedAction> gas = Action.getAllApplicableGroundedActionsFromActionList(this.domain.getActions(), this.s);
+		vfa.getStateActionValues(this.s, gas);
+		vfa.setWeight(2, 3.);
+		List<ActionApproximationResult> results = vfa.getStateActionValues(this.s, gas);
+		Assert.assertEquals(3. * -0.5, results.get(1).approximationResult.predictedValue, 1e-12);
+		Assert.assertEquals(0., results.get(0).approximationResult.predictedValue, 0.);
+	}
+
+	@Test
+	public void testUnseenActionExpandsWeights() {
+		LinearFVVFA vfa = new LinearFVVFA(this.fvGen, 0.);
+		List<GroundedAction> gas = Action.getAllApplicableGroundedActionsFromActionList(this.domain.getActions(), this.s);
+		Assert.assertEquals(3, gas.size());
+		vfa.getStateActionValues(this.s, gas.subList(0, 2));
+		Assert.assertEquals(4, vfa.numFeatures());
+
+		//the third action gets its own block of weights after the blocks of the first two
+		List<ActionApproximationResult> results = vfa.getStateActionValues(this.s, gas);
+		Assert.assertEquals(6, vfa.numFeatures());
+		Assert.assertEquals(4, results.get(2).approximationResult.stateFeatures.get(0).id);
+		Assert.assertEquals(5, results.get(2).approximationResult.stateFeatures.get(1).id);
+
+		vfa.setWeight(5, 2.);
+		results = vfa.getStateActionValues(this.s, gas);
+		Assert.assertEquals(2. * 0.02, results.get(2).approximationResult.predictedValue, 1e-12);
+		Assert.assertEquals(0., results.get(1).approximationResult.predictedValue, 0.);
+	}
+
+}
@@ -0,0 +1,99 @@
+package burlap.testing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import burlap.behavior.singleagent.vfa.ActionFeaturesQuery;
+import burlap.behavior.singleagent.vfa.ActiveFeatureBuffer;
+import burlap.behavior.singleagent.vfa.FeatureDatabase;
+import burlap.behavior.singleagent.vfa.FunctionWeight;
+import burlap.behavior.singleagent.vfa.StateFeature;
+import burlap.behavior.singleagent.vfa.common.LinearVFA;
+import burlap.oomdp.core.State;
+import burlap.oomdp.singleagent.GroundedAction;
+
+public class TestLinearVFA {
+	LinearVFA vfa;
+
+	@Before
+	public void setup() {
+		this.vfa = new LinearVFA(new FixedSizeDatabase(4), 0.5);
+	}
+
+	@Test
+	public void testUnusedWeightsAreNull() {
+		Assert.assertNull(this.vfa.getFunctionWeight(0));
+
+		this.vfa.setWeight(20, 2.);
+		Assert.assertEquals(2., this.vfa.getFunctionWeight(20).weightValue(), 0.);
+
+		//ids below the largest one that were never used still have no weight, as with a map of weights
+		Assert.assertNull(this.vfa.getFunctionWeight(7));
+		Assert.assertNull(this.vfa.getFunctionWeight(21));
+
+		this.vfa.predict(Arrays.asList(new StateFeature(7, 1.)), null);
+		FunctionWeight fw = this.vfa.getFunctionWeight(7);
+		Assert.assertNotNull(fw);
+		Assert.assertEquals(0.5, fw.weightValue(), 0.);
+
+		this.vfa.resetWeights();
+		Assert.assertNull(this.vfa.getFunctionWeight(7));
+		Assert.assertNull(this.vfa.getFunctionWeight(20));
+	}
+
+	@Test
+	public void testPredictionUsesWeights() {
+		this.vfa.setWeight(1, 2.);
+		this.vfa.setWeight(3, -1.);
+		List<StateFeature> features = Arrays.asList(new StateFeature(1, 3.), new StateFeature(3, 2.), new StateFeature(9, 4.));
+		ActiveFeatureBuffer active = new ActiveFeatureBuffer();
+		Assert.assertEquals(3.*2. - 2. + 4.*0.5, this.vfa.predict(features, active), 1e-12);
+
+		Assert.assertEquals(3, active.size());
+		for(int i = 0; i < 3; i++){
+			Assert.assertEquals(features.get(i).id, active.id(i));
+			Assert.assertEquals(features.get(i).value, active.value(i), 0.);
+		}
+
+		//views write through to the vector
+		this.vfa.getFunctionWeight(9).setWeight(1.);
+		Assert.assertEquals(3.*2. - 2. + 4., this.vfa.predict(features, null), 1e-12);
+	}
+
+
+	/**
+	 * A feature database with a fixed number of features that is never queried by these tests.
+	 */
+	static class FixedSizeDatabase implements FeatureDatabase {
+		int n;
+
+		public FixedSizeDatabase(int n) {
+			this.n = n;
+		}
+
+		@Override
+		public List<StateFeature> getStateFeatures(State s) {
+			return new ArrayList<StateFeature>();
+		}
+
+		@Override
+		public List<ActionFeaturesQuery> getActionFeaturesSets(State s, List<GroundedAction> actions) {
+			return new ArrayList<ActionFeaturesQuery>();
+		}
+
+		@Override
+		public void freezeDatabaseState(boolean toggle) {
+		}
+
+		@Override
+		public int numberOfFeatures() {
+			return this.n;
+		}
+	}
+
+}
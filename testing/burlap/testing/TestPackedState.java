@@ -0,0 +1,96 @@
+package burlap.testing;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import burlap.domain.singleagent.gridworld.GridWorldDomain;
+import burlap.oomdp.core.Domain;
+import burlap.oomdp.core.ObjectInstance;
+import burlap.oomdp.core.State;
+import burlap.oomdp.core.packed.PackedState;
+import burlap.oomdp.core.packed.PackedStateLayout;
+import burlap.oomdp.singleagent.Action;
+import burlap.oomdp.singleagent.GroundedAction;
+
+public class TestPackedState {
+	Domain domain;
+	State s;
+	PackedStateLayout layout;
+
+	@Before
+	public void setup() {
+		GridWorldDomain gw = new GridWorldDomain(11, 11);
+		gw.setMapToFourRooms();
+		gw.setProbSucceedTransitionDynamics(1.0);
+		this.domain = gw.generateDomain();
+		this.s = GridWorldDomain.getOneAgentNLocationState(this.domain, 2);
+		GridWorldDomain.setAgent(this.s, 1, 2);
+		GridWorldDomain.setLocation(this.s, 0, 10, 10);
+		GridWorldDomain.setLocation(this.s, 1, 4, 7, 3);
+		this.layout = new PackedStateLayout(this.s);
+	}
+
+	@Test
+	public void testRoundTrip() {
+		PackedState ps = this.layout.pack(this.s);
+		Assert.assertEquals(this.s.numTotalObjets(), ps.numTotalObjets());
+		for(ObjectInstance o : this.s.getAllObjects()){
+			ObjectInstance po = ps.getObject(o.getName());
+			Assert.assertNotNull(po);
+			Assert.assertTrue(o.valueEquals(po));
+			Assert.assertEquals(o.getObjectClass().name, po.getObjectClass().name);
+		}
+		Assert.assertEquals(this.s, ps);
+		Assert.assertEquals(ps, this.s);
+
+		PackedState repacked = this.layout.pack(ps);
+		Assert.assertEquals(ps, repacked);
+		Assert.assertEquals(ps.hashCode(), repacked.hashCode());
+	}
+
+	@Test
+	public void testCopyIsIndependent() {
+		PackedState ps = this.layout.pack(this.s);
+		State c = ps.copy();
+		Assert.assertEquals(ps, c);
+		Assert.assertEquals(ps.hashCode(), c.hashCode());
+
+		GridWorldDomain.setAgent(c, 5, 5);
+		Assert.assertFalse(ps.equals(c));
+		Assert.assertEquals(1, ps.getObject(GridWorldDomain.CLASSAGENT + 0).getIntValForAttribute(GridWorldDomain.ATTX));
+		Assert.assertEquals(5, c.getObject(GridWorldDomain.CLASSAGENT + 0).getIntValForAttribute(GridWorldDomain.ATTX));
+	}
+
+	@Test
+	public void testActionsOnPackedStates() {
+		PackedState ps = this.layout.pack(this.s);
+		Action north = this.domain.getAction(GridWorldDomain.ACTIONNORTH);
+		List<GroundedAction> gas = north.getAllApplicableGroundedActions(ps);
+		State next = gas.get(0).executeIn(ps);
+		State expected = gas.get(0).executeIn(this.s);
+		Assert.assertTrue(next instanceof PackedState);
+		Assert.assertEquals(expected, next);
+		Assert.assertEquals(2, ps.getObject(GridWorldDomain.CLASSAGENT + 0).getIntValForAttribute(GridWorldDomain.ATTY));
+	}
+
+	@Test
+	public void testGetDataIsACopy() {
+		PackedState ps = this.layout.pack(this.s);
+		int [] data = ps.getData();
+		data[0] = data[0] + 1;
+		Assert.assertEquals(this.s, ps);
+	}
+
+	@Test
+	public void testObjectIndexBounds() {
+		PackedState ps = this.layout.pack(this.s);
+		int n = ps.getObservableObjects().size();
+		Assert.assertNotNull(ps.getObservableObjectAt(n-1));
+		Assert.assertNull(ps.getObservableObjectAt(n));
+		Assert.assertNull(ps.getHiddenObjectAt(0));
+	}
+
+}
@@ -0,0 +1,123 @@
+package burlap.testing;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import burlap.behavior.singleagent.auxiliary.StateReachability;
+import burlap.behavior.singleagent.planning.ActionTransitions;
+import burlap.behavior.singleagent.planning.ParallelReachability;
+import burlap.behavior.singleagent.planning.stochastic.valueiteration.ValueIteration;
+import burlap.behavior.statehashing.DiscreteStateHashFactory;
+import burlap.behavior.statehashing.StateHashTuple;
+import burlap.debugtools.DPrint;
+import burlap.domain.singleagent.gridworld.GridWorldDomain;
+import burlap.oomdp.auxiliary.common.NullTermination;
+import burlap.oomdp.core.State;
+import burlap.oomdp.core.TerminalFunction;
+import burlap.oomdp.singleagent.SADomain;
+import burlap.oomdp.singleagent.common.SinglePFTF;
+import burlap.oomdp.singleagent.common.UniformCostRF;
+
+public class TestParallelReachability {
+	SADomain domain;
+	TerminalFunction tf;
+	DiscreteStateHashFactory hashingFactory;
+	State initialState;
+	ExecutorService executor;
+
+	@Before
+	public void setup() {
+		DPrint.toggleCode(StateReachability.debugID, false);
+		GridWorldDomain gw = new GridWorldDomain(11, 11);
+		gw.setMapToFourRooms();
+		gw.setProbSucceedTransitionDynamics(0.8);
+		this.domain = (SADomain)gw.generateDomain();
+		this.tf = new SinglePFTF(this.domain.getPropFunction(GridWorldDomain.PFATLOCATION));
+		this.hashingFactory = new DiscreteStateHashFactory();
+		this.initialState = GridWorldDomain.getOneAgentOneLocationState(this.domain);
+		GridWorldDomain.setAgent(this.initialState, 0, 0);
+		GridWorldDomain.setLocation(this.initialState, 0, 10, 10);
+		this.executor = Executors.newFixedThreadPool(3);
+	}
+
+	@After
+	public void cleanup() {
+		this.executor.shutdown();
+	}
+
+	@Test
+	public void testPrunedSearchMatchesSequential() {
+		Set<StateHashTuple> expected = StateReachability.getReachableHashedStates(this.initialState, this.domain, this.hashingFactory, this.tf);
+		ConcurrentHashMap<StateHashTuple, List<ActionTransitions>> transitions = new ConcurrentHashMap<StateHashTuple, List<ActionTransitions>>();
+		ParallelReachability reachability = new ParallelReachability(this.domain.getActions(), this.hashingFactory, this.tf, this.executor, 7);
+		List<StateHashTuple> visited = reachability.expandFrom(this.hashingFactory.hashState(this.initialState), transitions);
+
+		Set<StateHashTuple> visitedSet = new HashSet<StateHashTuple>(visited);
+		Assert.assertEquals(visited.size(), visitedSet.size());
+		Assert.assertEquals(expected, visitedSet);
+
+		//every visited state is expanded except the terminal states at which the search was pruned
+		Set<StateHashTuple> nonTerminal = new HashSet<StateHashTuple>();
+		for(StateHashTuple sh : expected){
+			if(!this.tf.isTerminal(sh.s)){
+				nonTerminal.add(sh);
+			}
+		}
+		Assert.assertTrue(nonTerminal.size() < expected.size());
+		Assert.assertEquals(nonTerminal, transitions.keySet());
+		Assert.assertEquals(nonTerminal.size(), reachability.getLastNumExpanded());
+	}
+
+	@Test
+	public void testUnprunedSearchMatchesSequential() {
+		Set<StateHashTuple> expected = StateReachability.getReachableHashedStates(this.initialState, this.domain, this.hashingFactory, new NullTermination());
+		ConcurrentHashMap<StateHashTuple, List<ActionTransitions>> transitions = new ConcurrentHashMap<StateHashTuple, List<ActionTransitions>>();
+		ParallelReachability reachability = new ParallelReachability(this.domain.getActions(), this.hashingFactory, this.tf, this.executor, 7);
+		reachability.setExpandTerminalStates(true);
+		List<StateHashTuple> visited = reachability.expandFrom(this.hashingFactory.hashState(this.initialState), transitions);
+
+		Assert.assertEquals(expected, new HashSet<StateHashTuple>(visited));
+		Assert.assertEquals(expected, transitions.keySet());
+
+		//states that were already expanded are not visited again
+		Assert.assertEquals(0, reachability.expandFrom(this.hashingFactory.hashState(this.initialState), transitions).size());
+		Assert.assertEquals(0, reachability.getLastNumExpanded());
+	}
+
+	@Test
+	public void testPlannerStatesMatchSequential() {
+		UniformCostRF rf = new UniformCostRF();
+		ValueIteration sequential = new ValueIteration(this.domain, rf, this.tf, 0.9, this.hashingFactory, 1e-6, 100);
+		ValueIteration parallel = new ValueIteration(this.domain, rf, this.tf, 0.9, this.hashingFactory, 1e-6, 100);
+		parallel.setParallelReachability(this.executor, 7);
+		DPrint.toggleCode(sequential.getDebugCode(), false);
+		DPrint.toggleCode(parallel.getDebugCode(), false);
+		for(boolean indexed : new boolean[]{false, true}){
+			sequential.toggleUseIndexedStateModel(indexed);
+			parallel.toggleUseIndexedStateModel(indexed);
+			sequential.performReachabilityFrom(this.initialState);
+			parallel.performReachabilityFrom(this.initialState);
+			Assert.assertEquals(this.hashAll(sequential.getAllStates()), this.hashAll(parallel.getAllStates()));
+		}
+	}
+
+
+	protected Set<StateHashTuple> hashAll(List<State> states) {
+		Set<StateHashTuple> hashed = new HashSet<StateHashTuple>();
+		for(State s : states){
+			hashed.add(this.hashingFactory.hashState(s));
+		}
+		Assert.assertEquals(states.size(), hashed.size());
+		return hashed;
+	}
+
+}
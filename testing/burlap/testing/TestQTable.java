@@ -0,0 +1,124 @@
+package burlap.testing;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import burlap.behavior.singleagent.learning.tdmethods.QTable;
+import burlap.behavior.statehashing.DiscreteStateHashFactory;
+import burlap.domain.singleagent.gridworld.GridWorldDomain;
+import burlap.oomdp.core.Domain;
+import burlap.oomdp.core.State;
+import burlap.oomdp.singleagent.Action;
+import burlap.oomdp.singleagent.GroundedAction;
+
+public class TestQTable {
+	Domain domain;
+	DiscreteStateHashFactory hashingFactory;
+	QTable table;
+
+	@Before
+	public void setup() {
+		GridWorldDomain gw = new GridWorldDomain(11, 11);
+		this.domain = gw.generateDomain();
+		this.hashingFactory = new DiscreteStateHashFactory();
+		this.table = new QTable();
+		for(int x = 0; x < 5; x++){
+			for(int y = 0; y < 5; y++){
+				State s = GridWorldDomain.getOneAgentNoLocationState(this.domain);
+				GridWorldDomain.setAgent(s, x, y);
+				List<GroundedAction> gas = Action.getAllApplicableGroundedActionsFromActionList(this.domain.getActions(), s);
+				this.table.addState(this.hashingFactory.hashState(s), gas, new double[gas.size()]);
+			}
+		}
+	}
+
+	@Test
+	public void testLookups() {
+		Assert.assertEquals(25, this.table.numStates());
+		State s = GridWorldDomain.getOneAgentNoLocationState(this.domain);
+		GridWorldDomain.setAgent(s, 3, 2);
+		int sid = this.table.stateId(this.hashingFactory.hashState(s));
+		Assert.assertTrue(sid >= 0);
+		Assert.assertEquals(-1, this.table.stateId(this.hashingFactory.hashState(this.stateAt(9, 9))));
+
+		for(GroundedAction ga : Action.getAllApplicableGroundedActionsFromActionList(this.domain.getActions(), s)){
+			int slot = this.table.slot(sid, ga);
+			Assert.assertEquals(sid, this.table.slotState(slot));
+			Assert.assertEquals(ga, this.table.action(slot));
+		}
+	}
+
+	@Test
+	public void testMaxQMaintenance() {
+		Random rand = new Random(4);
+		for(int it = 0; it < 20000; it++){
+			int slot = rand.nextInt(this.table.numSlots());
+			//mostly small moves in both directions, so the maximum often decreases
+			this.table.setQ(slot, this.table.q(slot) + rand.nextGaussian());
+			int sid = this.table.slotState(slot);
+			Assert.assertEquals(this.bruteForceMax(sid), this.table.maxQ(sid), 0.);
+		}
+		for(int sid = 0; sid < this.table.numStates(); sid++){
+			Assert.assertEquals(this.bruteForceMax(sid), this.table.maxQ(sid), 0.);
+		}
+	}
+
+	@Test
+	public void testGreedySlotBreaksTies() {
+		int sid = 0;
+		int first = this.table.firstSlot(sid);
+		this.table.setQ(first, 1.);
+		this.table.setQ(first+2, 1.);
+		Random rand = new Random(1);
+		int [] counts = new int[this.table.numSlots(sid)];
+		for(int i = 0; i < 10000; i++){
+			counts[this.table.greedySlot(sid, rand) - first]++;
+		}
+		Assert.assertEquals(0, counts[1]);
+		Assert.assertEquals(0, counts[3]);
+		Assert.assertEquals(0.5, counts[0] / 10000., 0.03);
+	}
+
+	@Test
+	public void testGreedySlotWithNaN() {
+		int sid = 1;
+		int first = this.table.firstSlot(sid);
+		int n = this.table.numSlots(sid);
+		Random rand = new Random(2);
+
+		this.table.setQ(first+1, Double.NaN);
+		for(int i = 0; i < 100; i++){
+			int slot = this.table.greedySlot(sid, rand);
+			Assert.assertTrue(slot >= first && slot < first+n);
+		}
+
+		for(int i = 0; i < n; i++){
+			this.table.setQ(first+i, Double.NaN);
+		}
+		for(int i = 0; i < 100; i++){
+			int slot = this.table.greedySlot(sid, rand);
+			Assert.assertTrue(slot >= first && slot < first+n);
+		}
+	}
+
+
+	protected double bruteForceMax(int sid) {
+		double max = Double.NEGATIVE_INFINITY;
+		int first = this.table.firstSlot(sid);
+		for(int i = first; i < first + this.table.numSlots(sid); i++){
+			max = Math.max(max, this.table.q(i));
+		}
+		return max;
+	}
+
+	protected State stateAt(int x, int y) {
+		State s = GridWorldDomain.getOneAgentNoLocationState(this.domain);
+		GridWorldDomain.setAgent(s, x, y);
+		return s;
+	}
+
+}
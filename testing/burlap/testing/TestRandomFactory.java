@@ -0,0 +1,29 @@
+package burlap.testing;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import burlap.debugtools.RandomFactory;
+
+public class TestRandomFactory {
+
+	@Test
+	public void testStringMappedGeneratorsAreKept() {
+		RandomFactory factory = new RandomFactory();
+		Random a = factory.ingetMapped("a");
+		Assert.assertSame(a, factory.ingetMapped("a"));
+		Assert.assertNotSame(a, factory.ingetMapped("b"));
+		Assert.assertNotSame(a, factory.ingetMapped(0));
+	}
+
+	@Test
+	public void testSeededStringMappedGenerator() {
+		RandomFactory factory = new RandomFactory();
+		Random seeded = factory.inseedMapped("a", 5);
+		Assert.assertSame(seeded, factory.ingetMapped("a"));
+		Assert.assertEquals(new Random(5).nextLong(), factory.ingetMapped("a").nextLong());
+	}
+
+}
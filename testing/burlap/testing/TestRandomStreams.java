@@ -0,0 +1,116 @@
+package burlap.testing;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import burlap.debugtools.RandomFactory;
+import burlap.debugtools.XoshiroRandom;
+
+public class TestRandomStreams {
+
+	@Test
+	public void testSameSeedSameSequence() {
+		XoshiroRandom a = new XoshiroRandom(42);
+		XoshiroRandom b = new XoshiroRandom(42);
+		long [] first = draw(a, 100);
+		Assert.assertArrayEquals(first, draw(b, 100));
+
+		a.setSeed(42);
+		Assert.assertArrayEquals(first, draw(a, 100));
+
+		Assert.assertFalse(first[0] == new XoshiroRandom(43).nextLong());
+	}
+
+	@Test
+	public void testDerivedValuesStayInRange() {
+		XoshiroRandom r = new XoshiroRandom(7);
+		for(int i = 0; i < 10000; i++){
+			double d = r.nextDouble();
+			Assert.assertTrue(d >= 0. && d < 1.);
+			int k = r.nextInt(13);
+			Assert.assertTrue(k >= 0 && k < 13);
+		}
+	}
+
+	@Test
+	public void testSplitIsDeterministic() {
+		XoshiroRandom p1 = new XoshiroRandom(9);
+		XoshiroRandom p2 = new XoshiroRandom(9);
+		XoshiroRandom [] c1 = new XoshiroRandom[]{p1.split(), p1.split(), p1.split()};
+		XoshiroRandom [] c2 = new XoshiroRandom[]{p2.split(), p2.split(), p2.split()};
+
+		long [][] seqs = new long[3][];
+		for(int i = 0; i < 3; i++){
+			seqs[i] = draw(c1[i], 50);
+			Assert.assertArrayEquals(seqs[i], draw(c2[i], 50));
+		}
+
+		//sibling streams and the parent's continuing stream are all different
+		Assert.assertFalse(seqs[0][0] == seqs[1][0]);
+		Assert.assertFalse(seqs[1][0] == seqs[2][0]);
+		Assert.assertFalse(seqs[0][0] == seqs[2][0]);
+		Assert.assertArrayEquals(draw(p1, 50), draw(p2, 50));
+	}
+
+	@Test
+	public void testBaseSeededFactoriesReproduce() {
+		RandomFactory f1 = new RandomFactory(11);
+		RandomFactory f2 = new RandomFactory(11);
+		Assert.assertArrayEquals(draw(f1.ingetDefault(), 20), draw(f2.ingetDefault(), 20));
+		Assert.assertArrayEquals(draw(f1.ingetMapped(3), 20), draw(f2.ingetMapped(3), 20));
+		Assert.assertArrayEquals(draw(f1.ingetMapped("agent"), 20), draw(f2.ingetMapped("agent"), 20));
+
+		Assert.assertSame(f1.ingetMapped(3), f1.ingetMapped(3));
+		Assert.assertFalse(new RandomFactory(11).ingetMapped(3).nextLong() == new RandomFactory(11).ingetMapped(4).nextLong());
+	}
+
+	@Test
+	public void testFactorySplitting() {
+		RandomFactory parent = new RandomFactory(5);
+		long a = parent.insplit(0).ingetMapped(1).nextLong();
+		Assert.assertEquals(a, new RandomFactory(5).insplit(0).ingetMapped(1).nextLong());
+		Assert.assertFalse(a == parent.insplit(1).ingetMapped(1).nextLong());
+
+		try{
+			RandomFactory.setThreadFactory(new RandomFactory(5));
+			Assert.assertEquals(a, RandomFactory.split(0).ingetMapped(1).nextLong());
+			Assert.assertEquals(RandomFactory.current().ingetMapped(2).nextLong(), new RandomFactory(5).ingetMapped(2).nextLong());
+		} finally {
+			RandomFactory.setThreadFactory(null);
+		}
+	}
+
+	@Test
+	public void testUnseededGeneratorsArePerThread() throws InterruptedException {
+		final RandomFactory f = new RandomFactory();
+		final Random [] other = new Random[1];
+		Thread t = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				other[0] = f.ingetMapped(1);
+			}
+		});
+		t.start();
+		t.join();
+		Random mine = f.ingetMapped(1);
+		Assert.assertSame(mine, f.ingetMapped(1));
+		Assert.assertNotNull(other[0]);
+		Assert.assertNotSame(mine, other[0]);
+
+		//an explicitly seeded generator is shared by all threads
+		Random seeded = f.inseedMapped(2, 3);
+		Assert.assertSame(seeded, f.ingetMapped(2));
+	}
+
+
+	protected static long [] draw(Random r, int n) {
+		long [] vals = new long[n];
+		for(int i = 0; i < n; i++){
+			vals[i] = r.nextLong();
+		}
+		return vals;
+	}
+
+}
@@ -0,0 +1,101 @@
+package burlap.testing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.math3.distribution.TDistribution;
+import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
+import org.junit.Assert;
+import org.junit.Test;
+
+import burlap.behavior.singleagent.auxiliary.performance.SeriesStatistics;
+import burlap.datastructures.DoubleArrayList;
+
+public class TestSeriesStatistics {
+
+	@Test
+	public void testMatchesDescriptiveStatistics() {
+		Random rand = new Random(12);
+		SeriesStatistics stats = new SeriesStatistics();
+		List<DescriptiveStatistics> reference = new ArrayList<DescriptiveStatistics>();
+		int minLength = Integer.MAX_VALUE;
+		for(int t = 0; t < 30; t++){
+			//series of different lengths with a large offset, which a naive sum of squares would lose precision on
+			int n = 20 + rand.nextInt(40);
+			minLength = Math.min(minLength, n);
+			DoubleArrayList series = new DoubleArrayList();
+			double cumulative = 1e6;
+			for(int i = 0; i < n; i++){
+				cumulative += rand.nextGaussian();
+				series.add(cumulative);
+				if(i == reference.size()){
+					reference.add(new DescriptiveStatistics());
+				}
+				reference.get(i).addValue(cumulative);
+			}
+			stats.addSeries(series);
+		}
+
+		Assert.assertEquals(30, stats.numSeries());
+		Assert.assertEquals(reference.size(), stats.length());
+		Assert.assertEquals(minLength, stats.completeLength());
+		for(double significance : new double[]{0.05, 0.01}){
+			for(int i = 0; i < reference.size(); i++){
+				DescriptiveStatistics ds = reference.get(i);
+				Assert.assertEquals(ds.getN(), stats.count(i));
+				Assert.assertEquals(ds.getMean(), stats.mean(i), tolerance(ds.getMean()));
+				//the variance of values around 1e6 is only determined to about 1e-10 relative to the variance
+				Assert.assertEquals(ds.getVariance(), stats.variance(i), 1e-9 * Math.max(1., ds.getVariance()));
+				assertSameCI(referenceCI(ds, significance), stats.ci(i, significance));
+			}
+		}
+	}
+
+	@Test
+	public void testSmallSamples() {
+		SeriesStatistics stats = new SeriesStatistics();
+		Assert.assertEquals(0, stats.completeLength());
+		Assert.assertEquals(0, stats.count(3));
+
+		stats.add(2, 5.);
+		Assert.assertEquals(3, stats.length());
+		Assert.assertEquals(0, stats.count(0));
+		Assert.assertEquals(1, stats.count(2));
+		Assert.assertEquals(0., stats.variance(2), 0.);
+		Assert.assertArrayEquals(new double[]{5., 5., 5.}, stats.ci(2, 0.05), 0.);
+
+		stats.add(2, 7.);
+		DescriptiveStatistics ds = new DescriptiveStatistics(new double[]{5., 7.});
+		assertSameCI(referenceCI(ds, 0.05), stats.ci(2, 0.05));
+	}
+
+
+	/**
+	 * Computes the t-distribution confidence interval of the mean from the samples stored in a {@link DescriptiveStatistics}, or an interval
+	 * of zero width for a single sample.
+	 */
+	protected static double [] referenceCI(DescriptiveStatistics ds, double significance) {
+		if(ds.getN() < 2){
+			return new double[]{ds.getMean(), ds.getMean(), ds.getMean()};
+		}
+		double crit = new TDistribution(ds.getN()-1).inverseCumulativeProbability(1. - significance/2.);
+		double width = crit * ds.getStandardDeviation() / Math.sqrt(ds.getN());
+		return new double[]{ds.getMean(), ds.getMean()-width, ds.getMean()+width};
+	}
+
+	protected static void assertSameCI(double [] expected, double [] actual) {
+		Assert.assertEquals(3, actual.length);
+		for(int j = 0; j < 3; j++){
+			Assert.assertEquals(expected[j], actual[j], tolerance(expected[j]));
+		}
+	}
+
+	/**
+	 * Returns a tolerance relative to the magnitude of the expected value, since the two implementations accumulate rounding errors differently.
+	 */
+	protected static double tolerance(double expected) {
+		return 1e-12 * Math.max(1., Math.abs(expected));
+	}
+
+}
@@ -0,0 +1,95 @@
+package burlap.testing;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import burlap.behavior.singleagent.QValue;
+import burlap.behavior.singleagent.planning.stochastic.sparsesampling.SparseSampling;
+import burlap.behavior.statehashing.DiscreteStateHashFactory;
+import burlap.debugtools.DPrint;
+import burlap.domain.singleagent.gridworld.GridWorldDomain;
+import burlap.oomdp.core.Domain;
+import burlap.oomdp.core.State;
+import burlap.oomdp.core.TerminalFunction;
+import burlap.oomdp.singleagent.RewardFunction;
+import burlap.oomdp.singleagent.common.SinglePFTF;
+import burlap.oomdp.singleagent.common.UniformCostRF;
+
+public class TestSparseSamplingDeepening {
+	static final long BUDGET = 60000000000L;
+
+	Domain domain;
+	RewardFunction rf;
+	TerminalFunction tf;
+	DiscreteStateHashFactory hashingFactory;
+	State s;
+
+	@Before
+	public void setup() {
+		GridWorldDomain gw = new GridWorldDomain(11, 11);
+		gw.setMapToFourRooms();
+		gw.setProbSucceedTransitionDynamics(1.0);
+		this.domain = gw.generateDomain();
+		this.rf = new UniformCostRF();
+		this.tf = new SinglePFTF(this.domain.getPropFunction(GridWorldDomain.PFATLOCATION));
+		this.hashingFactory = new DiscreteStateHashFactory();
+		this.s = GridWorldDomain.getOneAgentOneLocationState(this.domain);
+		GridWorldDomain.setAgent(this.s, 0, 0);
+		GridWorldDomain.setLocation(this.s, 0, 2, 1);
+	}
+
+	@Test
+	public void testDeepeningMatchesFixedHeight() {
+		for(boolean variableC : new boolean[]{false, true}){
+			SparseSampling fixed = new SparseSampling(this.domain, this.rf, this.tf, 0.9, this.hashingFactory, 4, 3);
+			fixed.setUseVariableCSize(variableC);
+			DPrint.toggleCode(fixed.getDebugCode(), false);
+			fixed.planFromState(this.s);
+
+			SparseSampling deepening = new SparseSampling(this.domain, this.rf, this.tf, 0.9, this.hashingFactory, 4, 3);
+			deepening.setUseVariableCSize(variableC);
+			DPrint.toggleCode(deepening.getDebugCode(), false);
+			deepening.planFromState(this.s, BUDGET);
+			Assert.assertEquals(4, deepening.getLastDepthReached());
+
+			List<QValue> expected = fixed.getQs(this.s);
+			List<QValue> actual = deepening.getQs(this.s);
+			Assert.assertEquals(expected.size(), actual.size());
+			for(QValue q : expected){
+				Assert.assertEquals(q.q, deepening.getQ(this.s, q.a).q, 1e-9);
+			}
+		}
+	}
+
+	@Test
+	public void testDeepeningRootsUseFullC() {
+		final Set<Integer> rootHeights = new HashSet<Integer>();
+		final Set<Integer> rootCs = new HashSet<Integer>();
+		SparseSampling ss = new SparseSampling(this.domain, this.rf, this.tf, 0.9, this.hashingFactory, 4, 20){
+
+			@Override
+			protected int getCAtHeight(int height, int rootHeight) {
+				int c = super.getCAtHeight(height, rootHeight);
+				if(height == rootHeight){
+					rootHeights.add(rootHeight);
+					rootCs.add(c);
+				}
+				return c;
+			}
+		};
+		ss.setUseVariableCSize(true);
+		DPrint.toggleCode(ss.getDebugCode(), false);
+		ss.planFromState(this.s, BUDGET);
+
+		Assert.assertEquals(4, ss.getLastDepthReached());
+		Assert.assertEquals(4, rootHeights.size());
+		Assert.assertEquals(1, rootCs.size());
+		Assert.assertEquals(20, (int)rootCs.iterator().next());
+	}
+
+}
@@ -0,0 +1,83 @@
+package burlap.testing;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import burlap.behavior.singleagent.QValue;
+import burlap.behavior.singleagent.planning.stochastic.sparsesampling.SparseSampling;
+import burlap.behavior.statehashing.DiscreteStateHashFactory;
+import burlap.debugtools.DPrint;
+import burlap.domain.singleagent.gridworld.GridWorldDomain;
+import burlap.oomdp.core.Domain;
+import burlap.oomdp.core.State;
+import burlap.oomdp.core.TerminalFunction;
+import burlap.oomdp.singleagent.RewardFunction;
+import burlap.oomdp.singleagent.common.SinglePFTF;
+import burlap.oomdp.singleagent.common.UniformCostRF;
+
+public class TestSparseSamplingParallel {
+
+	@Test
+	public void testExactBackupsMatchSequential() {
+		//with full Bellman backups the tree does not depend on random sampling, so parallel expansion must reproduce it exactly
+		this.assertParallelMatchesSequential(0.8, -1);
+	}
+
+	@Test
+	public void testSampledBackupsMatchSequential() {
+		//with deterministic transitions every sample of an action is the same outcome
+		this.assertParallelMatchesSequential(1.0, 2);
+	}
+
+
+	protected void assertParallelMatchesSequential(double probSucceed, int c) {
+		GridWorldDomain gw = new GridWorldDomain(11, 11);
+		gw.setMapToFourRooms();
+		gw.setProbSucceedTransitionDynamics(probSucceed);
+		Domain domain = gw.generateDomain();
+		RewardFunction rf = new UniformCostRF();
+		TerminalFunction tf = new SinglePFTF(domain.getPropFunction(GridWorldDomain.PFATLOCATION));
+		DiscreteStateHashFactory hashingFactory = new DiscreteStateHashFactory();
+		State s = GridWorldDomain.getOneAgentOneLocationState(domain);
+		GridWorldDomain.setAgent(s, 0, 0);
+		GridWorldDomain.setLocation(s, 0, 10, 10);
+
+		SparseSampling sequential = new SparseSampling(domain, rf, tf, 0.9, hashingFactory, 6, c);
+		DPrint.toggleCode(sequential.getDebugCode(), false);
+		sequential.planFromState(s);
+
+		ExecutorService singleThread = Executors.newSingleThreadExecutor();
+		try{
+			for(int cutoff = 0; cutoff < 6; cutoff += 2){
+				SparseSampling pool = new SparseSampling(domain, rf, tf, 0.9, hashingFactory, 6, c);
+				pool.setParallelExpansion(3, cutoff);
+				this.assertSameTree(sequential, pool, s);
+				pool.setParallelExpansion(1, cutoff);
+
+				//the submitting thread runs the backups that a busy executor has not started, so one thread cannot starve
+				SparseSampling single = new SparseSampling(domain, rf, tf, 0.9, hashingFactory, 6, c);
+				single.setParallelExpansion(singleThread, cutoff);
+				this.assertSameTree(sequential, single, s);
+			}
+		} finally{
+			singleThread.shutdown();
+		}
+	}
+
+	protected void assertSameTree(SparseSampling expected, SparseSampling actual, State s) {
+		DPrint.toggleCode(actual.getDebugCode(), false);
+		actual.planFromState(s);
+		Assert.assertEquals(expected.getNumberOfStateNodesCreated(), actual.getNumberOfStateNodesCreated());
+		Assert.assertEquals(expected.getNumberOfValueEsitmates(), actual.getNumberOfValueEsitmates());
+		List<QValue> qs = expected.getQs(s);
+		Assert.assertEquals(qs.size(), actual.getQs(s).size());
+		for(QValue q : qs){
+			Assert.assertEquals(q.q, actual.getQ(s, q.a).q, 1e-12);
+		}
+	}
+
+}
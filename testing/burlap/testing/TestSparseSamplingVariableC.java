@@ -0,0 +1,61 @@
+package burlap.testing;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import burlap.behavior.singleagent.QValue;
+import burlap.behavior.singleagent.planning.stochastic.sparsesampling.SparseSampling;
+import burlap.behavior.statehashing.DiscreteStateHashFactory;
+import burlap.debugtools.DPrint;
+import burlap.domain.singleagent.gridworld.GridWorldDomain;
+import burlap.oomdp.core.Domain;
+import burlap.oomdp.core.State;
+import burlap.oomdp.core.TerminalFunction;
+import burlap.oomdp.singleagent.RewardFunction;
+import burlap.oomdp.singleagent.common.SinglePFTF;
+import burlap.oomdp.singleagent.common.UniformCostRF;
+
+public class TestSparseSamplingVariableC {
+
+	@Test
+	public void testVariableCKeepsTreeHeight() {
+		GridWorldDomain gw = new GridWorldDomain(11, 11);
+		gw.setMapToFourRooms();
+		Domain domain = gw.generateDomain();
+		RewardFunction rf = new UniformCostRF();
+		TerminalFunction tf = new SinglePFTF(domain.getPropFunction(GridWorldDomain.PFATLOCATION));
+		DiscreteStateHashFactory hashingFactory = new DiscreteStateHashFactory();
+		State s1 = GridWorldDomain.getOneAgentOneLocationState(domain);
+		GridWorldDomain.setAgent(s1, 0, 0);
+		GridWorldDomain.setLocation(s1, 0, 10, 10);
+		State s2 = s1.copy();
+		GridWorldDomain.setAgent(s2, 2, 1);
+
+		//with deterministic transitions every sample of an action is the same outcome, so the number of samples does not change the Q-values
+		SparseSampling fixed = new SparseSampling(domain, rf, tf, 0.9, hashingFactory, 6, 5);
+		DPrint.toggleCode(fixed.getDebugCode(), false);
+		SparseSampling variable = new SparseSampling(domain, rf, tf, 0.9, hashingFactory, 6, 5);
+		DPrint.toggleCode(variable.getDebugCode(), false);
+		variable.setUseVariableCSize(true);
+
+		variable.planFromState(s1);
+		Assert.assertEquals(6, variable.getH());
+		assertSameQs(fixed.getQs(s1), variable.getQs(s1), variable, s1);
+
+		//the second tree must be built with the same height as the first
+		variable.planFromState(s2);
+		Assert.assertEquals(6, variable.getH());
+		assertSameQs(fixed.getQs(s2), variable.getQs(s2), variable, s2);
+	}
+
+
+	protected static void assertSameQs(List<QValue> expected, List<QValue> actual, SparseSampling planner, State s) {
+		Assert.assertEquals(expected.size(), actual.size());
+		for(QValue q : expected){
+			Assert.assertEquals(q.q, planner.getQ(s, q.a).q, 1e-12);
+		}
+	}
+
+}
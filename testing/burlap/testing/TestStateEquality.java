@@ -0,0 +1,75 @@
+package burlap.testing;
+
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import burlap.domain.singleagent.gridworld.GridWorldDomain;
+import burlap.oomdp.core.Domain;
+import burlap.oomdp.core.State;
+
+public class TestStateEquality {
+	Domain domain;
+	State s;
+
+	@Before
+	public void setup() {
+		GridWorldDomain gw = new GridWorldDomain(11, 11);
+		this.domain = gw.generateDomain();
+		this.s = GridWorldDomain.getOneAgentNLocationState(this.domain, 3);
+		GridWorldDomain.setAgent(this.s, 1, 1);
+		GridWorldDomain.setLocation(this.s, 0, 2, 2);
+		GridWorldDomain.setLocation(this.s, 1, 3, 3);
+		GridWorldDomain.setLocation(this.s, 2, 3, 3);
+	}
+
+	@Test
+	public void testCopyIsEqual() {
+		State c = this.s.copy();
+		Assert.assertEquals(this.s, c);
+		Assert.assertEquals(c, this.s);
+		Assert.assertEquals(4, this.s.getObjectMatchingTo(c, true).size());
+	}
+
+	@Test
+	public void testObjectOrderDoesNotMatter() {
+		//the same locations assigned to differently named objects
+		State c = this.s.copy();
+		GridWorldDomain.setLocation(c, 0, 3, 3);
+		GridWorldDomain.setLocation(c, 2, 2, 2);
+		Assert.assertEquals(this.s, c);
+
+		Map<String, String> matching = this.s.getObjectMatchingTo(c, true);
+		Assert.assertEquals(4, matching.size());
+		Assert.assertEquals("location2", matching.get("location0"));
+		Assert.assertEquals("agent0", matching.get("agent0"));
+	}
+
+	@Test
+	public void testDifferentValuesAreNotEqual() {
+		State c = this.s.copy();
+		GridWorldDomain.setLocation(c, 1, 2, 2); //locations are now {2,2}, {2,2}, {3,3} instead of {2,2}, {3,3}, {3,3}
+		Assert.assertFalse(this.s.equals(c));
+		Assert.assertFalse(c.equals(this.s));
+		Assert.assertTrue(this.s.getObjectMatchingTo(c, true).isEmpty());
+		Assert.assertEquals(3, this.s.getObjectMatchingTo(c, false).size());
+	}
+
+	@Test
+	public void testCachedFormFollowsChanges() {
+		State c = this.s.copy();
+		Assert.assertEquals(this.s, c); //builds and caches the canonical forms of both states
+
+		GridWorldDomain.setAgent(c, 1, 2);
+		Assert.assertFalse(this.s.equals(c));
+
+		GridWorldDomain.setAgent(c, 1, 1);
+		Assert.assertEquals(this.s, c);
+
+		c.removeObject("location2");
+		Assert.assertFalse(this.s.equals(c));
+	}
+
+}
@@ -0,0 +1,100 @@
+package burlap.testing;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import burlap.behavior.statehashing.DiscreteStateHashFactory;
+import burlap.behavior.statehashing.StateHashTuple;
+import burlap.domain.singleagent.gridworld.GridWorldDomain;
+import burlap.oomdp.core.Domain;
+import burlap.oomdp.core.ObjectHashFunction;
+import burlap.oomdp.core.ObjectInstance;
+import burlap.oomdp.core.State;
+
+public class TestStateHashing {
+	Domain domain;
+	State s;
+	DiscreteStateHashFactory hashingFactory;
+
+	@Before
+	public void setup() {
+		GridWorldDomain gw = new GridWorldDomain(11, 11);
+		this.domain = gw.generateDomain();
+		this.s = GridWorldDomain.getOneAgentNLocationState(this.domain, 2);
+		GridWorldDomain.setAgent(this.s, 1, 1);
+		GridWorldDomain.setLocation(this.s, 0, 2, 2);
+		GridWorldDomain.setLocation(this.s, 1, 3, 3);
+		this.hashingFactory = new DiscreteStateHashFactory();
+	}
+
+	@Test
+	public void testEqualStatesHashEqually() {
+		State c = this.s.copy();
+		GridWorldDomain.setLocation(c, 0, 3, 3);
+		GridWorldDomain.setLocation(c, 1, 2, 2);
+
+		StateHashTuple h1 = this.hashingFactory.hashState(this.s);
+		StateHashTuple h2 = this.hashingFactory.hashState(c);
+		Assert.assertEquals(h1.hashCode(), h2.hashCode());
+		Assert.assertEquals(h1, h2);
+	}
+
+	@Test
+	public void testChangedValuesRehash() {
+		State c = this.s.copy();
+		int before = this.hashingFactory.hashState(c).hashCode();
+		GridWorldDomain.setAgent(c, 1, 2);
+		int after = this.hashingFactory.hashState(c).hashCode();
+		Assert.assertFalse(before == after);
+		GridWorldDomain.setAgent(c, 1, 1);
+		Assert.assertEquals(before, this.hashingFactory.hashState(c).hashCode());
+	}
+
+	@Test
+	public void testGridCellsHashDistinctly() {
+		//the old linear volume hash collided heavily for int attributes
+		Set<Integer> codes = new HashSet<Integer>();
+		for(int x = 0; x < 11; x++){
+			for(int y = 0; y < 11; y++){
+				State c = this.s.copy();
+				GridWorldDomain.setAgent(c, x, y);
+				codes.add(this.hashingFactory.hashState(c).hashCode());
+			}
+		}
+		Assert.assertEquals(121, codes.size());
+	}
+
+	@Test
+	public void testCachedObjectHashSurvivesCopy() {
+		CountingHashFunction fn = new CountingHashFunction();
+		ObjectInstance o = this.s.getObject(GridWorldDomain.CLASSAGENT + 0);
+		int code = o.cachedHashCode(fn);
+		Assert.assertEquals(1, fn.calls);
+
+		ObjectInstance c = o.copy();
+		Assert.assertEquals(code, c.cachedHashCode(fn));
+		Assert.assertEquals(1, fn.calls);
+
+		c.setValue(GridWorldDomain.ATTX, 5);
+		c.cachedHashCode(fn);
+		Assert.assertEquals(2, fn.calls);
+		Assert.assertEquals(code, o.cachedHashCode(fn));
+		Assert.assertEquals(2, fn.calls);
+	}
+
+
+	static class CountingHashFunction implements ObjectHashFunction {
+		int calls = 0;
+
+		@Override
+		public int hashObject(ObjectInstance o) {
+			this.calls++;
+			return o.getIntValForAttribute(GridWorldDomain.ATTX) * 31 + o.getIntValForAttribute(GridWorldDomain.ATTY);
+		}
+	}
+
+}
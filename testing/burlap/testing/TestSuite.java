@@ -8,7 +8,33 @@ import org.junit.runners.Suite;
 	TestTesting.class,
 	TestGridWorld.class,
 	TestPlanning.class,
-	TestBlockDude.class
+	TestBlockDude.class,
+	TestSparseSamplingVariableC.class,
+	TestLinearFVVFA.class,
+	TestGradientDescentSarsaLam.class,
+	TestFourierBasisRegression.class,
+	TestRandomFactory.class,
+	TestStateEquality.class,
+	TestStateHashing.class,
+	TestPackedState.class,
+	TestWeightTrees.class,
+	TestRandomStreams.class,
+	TestTournamentCheckpoint.class,
+	TestLSTDQModes.class,
+	TestSparseSamplingDeepening.class,
+	TestLinearVFA.class,
+	TestQTable.class,
+	TestValueIteration.class,
+	TestParallelReachability.class,
+	TestDenseWeightVector.class,
+	TestEligibilityTraces.class,
+	TestCMACHashing.class,
+	TestFourierBasis.class,
+	TestCenterKDTree.class,
+	TestAttributeHandle.class,
+	TestSeriesStatistics.class,
+	TestSparseSamplingParallel.class,
+	TestUCT.class
 })
 public class TestSuite {
 
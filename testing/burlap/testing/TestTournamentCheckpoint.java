@@ -0,0 +1,227 @@
+package burlap.testing;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import burlap.behavior.statehashing.DiscreteStateHashFactory;
+import burlap.behavior.stochasticgame.agents.naiveq.SGNaiveQFactory;
+import burlap.debugtools.DPrint;
+import burlap.domain.stochasticgames.gridgame.GridGame;
+import burlap.oomdp.auxiliary.common.NullAbstraction;
+import burlap.oomdp.stochasticgames.AgentType;
+import burlap.oomdp.stochasticgames.SGDomain;
+import burlap.oomdp.stochasticgames.World;
+import burlap.oomdp.stochasticgames.WorldGenerator;
+import burlap.oomdp.stochasticgames.common.ConstantSGStateGenerator;
+import burlap.oomdp.stochasticgames.tournament.Tournament;
+import burlap.oomdp.stochasticgames.tournament.common.AllPairWiseSameTypeMS;
+
+public class TestTournamentCheckpoint {
+	static final int NUM_AGENTS = 4;
+
+	SGDomain domain;
+	List<File> files = new ArrayList<File>();
+
+	@Before
+	public void setup() {
+		DPrint.toggleCode(25633, false);
+		DPrint.toggleCode(284673923, false);
+		this.domain = (SGDomain)new GridGame().generateDomain();
+	}
+
+	@After
+	public void cleanup() {
+		for(File f : this.files){
+			f.delete();
+		}
+	}
+
+	@Test
+	public void testRestoreFromCompleteCheckpoint() throws IOException {
+		File full = this.tempFile();
+		double [] expected = this.run(full, true, NUM_AGENTS);
+		List<String> lines = readLines(full);
+		Assert.assertEquals(6, lines.size());
+
+		//every match is restored, so nothing is played or written again
+		Assert.assertArrayEquals(expected, this.run(full, true, NUM_AGENTS), 0.);
+		Assert.assertEquals(lines, readLines(full));
+		Assert.assertArrayEquals(expected, this.run(full, false, NUM_AGENTS), 0.);
+		Assert.assertEquals(lines, readLines(full));
+	}
+
+	@Test
+	public void testRestoreAfterPartialLine() throws IOException {
+		File full = this.tempFile();
+		double [] expected = this.run(full, true, NUM_AGENTS);
+		List<String> lines = readLines(full);
+
+		File interrupted = this.tempFile();
+		String partial = writeInterrupted(interrupted, lines, 3);
+
+		Assert.assertArrayEquals(expected, this.run(interrupted, true, NUM_AGENTS), 0.);
+
+		//the partial line is kept on its own line and the three missing matches are appended after it
+		List<String> resumed = readLines(interrupted);
+		Assert.assertEquals(7, resumed.size());
+		Assert.assertEquals(lines.subList(0, 3), resumed.subList(0, 3));
+		Assert.assertEquals(partial, resumed.get(3));
+		for(String line : resumed.subList(4, 7)){
+			Assert.assertTrue(line.endsWith(";"));
+			Assert.assertTrue(lines.contains(line));
+		}
+
+		//a second resume restores everything, including the matches written after the partial line
+		Assert.assertArrayEquals(expected, this.run(interrupted, true, NUM_AGENTS), 0.);
+		Assert.assertEquals(resumed, readLines(interrupted));
+	}
+
+	@Test
+	public void testSequentialRestoreAfterPartialLine() throws IOException {
+		File full = this.tempFile();
+		this.run(full, false, NUM_AGENTS);
+		List<String> lines = readLines(full);
+		Assert.assertEquals(6, lines.size());
+
+		File interrupted = this.tempFile();
+		String partial = writeInterrupted(interrupted, lines, 3);
+
+		//without per-match seeds the replayed matches may play out differently, but the totals must be those of the saved results
+		double [] totals = this.run(interrupted, false, NUM_AGENTS);
+		List<String> resumed = readLines(interrupted);
+		Assert.assertEquals(7, resumed.size());
+		Assert.assertEquals(lines.subList(0, 3), resumed.subList(0, 3));
+		Assert.assertEquals(partial, resumed.get(3));
+
+		List<String> complete = new ArrayList<String>(resumed.subList(0, 3));
+		complete.addAll(resumed.subList(4, 7));
+		Set<Integer> indices = new HashSet<Integer>();
+		for(String line : complete){
+			Assert.assertTrue(line.endsWith(";"));
+			indices.add(Integer.parseInt(line.split(" ")[0]));
+		}
+		Assert.assertEquals(6, indices.size());
+		Assert.assertArrayEquals(sumRewards(complete), totals, 1e-9);
+
+		Assert.assertArrayEquals(totals, this.run(interrupted, false, NUM_AGENTS), 0.);
+		Assert.assertEquals(resumed, readLines(interrupted));
+	}
+
+	@Test
+	public void testCheckpointOfDifferentRosterIsRejected() throws IOException {
+		File f = this.tempFile();
+		this.run(f, false, NUM_AGENTS);
+
+		//three agents play matches {0,1}, {0,2}, {1,2}, but the four agent checkpoint's third match is {0,3}
+		try{
+			this.run(f, false, NUM_AGENTS-1);
+			Assert.fail("A checkpoint saved with a different roster was accepted");
+		} catch(RuntimeException e){
+			Assert.assertTrue(e.getMessage().contains("different agents"));
+		}
+		try{
+			this.run(f, true, NUM_AGENTS-1);
+			Assert.fail("A checkpoint saved with a different roster was accepted");
+		} catch(RuntimeException e){
+			Assert.assertTrue(e.getMessage().contains("different agents"));
+		}
+	}
+
+
+	/**
+	 * Runs a round robin tournament with the given checkpoint file and returns each agent's cumulative reward. Parallel tournaments run on two
+	 * threads with a match seed.
+	 */
+	protected double [] run(File checkpoint, boolean parallel, int numAgents) {
+		//each world gets its own domain, so that its mechanics' random generator is created by the match's thread
+		WorldGenerator wg = new WorldGenerator() {
+			@Override
+			public World generateWorld() {
+				SGDomain d = (SGDomain)new GridGame().generateDomain();
+				return new World(d, new GridGame.GGJointRewardFunction(d), new GridGame.GGTerminalFunction(d),
+						new ConstantSGStateGenerator(GridGame.getCorrdinationGameInitialState(d)), new NullAbstraction());
+			}
+		};
+		AgentType at = GridGame.getStandardGridGameAgentType(this.domain);
+		Tournament t = new Tournament(20, 5, new AllPairWiseSameTypeMS(at, numAgents), wg);
+		for(int i = 0; i < numAgents; i++){
+			t.addAgent(new SGNaiveQFactory(this.domain, 0.99, 0.1 + 0.1*i, 0., new DiscreteStateHashFactory()));
+		}
+		if(parallel){
+			t.setParallelMatches(2);
+			t.setMatchSeed(11);
+		}
+		t.setCheckpointFile(checkpoint.getPath());
+		try{
+			t.runTournament();
+		} finally{
+			t.setParallelMatches(1);
+		}
+
+		double [] rewards = new double[numAgents];
+		for(int i = 0; i < numAgents; i++){
+			rewards[i] = t.getCumulativeRewardFor(i);
+		}
+		return rewards;
+	}
+
+	/**
+	 * Writes the first n lines followed by the first half of line n without a line break, as if the tournament was interrupted while
+	 * writing that line, and returns the partial line.
+	 */
+	protected static String writeInterrupted(File f, List<String> lines, int n) throws IOException {
+		FileWriter out = new FileWriter(f);
+		for(int i = 0; i < n; i++){
+			out.write(lines.get(i) + "\n");
+		}
+		String partial = lines.get(n).substring(0, lines.get(n).length() / 2);
+		out.write(partial);
+		out.close();
+		return partial;
+	}
+
+	/**
+	 * Sums the rewards of each agent in the given checkpoint lines.
+	 */
+	protected static double [] sumRewards(List<String> lines) {
+		double [] sums = new double[NUM_AGENTS];
+		for(String line : lines){
+			String [] comps = line.substring(0, line.length()-1).trim().split(" ");
+			for(int i = 1; i+1 < comps.length; i += 2){
+				sums[Integer.parseInt(comps[i])] += Double.parseDouble(comps[i+1]);
+			}
+		}
+		return sums;
+	}
+
+	protected File tempFile() throws IOException {
+		File f = File.createTempFile("tournament", ".txt");
+		f.delete(); //a run without a checkpoint file starts from scratch
+		this.files.add(f);
+		return f;
+	}
+
+	protected static List<String> readLines(File f) throws IOException {
+		List<String> lines = new ArrayList<String>();
+		BufferedReader in = new BufferedReader(new FileReader(f));
+		String line;
+		while((line = in.readLine()) != null){
+			lines.add(line);
+		}
+		in.close();
+		return lines;
+	}
+
+}
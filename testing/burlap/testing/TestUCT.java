@@ -0,0 +1,198 @@
+package burlap.testing;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import burlap.behavior.singleagent.QValue;
+import burlap.behavior.singleagent.planning.stochastic.montecarlo.uct.UCT;
+import burlap.behavior.singleagent.planning.stochastic.montecarlo.uct.UCT.ParallelRolloutMode;
+import burlap.behavior.singleagent.planning.stochastic.montecarlo.uct.UCTActionNode;
+import burlap.behavior.singleagent.planning.stochastic.montecarlo.uct.UCTStateNode;
+import burlap.behavior.statehashing.DiscreteStateHashFactory;
+import burlap.debugtools.DPrint;
+import burlap.domain.singleagent.gridworld.GridWorldDomain;
+import burlap.oomdp.core.Domain;
+import burlap.oomdp.core.State;
+import burlap.oomdp.core.TerminalFunction;
+import burlap.oomdp.singleagent.RewardFunction;
+import burlap.oomdp.singleagent.common.SinglePFTF;
+import burlap.oomdp.singleagent.common.UniformCostRF;
+
+public class TestUCT {
+	Domain domain;
+	RewardFunction rf;
+	TerminalFunction tf;
+	DiscreteStateHashFactory hashingFactory;
+	State s;
+
+	@Before
+	public void setup() {
+		//an open deterministic grid where the goal is straight east of the agent
+		GridWorldDomain gw = new GridWorldDomain(5, 5);
+		this.domain = gw.generateDomain();
+		this.rf = new UniformCostRF();
+		this.tf = new SinglePFTF(this.domain.getPropFunction(GridWorldDomain.PFATLOCATION));
+		this.hashingFactory = new DiscreteStateHashFactory();
+		this.s = GridWorldDomain.getOneAgentOneLocationState(this.domain);
+		GridWorldDomain.setAgent(this.s, 0, 0);
+		GridWorldDomain.setLocation(this.s, 0, 4, 0);
+	}
+
+	@Test
+	public void testSequentialRollouts() {
+		UCT uct = this.newPlanner();
+		uct.planFromState(this.s);
+		this.assertRootStatistics(uct, 2000);
+		this.assertGreedyAction(uct, GridWorldDomain.ACTIONEAST);
+	}
+
+	@Test
+	public void testRootParallelRollouts() {
+		UCT uct = this.newPlanner();
+		uct.setParallelRollouts(3, ParallelRolloutMode.ROOT);
+		try{
+			uct.planFromState(this.s);
+			//the merged root counts every rollout of every worker tree exactly once
+			this.assertRootStatistics(uct, 2000);
+			this.assertGreedyAction(uct, GridWorldDomain.ACTIONEAST);
+		} finally{
+			uct.setParallelRollouts(1, ParallelRolloutMode.ROOT);
+		}
+	}
+
+	@Test
+	public void testTreeParallelRollouts() {
+		UCT uct = this.newPlanner();
+		uct.setParallelRollouts(3, ParallelRolloutMode.TREE);
+		try{
+			uct.planFromState(this.s);
+			this.assertRootStatistics(uct, 2000);
+			this.assertGreedyAction(uct, GridWorldDomain.ACTIONEAST);
+
+			//a virtual loss far outside the range of returns would show in the averages if any of it were left behind
+			uct.resetPlannerResults();
+			uct.setVirtualLoss(1000.);
+			uct.planFromState(this.s);
+			this.assertRootStatistics(uct, 2000);
+		} finally{
+			uct.setParallelRollouts(1, ParallelRolloutMode.TREE);
+		}
+	}
+
+	@Test
+	public void testReuseSubtree() {
+		UCT uct = this.newPlanner();
+		uct.setReuseSubtrees(true);
+		uct.planFromState(this.s);
+
+		UCTStateNode child = this.successor(uct.getRoot(), GridWorldDomain.ACTIONEAST);
+		int childVisits = child.n;
+		Assert.assertTrue(childVisits > 0);
+
+		uct.planFromState(child.state.s);
+		Assert.assertSame(child, uct.getRoot());
+		Assert.assertEquals(0, uct.getRoot().depth);
+		//the new rollouts are added to the statistics the node had as a child of the old root
+		Assert.assertEquals(childVisits + 2000, uct.getRoot().n);
+		this.assertSuccessorDepths(uct.getRoot());
+
+		//without reuse the tree is rebuilt for the new state
+		UCT fresh = this.newPlanner();
+		fresh.planFromState(this.s);
+		UCTStateNode freshChild = this.successor(fresh.getRoot(), GridWorldDomain.ACTIONEAST);
+		fresh.planFromState(freshChild.state.s);
+		Assert.assertNotSame(freshChild, fresh.getRoot());
+		Assert.assertEquals(2000, fresh.getRoot().n);
+	}
+
+	@Test
+	public void testReuseSubtreeInTreeParallelMode() {
+		UCT uct = this.newPlanner();
+		uct.setReuseSubtrees(true);
+		uct.setParallelRollouts(3, ParallelRolloutMode.TREE);
+		try{
+			uct.planFromState(this.s);
+			UCTStateNode child = this.successor(uct.getRoot(), GridWorldDomain.ACTIONEAST);
+			int childVisits = child.n;
+			uct.planFromState(child.state.s);
+			Assert.assertSame(child, uct.getRoot());
+			Assert.assertEquals(childVisits + 2000, uct.getRoot().n);
+			this.assertSuccessorDepths(uct.getRoot());
+		} finally{
+			uct.setParallelRollouts(1, ParallelRolloutMode.TREE);
+		}
+	}
+
+	@Test
+	public void testRootParallelTreesAreNotReused() {
+		UCT uct = this.newPlanner();
+		uct.setReuseSubtrees(true);
+		uct.setParallelRollouts(3, ParallelRolloutMode.ROOT);
+		try{
+			uct.planFromState(this.s);
+			UCTStateNode child = this.successor(uct.getRoot(), GridWorldDomain.ACTIONEAST);
+			uct.planFromState(child.state.s);
+			Assert.assertNotSame(child, uct.getRoot());
+			Assert.assertEquals(2000, uct.getRoot().n);
+		} finally{
+			uct.setParallelRollouts(1, ParallelRolloutMode.ROOT);
+		}
+	}
+
+
+	/**
+	 * Returns a planner whose exploration bias is on the scale of the returns, so that a bump into a wall early in planning does not lock in a worse action.
+	 */
+	protected UCT newPlanner() {
+		UCT uct = new UCT(this.domain, this.rf, this.tf, 0.99, this.hashingFactory, 10, 2000, 10);
+		DPrint.toggleCode(uct.getDebugCode(), false);
+		return uct;
+	}
+
+	/**
+	 * Asserts that the root of the planner's tree was visited by the given number of rollouts and that the action nodes hold returns
+	 * that are possible in the grid.
+	 */
+	protected void assertRootStatistics(UCT uct, int numRollouts) {
+		UCTStateNode root = uct.getRoot();
+		Assert.assertEquals(numRollouts, root.n);
+		int sum = 0;
+		for(UCTActionNode anode : root.actionNodes){
+			sum += anode.n;
+			if(anode.n > 0){
+				Assert.assertTrue(anode.averageReturn() <= -1.);
+				Assert.assertTrue(anode.averageReturn() >= -10.);
+			}
+		}
+		Assert.assertEquals(numRollouts, sum);
+	}
+
+	protected void assertGreedyAction(UCT uct, String actionName) {
+		QValue best = null;
+		for(QValue q : uct.getQs(this.s)){
+			if(best == null || q.q > best.q){
+				best = q;
+			}
+		}
+		Assert.assertEquals(actionName, best.a.actionName());
+	}
+
+	protected UCTStateNode successor(UCTStateNode node, String actionName) {
+		for(UCTActionNode anode : node.actionNodes){
+			if(anode.action.actionName().equals(actionName)){
+				return anode.getAllSuccessors().get(0);
+			}
+		}
+		throw new RuntimeException("No action node for " + actionName);
+	}
+
+	protected void assertSuccessorDepths(UCTStateNode root) {
+		for(UCTActionNode anode : root.actionNodes){
+			for(UCTStateNode successor : anode.getAllSuccessors()){
+				Assert.assertEquals(root.depth + 1, successor.depth);
+			}
+		}
+	}
+
+}
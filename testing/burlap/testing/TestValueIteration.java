@@ -0,0 +1,101 @@
+package burlap.testing;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import burlap.behavior.singleagent.QValue;
+import burlap.behavior.singleagent.planning.ValueFunctionPlanner;
+import burlap.behavior.singleagent.planning.stochastic.policyiteration.PolicyIteration;
+import burlap.behavior.singleagent.planning.stochastic.valueiteration.PrioritizedSweeping;
+import burlap.behavior.singleagent.planning.stochastic.valueiteration.ValueIteration;
+import burlap.behavior.singleagent.planning.stochastic.valueiteration.ValueIteration.ParallelSweepMode;
+import burlap.behavior.statehashing.DiscreteStateHashFactory;
+import burlap.debugtools.DPrint;
+import burlap.domain.singleagent.gridworld.GridWorldDomain;
+import burlap.oomdp.core.Domain;
+import burlap.oomdp.core.State;
+import burlap.oomdp.core.TerminalFunction;
+import burlap.oomdp.singleagent.RewardFunction;
+import burlap.oomdp.singleagent.common.SinglePFTF;
+import burlap.oomdp.singleagent.common.UniformCostRF;
+
+public class TestValueIteration {
+	public static final double delta = 1e-8;
+	Domain domain;
+	RewardFunction rf;
+	TerminalFunction tf;
+	DiscreteStateHashFactory hashingFactory;
+	State initialState;
+
+	@Before
+	public void setup() {
+		GridWorldDomain gw = new GridWorldDomain(11, 11);
+		gw.setMapToFourRooms();
+		gw.setProbSucceedTransitionDynamics(0.8);
+		this.domain = gw.generateDomain();
+		this.rf = new UniformCostRF();
+		this.tf = new SinglePFTF(this.domain.getPropFunction(GridWorldDomain.PFATLOCATION));
+		this.hashingFactory = new DiscreteStateHashFactory();
+		this.initialState = GridWorldDomain.getOneAgentOneLocationState(this.domain);
+		GridWorldDomain.setAgent(this.initialState, 0, 0);
+		GridWorldDomain.setLocation(this.initialState, 0, 10, 10);
+	}
+
+	@Test
+	public void testIndexedModelMatchesMaps() {
+		ValueIteration mapVI = new ValueIteration(this.domain, this.rf, this.tf, 0.9, this.hashingFactory, 1e-10, 1000);
+		ValueIteration indexedVI = new ValueIteration(this.domain, this.rf, this.tf, 0.9, this.hashingFactory, 1e-10, 1000);
+		indexedVI.toggleUseIndexedStateModel(true);
+		this.assertSameValues(this.plan(mapVI), this.plan(indexedVI), delta);
+
+		PolicyIteration mapPI = new PolicyIteration(this.domain, this.rf, this.tf, 0.9, this.hashingFactory, 1e-6, 200, 100);
+		PolicyIteration indexedPI = new PolicyIteration(this.domain, this.rf, this.tf, 0.9, this.hashingFactory, 1e-6, 200, 100);
+		indexedPI.toggleUseIndexedStateModel(true);
+		//evaluation sweeps update states in place in a different order, so the values agree to within the evaluation's convergence bound
+		this.assertSameValues(this.plan(mapPI), this.plan(indexedPI), 1e-5);
+
+		//prioritized sweeping converges to the same fixed point, but the order of its backups depends on the storage
+		PrioritizedSweeping indexedPS = new PrioritizedSweeping(this.domain, this.rf, this.tf, 0.9, this.hashingFactory, 1e-8, 1000000);
+		indexedPS.toggleUseIndexedStateModel(true);
+		this.assertSameValues(mapVI, this.plan(indexedPS), 1e-5);
+	}
+
+	@Test
+	public void testParallelSweepsMatchSequential() {
+		ValueIteration sequential = new ValueIteration(this.domain, this.rf, this.tf, 0.9, this.hashingFactory, 1e-10, 1000);
+		this.plan(sequential);
+		for(ParallelSweepMode mode : ParallelSweepMode.values()){
+			ValueIteration parallel = new ValueIteration(this.domain, this.rf, this.tf, 0.9, this.hashingFactory, 1e-10, 1000);
+			parallel.setParallelSweeps(3, mode);
+			try{
+				this.assertSameValues(sequential, this.plan(parallel), delta);
+			} finally{
+				parallel.setParallelSweeps(1, mode);
+			}
+		}
+	}
+
+
+	protected ValueFunctionPlanner plan(ValueFunctionPlanner planner) {
+		DPrint.toggleCode(planner.getDebugCode(), false);
+		planner.planFromState(this.initialState);
+		return planner;
+	}
+
+	protected void assertSameValues(ValueFunctionPlanner expected, ValueFunctionPlanner actual, double tolerance) {
+		List<State> states = expected.getAllStates();
+		Assert.assertEquals(104, states.size());
+		Assert.assertEquals(states.size(), actual.getAllStates().size());
+		for(State s : states){
+			Assert.assertTrue(actual.hasComputedValueFor(s));
+			Assert.assertEquals(expected.value(s), actual.value(s), tolerance);
+			for(QValue q : expected.getQs(s)){
+				Assert.assertEquals(q.q, actual.getQ(s, q.a).q, tolerance);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,152 @@
+package burlap.testing;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import burlap.datastructures.ArrayStochasticTree;
+import burlap.datastructures.FenwickTree;
+import burlap.datastructures.SumTree;
+import burlap.datastructures.WeightTree;
+
+public class TestWeightTrees {
+
+	@Test
+	public void testSumTreeMatchesArray() {
+		this.checkMatchesArray(new SumTree(3));
+	}
+
+	@Test
+	public void testFenwickTreeMatchesArray() {
+		this.checkMatchesArray(new FenwickTree(3));
+	}
+
+	@Test
+	public void testSumTreeSampling() {
+		this.checkSampling(new SumTree());
+	}
+
+	@Test
+	public void testFenwickTreeSampling() {
+		this.checkSampling(new FenwickTree());
+	}
+
+	@Test
+	public void testFenwickRebuild() {
+		FenwickTree ft = new FenwickTree(8);
+		for(int i = 0; i < 8; i++){
+			ft.set(i, i+1);
+		}
+		ft.rebuild();
+		Assert.assertEquals(36., ft.total(), 1e-12);
+		Assert.assertEquals(6., ft.prefixSum(3), 1e-12);
+		Assert.assertEquals(3, ft.find(6.5));
+	}
+
+	@Test
+	public void testArrayStochasticTreeSampling() {
+		this.checkStochasticTree(new ArrayStochasticTree<Integer>(new SumTree()));
+		this.checkStochasticTree(new ArrayStochasticTree<Integer>(new FenwickTree()));
+	}
+
+
+	/**
+	 * Sets many random weights, some of them zero, past the initial capacity and checks the totals and that
+	 * find returns the index whose cumulative weight range contains the value.
+	 */
+	protected void checkMatchesArray(WeightTree wt) {
+		Random rand = new Random(1);
+		int n = 1000;
+		double [] ref = new double[n];
+		for(int it = 0; it < 50000; it++){
+			int i = rand.nextInt(n);
+			double w = rand.nextDouble() < 0.2 ? 0. : rand.nextDouble();
+			wt.set(i, w);
+			ref[i] = w;
+		}
+		Assert.assertTrue(wt.capacity() >= n);
+
+		double total = 0.;
+		for(int i = 0; i < n; i++){
+			Assert.assertEquals(ref[i], wt.get(i), 0.);
+			total += ref[i];
+		}
+		Assert.assertEquals(total, wt.total(), 1e-9);
+
+		double cumulative = 0.;
+		int last = -1;
+		for(int i = 0; i < n; i++){
+			if(ref[i] > 0.){
+				Assert.assertEquals(i, wt.find(cumulative + ref[i]*0.5));
+				last = i;
+			}
+			cumulative += ref[i];
+		}
+
+		//values past the total resolve to the last positive weight instead of an empty index
+		Assert.assertEquals(last, wt.find(total * 2.));
+
+		wt.clear();
+		Assert.assertEquals(0., wt.total(), 0.);
+		Assert.assertEquals(-1, wt.find(0.));
+	}
+
+
+	/**
+	 * Checks that sampled frequencies match the normalized weights and that zero weights are never sampled.
+	 */
+	protected void checkSampling(WeightTree wt) {
+		double [] weights = new double[]{1., 0., 2., 3., 0., 4.};
+		for(int i = 0; i < weights.length; i++){
+			wt.set(i, weights[i]);
+		}
+		Random rand = new Random(2);
+		int n = 200000;
+		int [] counts = new int[weights.length];
+		for(int i = 0; i < n; i++){
+			counts[wt.sample(rand)]++;
+		}
+		for(int i = 0; i < weights.length; i++){
+			Assert.assertEquals(weights[i] / 10., counts[i] / (double)n, 0.01);
+		}
+		Assert.assertEquals(0, counts[1]);
+		Assert.assertEquals(0, counts[4]);
+	}
+
+
+	protected void checkStochasticTree(ArrayStochasticTree<Integer> st) {
+		st.setRandom(new Random(5));
+		for(int i = 0; i < 10; i++){
+			st.insert(i+1, i);
+		}
+		st.remove(3);
+		st.remove(9);
+		st.changeWeight(0, 10.);
+		Assert.assertEquals(8, st.size());
+		Assert.assertEquals(10. + 2+3+5+6+7+8+9, st.totalWeight(), 1e-9);
+
+		int n = 200000;
+		int [] counts = new int[10];
+		for(int i = 0; i < n; i++){
+			counts[st.sample()]++;
+		}
+		double total = st.totalWeight();
+		for(int i = 0; i < 10; i++){
+			Assert.assertEquals(st.getWeight(i) / total, counts[i] / (double)n, 0.01);
+		}
+		Assert.assertEquals(0, counts[3]);
+		Assert.assertEquals(0, counts[9]);
+
+		Set<Integer> polled = new HashSet<Integer>();
+		Integer el;
+		while((el = st.poll()) != null){
+			Assert.assertTrue(polled.add(el));
+		}
+		Assert.assertEquals(8, polled.size());
+		Assert.assertEquals(0, st.size());
+	}
+
+}